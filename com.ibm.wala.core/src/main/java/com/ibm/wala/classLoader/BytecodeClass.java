@@ -36,11 +36,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A class representing which originates in some form of bytecode.
@@ -100,7 +100,8 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
   /** hash code; cached here for efficiency */
   protected int hashCode;
 
-  private final HashMap<Atom, IField> fieldMap = HashMapFactory.make(5);
+  /** fields found by name, filled as they are looked up, possibly by several threads at once */
+  private final Map<Atom, IField> fieldMap = new ConcurrentHashMap<>(5);
 
   /** A warning for when we get a class not found exception */
   private static class ClassNotFoundWarning extends Warning {
@@ -305,6 +306,18 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
     return allInterfaces;
   }
 
+  /**
+   * Forget the supertypes, and the fields and methods inherited from them, which this class looked
+   * up so far, e.g. after some of its supertypes were replaced in the class hierarchy.
+   */
+  public void clearSupertypeCaches() {
+    superclassComputed = false;
+    superClass = null;
+    allInterfaces = null;
+    inheritCache = null;
+    fieldMap.clear();
+  }
+
   @Override
   public Collection<IField> getDeclaredInstanceFields() {
     if (instanceFields == null) {
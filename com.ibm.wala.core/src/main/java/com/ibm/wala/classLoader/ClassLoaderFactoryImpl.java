@@ -33,9 +33,25 @@ public class ClassLoaderFactoryImpl implements ClassLoaderFactory {
   /** A Mapping from ClassLoaderReference to IClassLoader */
   private final HashMap<ClassLoaderReference, IClassLoader> map = HashMapFactory.make(3);
 
+  /** number of threads with which each {@link ClassLoaderImpl} reads its class files */
+  private final int parallelism;
+
   /** @param exclusions A set of classes that class loaders should pretend don't exist. */
   public ClassLoaderFactoryImpl(SetOfClasses exclusions) {
+    this(exclusions, 1);
+  }
+
+  /**
+   * @param exclusions A set of classes that class loaders should pretend don't exist.
+   * @param parallelism number of threads with which each {@link ClassLoaderImpl} reads and parses
+   *     its class files, see {@link ClassLoaderImpl#setParallelism(int)}
+   */
+  public ClassLoaderFactoryImpl(SetOfClasses exclusions, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+    }
     this.exclusions = exclusions;
+    this.parallelism = parallelism;
   }
 
   /**
@@ -128,6 +144,9 @@ public class ClassLoaderFactoryImpl implements ClassLoaderFactory {
                   classLoaderReference, scope.getArrayClassLoader(), parent, exclusions, cha);
         }
       }
+    if (cl instanceof ClassLoaderImpl) {
+      ((ClassLoaderImpl) cl).setParallelism(parallelism);
+    }
     cl.init(scope.getModules(classLoaderReference));
     return cl;
   }
@@ -152,6 +171,10 @@ public class ClassLoaderFactoryImpl implements ClassLoaderFactory {
     }
   }
 
+  public int getParallelism() {
+    return parallelism;
+  }
+
   /** @return the set of classes that will be ignored. */
   public SetOfClasses getExclusions() {
     return exclusions;
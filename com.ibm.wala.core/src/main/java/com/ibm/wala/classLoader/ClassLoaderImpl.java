@@ -41,9 +41,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
+import java.util.stream.IntStream;
 
 /** A class loader that reads class definitions from a set of Modules. */
 public class ClassLoaderImpl implements IClassLoader {
@@ -72,6 +74,9 @@ public class ClassLoaderImpl implements IClassLoader {
   /** an object to delegate to for loading of array classes */
   private final ArrayClassLoader arrayClassLoader;
 
+  /** number of threads which read class files in {@link #init(List)} */
+  private int parallelism = 1;
+
   /**
    * @param loader class loader reference identifying this loader
    * @param parent parent loader for delegation
@@ -205,39 +210,83 @@ public class ClassLoaderImpl implements IClassLoader {
     }
   }
 
-  /** Set up the set of classes loaded by this object. */
+  /**
+   * @return the name, with a leading 'L', of the class defined by entry, or null if entry is not a
+   *     class file which should be loaded
+   */
   @SuppressWarnings("unused")
-  private void loadAllClasses(
-      Collection<ModuleEntry> moduleEntries, Map<String, Object> fileContents, boolean isJMODType) {
-    for (ModuleEntry entry : moduleEntries) {
-      // java11 support for jmod files
-      if (!entry.isClassFile()
-          || (isJMODType && entry.getClassName().startsWith("classes/module-info"))) {
-        continue;
-      }
+  private String getClassNameToLoad(ModuleEntry entry, boolean isJMODType) {
+    // java11 support for jmod files
+    if (!entry.isClassFile()
+        || (isJMODType && entry.getClassName().startsWith("classes/module-info"))) {
+      return null;
+    }
 
-      @SuppressWarnings("NonConstantStringShouldBeStringBuffer")
-      String className = entry.getClassName().replace('.', '/');
+    @SuppressWarnings("NonConstantStringShouldBeStringBuffer")
+    String className = entry.getClassName().replace('.', '/');
 
-      // java11 support for jmod files
-      if (isJMODType && className.startsWith("classes/")) {
-        className = className.replace("classes/", "");
-      }
+    // java11 support for jmod files
+    if (isJMODType && className.startsWith("classes/")) {
+      className = className.replace("classes/", "");
+    }
 
+    if (DEBUG_LEVEL > 0) {
+      System.err.println("Consider " + className);
+    }
+
+    if (exclusions != null && exclusions.contains(className)) {
       if (DEBUG_LEVEL > 0) {
-        System.err.println("Consider " + className);
+        System.err.println("Excluding " + className);
       }
+      return null;
+    }
+    return 'L' + className;
+  }
 
-      if (exclusions != null && exclusions.contains(className)) {
-        if (DEBUG_LEVEL > 0) {
-          System.err.println("Excluding " + className);
-        }
-        continue;
+  /**
+   * Read the class defined by entry.
+   *
+   * @return the class, or null if entry does not define the class named T
+   */
+  private ShrikeClass readClass(ModuleEntry entry, TypeName T, Map<String, Object> fileContents)
+      throws InvalidClassFileException {
+    ShrikeClassReaderHandle entryReader = new ShrikeClassReaderHandle(entry);
+    // try to read from memory
+    ShrikeClassReaderHandle reader = entryReader;
+    if (fileContents != null) {
+      final Object contents = fileContents.get(entry.getName());
+      if (contents != null) {
+        // reader that uses the in-memory bytes
+        reader = new ByteArrayReaderHandle(entry, (byte[]) contents);
       }
+    }
+    ShrikeClass tmpKlass = new ShrikeClass(reader, this, cha);
+    if (!tmpKlass.getReference().getName().equals(T)) {
+      return null;
+    }
+    // always used the reader based on the entry after this point,
+    // so we can null out and re-read class file contents
+    return reader == entryReader ? tmpKlass : new ShrikeClass(entryReader, this, cha);
+  }
 
-      ShrikeClassReaderHandle entryReader = new ShrikeClassReaderHandle(entry);
-
-      className = 'L' + className;
+  /** Set up the set of classes loaded by this object. */
+  @SuppressWarnings("unused")
+  private void loadAllClasses(
+      Collection<ModuleEntry> moduleEntries, Map<String, Object> fileContents, boolean isJMODType) {
+    if (parallelism > 1) {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        loadAllClassesInParallel(moduleEntries, fileContents, isJMODType, pool);
+      } finally {
+        pool.shutdown();
+      }
+      return;
+    }
+    for (ModuleEntry entry : moduleEntries) {
+      String className = getClassNameToLoad(entry, isJMODType);
+      if (className == null) {
+        continue;
+      }
       if (DEBUG_LEVEL > 0) {
         System.err.println("Load class " + className);
       }
@@ -248,20 +297,9 @@ public class ClassLoaderImpl implements IClassLoader {
         } else if (parent != null && parent.lookupClass(T) != null) {
           Warnings.add(MultipleImplementationsWarning.create(className));
         } else {
-          // try to read from memory
-          ShrikeClassReaderHandle reader = entryReader;
-          if (fileContents != null) {
-            final Object contents = fileContents.get(entry.getName());
-            if (contents != null) {
-              // reader that uses the in-memory bytes
-              reader = new ByteArrayReaderHandle(entry, (byte[]) contents);
-            }
-          }
-          ShrikeClass tmpKlass = new ShrikeClass(reader, this, cha);
-          if (tmpKlass.getReference().getName().equals(T)) {
-            // always used the reader based on the entry after this point,
-            // so we can null out and re-read class file contents
-            loadedClasses.put(T, new ShrikeClass(entryReader, this, cha));
+          ShrikeClass klass = readClass(entry, T, fileContents);
+          if (klass != null) {
+            loadedClasses.put(T, klass);
             if (DEBUG_LEVEL > 1) {
               System.err.println("put " + T + ' ');
             }
@@ -278,6 +316,58 @@ public class ClassLoaderImpl implements IClassLoader {
     }
   }
 
+  /**
+   * Like the sequential loop of {@link #loadAllClasses}, but the class files are read and parsed in
+   * parallel first. The classes are then registered in the order of moduleEntries, so the loaded
+   * classes and the warnings are the same as when loading sequentially.
+   */
+  private void loadAllClassesInParallel(
+      Collection<ModuleEntry> moduleEntries,
+      Map<String, Object> fileContents,
+      boolean isJMODType,
+      ForkJoinPool pool) {
+    ModuleEntry[] entries = moduleEntries.toArray(new ModuleEntry[0]);
+    String[] classNames = new String[entries.length];
+    ShrikeClass[] classes = new ShrikeClass[entries.length];
+    pool.submit(
+            () ->
+                IntStream.range(0, entries.length)
+                    .parallel()
+                    .forEach(
+                        i -> {
+                          classNames[i] = getClassNameToLoad(entries[i], isJMODType);
+                          if (classNames[i] != null) {
+                            try {
+                              classes[i] =
+                                  readClass(
+                                      entries[i],
+                                      TypeName.string2TypeName(classNames[i]),
+                                      fileContents);
+                            } catch (InvalidClassFileException e) {
+                              // leave null, and warn below
+                            }
+                          }
+                        }))
+        .join();
+
+    for (int i = 0; i < entries.length; i++) {
+      String className = classNames[i];
+      if (className == null) {
+        continue;
+      }
+      TypeName T = TypeName.string2TypeName(className);
+      if (loadedClasses.get(T) != null) {
+        Warnings.add(MultipleImplementationsWarning.create(className));
+      } else if (parent != null && parent.lookupClass(T) != null) {
+        Warnings.add(MultipleImplementationsWarning.create(className));
+      } else if (classes[i] != null) {
+        loadedClasses.put(T, classes[i]);
+      } else {
+        Warnings.add(InvalidClassFile.create(className));
+      }
+    }
+  }
+
   @SuppressWarnings("unused")
   private Map<String, Object> getAllClassAndSourceFileContents(
       byte[] jarFileContents, String fileName, Map<String, Map<String, Long>> entrySizes) {
@@ -442,6 +532,23 @@ public class ClassLoaderImpl implements IClassLoader {
     }
   }
 
+  /**
+   * Set the number of threads which read and parse class files when this loader is initialized. The
+   * set of loaded classes does not depend on it.
+   *
+   * @throws IllegalArgumentException if parallelism is less than 1
+   */
+  public void setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+    }
+    this.parallelism = parallelism;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
   /**
    * Initialize internal data structures
    *
@@ -659,6 +766,24 @@ public class ClassLoaderImpl implements IClassLoader {
     toRemove.stream().map(IClass::getName).peek(loadedClasses::remove).forEach(sourceMap::remove);
   }
 
+  /**
+   * replace loaded classes with new versions of the same names, see {@link
+   * com.ibm.wala.ipa.cha.ClassHierarchy#replaceClasses(Collection)}
+   *
+   * @param replacements Collection&lt;IClass&gt;
+   */
+  public void replaceAll(Collection<IClass> replacements) {
+    if (replacements == null) {
+      throw new IllegalArgumentException("replacements is null");
+    }
+    for (IClass klass : replacements) {
+      if (!loadedClasses.containsKey(klass.getName())) {
+        throw new IllegalArgumentException("no class to replace with " + klass);
+      }
+      loadedClasses.put(klass.getName(), klass);
+    }
+  }
+
   @Override
   public SSAInstructionFactory getInstructionFactory() {
     return getLanguage().instructionFactory();
@@ -70,7 +70,7 @@ public class ReferenceCleanser {
     }
     AnalysisCacheImpl cache = getAnalysisCache();
     if (cache != null) {
-      cache.getSSACache().wipe();
+      cache.getSSACache().wipeUnbounded();
     }
     IClassHierarchy cha = getClassHierarchy();
     if (cha != null) {
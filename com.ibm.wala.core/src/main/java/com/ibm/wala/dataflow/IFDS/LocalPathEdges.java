@@ -19,6 +19,8 @@ import com.ibm.wala.util.intset.IntPair;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.MutableSparseIntSet;
 import com.ibm.wala.util.intset.SparseIntSet;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Iterator;
 
 /** A set of path edges for a particular procedure entry s_p. */
@@ -139,6 +141,20 @@ public class LocalPathEdges {
     }
   }
 
+  /**
+   * Record a same-level realizable path from (s_p,d_i) to (n,d_j) unless it is already recorded.
+   *
+   * @param n local block number of the basic block n
+   * @return true iff the path edge was not recorded before
+   */
+  public boolean addPathEdgeIfAbsent(int i, int n, int j) {
+    if (contains(i, n, j)) {
+      return false;
+    }
+    addPathEdge(i, n, j);
+    return true;
+  }
+
   /**
    * Record that in this procedure we've discovered a same-level realizable path from (s_p,i) to
    * (n,i)
@@ -462,4 +478,42 @@ public class LocalPathEdges {
     }
     return result;
   }
+
+  /**
+   * Write each path edge &lt;s_p, i&gt; -&gt; &lt;n, j&gt; as the ints i, n and j, so that {@link
+   * #addPathEdge(int, int, int)} can restore them.
+   *
+   * @return the number of path edges written
+   */
+  int writePathEdges(DataOutput out) throws IOException {
+    int count = 0;
+    for (IntIterator it = paths.iterateIndices(); it.hasNext(); ) {
+      int j = it.next();
+      for (IntPair p : paths.get(j)) {
+        out.writeInt(p.getY());
+        out.writeInt(p.getX());
+        out.writeInt(j);
+        count++;
+      }
+    }
+    for (IntIterator it = identityPaths.iterateIndices(); it.hasNext(); ) {
+      int i = it.next();
+      for (IntIterator ns = identityPaths.get(i).intIterator(); ns.hasNext(); ) {
+        out.writeInt(i);
+        out.writeInt(ns.next());
+        out.writeInt(i);
+        count++;
+      }
+    }
+    for (IntIterator it = zeroPaths.iterateIndices(); it.hasNext(); ) {
+      int j = it.next();
+      for (IntIterator ns = zeroPaths.get(j).intIterator(); ns.hasNext(); ) {
+        out.writeInt(0);
+        out.writeInt(ns.next());
+        out.writeInt(j);
+        count++;
+      }
+    }
+    return count;
+  }
 }
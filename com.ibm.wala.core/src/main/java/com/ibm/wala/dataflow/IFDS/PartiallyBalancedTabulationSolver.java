@@ -11,13 +11,13 @@
 package com.ibm.wala.dataflow.IFDS;
 
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
-import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.Pair;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntSet;
 import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utilities for dealing with tabulation with partially balanced parentheses.
@@ -34,7 +34,7 @@ public class PartiallyBalancedTabulationSolver<T, P, F> extends TabulationSolver
     return new PartiallyBalancedTabulationSolver<>(p, monitor);
   }
 
-  private final Collection<Pair<T, Integer>> unbalancedSeeds = HashSetFactory.make();
+  private final Collection<Pair<T, Integer>> unbalancedSeeds = ConcurrentHashMap.newKeySet();
 
   protected PartiallyBalancedTabulationSolver(
       PartiallyBalancedTabulationProblem<T, P, F> p, IProgressMonitor monitor) {
@@ -45,34 +45,42 @@ public class PartiallyBalancedTabulationSolver<T, P, F> extends TabulationSolver
   protected boolean propagate(T s_p, int i, T n, int j) {
     boolean result = super.propagate(s_p, i, n, j);
     if (result && wasUsedAsUnbalancedSeed(s_p, i) && supergraph.isExit(n)) {
-      // j was reached from an entry seed. if there are any facts which are reachable from j, even
-      // without
-      // balanced parentheses, we can use these as new seeds.
-      for (T retSite : Iterator2Iterable.make(supergraph.getSuccNodes(n))) {
-        PartiallyBalancedTabulationProblem<T, P, F> problem =
-            (PartiallyBalancedTabulationProblem<T, P, F>) getProblem();
-        IFlowFunction f = problem.getFunctionMap().getUnbalancedReturnFlowFunction(n, retSite);
-        // for each fact that can be reached by the return flow ...
-        if (f instanceof IUnaryFlowFunction) {
-          IUnaryFlowFunction uf = (IUnaryFlowFunction) f;
-          IntSet facts = uf.getTargets(j);
-          if (facts != null) {
-            for (IntIterator it4 = facts.intIterator(); it4.hasNext(); ) {
-              int d3 = it4.next();
-              // d3 would be reached if we ignored parentheses. use it as a new seed.
-              T fakeEntry = problem.getFakeEntry(retSite);
-              PathEdge<T> seed = PathEdge.createPathEdge(fakeEntry, d3, retSite, d3);
-              addSeed(seed);
-              newUnbalancedExplodedReturnEdge(s_p, i, n, j);
-            }
+      propagateUnbalancedReturn(s_p, i, n, j);
+    }
+    return result;
+  }
+
+  /**
+   * A path edge &lt;s_p, i&gt; -&gt; &lt;n, j&gt; reaches the exit n, and &lt;s_p, i&gt; was an
+   * unbalanced seed.
+   */
+  private void propagateUnbalancedReturn(T s_p, int i, T n, int j) {
+    // j was reached from an entry seed. if there are any facts which are reachable from j, even
+    // without
+    // balanced parentheses, we can use these as new seeds.
+    for (T retSite : Iterator2Iterable.make(supergraph.getSuccNodes(n))) {
+      PartiallyBalancedTabulationProblem<T, P, F> problem =
+          (PartiallyBalancedTabulationProblem<T, P, F>) getProblem();
+      IFlowFunction f = problem.getFunctionMap().getUnbalancedReturnFlowFunction(n, retSite);
+      // for each fact that can be reached by the return flow ...
+      if (f instanceof IUnaryFlowFunction) {
+        IUnaryFlowFunction uf = (IUnaryFlowFunction) f;
+        IntSet facts = uf.getTargets(j);
+        if (facts != null) {
+          for (IntIterator it4 = facts.intIterator(); it4.hasNext(); ) {
+            int d3 = it4.next();
+            // d3 would be reached if we ignored parentheses. use it as a new seed.
+            T fakeEntry = problem.getFakeEntry(retSite);
+            PathEdge<T> seed = PathEdge.createPathEdge(fakeEntry, d3, retSite, d3);
+            addSeed(seed);
+            newUnbalancedExplodedReturnEdge(s_p, i, n, j);
           }
-        } else {
-          Assertions.UNREACHABLE(
-              "Partially balanced logic not supported for binary return flow functions");
         }
+      } else {
+        Assertions.UNREACHABLE(
+            "Partially balanced logic not supported for binary return flow functions");
       }
     }
-    return result;
   }
 
   @Override
@@ -80,8 +88,21 @@ public class PartiallyBalancedTabulationSolver<T, P, F> extends TabulationSolver
     if (getSeeds().contains(seed)) {
       return;
     }
-    unbalancedSeeds.add(Pair.make(seed.entry, seed.d1));
+    boolean newlyUnbalanced = unbalancedSeeds.add(Pair.make(seed.entry, seed.d1));
     super.addSeed(seed);
+    if (newlyUnbalanced) {
+      // the fake entry may be a real entry, from which path edges reached an exit before it was
+      // used as a seed. propagate() did not return from them, so do it now. with several threads,
+      // the seed is recorded before the path edges are read, and propagate() records a path edge
+      // before checking the seeds, so each path edge is returned from at least once.
+      LocalPathEdges pLocal = findOrCreateLocalPathEdges(seed.entry);
+      for (T exit : supergraph.getExitsForProcedure(supergraph.getProcOf(seed.entry))) {
+        IntSet reached = pLocal.getReachable(supergraph.getLocalBlockNumber(exit), seed.d1);
+        if (reached != null) {
+          reached.foreach(j -> propagateUnbalancedReturn(seed.entry, seed.d1, exit, j));
+        }
+      }
+    }
   }
 
   /**
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.dataflow.IFDS;
+
+import com.ibm.wala.util.WalaRuntimeException;
+import com.ibm.wala.util.collections.HashMapFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * {@link LocalPathEdges} which a {@link TabulationSolver} has moved out of the heap. They are
+ * written to a temporary file, three ints per path edge, and read back through a file channel.
+ *
+ * <p>The space of path edges which are loaded again is reused by later spills, and given back when
+ * it is at the end of the file. The file is deleted once it holds no path edges, or else when the
+ * VM exits.
+ */
+final class SpilledPathEdges<T> {
+
+  /** the number of bytes read from the file at once */
+  private static final int READ_BUFFER_SIZE = 12 * 4096;
+
+  /** the file holding the path edges, created when the first are spilled */
+  private File file;
+
+  /** the channel to file, open as long as file exists */
+  private FileChannel channel;
+
+  /** the number of bytes of file in use, counting free space before the last region */
+  private long length;
+
+  /** the offset in file and the number of path edges of each spilled entry */
+  private final Map<T, long[]> regions = HashMapFactory.make();
+
+  /** the offset and the number of bytes of each free part of the file before length */
+  private final TreeMap<Long, Long> free = new TreeMap<>();
+
+  /** the number of path edges now in the file */
+  private long size;
+
+  /** a buffer to read path edges into, allocated on the first load */
+  private ByteBuffer readBuffer;
+
+  boolean contains(T s_p) {
+    return regions.containsKey(s_p);
+  }
+
+  Set<T> getEntries() {
+    return regions.keySet();
+  }
+
+  /** @return the number of path edges spilled and not loaded since */
+  long size() {
+    return size;
+  }
+
+  /** Write the path edges of entry s_p to the file. */
+  void spill(T s_p, LocalPathEdges edges) {
+    assert !contains(s_p);
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      int count;
+      try (DataOutputStream out = new DataOutputStream(bytes)) {
+        count = edges.writePathEdges(out);
+      }
+      if (count == 0) {
+        regions.put(s_p, new long[] {0, 0});
+        return;
+      }
+      if (channel == null) {
+        file = File.createTempFile("pathEdges", ".bin");
+        file.deleteOnExit();
+        channel =
+            FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+      }
+      long offset = allocate(12L * count);
+      ByteBuffer out = ByteBuffer.wrap(bytes.toByteArray());
+      for (long pos = offset; out.hasRemaining(); ) {
+        pos += channel.write(out, pos);
+      }
+      regions.put(s_p, new long[] {offset, count});
+      size += count;
+    } catch (IOException e) {
+      throw new WalaRuntimeException("could not spill path edges to " + file, e);
+    }
+  }
+
+  /**
+   * Add the spilled path edges of entry s_p to result.
+   *
+   * @param remove if true, forget the path edges, which are then only held by result
+   * @return result
+   */
+  LocalPathEdges load(T s_p, LocalPathEdges result, boolean remove) {
+    long[] region = remove ? regions.remove(s_p) : regions.get(s_p);
+    if (region[1] == 0) {
+      return result;
+    }
+    if (readBuffer == null) {
+      readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    }
+    try {
+      long pos = region[0];
+      long end = region[0] + 12L * region[1];
+      while (pos < end) {
+        readBuffer.clear();
+        readBuffer.limit((int) Math.min(READ_BUFFER_SIZE, end - pos));
+        while (readBuffer.hasRemaining()) {
+          int n = channel.read(readBuffer, pos + readBuffer.position());
+          if (n < 0) {
+            throw new IOException("unexpected end of file");
+          }
+        }
+        pos += readBuffer.position();
+        readBuffer.flip();
+        while (readBuffer.hasRemaining()) {
+          result.addPathEdge(readBuffer.getInt(), readBuffer.getInt(), readBuffer.getInt());
+        }
+      }
+      if (remove) {
+        size -= region[1];
+        release(region[0], 12L * region[1]);
+      }
+    } catch (IOException e) {
+      throw new WalaRuntimeException("could not load path edges from " + file, e);
+    }
+    return result;
+  }
+
+  /** @return the offset of a part of the file of the given number of bytes, to write to */
+  private long allocate(long bytes) {
+    for (Map.Entry<Long, Long> e : free.entrySet()) {
+      long offset = e.getKey();
+      long available = e.getValue();
+      if (available >= bytes) {
+        free.remove(offset);
+        if (available > bytes) {
+          free.put(offset + bytes, available - bytes);
+        }
+        return offset;
+      }
+    }
+    long offset = length;
+    length += bytes;
+    return offset;
+  }
+
+  /**
+   * Free a part of the file, merging it with adjacent free parts, and shrink the file if it can.
+   */
+  private void release(long offset, long bytes) throws IOException {
+    Map.Entry<Long, Long> before = free.floorEntry(offset);
+    if (before != null && before.getKey() + before.getValue() == offset) {
+      free.remove(before.getKey());
+      offset = before.getKey();
+      bytes += before.getValue();
+    }
+    Long after = free.get(offset + bytes);
+    if (after != null) {
+      free.remove(offset + bytes);
+      bytes += after;
+    }
+    if (offset + bytes < length) {
+      free.put(offset, bytes);
+    } else if (offset > 0) {
+      length = offset;
+      channel.truncate(length);
+    } else {
+      assert free.isEmpty();
+      length = 0;
+      channel.close();
+      channel = null;
+      file.delete();
+      file = null;
+    }
+  }
+}
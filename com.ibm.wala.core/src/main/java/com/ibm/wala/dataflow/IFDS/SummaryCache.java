@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.dataflow.IFDS;
+
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.OrdinalSetMapping;
+import com.ibm.wala.util.io.VarInts;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Summary edges of procedures, computed by one run of a {@link TabulationSolver} and used by later
+ * ones, much as {@link com.ibm.wala.ipa.summaries.MethodSummary} files stand in for the code of
+ * library methods when building call graphs. A typical use is to summarize the library once, {@link
+ * #write(OutputStream) save} the summaries, and {@link #read(InputStream, Function, Function,
+ * Function) load} them when solving for each client; see {@link
+ * TabulationSolver#setSummaryCache(SummaryCache)}.
+ *
+ * <p>Procedures are matched by the key given for them, and facts by the key given for the object
+ * which the {@link TabulationDomain domain} maps to them. When a summary is used, its facts are
+ * made again from their keys and {@link TabulationDomain#add(Object) added} to the domain of the
+ * solver, so the domain may number them differently in each run. A fact number which the domain
+ * does not map, such as the zero fact of a problem whose domain is empty, is kept as the number
+ * itself.
+ *
+ * <p>Blocks are kept as local block numbers, so the cache is only sound for supergraphs which
+ * number the blocks of each cached procedure the same way in each run. As a check, the summaries of
+ * a procedure whose number of blocks has changed are not used.
+ *
+ * @param <P> type of a procedure
+ * @param <F> type of a fact
+ */
+public class SummaryCache<P, F> {
+
+  /** The summaries of one procedure. */
+  private static final class Summary {
+
+    /** the number of blocks of the procedure */
+    private final int numberOfBlocks;
+
+    /**
+     * for each fact d1 entering the procedure at each entry s_p, encoded by {@link #key(int, int)},
+     * the summary edges (s_p, d1) -&gt; (x, d2) as pairs x, d2. Facts are given by their codes; see
+     * {@link SummaryCache#factCodes}.
+     */
+    private final Map<Long, int[]> edges = HashMapFactory.make();
+
+    Summary(int numberOfBlocks) {
+      this.numberOfBlocks = numberOfBlocks;
+    }
+  }
+
+  private final Function<? super P, String> procedureKey;
+
+  /** names the object mapped to each fact, or null if the domain maps no facts */
+  private final Function<? super F, String> factKey;
+
+  private final Function<String, ? extends F> fact;
+
+  /**
+   * the code of each fact by its key. A code c &gt;= 0 stands for the fact whose key is {@code
+   * factKeys.get(c)}; a code c &lt; 0 stands for the fact number -c - 1, which the domain does not
+   * map.
+   */
+  private final Map<String, Integer> factCodes = HashMapFactory.make();
+
+  /** the key of each fact, by its code */
+  private final List<String> factKeys = new ArrayList<>();
+
+  /** summaries by procedure key */
+  private final Map<String, Summary> summaries = HashMapFactory.make();
+
+  /** stands for the summary of a procedure which is not cached */
+  private static final Summary MISSING = new Summary(-1);
+
+  /** summaries by procedure, as looked up while solving */
+  private final Map<P, Summary> resolved = new ConcurrentHashMap<>();
+
+  /**
+   * @param procedureKey names each procedure, the same way in each run
+   * @param factKey names the object which the domain maps to each fact, the same way in each run
+   * @param fact makes the object named by a key again, or returns null if there is none in this run
+   * @throws IllegalArgumentException if an argument is null
+   */
+  public SummaryCache(
+      Function<? super P, String> procedureKey,
+      Function<? super F, String> factKey,
+      Function<String, ? extends F> fact) {
+    if (procedureKey == null) {
+      throw new IllegalArgumentException("procedureKey is null");
+    }
+    if (factKey == null) {
+      throw new IllegalArgumentException("factKey is null");
+    }
+    if (fact == null) {
+      throw new IllegalArgumentException("fact is null");
+    }
+    this.procedureKey = procedureKey;
+    this.factKey = factKey;
+    this.fact = fact;
+  }
+
+  /**
+   * A cache for a problem whose domain maps no facts, such as the {@link
+   * com.ibm.wala.ipa.slicer.Slicer.SliceProblem slice problem}, so that all its facts are kept as
+   * numbers.
+   *
+   * @param procedureKey names each procedure, the same way in each run
+   * @throws IllegalArgumentException if procedureKey is null
+   */
+  public SummaryCache(Function<? super P, String> procedureKey) {
+    if (procedureKey == null) {
+      throw new IllegalArgumentException("procedureKey is null");
+    }
+    this.procedureKey = procedureKey;
+    this.factKey = null;
+    this.fact = null;
+  }
+
+  private static long key(int s_p, int d1) {
+    return ((long) s_p << 32) | (d1 & 0xffffffffL);
+  }
+
+  /** @return the code of fact number d of domain, recording its key if it is new */
+  private int encode(OrdinalSetMapping<F> domain, int d) {
+    F f = d <= domain.getMaximumIndex() ? domain.getMappedObject(d) : null;
+    if (f == null) {
+      return -d - 1;
+    }
+    if (factKey == null) {
+      throw new IllegalArgumentException("no key for fact " + f);
+    }
+    return factCodes.computeIfAbsent(
+        factKey.apply(f),
+        k -> {
+          factKeys.add(k);
+          return factKeys.size() - 1;
+        });
+  }
+
+  /** @return the code of fact number d of domain, or null if no summary is from that fact */
+  private Integer lookup(OrdinalSetMapping<F> domain, int d) {
+    F f = d <= domain.getMaximumIndex() ? domain.getMappedObject(d) : null;
+    if (f == null) {
+      return -d - 1;
+    }
+    return factKey == null ? null : factCodes.get(factKey.apply(f));
+  }
+
+  /** @return the number of the fact with code c in domain, or -1 if it is not in this run */
+  private int decode(OrdinalSetMapping<F> domain, int c) {
+    if (c < 0) {
+      return -c - 1;
+    }
+    F f = fact.apply(factKeys.get(c));
+    return f == null ? -1 : domain.add(f);
+  }
+
+  /** @return the number of procedures with summaries */
+  public int size() {
+    return summaries.size();
+  }
+
+  /**
+   * Keep the summaries computed by a solver which has finished solving, for the procedures it
+   * entered which the filter accepts. A procedure which calls, transitively, some procedure which
+   * the filter rejects is left out, since its summaries depend on code which is not cached.
+   *
+   * @return the number of procedures whose summaries were kept
+   * @throws IllegalArgumentException if the problem of the solver has a merge function, so that its
+   *     summaries depend on the order of tabulation, or if a fact has no key
+   */
+  public <T> int record(TabulationSolver<T, P, F> solver, Predicate<? super P> filter) {
+    if (solver == null) {
+      throw new IllegalArgumentException("solver is null");
+    }
+    if (filter == null) {
+      throw new IllegalArgumentException("filter is null");
+    }
+    if (solver.getProblem().getMergeFunction() != null) {
+      throw new IllegalArgumentException("cannot cache summaries of a problem with merge function");
+    }
+    ISupergraph<T, P> supergraph = solver.getSupergraph();
+    TabulationDomain<F, T> domain = solver.getProblem().getDomain();
+    Map<P, List<T>> entries = HashMapFactory.make();
+    for (T s_p : solver.getPathEdgeEntries()) {
+      P proc = supergraph.getProcOf(s_p);
+      if (filter.test(proc)) {
+        entries.computeIfAbsent(proc, k -> new ArrayList<>()).add(s_p);
+      }
+    }
+    Set<P> closed = closedUnderCalls(supergraph, entries.keySet(), filter);
+
+    for (P proc : closed) {
+      Summary summary = new Summary(supergraph.getNumberOfBlocks(proc));
+      LocalSummaryEdges local = solver.summaryEdges.get(proc);
+      T[] exits = supergraph.getExitsForProcedure(proc);
+      for (T s_p : entries.get(proc)) {
+        int s_p_num = supergraph.getLocalBlockNumber(s_p);
+        LocalPathEdges paths = solver.getLocalPathEdges(s_p);
+        for (IntIterator it = paths.getReachable(s_p_num).intIterator(); it.hasNext(); ) {
+          int d1 = it.next();
+          if (!paths.contains(d1, s_p_num, d1)) {
+            continue;
+          }
+          // the procedure was entered with d1, so the summary from it is complete
+          List<Integer> found = new ArrayList<>();
+          if (local != null) {
+            for (T x : exits) {
+              int x_num = supergraph.getLocalBlockNumber(x);
+              IntSet d2s = local.getSummaryEdges(s_p_num, x_num, d1);
+              if (d2s != null) {
+                for (IntIterator d2 = d2s.intIterator(); d2.hasNext(); ) {
+                  found.add(x_num);
+                  found.add(encode(domain, d2.next()));
+                }
+              }
+            }
+          }
+          int[] result = new int[found.size()];
+          for (int i = 0; i < result.length; i++) {
+            result[i] = found.get(i);
+          }
+          summary.edges.put(key(s_p_num, encode(domain, d1)), result);
+        }
+      }
+      summaries.put(procedureKey.apply(proc), summary);
+      resolved.remove(proc);
+    }
+    return closed.size();
+  }
+
+  /** @return those of procs which only call procedures accepted by filter, transitively */
+  private static <T, P> Set<P> closedUnderCalls(
+      ISupergraph<T, P> supergraph, Set<P> procs, Predicate<? super P> filter) {
+    Map<P, Set<P>> callees = HashMapFactory.make();
+    List<P> worklist = new ArrayList<>(procs);
+    Set<P> candidates = HashSetFactory.make(procs);
+    while (!worklist.isEmpty()) {
+      P p = worklist.remove(worklist.size() - 1);
+      Set<P> c = HashSetFactory.make();
+      for (int i = 0; i < supergraph.getNumberOfBlocks(p); i++) {
+        T n = supergraph.getLocalBlock(p, i);
+        if (supergraph.isCall(n)) {
+          for (T entry : Iterator2Iterable.make(supergraph.getCalledNodes(n))) {
+            P q = supergraph.getProcOf(entry);
+            c.add(q);
+            if (filter.test(q) && candidates.add(q)) {
+              worklist.add(q);
+            }
+          }
+        }
+      }
+      callees.put(p, c);
+    }
+    boolean changed = true;
+    while (changed) {
+      changed = candidates.removeIf(p -> !candidates.containsAll(callees.get(p)));
+    }
+    candidates.retainAll(procs);
+    return candidates;
+  }
+
+  /**
+   * @param numberOfBlocks the number of blocks of proc in the current supergraph
+   * @param domain the domain of the current problem, to which the facts of the summary are added
+   * @return the summary edges of proc from fact d1 at entry s_p, as pairs x, d2, or null if they
+   *     are not cached
+   */
+  int[] getSummaryEdges(P proc, int numberOfBlocks, int s_p, int d1, OrdinalSetMapping<F> domain) {
+    Summary summary =
+        resolved.computeIfAbsent(proc, p -> summaries.getOrDefault(procedureKey.apply(p), MISSING));
+    if (summary.numberOfBlocks != numberOfBlocks) {
+      return null;
+    }
+    Integer c1 = lookup(domain, d1);
+    int[] edges = c1 == null ? null : summary.edges.get(key(s_p, c1));
+    if (edges == null) {
+      return null;
+    }
+    int[] result = new int[edges.length];
+    for (int k = 0; k < edges.length; k += 2) {
+      result[k] = edges[k];
+      result[k + 1] = decode(domain, edges[k + 1]);
+      if (result[k + 1] == -1) {
+        return null;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Write the summaries, to be read by {@link #read(InputStream, Function, Function, Function)}.
+   */
+  public void write(OutputStream stream) throws IOException {
+    if (stream == null) {
+      throw new IllegalArgumentException("stream is null");
+    }
+    DataOutputStream out = new DataOutputStream(stream);
+    VarInts.writeInt(out, factKeys.size());
+    for (String k : factKeys) {
+      VarInts.writeString(out, k);
+    }
+    out.writeInt(summaries.size());
+    for (Map.Entry<String, Summary> e : summaries.entrySet()) {
+      out.writeUTF(e.getKey());
+      Summary summary = e.getValue();
+      out.writeInt(summary.numberOfBlocks);
+      out.writeInt(summary.edges.size());
+      for (Map.Entry<Long, int[]> edges : summary.edges.entrySet()) {
+        out.writeLong(edges.getKey());
+        out.writeInt(edges.getValue().length);
+        for (int i : edges.getValue()) {
+          VarInts.writeSignedInt(out, i);
+        }
+      }
+    }
+    out.flush();
+  }
+
+  /**
+   * Read summaries written by {@link #write(OutputStream)}.
+   *
+   * @param procedureKey names each procedure, as it did for the cache which was written
+   * @param factKey names the object mapped to each fact, as it did for the cache which was written
+   * @param fact makes the object named by a key again, or returns null if there is none in this run
+   */
+  public static <P, F> SummaryCache<P, F> read(
+      InputStream stream,
+      Function<? super P, String> procedureKey,
+      Function<? super F, String> factKey,
+      Function<String, ? extends F> fact)
+      throws IOException {
+    return read(stream, new SummaryCache<>(procedureKey, factKey, fact));
+  }
+
+  /**
+   * Read summaries written by {@link #write(OutputStream)} for a problem whose domain maps no
+   * facts.
+   *
+   * @param procedureKey names each procedure, as it did for the cache which was written
+   * @see #SummaryCache(Function)
+   */
+  public static <P, F> SummaryCache<P, F> read(
+      InputStream stream, Function<? super P, String> procedureKey) throws IOException {
+    return read(stream, new SummaryCache<>(procedureKey));
+  }
+
+  private static <P, F> SummaryCache<P, F> read(InputStream stream, SummaryCache<P, F> result)
+      throws IOException {
+    if (stream == null) {
+      throw new IllegalArgumentException("stream is null");
+    }
+    DataInputStream in = new DataInputStream(stream);
+    for (int f = VarInts.readInt(in); f > 0; f--) {
+      String k = VarInts.readString(in);
+      result.factCodes.put(k, result.factKeys.size());
+      result.factKeys.add(k);
+    }
+    for (int p = in.readInt(); p > 0; p--) {
+      String name = in.readUTF();
+      Summary summary = new Summary(in.readInt());
+      for (int e = in.readInt(); e > 0; e--) {
+        long key = in.readLong();
+        int[] edges = new int[in.readInt()];
+        for (int i = 0; i < edges.length; i++) {
+          edges[i] = VarInts.readSignedInt(in);
+        }
+        summary.edges.put(key, edges);
+      }
+      result.summaries.put(name, summary);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.dataflow.IFDS;
+
+import com.ibm.wala.util.intset.IntSet;
+
+/**
+ * {@link CallFlowEdges} which several threads of a {@link TabulationSolver} may update at once.
+ * Each query answers with a copy, so that callers never iterate a set which another thread is
+ * changing.
+ */
+final class SynchronizedCallFlowEdges extends CallFlowEdges {
+
+  @Override
+  public synchronized void addCallEdge(int c, int d1, int d2) {
+    super.addCallEdge(c, d1, d2);
+  }
+
+  @Override
+  public synchronized IntSet getCallFlowSources(int c, int d2) {
+    return SynchronizedLocalPathEdges.copy(super.getCallFlowSources(c, d2));
+  }
+
+  @Override
+  public synchronized IntSet getCallFlowSourceNodes(int d2) {
+    return SynchronizedLocalPathEdges.copy(super.getCallFlowSourceNodes(d2));
+  }
+}
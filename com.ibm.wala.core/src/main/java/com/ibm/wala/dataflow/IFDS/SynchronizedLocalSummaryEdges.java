@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.dataflow.IFDS;
+
+import com.ibm.wala.util.intset.IntSet;
+
+/**
+ * {@link LocalSummaryEdges} which several threads of a {@link TabulationSolver} may update at once.
+ * Each query answers with a copy, so that callers never iterate a set which another thread is
+ * changing.
+ */
+final class SynchronizedLocalSummaryEdges extends LocalSummaryEdges {
+
+  @Override
+  public synchronized void insertSummaryEdge(int s_p, int x, int d1, int d2) {
+    super.insertSummaryEdge(s_p, x, d1, d2);
+  }
+
+  @Override
+  public synchronized boolean contains(int s_p, int x, int d1, int d2) {
+    return super.contains(s_p, x, d1, d2);
+  }
+
+  @Override
+  public synchronized IntSet getSummaryEdges(int s_p, int x, int d1) {
+    return SynchronizedLocalPathEdges.copy(super.getSummaryEdges(s_p, x, d1));
+  }
+
+  @Override
+  public synchronized IntSet getInvertedSummaryEdgesForTarget(int s_p, int x, int d2) {
+    return super.getInvertedSummaryEdgesForTarget(s_p, x, d2);
+  }
+}
@@ -16,12 +16,10 @@ import com.ibm.wala.core.util.ref.ReferenceCleanser;
 import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.MonitorUtil;
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
-import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Heap;
 import com.ibm.wala.util.collections.Iterator2Collection;
 import com.ibm.wala.util.collections.Iterator2Iterable;
-import com.ibm.wala.util.collections.MapUtil;
 import com.ibm.wala.util.collections.ToStringComparator;
 import com.ibm.wala.util.heapTrace.HeapTracer;
 import com.ibm.wala.util.intset.IntIterator;
@@ -29,15 +27,27 @@ import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.IntSetAction;
 import com.ibm.wala.util.intset.MutableIntSet;
 import com.ibm.wala.util.intset.MutableSparseIntSet;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A precise interprocedural tabulation solver.
@@ -53,7 +63,11 @@ import java.util.TreeSet;
  *   <li>it stores summary edges at each callee instead of at each call site.
  * </ul>
  *
- * <p>
+ * <p>Path edges can be processed by several threads; see {@link #setNumberOfThreads(int)}. The
+ * supergraph, flow functions and domain of the problem must then be safe to use from several
+ * threads, and subclasses which override the hooks below must be too. Without a merge function, the
+ * result is the same as with one thread, since the solution of an IFDS problem does not depend on
+ * the order in which path edges are processed.
  *
  * @param <T> type of node in the supergraph
  * @param <P> type of a procedure (like a box in an RSM)
@@ -94,6 +108,9 @@ public class TabulationSolver<T, P, F> {
   /** Counter for wiping soft caches */
   private static int wipeCount = WIPE_SOFT_CACHE_INTERVAL;
 
+  /** The number of path edges processed between checks of the heap against the heap budget */
+  private static final int HEAP_BUDGET_CHECK_INTERVAL = 1000;
+
   /** The supergraph which induces this dataflow problem */
   protected final ISupergraph<T, P> supergraph;
 
@@ -109,7 +126,7 @@ public class TabulationSolver<T, P, F> {
    * <p>Logically, this represents a set of edges (s_p,d_i) -&gt; (n, d_j). The data structure is
    * chosen to attempt to save space over representing each edge explicitly.
    */
-  private final Map<T, LocalPathEdges> pathEdges = HashMapFactory.make();
+  private final Map<T, LocalPathEdges> pathEdges = new ConcurrentHashMap<>();
 
   /**
    * A map from Object (entry node in supergraph) -&gt; CallFlowEdges.
@@ -117,40 +134,77 @@ public class TabulationSolver<T, P, F> {
    * <p>Logically, this represents a set of edges (c,d_i) -&gt; (s_p, d_j). The data structure is
    * chosen to attempt to save space over representing each edge explicitly.
    */
-  private final Map<T, CallFlowEdges> callFlowEdges = HashMapFactory.make();
+  private final Map<T, CallFlowEdges> callFlowEdges = new ConcurrentHashMap<>();
 
   /** A map from Object (procedure) -&gt; LocalSummaryEdges. */
-  protected final Map<P, LocalSummaryEdges> summaryEdges = HashMapFactory.make();
+  protected final Map<P, LocalSummaryEdges> summaryEdges = new ConcurrentHashMap<>();
 
   /**
    * the set of all {@link PathEdge}s that were used as seeds during the tabulation, grouped by
    * procedure.
    */
-  private final Map<P, Set<PathEdge<T>>> seeds = HashMapFactory.make();
+  private final Map<P, Set<PathEdge<T>>> seeds = new ConcurrentHashMap<>();
 
   /** All seeds, stored redundantly for quick access. */
-  private final Set<PathEdge<T>> allSeeds = HashSetFactory.make();
+  private final Set<PathEdge<T>> allSeeds = ConcurrentHashMap.newKeySet();
 
   /** The worklist */
   private ITabulationWorklist<T> worklist;
 
+  /** how many threads process path edges */
+  private int numberOfThreads = 1;
+
+  /** the threads processing path edges, while several of them are doing so */
+  private ForkJoinPool pool;
+
+  /** the number of path edges given to the pool and not yet processed */
+  private final AtomicInteger pending = new AtomicInteger();
+
+  /** the first exception thrown while processing path edges in the pool */
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  /** the heap, in bytes, above which idle path edges are spilled; -1 if there is no limit */
+  private long heapBudget = -1;
+
+  /** the path edges moved out of the heap; null if no heap budget was ever set */
+  private SpilledPathEdges<T> spilled;
+
+  /** the entries whose path edges were used since the heap was last checked */
+  private final Set<T> recentlyUsed = HashSetFactory.make();
+
+  /** the number of path edges processed since the heap was last checked */
+  private int budgetCount;
+
+  /** summaries of procedures from earlier runs; null if none */
+  private SummaryCache<P, F> summaryCache;
+
   /** A progress monitor. can be null. */
   protected final IProgressMonitor progressMonitor;
 
-  /**
-   * the path edge currently being processed in the main loop of {@link #forwardTabulateSLRPs()};
-   * {@code null} if {@link #forwardTabulateSLRPs()} is not currently running. Note that if we are
-   * applying a summary edge in {@link #processExit(PathEdge)}, curPathEdge is modified to be the
-   * path edge terminating at the call node in the caller, to match the behavior in {@link
-   * #processCall(PathEdge)}.
-   */
-  private PathEdge<T> curPathEdge;
+  /** The edges being processed by one thread. */
+  private static final class Cursor<T> {
+    /**
+     * the path edge currently being processed in the main loop of {@link
+     * TabulationSolver#forwardTabulateSLRPs()}; {@code null} if it is not currently running. Note
+     * that if we are applying a summary edge in {@link TabulationSolver#processExit(PathEdge)},
+     * curPathEdge is modified to be the path edge terminating at the call node in the caller, to
+     * match the behavior in {@link TabulationSolver#processCall(PathEdge)}.
+     */
+    private PathEdge<T> curPathEdge;
 
-  /**
-   * the summary edge currently being applied in {@link #processCall(PathEdge)} or {@link
-   * #processExit(PathEdge)}, or {@code null} if summary edges are not currently being processed.
-   */
-  private PathEdge<T> curSummaryEdge;
+    /**
+     * the summary edge currently being applied in {@link TabulationSolver#processCall(PathEdge)} or
+     * {@link TabulationSolver#processExit(PathEdge)}, or {@code null} if summary edges are not
+     * currently being processed.
+     */
+    private PathEdge<T> curSummaryEdge;
+  }
+
+  /** the edges being processed by the solving thread */
+  private final Cursor<T> cursor = new Cursor<>();
+
+  /** the edges being processed by each thread of the pool */
+  private final ThreadLocal<Cursor<T>> cursors = ThreadLocal.withInitial(Cursor::new);
 
   /**
    * @param p a description of the dataflow problem to solve
@@ -179,6 +233,73 @@ public class TabulationSolver<T, P, F> {
     return new TabulationSolver<>(p, null);
   }
 
+  public int getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
+  /**
+   * Set how many threads process path edges. Call this before {@link #solve()}.
+   *
+   * <p>With more than one thread, path edges are taken in no particular order, regardless of {@link
+   * TabulationDomain#hasPriorityOver} and of {@link #makeWorklist()}.
+   */
+  public void setNumberOfThreads(int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + n);
+    }
+    numberOfThreads = n;
+  }
+
+  public long getHeapBudget() {
+    return heapBudget;
+  }
+
+  /**
+   * Bound the heap used while solving. Every so often, if more than the given number of bytes of
+   * heap were still in use after the latest garbage collections, the path edges of each procedure
+   * entry which were not used since the last check are written to a temporary file, to be loaded
+   * again when they are needed. Summary edges stay in memory.
+   *
+   * <p>This only applies with one thread; with more, spilled path edges are loaded again before
+   * solving.
+   *
+   * @param bytes the heap budget, or -1 for no limit
+   */
+  public void setHeapBudget(long bytes) {
+    if (bytes < -1) {
+      throw new IllegalArgumentException("invalid heap budget: " + bytes);
+    }
+    heapBudget = bytes;
+    if (bytes != -1 && spilled == null) {
+      spilled = new SpilledPathEdges<>();
+    }
+  }
+
+  /** @return the number of path edges which are now held outside the heap */
+  public long getNumberOfSpilledPathEdges() {
+    return spilled == null ? 0 : spilled.size();
+  }
+
+  public SummaryCache<P, F> getSummaryCache() {
+    return summaryCache;
+  }
+
+  /**
+   * Use summaries from earlier runs. A procedure whose summary from an entry and fact is cached is
+   * not entered with that fact; its cached summary edges are applied at the call instead. So the
+   * result has no path edges in such procedures.
+   *
+   * @param cache the summaries, or null to compute all of them
+   */
+  public void setSummaryCache(SummaryCache<P, F> cache) {
+    summaryCache = cache;
+  }
+
+  /** @return the edges being processed by the current thread */
+  private Cursor<T> cursor() {
+    return pool == null ? cursor : cursors.get();
+  }
+
   /**
    * Solve the dataflow problem.
    *
@@ -207,19 +328,23 @@ public class TabulationSolver<T, P, F> {
 
   /** Restart tabulation from a particular path edge. Use with care. */
   public void addSeed(PathEdge<T> seed) {
-    Set<PathEdge<T>> s = MapUtil.findOrCreateSet(seeds, supergraph.getProcOf(seed.entry));
+    Set<PathEdge<T>> s =
+        seeds.computeIfAbsent(supergraph.getProcOf(seed.entry), k -> ConcurrentHashMap.newKeySet());
     s.add(seed);
     allSeeds.add(seed);
     propagate(seed.entry, seed.d1, seed.target, seed.d2);
   }
 
   /** See POPL 95 paper for this algorithm, Figure 3 */
-  @SuppressWarnings("unused")
   private void forwardTabulateSLRPs() throws CancelException {
-    assert curPathEdge == null : "curPathEdge should not be non-null here";
+    assert cursor.curPathEdge == null : "curPathEdge should not be non-null here";
     if (worklist == null) {
       worklist = makeWorklist();
     }
+    if (numberOfThreads > 1) {
+      forwardTabulateInParallel();
+      return;
+    }
     while (worklist.size() > 0) {
       MonitorUtil.throwExceptionIfCanceled(progressMonitor);
       if (verbose) {
@@ -228,40 +353,134 @@ public class TabulationSolver<T, P, F> {
       if (PERIODIC_WIPE_SOFT_CACHES) {
         tendToSoftCaches();
       }
+      if (heapBudget != -1) {
+        tendToHeapBudget();
+      }
 
-      final PathEdge<T> edge = popFromWorkList();
-      if (DEBUG_LEVEL > 0) {
-        System.err.println("TABULATE " + edge);
+      processPathEdge(popFromWorkList());
+    }
+    cursor.curPathEdge = null;
+  }
+
+  /**
+   * Process the path edges on the worklist, and all those they induce, with a pool of threads. Each
+   * path edge is a task of its own.
+   */
+  private void forwardTabulateInParallel() throws CancelException {
+    // clearing soft caches is not safe while other threads use them, so do it only here, before
+    // any task runs
+    if (PERIODIC_WIPE_SOFT_CACHES) {
+      tendToSoftCaches();
+    }
+    if (spilled != null) {
+      for (T s_p : new ArrayList<>(spilled.getEntries())) {
+        pathEdges.put(s_p, spilled.load(s_p, makeLocalPathEdges(), true));
       }
-      curPathEdge = edge;
-      int j = merge(edge.entry, edge.d1, edge.target, edge.d2);
-      if (j == -1 && DEBUG_LEVEL > 0) {
-        System.err.println("merge -1: DROPPING");
+    }
+    pool = new ForkJoinPool(numberOfThreads);
+    failure.set(null);
+    try {
+      while (worklist.size() > 0) {
+        schedule(worklist.take());
       }
-      if (j != -1) {
-        if (j != edge.d2) {
-          // this means that we don't want to push the edge. instead,
-          // we'll push the merged fact. a little tricky, but i think should
-          // work.
-          if (DEBUG_LEVEL > 0) {
-            System.err.println("propagating merged fact " + j);
+      boolean interrupted = false;
+      synchronized (pending) {
+        while (pending.get() > 0) {
+          try {
+            pending.wait();
+          } catch (InterruptedException e) {
+            // the remaining tasks will see the failure and finish quickly
+            failure.compareAndSet(null, new CancelException(e));
+            interrupted = true;
           }
-          propagate(edge.entry, edge.d1, edge.target, j);
-        } else {
-          if (supergraph.isCall(edge.target)) {
-            // [13]
-            processCall(edge);
-          } else if (supergraph.isExit(edge.target)) {
-            // [21]
-            processExit(edge);
-          } else {
-            // [33]
-            processNormal(edge);
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    } finally {
+      pool.shutdown();
+      pool = null;
+    }
+    Throwable t = failure.getAndSet(null);
+    if (t instanceof CancelException) {
+      throw (CancelException) t;
+    } else if (t instanceof RuntimeException) {
+      throw (RuntimeException) t;
+    } else if (t instanceof Error) {
+      throw (Error) t;
+    } else if (t != null) {
+      throw new IllegalStateException(t);
+    }
+  }
+
+  /** Give a path edge to the pool, to be processed by some thread. */
+  private void schedule(PathEdge<T> edge) {
+    pending.incrementAndGet();
+    RecursiveAction task =
+        new RecursiveAction() {
+          private static final long serialVersionUID = 3867435407451302478L;
+
+          @Override
+          protected void compute() {
+            try {
+              if (failure.get() == null) {
+                MonitorUtil.throwExceptionIfCanceled(progressMonitor);
+                processPathEdge(edge);
+              }
+            } catch (Throwable t) {
+              failure.compareAndSet(null, t);
+            } finally {
+              if (pending.decrementAndGet() == 0) {
+                synchronized (pending) {
+                  pending.notifyAll();
+                }
+              }
+            }
           }
+        };
+    Thread current = Thread.currentThread();
+    if (current instanceof ForkJoinWorkerThread
+        && ((ForkJoinWorkerThread) current).getPool() == pool) {
+      task.fork();
+    } else {
+      pool.execute(task);
+    }
+  }
+
+  /** Process one path edge taken from the worklist. */
+  @SuppressWarnings("unused")
+  private void processPathEdge(final PathEdge<T> edge) {
+    if (DEBUG_LEVEL > 0) {
+      System.err.println("TABULATE " + edge);
+    }
+    cursor().curPathEdge = edge;
+    int j = merge(edge.entry, edge.d1, edge.target, edge.d2);
+    if (j == -1 && DEBUG_LEVEL > 0) {
+      System.err.println("merge -1: DROPPING");
+    }
+    if (j != -1) {
+      if (j != edge.d2) {
+        // this means that we don't want to push the edge. instead,
+        // we'll push the merged fact. a little tricky, but i think should
+        // work.
+        if (DEBUG_LEVEL > 0) {
+          System.err.println("propagating merged fact " + j);
+        }
+        propagate(edge.entry, edge.d1, edge.target, j);
+      } else {
+        if (supergraph.isCall(edge.target)) {
+          // [13]
+          processCall(edge);
+        } else if (supergraph.isExit(edge.target)) {
+          // [21]
+          processExit(edge);
+        } else {
+          // [33]
+          processNormal(edge);
         }
       }
     }
-    curPathEdge = null;
   }
 
   /**
@@ -278,6 +497,43 @@ public class TabulationSolver<T, P, F> {
     }
   }
 
+  /** Spill the path edges of idle entries if the heap in use exceeds the heap budget. */
+  private void tendToHeapBudget() {
+    if (++budgetCount < HEAP_BUDGET_CHECK_INTERVAL) {
+      return;
+    }
+    budgetCount = 0;
+    // the heap in use, garbage included, bounds the live heap from above; only if it exceeds the
+    // budget is it worth asking the pools what was left after their latest collections
+    Runtime runtime = Runtime.getRuntime();
+    if (runtime.totalMemory() - runtime.freeMemory() > heapBudget && getLiveHeap() > heapBudget) {
+      for (Iterator<Entry<T, LocalPathEdges>> it = pathEdges.entrySet().iterator();
+          it.hasNext(); ) {
+        Entry<T, LocalPathEdges> e = it.next();
+        if (!recentlyUsed.contains(e.getKey())) {
+          spilled.spill(e.getKey(), e.getValue());
+          it.remove();
+        }
+      }
+    }
+    recentlyUsed.clear();
+  }
+
+  /**
+   * @return the heap in use as of the latest garbage collections, i.e. the sum over the heap memory
+   *     pools of their usage right after they were last collected, which does not count garbage
+   */
+  private static long getLiveHeap() {
+    long result = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        MemoryUsage usage = pool.getCollectionUsage();
+        result += (usage == null ? pool.getUsage() : usage).getUsed();
+      }
+    }
+    return result;
+  }
+
   /** */
   protected final void performVerboseAction() {
     verboseCounter++;
@@ -337,8 +593,9 @@ public class TabulationSolver<T, P, F> {
     if (!summaries.contains(s_p_n, x, edge.d1, edge.d2)) {
       summaries.insertSummaryEdge(s_p_n, x, edge.d1, edge.d2);
     }
-    assert curSummaryEdge == null : "curSummaryEdge should be null here";
-    curSummaryEdge = edge;
+    final Cursor<T> cur = cursor();
+    assert cur.curSummaryEdge == null : "curSummaryEdge should be null here";
+    cur.curSummaryEdge = edge;
 
     final CallFlowEdges callFlow = findOrCreateCallFlowEdges(edge.entry);
 
@@ -354,7 +611,7 @@ public class TabulationSolver<T, P, F> {
         propagateToReturnSites(edge, supergraph.getNode(globalC), D4);
       }
     }
-    curSummaryEdge = null;
+    cur.curSummaryEdge = null;
   }
 
   /**
@@ -478,8 +735,9 @@ public class TabulationSolver<T, P, F> {
                     d3 -> {
                       // set curPathEdge to be consistent with its setting in processCall() when
                       // applying a summary edge
-                      curPathEdge = PathEdge.createPathEdge(s_p, d3, c, d4);
-                      newSummaryEdge(curPathEdge, edge, retSite, d5);
+                      PathEdge<T> edgeToCallSite = PathEdge.createPathEdge(s_p, d3, c, d4);
+                      cursor().curPathEdge = edgeToCallSite;
+                      newSummaryEdge(edgeToCallSite, edge, retSite, d5);
                       propagate(s_p, d3, retSite, d5);
                     });
               }
@@ -494,7 +752,7 @@ public class TabulationSolver<T, P, F> {
    */
   protected IntSet getInversePathEdges(T s_p, T n, int d2) {
     int number = supergraph.getLocalBlockNumber(n);
-    LocalPathEdges lp = pathEdges.get(s_p);
+    LocalPathEdges lp = loadLocalPathEdges(s_p);
     if (lp == null) {
       return null;
     }
@@ -617,25 +875,30 @@ public class TabulationSolver<T, P, F> {
       System.err.println(" reached: " + reached);
     }
     if (reached != null) {
-      final LocalSummaryEdges summaries = summaryEdges.get(supergraph.getProcOf(calleeEntry));
+      final P callee = supergraph.getProcOf(calleeEntry);
       final CallFlowEdges callFlow = findOrCreateCallFlowEdges(calleeEntry);
       final int s_p_num = supergraph.getLocalBlockNumber(calleeEntry);
+      final Cursor<T> cur = cursor();
 
       reached.foreach(
           d1 -> {
             // we get reuse if we _don't_ propagate a new fact to the callee entry
-            final boolean gotReuse = !propagate(calleeEntry, d1, calleeEntry, d1);
+            final boolean gotReuse =
+                useCachedSummary(callee, s_p_num, d1)
+                    || !propagate(calleeEntry, d1, calleeEntry, d1);
             recordCall(edge.target, calleeEntry, d1, gotReuse);
             newCallExplodedEdge(edge, calleeEntry, d1);
             // cache the fact that we've flowed <c, d2> -> <callee, d1> by a
             // call flow
             callFlow.addCallEdge(callNodeNum, edge.d2, d1);
             // handle summary edges now as well. this is different from the PoPL
-            // 95 paper.
+            // 95 paper. look them up only after recording the call edge, so that
+            // another thread which adds a summary edge either sees the call edge
+            // or has added the summary edge before we look.
+            final LocalSummaryEdges summaries = summaryEdges.get(callee);
             if (summaries != null) {
               // for each exit from the callee
-              P p = supergraph.getProcOf(calleeEntry);
-              T[] exits = supergraph.getExitsForProcedure(p);
+              T[] exits = supergraph.getExitsForProcedure(callee);
               for (final T exit : exits) {
                 if (DEBUG_LEVEL > 0) {
                   assert supergraph.containsNode(exit);
@@ -653,15 +916,18 @@ public class TabulationSolver<T, P, F> {
                           flowFunctionMap.getReturnFlowFunction(edge.target, exit, returnSite);
                       reachedBySummary.foreach(
                           d2 -> {
-                            assert curSummaryEdge == null : "curSummaryEdge should be null here";
-                            curSummaryEdge = PathEdge.createPathEdge(calleeEntry, d1, exit, d2);
+                            assert cur.curSummaryEdge == null
+                                : "curSummaryEdge should be null here";
+                            final PathEdge<T> summaryEdge =
+                                PathEdge.createPathEdge(calleeEntry, d1, exit, d2);
+                            cur.curSummaryEdge = summaryEdge;
                             if (retf instanceof IBinaryReturnFlowFunction) {
                               final IntSet D51 =
                                   computeBinaryFlow(edge.d2, d2, (IBinaryReturnFlowFunction) retf);
                               if (D51 != null) {
                                 D51.foreach(
                                     d5 -> {
-                                      newSummaryEdge(edge, curSummaryEdge, returnSite, d5);
+                                      newSummaryEdge(edge, summaryEdge, returnSite, d5);
                                       propagate(edge.entry, edge.d1, returnSite, d5);
                                     });
                               }
@@ -670,12 +936,12 @@ public class TabulationSolver<T, P, F> {
                               if (D52 != null) {
                                 D52.foreach(
                                     d5 -> {
-                                      newSummaryEdge(edge, curSummaryEdge, returnSite, d5);
+                                      newSummaryEdge(edge, summaryEdge, returnSite, d5);
                                       propagate(edge.entry, edge.d1, returnSite, d5);
                                     });
                               }
                             }
-                            curSummaryEdge = null;
+                            cur.curSummaryEdge = null;
                           });
                     }
                   }
@@ -760,19 +1026,74 @@ public class TabulationSolver<T, P, F> {
 
     assert j >= 0;
 
-    if (!pLocal.contains(i, number, j)) {
+    if (pLocal.addPathEdgeIfAbsent(i, number, j)) {
       if (DEBUG_LEVEL > 0) {
         System.err.println("propagate " + s_p + "  " + i + ' ' + number + ' ' + j);
       }
-      pLocal.addPathEdge(i, number, j);
       addToWorkList(s_p, i, n, j);
       return true;
     }
     return false;
   }
 
+  /** @return the entries which have path edges, spilled or not */
+  Set<T> getPathEdgeEntries() {
+    Set<T> result = HashSetFactory.make(pathEdges.keySet());
+    if (spilled != null) {
+      result.addAll(spilled.getEntries());
+    }
+    return result;
+  }
+
+  /**
+   * If the summary of callee from fact d1 at entry s_p is cached, record its summary edges.
+   *
+   * @return true iff the summary is cached, so that the callee need not be entered
+   */
+  private boolean useCachedSummary(P callee, int s_p, int d1) {
+    if (summaryCache == null) {
+      return false;
+    }
+    int[] edges =
+        summaryCache.getSummaryEdges(
+            callee, supergraph.getNumberOfBlocks(callee), s_p, d1, problem.getDomain());
+    if (edges == null) {
+      return false;
+    }
+    LocalSummaryEdges summaries = findOrCreateLocalSummaryEdges(callee);
+    for (int k = 0; k < edges.length; k += 2) {
+      if (!summaries.contains(s_p, edges[k], d1, edges[k + 1])) {
+        summaries.insertSummaryEdge(s_p, edges[k], d1, edges[k + 1]);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the path edges of s_p, or null if none. If they were spilled, this is a copy read from
+   *     the file.
+   */
   public LocalPathEdges getLocalPathEdges(T s_p) {
-    return pathEdges.get(s_p);
+    LocalPathEdges result = pathEdges.get(s_p);
+    if (result == null && spilled != null && spilled.contains(s_p)) {
+      result = spilled.load(s_p, makeLocalPathEdges(), false);
+    }
+    return result;
+  }
+
+  /**
+   * @return the path edges of s_p, loaded into the heap again if they were spilled, or null if none
+   */
+  private LocalPathEdges loadLocalPathEdges(T s_p) {
+    LocalPathEdges result = pathEdges.get(s_p);
+    if (spilled != null && pool == null) {
+      if (result == null && spilled.contains(s_p)) {
+        result = spilled.load(s_p, makeLocalPathEdges(), true);
+        pathEdges.put(s_p, result);
+      }
+      recentlyUsed.add(s_p);
+    }
+    return result;
   }
 
   /**
@@ -789,7 +1110,7 @@ public class TabulationSolver<T, P, F> {
     assert j >= 0;
     IMergeFunction alpha = problem.getMergeFunction();
     if (alpha != null) {
-      LocalPathEdges lp = pathEdges.get(s_p);
+      LocalPathEdges lp = loadLocalPathEdges(s_p);
       IntSet preExistFacts = lp.getReachable(supergraph.getLocalBlockNumber(n), i);
       if (preExistFacts == null) {
         return j;
@@ -809,6 +1130,10 @@ public class TabulationSolver<T, P, F> {
 
   @SuppressWarnings("unused")
   protected void addToWorkList(T s_p, int i, T n, int j) {
+    if (pool != null) {
+      schedule(PathEdge.createPathEdge(s_p, i, n, j));
+      return;
+    }
     if (worklist == null) {
       worklist = makeWorklist();
     }
@@ -819,25 +1144,30 @@ public class TabulationSolver<T, P, F> {
   }
 
   protected LocalPathEdges findOrCreateLocalPathEdges(T s_p) {
-    LocalPathEdges result = pathEdges.get(s_p);
+    LocalPathEdges result = loadLocalPathEdges(s_p);
     if (result == null) {
-      result = makeLocalPathEdges();
-      pathEdges.put(s_p, result);
+      result = pathEdges.computeIfAbsent(s_p, k -> makeLocalPathEdges());
     }
     return result;
   }
 
   private LocalPathEdges makeLocalPathEdges() {
-    return problem.getMergeFunction() == null
-        ? new LocalPathEdges(false)
-        : new LocalPathEdges(true);
+    boolean fastMerge = problem.getMergeFunction() != null;
+    return numberOfThreads > 1
+        ? new SynchronizedLocalPathEdges(fastMerge)
+        : new LocalPathEdges(fastMerge);
   }
 
   protected LocalSummaryEdges findOrCreateLocalSummaryEdges(P proc) {
     LocalSummaryEdges result = summaryEdges.get(proc);
     if (result == null) {
-      result = new LocalSummaryEdges();
-      summaryEdges.put(proc, result);
+      result =
+          summaryEdges.computeIfAbsent(
+              proc,
+              k ->
+                  numberOfThreads > 1
+                      ? new SynchronizedLocalSummaryEdges()
+                      : new LocalSummaryEdges());
     }
     return result;
   }
@@ -845,8 +1175,10 @@ public class TabulationSolver<T, P, F> {
   protected CallFlowEdges findOrCreateCallFlowEdges(T s_p) {
     CallFlowEdges result = callFlowEdges.get(s_p);
     if (result == null) {
-      result = new CallFlowEdges();
-      callFlowEdges.put(s_p, result);
+      result =
+          callFlowEdges.computeIfAbsent(
+              s_p,
+              k -> numberOfThreads > 1 ? new SynchronizedCallFlowEdges() : new CallFlowEdges());
     }
     return result;
   }
@@ -871,7 +1203,7 @@ public class TabulationSolver<T, P, F> {
     }
 
     for (T entry : allEntries) {
-      LocalPathEdges lp = pathEdges.get(entry);
+      LocalPathEdges lp = getLocalPathEdges(entry);
       if (lp != null) {
         result.addAll(lp.getReachable(n));
       }
@@ -930,10 +1262,9 @@ public class TabulationSolver<T, P, F> {
     @Override
     public Collection<T> getSupergraphNodesReached() {
       Collection<T> result = HashSetFactory.make();
-      for (Entry<T, LocalPathEdges> e : pathEdges.entrySet()) {
-        T key = e.getKey();
+      for (T key : getPathEdgeEntries()) {
         P proc = supergraph.getProcOf(key);
-        IntSet reached = e.getValue().getReachedNodeNumbers();
+        IntSet reached = getLocalPathEdges(key).getReachedNodeNumbers();
         for (IntIterator ii = reached.intIterator(); ii.hasNext(); ) {
           result.add(supergraph.getLocalBlock(proc, ii.next()));
         }
@@ -1009,12 +1340,14 @@ public class TabulationSolver<T, P, F> {
     return progressMonitor;
   }
 
+  /** @return the path edge being processed by the current thread */
   protected PathEdge<T> getCurPathEdge() {
-    return curPathEdge;
+    return cursor().curPathEdge;
   }
 
+  /** @return the summary edge being applied by the current thread */
   protected PathEdge<T> getCurSummaryEdge() {
-    return curSummaryEdge;
+    return cursor().curSummaryEdge;
   }
 
   /**
@@ -289,11 +289,22 @@ public class ContextSensitiveReachingDefs {
   /** perform the tabulation analysis and return the {@link TabulationResult} */
   public TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
       analyze() {
+    return analyze(1);
+  }
+
+  /**
+   * perform the tabulation analysis with the given number of threads and return the {@link
+   * TabulationResult}. Collecting the seeds builds the whole supergraph, so the threads only read
+   * it.
+   */
+  public TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+      analyze(int numberOfThreads) {
     PartiallyBalancedTabulationSolver<
             BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
         solver =
             PartiallyBalancedTabulationSolver.createPartiallyBalancedTabulationSolver(
                 new ReachingDefsProblem(), null);
+    solver.setNumberOfThreads(numberOfThreads);
     TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
         result = null;
     try {
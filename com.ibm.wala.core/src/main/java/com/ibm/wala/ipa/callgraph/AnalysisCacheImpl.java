@@ -24,6 +24,14 @@ public class AnalysisCacheImpl extends AnalysisCache {
         irFactory, ssaOptions, new SSACache(irFactory, new AuxiliaryCache(), new AuxiliaryCache()));
   }
 
+  /**
+   * Use a particular {@link SSACache}, e.g. one with a {@link
+   * com.ibm.wala.ssa.BoundedAuxiliaryCache}
+   */
+  public AnalysisCacheImpl(IRFactory<IMethod> irFactory, SSAOptions ssaOptions, SSACache cache) {
+    super(irFactory, ssaOptions, cache);
+  }
+
   public AnalysisCacheImpl(SSAOptions ssaOptions) {
     this(new DefaultIRFactory(), ssaOptions);
   }
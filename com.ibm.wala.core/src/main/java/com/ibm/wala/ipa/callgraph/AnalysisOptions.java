@@ -12,9 +12,12 @@ package com.ibm.wala.ipa.callgraph;
 
 import com.ibm.wala.analysis.reflection.ReflectionContextInterpreter;
 import com.ibm.wala.analysis.reflection.ReflectionContextSelector;
+import com.ibm.wala.fixedpoint.impl.IFixedPointWorklist;
+import com.ibm.wala.fixedpoint.impl.Worklist;
 import com.ibm.wala.ipa.callgraph.impl.ExplicitCallGraph;
 import com.ibm.wala.ipa.callgraph.propagation.ReflectionHandler;
 import com.ibm.wala.ssa.SSAOptions;
+import java.util.function.Supplier;
 
 /**
  * Basic interface for options that control call graph generation.
@@ -54,6 +57,33 @@ public class AnalysisOptions {
    */
   private int maxEvalBetweenTopo = 1000000000;
 
+  /**
+   * How many threads may the pointer analysis solver use to evaluate independent assignment
+   * constraints concurrently? 1 means the solver runs sequentially.
+   */
+  private int numberOfSolverThreads = 1;
+
+  /** creates the work list of the pointer analysis solver, which decides its evaluation order */
+  private Supplier<? extends IFixedPointWorklist> solverWorklistFactory = Worklist::new;
+
+  /**
+   * Should the pointer analysis solver propagate only newly-added instance keys along assignment
+   * constraints, rather than re-evaluating them with the full points-to sets of their operands?
+   */
+  private boolean useDifferencePropagation = false;
+
+  /**
+   * Should the pointer analysis solver detect cycles of assignment constraints and collapse the
+   * variables in each cycle into one?
+   */
+  private boolean useCycleElimination = false;
+
+  /**
+   * Should the pointer analysis solver update the topological order of its constraints as they are
+   * added, rather than sort the whole constraint graph periodically?
+   */
+  private boolean useIncrementalOrder = false;
+
   /** options for handling reflection during call graph construction */
   public static enum ReflectionOptions {
     FULL("full", Integer.MAX_VALUE, false, false, false),
@@ -293,6 +323,71 @@ public class AnalysisOptions {
     topologicalGrowthFactor = d;
   }
 
+  /**
+   * @return how many threads the pointer analysis solver may use to evaluate independent
+   *     constraints concurrently
+   */
+  public int getNumberOfSolverThreads() {
+    return numberOfSolverThreads;
+  }
+
+  /**
+   * @param n how many threads the pointer analysis solver may use to evaluate independent
+   *     constraints concurrently; 1 means the solver runs sequentially
+   */
+  public void setNumberOfSolverThreads(int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + n);
+    }
+    numberOfSolverThreads = n;
+  }
+
+  /** @return creates the work list of the pointer analysis solver */
+  public Supplier<? extends IFixedPointWorklist> getSolverWorklistFactory() {
+    return solverWorklistFactory;
+  }
+
+  /**
+   * @param factory creates the work list of the pointer analysis solver, which decides the order in
+   *     which constraints are evaluated
+   */
+  public void setSolverWorklistFactory(Supplier<? extends IFixedPointWorklist> factory) {
+    if (factory == null) {
+      throw new IllegalArgumentException("factory is null");
+    }
+    solverWorklistFactory = factory;
+  }
+
+  /** Propagate only newly-added instance keys along assignment constraints? */
+  public boolean getUseDifferencePropagation() {
+    return useDifferencePropagation;
+  }
+
+  /** Propagate only newly-added instance keys along assignment constraints? */
+  public void setUseDifferencePropagation(boolean useDifferencePropagation) {
+    this.useDifferencePropagation = useDifferencePropagation;
+  }
+
+  /** Collapse cycles of assignment constraints in the pointer analysis? */
+  public boolean getUseCycleElimination() {
+    return useCycleElimination;
+  }
+
+  /** Collapse cycles of assignment constraints in the pointer analysis? */
+  public void setUseCycleElimination(boolean useCycleElimination) {
+    this.useCycleElimination = useCycleElimination;
+  }
+
+  /** Maintain the topological order of the pointer analysis constraints incrementally? */
+  public boolean getUseIncrementalOrder() {
+    return useIncrementalOrder;
+  }
+
+  /** Maintain the topological order of the pointer analysis constraints incrementally? */
+  public void setUseIncrementalOrder(boolean useIncrementalOrder) {
+    this.useIncrementalOrder = useIncrementalOrder;
+  }
+
   /** @return options governing SSA construction */
   public SSAOptions getSSAOptions() {
     return ssaOptions;
@@ -11,12 +11,11 @@
 package com.ibm.wala.ipa.callgraph;
 
 import com.ibm.wala.core.util.CancelRuntimeException;
-import com.ibm.wala.dataflow.graph.BitVectorSolver;
-import com.ibm.wala.fixpoint.BitVectorVariable;
-import com.ibm.wala.ipa.modref.GenReach;
 import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.collections.HashMapFactory;
-import com.ibm.wala.util.graph.impl.GraphInverter;
+import com.ibm.wala.util.graph.NumberedGraphReachability;
+import com.ibm.wala.util.intset.MutableMapping;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
 import com.ibm.wala.util.intset.OrdinalSet;
 import java.util.Collection;
 import java.util.Map;
@@ -37,15 +36,36 @@ public class CallGraphTransitiveClosure {
    */
   public static <T> Map<CGNode, OrdinalSet<T>> transitiveClosure(
       CallGraph cg, Map<CGNode, Collection<T>> nodeResults) {
+    if (nodeResults == null) {
+      throw new IllegalArgumentException("null nodeResults");
+    }
+    MutableMapping<T> domain = MutableMapping.make();
+    for (Collection<T> c : nodeResults.values()) {
+      for (T p : c) {
+        domain.add(p);
+      }
+    }
     try {
-      // invert the call graph, to compute the bottom-up result
-      GenReach<CGNode, T> gr = new GenReach<>(GraphInverter.invert(cg), nodeResults);
-      BitVectorSolver<CGNode> solver = new BitVectorSolver<>(gr);
-      solver.solve(null);
+      // the results of a node's callees are those reachable from it in the call graph
+      NumberedGraphReachability<CGNode, T> reach =
+          new NumberedGraphReachability<>(
+              cg,
+              domain,
+              n -> {
+                Collection<T> gen = nodeResults.get(n);
+                if (gen == null) {
+                  return null;
+                }
+                MutableSparseIntSet result = MutableSparseIntSet.makeEmpty();
+                for (T p : gen) {
+                  result.add(domain.getMappedIndex(p));
+                }
+                return result;
+              });
+      reach.solve(null);
       Map<CGNode, OrdinalSet<T>> result = HashMapFactory.make();
       for (CGNode n : cg) {
-        BitVectorVariable bv = solver.getOut(n);
-        result.put(n, new OrdinalSet<>(bv.getValue(), gr.getLatticeValues()));
+        result.put(n, reach.getReachableSet(n));
       }
       return result;
     } catch (CancelException e) {
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.callgraph;
+
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ssa.ConcurrentSSACache;
+import com.ibm.wala.ssa.DefaultIRFactory;
+import com.ibm.wala.ssa.IRFactory;
+import com.ibm.wala.ssa.SSAOptions;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * An {@link AnalysisCacheImpl} whose IRs may be built by several threads at once, see {@link
+ * ConcurrentSSACache}.
+ */
+public class ConcurrentAnalysisCacheImpl extends AnalysisCacheImpl {
+
+  public ConcurrentAnalysisCacheImpl(IRFactory<IMethod> irFactory, SSAOptions ssaOptions) {
+    super(irFactory, ssaOptions, new ConcurrentSSACache(irFactory));
+  }
+
+  public ConcurrentAnalysisCacheImpl(SSAOptions ssaOptions) {
+    this(new DefaultIRFactory(), ssaOptions);
+  }
+
+  public ConcurrentAnalysisCacheImpl(IRFactory<IMethod> irFactory) {
+    this(irFactory, new AnalysisOptions().getSSAOptions());
+  }
+
+  public ConcurrentAnalysisCacheImpl() {
+    this(new DefaultIRFactory());
+  }
+
+  /**
+   * Build the IRs of methods, in {@link com.ibm.wala.ipa.callgraph.impl.Everywhere}, with as many
+   * threads as there are processors, so that e.g. call graph construction later finds them in the
+   * cache.
+   */
+  public void prefetchIRs(Collection<IMethod> methods) {
+    prefetchIRs(methods, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Build the IRs of methods, in {@link com.ibm.wala.ipa.callgraph.impl.Everywhere}, with the given
+   * number of threads.
+   *
+   * @throws IllegalArgumentException if parallelism is less than 1
+   */
+  public void prefetchIRs(Collection<IMethod> methods, int parallelism) {
+    if (methods == null) {
+      throw new IllegalArgumentException("methods is null");
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+    }
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.submit(() -> methods.parallelStream().forEach(this::getIR)).join();
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
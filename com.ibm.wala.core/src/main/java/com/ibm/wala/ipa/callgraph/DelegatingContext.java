@@ -28,6 +28,16 @@ public class DelegatingContext implements Context {
     }
   }
 
+  /** @return the context consulted first */
+  public Context getA() {
+    return A;
+  }
+
+  /** @return the context consulted for keys which the first one does not define */
+  public Context getB() {
+    return B;
+  }
+
   @Override
   public ContextItem get(ContextKey name) {
     ContextItem result = A.get(name);
@@ -40,6 +40,9 @@ import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.MutableMapping;
 import com.ibm.wala.util.intset.MutableSparseIntSet;
 import com.ibm.wala.util.intset.OrdinalSet;
+import com.ibm.wala.util.intset.SparseIntSet;
+import com.ibm.wala.util.intset.SparseIntSetRepository;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -62,6 +65,12 @@ public class PointerAnalysisImpl extends AbstractPointerAnalysis {
 
   protected final PropagationCallGraphBuilder builder;
 
+  /**
+   * once the analysis is frozen, the points-to set of each pointer key by the number of its
+   * representative in {@link #pointsToMap}, or null if the set is empty; null before
+   */
+  private volatile SparseIntSet[] frozenSets;
+
   public PointerAnalysisImpl(
       PropagationCallGraphBuilder builder,
       CallGraph cg,
@@ -102,7 +111,6 @@ public class PointerAnalysisImpl extends AbstractPointerAnalysis {
    *     com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis#getPointsToSet(com.ibm.wala.ipa.callgraph.propagation.PointerKey)
    */
   @Override
-  @SuppressWarnings("unchecked")
   public OrdinalSet<InstanceKey> getPointsToSet(PointerKey key) {
     if (pointsToMap.isImplicit(key)) {
       return computeImplicitPointsToSet(key);
@@ -110,20 +118,23 @@ public class PointerAnalysisImpl extends AbstractPointerAnalysis {
 
     // special logic to handle contents of char[] from string constants.
     if (key instanceof InstanceFieldKey) {
-      InstanceFieldKey ifk = (InstanceFieldKey) key;
-      if (ifk.getInstanceKey() instanceof ConstantKey) {
-        ConstantKey<?> i = (ConstantKey<?>) ifk.getInstanceKey();
-        if (i.getValue() instanceof String
-            && i.getConcreteType().getClassLoader().getLanguage().equals(Language.JAVA)) {
-          StringConstantCharArray contents = StringConstantCharArray.make((ConstantKey<String>) i);
-          instanceKeys.add(contents);
-          Collection<InstanceKey> singleton = HashSetFactory.make();
-          singleton.add(contents);
-          return OrdinalSet.toOrdinalSet(singleton, instanceKeys);
-        }
+      StringConstantCharArray contents =
+          getStringConstantContents(((InstanceFieldKey) key).getInstanceKey());
+      if (contents != null) {
+        instanceKeys.add(contents);
+        Collection<InstanceKey> singleton = HashSetFactory.make();
+        singleton.add(contents);
+        return OrdinalSet.toOrdinalSet(singleton, instanceKeys);
       }
     }
 
+    SparseIntSet[] frozen = frozenSets;
+    if (frozen != null) {
+      int i = pointsToMap.getIndex(key);
+      IntSet S = (i == -1 || i >= frozen.length) ? null : frozen[pointsToMap.getRepresentative(i)];
+      return S == null ? OrdinalSet.empty() : new OrdinalSet<>(S, instanceKeys);
+    }
+
     PointsToSetVariable v = pointsToMap.getPointsToSet(key);
 
     if (v == null) {
@@ -134,6 +145,93 @@ public class PointerAnalysisImpl extends AbstractPointerAnalysis {
     }
   }
 
+  /** @return the contents of ik if it is a Java string constant, or null */
+  @SuppressWarnings("unchecked")
+  private static StringConstantCharArray getStringConstantContents(InstanceKey ik) {
+    if (ik instanceof ConstantKey) {
+      ConstantKey<?> i = (ConstantKey<?>) ik;
+      if (i.getValue() instanceof String
+          && i.getConcreteType().getClassLoader().getLanguage().equals(Language.JAVA)) {
+        return StringConstantCharArray.make((ConstantKey<String>) i);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Number the contents of each Java string constant, so that looking up their points-to sets finds
+   * them already numbered. The instance key mapping is not safe for concurrent writes, so call this
+   * before points-to sets are looked up by several threads.
+   */
+  public void addStringConstantContents() {
+    List<StringConstantCharArray> contents = new ArrayList<>();
+    for (InstanceKey ik : instanceKeys) {
+      StringConstantCharArray c = getStringConstantContents(ik);
+      if (c != null) {
+        contents.add(c);
+      }
+    }
+    for (StringConstantCharArray c : contents) {
+      instanceKeys.add(c);
+    }
+  }
+
+  /**
+   * Replace the points-to sets held by the propagation system with immutable sets from repository,
+   * so that all pointer keys with the same points-to set share one copy, in this analysis and in
+   * any other analysis frozen with the same repository.
+   *
+   * <p>This releases the mutable sets of the solver: its {@link PointsToSetVariable}s are emptied,
+   * so the builder must not be used to extend the solution afterwards. Points-to sets may be looked
+   * up concurrently once this method returns.
+   *
+   * @throws IllegalArgumentException if repository is null
+   */
+  public synchronized void freeze(SparseIntSetRepository repository) {
+    if (repository == null) {
+      throw new IllegalArgumentException("repository is null");
+    }
+    if (frozenSets != null) {
+      return;
+    }
+    SparseIntSet[] frozen = new SparseIntSet[pointsToMap.getNumberOfPointerKeys()];
+    List<PointsToSetVariable> frozenVariables = new ArrayList<>();
+    for (PointerKey key : Iterator2Iterable.make(pointsToMap.iterateKeys())) {
+      if (pointsToMap.isImplicit(key)) {
+        continue;
+      }
+      int rep = pointsToMap.getRepresentative(pointsToMap.getIndex(key));
+      PointsToSetVariable v = pointsToMap.getPointsToSet(rep);
+      if (frozen[rep] == null && v != null && v.getValue() != null) {
+        if (!v.getValue().isEmpty()) {
+          frozen[rep] = repository.findOrCreate(v.getValue());
+        }
+        frozenVariables.add(v);
+      }
+    }
+    addStringConstantContents();
+    frozenSets = frozen;
+    for (PointsToSetVariable v : frozenVariables) {
+      v.removeAll();
+    }
+  }
+
+  /**
+   * Freeze this analysis with a repository of its own, see {@link #freeze(SparseIntSetRepository)}.
+   *
+   * @return the repository, e.g. for its statistics
+   */
+  public SparseIntSetRepository freeze() {
+    SparseIntSetRepository repository = new SparseIntSetRepository();
+    freeze(repository);
+    return repository;
+  }
+
+  /** @return true iff {@link #freeze(SparseIntSetRepository)} has been called */
+  public boolean isFrozen() {
+    return frozenSets != null;
+  }
+
   /** did the pointer analysis use a type filter for a given points-to set? (this is ugly). */
   @Override
   public boolean isFiltered(PointerKey key) {
@@ -19,6 +19,8 @@ import com.ibm.wala.ssa.IR;
 import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.IntSetUtil;
+import com.ibm.wala.util.intset.MutableIntSet;
 import com.ibm.wala.util.intset.MutableMapping;
 import com.ibm.wala.util.intset.MutableSparseIntSet;
 
@@ -46,6 +48,12 @@ public class PointsToSetVariable extends IntSetVariable<PointsToSetVariable> {
 
   private PointerKey pointerKey;
 
+  /**
+   * When difference propagation is enabled, the instance keys added to this variable since the last
+   * call to {@link #takeDelta()}; null otherwise.
+   */
+  private MutableIntSet delta;
+
   public PointsToSetVariable(PointerKey key) {
     super();
     if (key == null) {
@@ -85,6 +93,9 @@ public class PointsToSetVariable extends IntSetVariable<PointsToSetVariable> {
       checkTypes(m);
     }
     final boolean result = super.add(b);
+    if (result && delta != null) {
+      delta.add(b);
+    }
     cryIfTooBig();
     return result;
   }
@@ -94,11 +105,36 @@ public class PointsToSetVariable extends IntSetVariable<PointsToSetVariable> {
     if (PARANOID) {
       checkTypes(B);
     }
-    boolean v = super.addAll(B);
+    boolean v = (delta != null) ? super.addAllWithDelta(B, delta) : super.addAll(B);
     cryIfTooBig();
     return v;
   }
 
+  /**
+   * Start tracking the instance keys added to this variable, treating its current contents as newly
+   * added; see {@link #takeDelta()}.
+   */
+  void trackDelta() {
+    if (delta == null) {
+      delta = IntSetUtil.getDefaultIntSetFactory().make();
+    }
+    if (getValue() != null) {
+      delta.addAll(getValue());
+    }
+  }
+
+  /**
+   * @return the instance keys added to this variable since the last call to this method, or null if
+   *     this variable does not track its additions
+   */
+  MutableIntSet takeDelta() {
+    MutableIntSet result = delta;
+    if (result != null && !result.isEmpty()) {
+      delta = IntSetUtil.getDefaultIntSetFactory().make();
+    }
+    return result;
+  }
+
   /** check that the types of all instance keys are assignable to declared type of pointer key */
   private void checkTypes(IntSet b) {
     assert PARANOID;
@@ -137,12 +173,32 @@ public class PointsToSetVariable extends IntSetVariable<PointsToSetVariable> {
     if (PARANOID) {
       checkTypes(other.getValue());
     }
-    // TODO Auto-generated method stub
+    if (delta != null) {
+      // go through addAll(IntSet) so that the additions are recorded
+      return other.getValue() != null && addAll(other.getValue());
+    }
     boolean v = super.addAll(other);
     cryIfTooBig();
     return v;
   }
 
+  @Override
+  public boolean addAllInIntersection(PointsToSetVariable other, IntSet filter) {
+    if (delta != null) {
+      // go through addAllInIntersection(IntSet, IntSet) so that the additions are recorded
+      return other.getValue() != null && addAllInIntersection(other.getValue(), filter);
+    }
+    return super.addAllInIntersection(other, filter);
+  }
+
+  @Override
+  public boolean addAllInIntersection(IntSet other, IntSet filter) {
+    if (delta != null) {
+      return super.addAllInIntersection(other, filter, delta);
+    }
+    return super.addAllInIntersection(other, filter);
+  }
+
   /**
    * Use this with extreme care, to add filters to this variable..
    *
@@ -34,6 +34,7 @@ import com.ibm.wala.ipa.callgraph.IAnalysisCacheView;
 import com.ibm.wala.ipa.callgraph.impl.AbstractRootMethod;
 import com.ibm.wala.ipa.callgraph.impl.ExplicitCallGraph;
 import com.ibm.wala.ipa.callgraph.propagation.rta.RTAContextInterpreter;
+import com.ibm.wala.ipa.callgraph.util.CallGraphSnapshot;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.ssa.SSAAbstractInvokeInstruction;
 import com.ibm.wala.types.TypeReference;
@@ -207,9 +208,7 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
       System.err.println("Initialized call graph");
     }
 
-    system.setMinEquationsForTopSort(options.getMinEquationsForTopSort());
-    system.setTopologicalGrowthFactor(options.getTopologicalGrowthFactor());
-    system.setMaxEvalBetweenTopo(options.getMaxEvalBetweenTopo());
+    configureSystem(options);
 
     discoveredNodes = HashSetFactory.make();
     discoveredNodes.add(callGraph.getFakeRootNode());
@@ -256,6 +255,41 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
     return callGraph;
   }
 
+  /**
+   * Restore a call graph and pointer analysis recorded by {@link CallGraphSnapshot#make}, instead
+   * of building them. The builder must not have built a call graph yet. The restored analysis
+   * answers queries like a built one, but cannot be extended by solving further constraints.
+   *
+   * @param options the options with which the snapshot was recorded
+   * @return the restored call graph
+   * @throws IllegalArgumentException if options or snapshot is null, or if the snapshot refers to a
+   *     class, method or field which is not in the class hierarchy
+   */
+  public CallGraph restoreCallGraph(AnalysisOptions options, CallGraphSnapshot snapshot)
+      throws CancelException {
+    if (options == null) {
+      throw new IllegalArgumentException("options is null");
+    }
+    if (snapshot == null) {
+      throw new IllegalArgumentException("snapshot is null");
+    }
+    system = makeSystem(options);
+    configureSystem(options);
+    snapshot.restore(callGraph, system, options);
+    return callGraph;
+  }
+
+  private void configureSystem(AnalysisOptions options) {
+    system.setMinEquationsForTopSort(options.getMinEquationsForTopSort());
+    system.setTopologicalGrowthFactor(options.getTopologicalGrowthFactor());
+    system.setMaxEvalBetweenTopo(options.getMaxEvalBetweenTopo());
+    system.setNumberOfThreads(options.getNumberOfSolverThreads());
+    system.setWorklistFactory(options.getSolverWorklistFactory());
+    system.setUseDifferencePropagation(options.getUseDifferencePropagation());
+    system.setUseCycleElimination(options.getUseCycleElimination());
+    system.setUseIncrementalOrder(options.getUseIncrementalOrder());
+  }
+
   protected PropagationSystem makeSystem(@SuppressWarnings("unused") AnalysisOptions options) {
     return new PropagationSystem(callGraph, pointerKeyFactory, instanceKeyFactory);
   }
@@ -480,7 +514,7 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder<In
 
     private final PointerKey base;
 
-    static TypedPointerKey make(PointerKey base, IClass type) {
+    public static TypedPointerKey make(PointerKey base, IClass type) {
       assert type != null;
       return new TypedPointerKey(base, type);
     }
@@ -29,6 +29,7 @@ import com.ibm.wala.util.graph.NumberedGraph;
 import com.ibm.wala.util.graph.NumberedNodeManager;
 import com.ibm.wala.util.graph.impl.DelegatingNumberedNodeManager;
 import com.ibm.wala.util.graph.impl.SparseNumberedEdgeManager;
+import com.ibm.wala.util.graph.traverse.IncrementalTopologicalOrder;
 import com.ibm.wala.util.graph.traverse.Topological;
 import com.ibm.wala.util.heapTrace.HeapTracer;
 import com.ibm.wala.util.intset.BasicNaturalRelation;
@@ -36,12 +37,15 @@ import com.ibm.wala.util.intset.IBinaryNaturalRelation;
 import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntPair;
 import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableIntSet;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 /** A dataflow graph implementation specialized for propagation-based pointer analysis */
 public class PropagationGraph implements IFixedPointSystem<PointsToSetVariable> {
@@ -85,6 +89,12 @@ public class PropagationGraph implements IFixedPointSystem<PointsToSetVariable>
   /** Number of implicit unary equations registered */
   private int implicitUnaryCount = 0;
 
+  /**
+   * the topological order of the variables, if it is maintained as statements are added; otherwise
+   * null
+   */
+  private IncrementalTopologicalOrder<PointsToSetVariable> order;
+
   /** @return a relation in map m corresponding to a key */
   private static IBinaryNaturalRelation findOrCreateRelation(
       Map<UnaryOperator<PointsToSetVariable>, IBinaryNaturalRelation> m,
@@ -180,8 +190,12 @@ public class PropagationGraph implements IFixedPointSystem<PointsToSetVariable>
       if (v != null) {
         delegateGraph.addVariable(v);
         delegateGraph.addEdge(v, eq);
+        addToOrder(v, lhs);
       }
     }
+    if (lhs != null) {
+      addToOrder(lhs);
+    }
   }
 
   public void addStatement(UnaryStatement<PointsToSetVariable> eq) throws IllegalArgumentException {
@@ -201,6 +215,7 @@ public class PropagationGraph implements IFixedPointSystem<PointsToSetVariable>
       }
       delegateGraph.addVariable(rhs);
       delegateGraph.addEdge(rhs, eq);
+      addToOrder(rhs, lhs);
     }
   }
 
@@ -215,6 +230,9 @@ public class PropagationGraph implements IFixedPointSystem<PointsToSetVariable>
   public void removeVariable(PointsToSetVariable p) {
     assert getNumberOfStatementsThatDef(p) == 0;
     assert getNumberOfStatementsThatUse(p) == 0;
+    if (order != null) {
+      order.removeNode(p.getGraphNodeId());
+    }
     delegateGraph.removeNode(p);
   }
 
@@ -236,6 +254,54 @@ public class PropagationGraph implements IFixedPointSystem<PointsToSetVariable>
       IBinaryNaturalRelation iR = findOrCreateRelation(invImplicitUnaryMap, eq.getOperator());
       iR.add(rhs, lhs);
     }
+    addToOrder(eq.getRightHandSide(), eq.getLHS());
+  }
+
+  /**
+   * Maintain the order numbers of the variables as statements are added, with an {@link
+   * IncrementalTopologicalOrder} of the variable graph, instead of sorting the whole graph in
+   * {@link #reorder()}.
+   */
+  void setIncrementalOrder(boolean incremental) {
+    if (!incremental) {
+      order = null;
+    } else if (order == null) {
+      order = new IncrementalTopologicalOrder<>(new VariableGraphView(), this::updateOrder);
+      for (PointsToSetVariable v : Iterator2Iterable.make(getVariables())) {
+        updateOrder(v.getGraphNodeId());
+      }
+    }
+  }
+
+  /** @return true iff the order of the variables is maintained as statements are added */
+  boolean isIncrementallyOrdered() {
+    return order != null;
+  }
+
+  private void updateOrder(int number) {
+    INodeWithNumber v = delegateGraph.getNode(number);
+    if (v instanceof PointsToSetVariable) {
+      ((PointsToSetVariable) v).setOrderNumber(order.getOrder(number));
+    }
+  }
+
+  /** Give v its order number, which the solver may have overwritten. */
+  private void addToOrder(PointsToSetVariable v) {
+    if (order != null) {
+      order.addNode(v.getGraphNodeId());
+      updateOrder(v.getGraphNodeId());
+    }
+  }
+
+  /** Update the order for a statement which uses rhs and defines lhs, which may be null. */
+  private void addToOrder(PointsToSetVariable rhs, PointsToSetVariable lhs) {
+    if (order != null) {
+      if (lhs != null) {
+        order.addEdge(rhs.getGraphNodeId(), lhs.getGraphNodeId());
+        updateOrder(lhs.getGraphNodeId());
+      }
+      addToOrder(rhs);
+    }
   }
 
   private void removeImplicitStatement(UnaryStatement<PointsToSetVariable> eq) {
@@ -411,6 +477,10 @@ public class PropagationGraph implements IFixedPointSystem<PointsToSetVariable>
 
   @Override
   public void reorder() {
+    if (order != null) {
+      // the order numbers are already up to date
+      return;
+    }
     VariableGraphView graph = new VariableGraphView();
 
     Iterator<PointsToSetVariable> order = Topological.makeTopologicalIter(graph).iterator();
@@ -508,6 +578,32 @@ public class PropagationGraph implements IFixedPointSystem<PointsToSetVariable>
       };
     }
 
+    @Override
+    public IntSet getPredNodeNumbers(PointsToSetVariable v) {
+      MutableIntSet result = MutableSparseIntSet.makeEmpty();
+      for (AbstractStatement<PointsToSetVariable, ?> eq :
+          Iterator2Iterable.make(getStatementsThatDef(v))) {
+        if (useImplicitRepresentation(eq)) {
+          result.add(((UnaryStatement<?>) eq).getRightHandSide().getGraphNodeId());
+        } else {
+          result.addAll(delegateGraph.getPredNodeNumbers(eq));
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public IntSet getSuccNodeNumbers(PointsToSetVariable v) {
+      MutableIntSet result = MutableSparseIntSet.makeEmpty();
+      for (AbstractStatement<?, ?> eq : Iterator2Iterable.make(getStatementsThatUse(v))) {
+        IVariable<?> lhs = eq.getLHS();
+        if (lhs != null) {
+          result.add(lhs.getGraphNodeId());
+        }
+      }
+      return result;
+    }
+
     /** @see com.ibm.wala.util.graph.EdgeManager#getPredNodeCount(java.lang.Object) */
     @Override
     public int getPredNodeCount(PointsToSetVariable v) {
@@ -627,6 +723,136 @@ public class PropagationGraph implements IFixedPointSystem<PointsToSetVariable>
     return list.iterator();
   }
 
+  /**
+   * @return the numbers of the variables defined by assignments that use v, or null if there are
+   *     none
+   */
+  IntSet getAssignmentUses(PointsToSetVariable v) {
+    int number = v.getGraphNodeId();
+    if (number == -1) {
+      return null;
+    }
+    IBinaryNaturalRelation R = invImplicitUnaryMap.get(PropagationCallGraphBuilder.assignOperator);
+    return (R == null) ? null : R.getRelated(number);
+  }
+
+  /** @return the statements that use v, except for assignments */
+  @SuppressWarnings("unchecked")
+  Iterator<AbstractStatement<PointsToSetVariable, ?>> getNonAssignmentStatementsThatUse(
+      PointsToSetVariable v) {
+    int number = v.getGraphNodeId();
+    if (number == -1) {
+      return EmptyIterator.instance();
+    }
+    Iterator<INodeWithNumber> result = delegateGraph.getSuccNodes(v);
+    for (int i = 0; i < invImplicitUnaryMap.size(); i++) {
+      UnaryOperator<PointsToSetVariable> op = invImplicitUnaryMap.getKey(i);
+      if (op == PropagationCallGraphBuilder.assignOperator) {
+        continue;
+      }
+      IBinaryNaturalRelation R = invImplicitUnaryMap.getValue(i);
+      IntSet s = R.getRelated(number);
+      if (s != null) {
+        result = new CompoundIterator<>(new ImplicitUseIterator(op, v, s), result);
+      }
+    }
+    List<AbstractStatement<PointsToSetVariable, ?>> list = new ArrayList<>();
+    while (result.hasNext()) {
+      list.add((AbstractStatement<PointsToSetVariable, ?>) result.next());
+    }
+    return list.iterator();
+  }
+
+  /**
+   * Find the non-trivial strongly connected components of the assignment graph that are reachable
+   * from a set of variables, using an iterative version of Tarjan's algorithm.
+   *
+   * @param roots graph node numbers of the variables from which to search
+   * @param candidate which variables may be part of a component; the others are not traversed
+   * @return the graph node numbers of the variables in each component with more than one variable
+   */
+  List<IntSet> findAssignmentCycles(IntSet roots, Predicate<PointsToSetVariable> candidate) {
+    List<IntSet> result = new ArrayList<>();
+    IBinaryNaturalRelation R = invImplicitUnaryMap.get(PropagationCallGraphBuilder.assignOperator);
+    if (R == null) {
+      return result;
+    }
+    int n = delegateGraph.getMaxNumber() + 1;
+    // dfs[v] is 1 + the preorder number of v, or 0 if v has not been visited
+    int[] dfs = new int[n];
+    int[] low = new int[n];
+    boolean[] onStack = new boolean[n];
+    int[] stack = new int[n];
+    int sp = 0;
+    int[] path = new int[n];
+    IntIterator[] succs = new IntIterator[n];
+    int pp = 0;
+    int counter = 0;
+    for (IntIterator it = roots.intIterator(); it.hasNext(); ) {
+      int root = it.next();
+      if (root >= n || dfs[root] != 0 || !isCandidate(root, candidate)) {
+        continue;
+      }
+      dfs[root] = low[root] = ++counter;
+      stack[sp++] = root;
+      onStack[root] = true;
+      path[pp] = root;
+      succs[pp++] = related(R, root);
+      while (pp > 0) {
+        int v = path[pp - 1];
+        IntIterator vs = succs[pp - 1];
+        if (vs.hasNext()) {
+          int w = vs.next();
+          if (dfs[w] == 0) {
+            if (isCandidate(w, candidate)) {
+              dfs[w] = low[w] = ++counter;
+              stack[sp++] = w;
+              onStack[w] = true;
+              path[pp] = w;
+              succs[pp++] = related(R, w);
+            }
+          } else if (onStack[w]) {
+            low[v] = Math.min(low[v], dfs[w]);
+          }
+        } else {
+          succs[--pp] = null;
+          if (pp > 0) {
+            int u = path[pp - 1];
+            low[u] = Math.min(low[u], low[v]);
+          }
+          if (low[v] == dfs[v]) {
+            MutableSparseIntSet scc = MutableSparseIntSet.makeEmpty();
+            int w;
+            do {
+              w = stack[--sp];
+              onStack[w] = false;
+              scc.add(w);
+            } while (w != v);
+            if (scc.size() > 1) {
+              result.add(scc);
+            }
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private boolean isCandidate(int number, Predicate<PointsToSetVariable> candidate) {
+    INodeWithNumber v = delegateGraph.getNode(number);
+    return v instanceof PointsToSetVariable && candidate.test((PointsToSetVariable) v);
+  }
+
+  private static IntIterator related(IBinaryNaturalRelation R, int number) {
+    IntSet s = R.getRelated(number);
+    return (s == null) ? EmptyIntIterator.instance() : s.intIterator();
+  }
+
+  /** @return the variable with the given graph node number */
+  PointsToSetVariable getVariable(int number) {
+    return (PointsToSetVariable) delegateGraph.getNode(number);
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public Iterator<AbstractStatement<PointsToSetVariable, ?>> getStatementsThatDef(
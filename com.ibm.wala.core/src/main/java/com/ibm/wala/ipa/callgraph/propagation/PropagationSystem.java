@@ -14,7 +14,7 @@ import com.ibm.wala.classLoader.ArrayClass;
 import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.core.util.ref.ReferenceCleanser;
 import com.ibm.wala.fixedpoint.impl.DefaultFixedPointSolver;
-import com.ibm.wala.fixedpoint.impl.Worklist;
+import com.ibm.wala.fixedpoint.impl.IFixedPointWorklist;
 import com.ibm.wala.fixpoint.AbstractOperator;
 import com.ibm.wala.fixpoint.AbstractStatement;
 import com.ibm.wala.fixpoint.IFixedPointSystem;
@@ -24,20 +24,26 @@ import com.ibm.wala.fixpoint.UnaryStatement;
 import com.ibm.wala.ipa.callgraph.CallGraph;
 import com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder.FilterOperator;
 import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
 import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Collection;
+import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.MapUtil;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.debug.VerboseAction;
 import com.ibm.wala.util.graph.Graph;
 import com.ibm.wala.util.graph.NumberedGraph;
 import com.ibm.wala.util.heapTrace.HeapTracer;
+import com.ibm.wala.util.intset.BasicNaturalRelation;
+import com.ibm.wala.util.intset.IBinaryNaturalRelation;
 import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.IntSetUtil;
 import com.ibm.wala.util.intset.MutableIntSet;
 import com.ibm.wala.util.intset.MutableMapping;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -98,6 +104,27 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
 
   private int periodicMaintainInterval = DEFAULT_PERIODIC_MAINTENANCE_INTERVAL;
 
+  /**
+   * If true, each points-to set records the instance keys added to it since it last changed, and
+   * only those are pushed along assignment constraints. See {@link #changedVariable}.
+   */
+  private boolean useDifferencePropagation = false;
+
+  /**
+   * If true, cycles of assignment constraints are detected lazily and their variables are unified.
+   * See {@link #collapseCycles()}.
+   */
+  private boolean useCycleElimination = false;
+
+  /**
+   * graph node numbers of variables from which an assignment reached a variable with an equal
+   * points-to set; these are the starting points for the next search for cycles.
+   */
+  private MutableIntSet cycleCandidates = IntSetUtil.make();
+
+  /** (rhs, lhs) graph node numbers of assignments which have already triggered a search */
+  private final IBinaryNaturalRelation checkedAssignments = new BasicNaturalRelation();
+
   @SuppressWarnings("unused")
   public PropagationSystem(
       CallGraph cg, PointerKeyFactory pointerKeyFactory, InstanceKeyFactory instanceKeyFactory) {
@@ -251,6 +278,9 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     PointsToSetVariable result = pointsToMap.getPointsToSet(key);
     if (result == null) {
       result = new PointsToSetVariable(key);
+      if (useDifferencePropagation) {
+        result.trackDelta();
+      }
       pointsToMap.put(key, result);
     } else {
       // check that the filter for this variable remains unique
@@ -295,6 +325,14 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     return result;
   }
 
+  /**
+   * @return the number of key in the points-to map, which numbers pointer keys in the order the
+   *     system first saw them, or -1 if the system has not seen key
+   */
+  public int getIndexForPointerKey(PointerKey key) {
+    return pointsToMap.getIndex(key);
+  }
+
   /**
    * NB: this is idempotent ... if the given constraint exists, it will not be added to the system;
    * however, this will be more expensive since it must check if the constraint pre-exits.
@@ -653,7 +691,7 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
   }
 
   /** Use with care. */
-  Worklist getWorklist() {
+  IFixedPointWorklist getWorklist() {
     return workList;
   }
 
@@ -720,6 +758,84 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     this.periodicMaintainInterval = periodicMaintainInteval;
   }
 
+  public boolean getUseDifferencePropagation() {
+    return useDifferencePropagation;
+  }
+
+  /**
+   * Turn difference propagation on or off. This must be called before any points-to set variable is
+   * created.
+   */
+  public void setUseDifferencePropagation(boolean useDifferencePropagation) {
+    this.useDifferencePropagation = useDifferencePropagation;
+  }
+
+  public boolean getUseCycleElimination() {
+    return useCycleElimination;
+  }
+
+  /** Turn the lazy detection and collapsing of assignment cycles on or off. */
+  public void setUseCycleElimination(boolean useCycleElimination) {
+    this.useCycleElimination = useCycleElimination;
+  }
+
+  public boolean getUseIncrementalOrder() {
+    return flowGraph.isIncrementallyOrdered();
+  }
+
+  /**
+   * Turn on or off the incremental maintenance of the topological order of the points-to set
+   * variables. When it is on, each constraint added updates the order, and the periodic reordering
+   * only rebuilds the worklist instead of sorting the whole constraint graph.
+   */
+  public void setUseIncrementalOrder(boolean useIncrementalOrder) {
+    flowGraph.setIncrementalOrder(useIncrementalOrder);
+  }
+
+  /**
+   * With difference propagation, push the instance keys added to v since it last changed directly
+   * through the assignment constraints that use v, transitively, and schedule the other statements
+   * that use v as usual. An assignment added later is evaluated in full when it is incorporated, so
+   * it is enough to push each new instance key once along the assignments that exist at that time.
+   */
+  @Override
+  public void changedVariable(PointsToSetVariable v) {
+    if (!useDifferencePropagation) {
+      super.changedVariable(v);
+      return;
+    }
+    ArrayDeque<PointsToSetVariable> changed = new ArrayDeque<>();
+    changed.push(v);
+    while (!changed.isEmpty()) {
+      PointsToSetVariable p = changed.pop();
+      MutableIntSet delta = p.takeDelta();
+      if (delta == null) {
+        super.changedVariable(p);
+        continue;
+      }
+      if (delta.isEmpty()) {
+        continue;
+      }
+      IntSet lhsNumbers = flowGraph.getAssignmentUses(p);
+      if (lhsNumbers != null) {
+        for (IntIterator it = lhsNumbers.intIterator(); it.hasNext(); ) {
+          PointsToSetVariable lhs = flowGraph.getVariable(it.next());
+          incNumberOfEvaluations();
+          if (lhs.addAll(delta)) {
+            changed.push(lhs);
+          }
+          if (useCycleElimination) {
+            noteCycleCandidate(p, lhs);
+          }
+        }
+      }
+      for (AbstractStatement<PointsToSetVariable, ?> s :
+          Iterator2Iterable.make(flowGraph.getNonAssignmentStatementsThatUse(p))) {
+        addToWorkList(s);
+      }
+    }
+  }
+
   /**
    * Unify the points-to-sets for the variables identified by the set s
    *
@@ -746,6 +862,13 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
 
     // special logic to clean up side effects
     updateSideEffectsForUnification(cache, rep);
+
+    if (useDifferencePropagation) {
+      // the representative inherits constraints which have not seen all of its contents
+      PointsToSetVariable p = pointsToMap.getPointsToSet(rep);
+      p.trackDelta();
+      changedVariable(p);
+    }
   }
 
   /**
@@ -780,7 +903,7 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
             PointsToSetVariable rhs = assign.getRightHandSide();
             int rhsRep = pointsToMap.getRepresentative(pointsToMap.getIndex(rhs.getPointerKey()));
             if (rhsRep == rep) {
-              flowGraph.removeStatement(as);
+              removeStatement(as);
             } else {
               replaceLHS(pRef, p, as);
             }
@@ -795,7 +918,7 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
             PointsToSetVariable lhs = assign.getLHS();
             int lhsRep = pointsToMap.getRepresentative(pointsToMap.getIndex(lhs.getPointerKey()));
             if (lhsRep == rep) {
-              flowGraph.removeStatement(as);
+              removeStatement(as);
             } else {
               replaceRHS(pRef, p, as);
             }
@@ -836,7 +959,7 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
       }
       newStatement(as.getLHS(), as.getOperator(), newRHS, false, false);
     }
-    flowGraph.removeStatement(as);
+    removeStatement(as);
   }
 
   /**
@@ -859,7 +982,7 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     } else {
       newStatement(pRef, as.getOperator(), as.getRHS(), false, false);
     }
-    flowGraph.removeStatement(as);
+    removeStatement(as);
   }
 
   public boolean isUnified(PointerKey result) {
@@ -874,6 +997,80 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     return pointsToMap.getIndex(p);
   }
 
+  /**
+   * Lazy cycle detection: when propagation along the assignment from rhs to lhs leaves both with
+   * equal points-to sets, the assignment probably closes a cycle, so rhs is noted as a starting
+   * point for the next search. Each assignment triggers at most one search.
+   */
+  private void noteCycleCandidate(PointsToSetVariable rhs, PointsToSetVariable lhs) {
+    int size = rhs.size();
+    if (size > 0
+        && size == lhs.size()
+        && rhs.sameValue(lhs)
+        && checkedAssignments.add(rhs.getGraphNodeId(), lhs.getGraphNodeId())) {
+      cycleCandidates.add(rhs.getGraphNodeId());
+    }
+  }
+
+  /** With cycle elimination, check each assignment for a cycle once it has been evaluated. */
+  @Override
+  protected void statementEvaluated(AbstractStatement<PointsToSetVariable, ?> s) {
+    if (useCycleElimination && s instanceof AssignEquation) {
+      AssignEquation assign = (AssignEquation) s;
+      noteCycleCandidate(assign.getRightHandSide(), assign.getLHS());
+    }
+  }
+
+  /**
+   * Unify the variables of each cycle of assignment constraints reachable from the candidates noted
+   * during the last round of solving. Variables with a type filter are left alone.
+   *
+   * <p>This must only be called when the work list is empty: at the fixed point, all variables in a
+   * cycle of assignments hold the same points-to set, and no pending statement refers to a variable
+   * which is about to be merged away.
+   *
+   * @return true iff some cycle was collapsed
+   */
+  private boolean collapseCycles() {
+    if (cycleCandidates.isEmpty()) {
+      return false;
+    }
+    List<IntSet> cycles =
+        flowGraph.findAssignmentCycles(
+            cycleCandidates, v -> !(v.getPointerKey() instanceof FilteredPointerKey));
+    cycleCandidates = IntSetUtil.make();
+    for (IntSet cycle : cycles) {
+      MutableIntSet keys = IntSetUtil.make();
+      cycle.foreach(n -> keys.add(pointsToMap.getIndex(flowGraph.getVariable(n).getPointerKey())));
+      unify(keys);
+    }
+    return !cycles.isEmpty();
+  }
+
+  /**
+   * With cycle elimination, collapse the cycles found during solving once the work list is empty,
+   * and solve again to process the rewritten statements.
+   */
+  @Override
+  public boolean solve(IProgressMonitor monitor) throws CancelException {
+    boolean result = super.solve(monitor);
+    while (useCycleElimination && collapseCycles()) {
+      if (super.solve(monitor)) {
+        result = true;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * An assignment only unions its right-hand side into its left-hand side, so it may be evaluated
+   * concurrently with other statements that do not touch those variables.
+   */
+  @Override
+  protected boolean isParallelizable(AbstractStatement<PointsToSetVariable, ?> s) {
+    return s instanceof AssignEquation;
+  }
+
   @Override
   protected PointsToSetVariable[] makeStmtRHS(int size) {
     return new PointsToSetVariable[size];
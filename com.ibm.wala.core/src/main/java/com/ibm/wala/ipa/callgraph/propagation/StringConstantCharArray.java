@@ -37,6 +37,10 @@ public class StringConstantCharArray implements InstanceKey {
     return new StringConstantCharArray(constant);
   }
 
+  public ConstantKey<String> getConstant() {
+    return constant;
+  }
+
   @Override
   public int hashCode() {
     final int prime = 31;
@@ -27,6 +27,20 @@ public class CallString implements ContextItem {
     this.methods = new IMethod[] {method};
   }
 
+  /**
+   * @param sites the call sites, most recent first
+   * @param methods the method containing each call site
+   * @throws IllegalArgumentException if sites and methods differ in length
+   */
+  public CallString(CallSiteReference[] sites, IMethod[] methods) {
+    if (sites.length != methods.length) {
+      throw new IllegalArgumentException(
+          sites.length + " sites, but " + methods.length + " methods");
+    }
+    this.sites = sites.clone();
+    this.methods = methods.clone();
+  }
+
   protected CallString(CallSiteReference site, IMethod method, int length, CallString base) {
     int sitesLength = Math.min(length, base.sites.length + 1);
     int methodsLength = Math.min(length, base.methods.length + 1);
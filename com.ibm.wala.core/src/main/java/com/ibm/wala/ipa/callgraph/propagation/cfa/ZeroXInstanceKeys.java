@@ -34,6 +34,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Flexible class to create {@link InstanceKey}s depending on various policies ranging from
@@ -120,8 +121,11 @@ public class ZeroXInstanceKeys implements InstanceKeyFactory {
   /** An object which interprets nodes in context. */
   private final RTAContextInterpreter contextInterpreter;
 
-  /** a Map from CGNode-&gt;Set&lt;IClass&gt; that should be smushed. */
-  protected final Map<CGNode, Set<IClass>> smushMap = HashMapFactory.make();
+  /**
+   * a Map from CGNode-&gt;Set&lt;IClass&gt; that should be smushed. This is filled lazily, possibly
+   * by several threads at once.
+   */
+  protected final Map<CGNode, Set<IClass>> smushMap = new ConcurrentHashMap<>();
 
   public ZeroXInstanceKeys(
       AnalysisOptions options,
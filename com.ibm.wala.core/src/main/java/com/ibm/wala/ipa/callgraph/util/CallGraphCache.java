@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.callgraph.util;
+
+import com.ibm.wala.classLoader.JarFileModule;
+import com.ibm.wala.classLoader.Module;
+import com.ibm.wala.classLoader.ModuleEntry;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.io.VarInts;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A directory of {@link CallGraphSnapshot}s, keyed by a hash of the contents of the analysis scope
+ * and of the analysis options which influence the result.
+ *
+ * <p>On a hit, the builder restores the call graph and pointer analysis from the snapshot instead
+ * of building them. A typical use:
+ *
+ * <pre>
+ * String key = CallGraphCache.computeKey(scope, options, "0-1-CFA");
+ * CallGraphSnapshot snapshot = cache.load(key);
+ * CallGraph cg;
+ * if (snapshot != null) {
+ *   cg = builder.restoreCallGraph(options, snapshot);
+ * } else {
+ *   cg = builder.makeCallGraph(options, null);
+ *   snapshot = CallGraphSnapshot.make(builder);
+ *   if (snapshot != null) {
+ *     cache.store(key, snapshot);
+ *   }
+ * }
+ * </pre>
+ */
+public class CallGraphCache {
+
+  private static final String SUFFIX = ".cgs";
+
+  private final File directory;
+
+  /** @throws IllegalArgumentException if directory is null */
+  public CallGraphCache(File directory) {
+    if (directory == null) {
+      throw new IllegalArgumentException("directory is null");
+    }
+    this.directory = directory;
+  }
+
+  /**
+   * Compute the cache key for an analysis.
+   *
+   * <p>The key covers the name and the contents of every entry of every module in the scope, except
+   * for jar files of the primordial loader, which are covered by their path, size and modification
+   * time. It also covers the string form of the exclusions, the entrypoints and the options which
+   * change the call graph or the points-to sets. Tuning options of the solver are left out. Options
+   * which cannot be rendered as a value, such as the method and class target selectors, are not
+   * covered either; callers must describe any customization of them, as well as the kind of
+   * builder, in builderDescription.
+   *
+   * @param builderDescription describes how the call graph is built, e.g. "0-1-CFA"
+   * @return a string suitable as a file name
+   */
+  public static String computeKey(
+      AnalysisScope scope, AnalysisOptions options, String builderDescription) throws IOException {
+    if (scope == null) {
+      throw new IllegalArgumentException("scope is null");
+    }
+    if (options == null) {
+      throw new IllegalArgumentException("options is null");
+    }
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    OutputStream sink =
+        new OutputStream() {
+          @Override
+          public void write(int b) {}
+
+          @Override
+          public void write(byte[] b, int off, int len) {}
+        };
+    // strings are hashed with VarInts, as writeUTF cannot encode more than 64 KB, which long
+    // exclusions may exceed
+    DataOutputStream out = new DataOutputStream(new DigestOutputStream(sink, digest));
+    out.writeInt(CallGraphSnapshot.FORMAT_VERSION);
+    VarInts.writeString(out, String.valueOf(builderDescription));
+
+    for (ClassLoaderReference loader : scope.getLoaders()) {
+      VarInts.writeString(out, loader.getName().toString());
+      boolean primordial = loader.equals(ClassLoaderReference.Primordial);
+      for (Module m : scope.getModules(loader)) {
+        if (primordial && m instanceof JarFileModule) {
+          stampJar(out, (JarFileModule) m);
+        } else {
+          hashModule(out, m);
+        }
+      }
+    }
+    // FileOfClasses renders the regular expression it matches
+    VarInts.writeString(out, String.valueOf(scope.getExclusions()));
+
+    for (Entrypoint e : options.getEntrypoints()) {
+      VarInts.writeString(out, e.toString());
+    }
+    VarInts.writeString(out, options.getReflectionOptions().getName());
+    out.writeLong(options.getMaxNumberOfNodes());
+    out.writeBoolean(options.getHandleStaticInit());
+    out.writeBoolean(options.getHandleZeroLengthArray());
+    out.writeBoolean(options.getUseConstantSpecificKeys());
+    out.writeBoolean(options.getUseStacksForLexicalScoping());
+    out.writeBoolean(options.getUseLexicalScopingForGlobals());
+    out.writeBoolean(options.getTraceStringConstants());
+    VarInts.writeString(out, String.valueOf(options.getSSAOptions().getPiNodePolicy()));
+    out.flush();
+
+    StringBuilder result = new StringBuilder();
+    for (byte b : digest.digest()) {
+      result.append(String.format("%02x", b));
+    }
+    return result.toString();
+  }
+
+  /**
+   * Hash a jar of the primordial loader, typically the JDK, by its path, size and modification time
+   * rather than by its contents, as reading all of the JDK would cost more than many analyses.
+   */
+  private static void stampJar(DataOutputStream out, JarFileModule m) throws IOException {
+    File f = new File(m.getAbsolutePath());
+    VarInts.writeString(out, f.getAbsolutePath());
+    out.writeLong(f.length());
+    out.writeLong(f.lastModified());
+  }
+
+  private static void hashModule(DataOutputStream out, Module m) throws IOException {
+    byte[] buffer = new byte[8192];
+    for (ModuleEntry entry : Iterator2Iterable.make(m.getEntries())) {
+      VarInts.writeString(out, entry.getName());
+      if (entry.isModuleFile()) {
+        hashModule(out, entry.asModule());
+      } else {
+        try (InputStream in = entry.getInputStream()) {
+          int n;
+          while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+          }
+        }
+      }
+    }
+  }
+
+  private File getFile(String key) {
+    return new File(directory, key + SUFFIX);
+  }
+
+  /**
+   * @return the snapshot stored under key, or null if there is none or it cannot be read, e.g.
+   *     because it was written in a different format version
+   */
+  public CallGraphSnapshot load(String key) {
+    File f = getFile(key);
+    if (!f.exists()) {
+      return null;
+    }
+    try (InputStream in = new BufferedInputStream(new FileInputStream(f))) {
+      return CallGraphSnapshot.read(in);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /** Store snapshot under key, replacing any previous entry. */
+  public void store(String key, CallGraphSnapshot snapshot) throws IOException {
+    if (snapshot == null) {
+      throw new IllegalArgumentException("snapshot is null");
+    }
+    Files.createDirectories(directory.toPath());
+    // write to a temporary file first, so that readers never see a partial entry
+    File tmp = File.createTempFile(key, ".tmp", directory);
+    try {
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp))) {
+        snapshot.write(out);
+      }
+      Files.move(
+          tmp.toPath(),
+          getFile(key).toPath(),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp.toPath());
+    }
+  }
+}
@@ -0,0 +1,1669 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.callgraph.util;
+
+import com.ibm.wala.analysis.reflection.GetMethodContext;
+import com.ibm.wala.analysis.reflection.JavaTypeContext;
+import com.ibm.wala.analysis.typeInference.ConeType;
+import com.ibm.wala.analysis.typeInference.PointType;
+import com.ibm.wala.analysis.typeInference.TypeAbstraction;
+import com.ibm.wala.classLoader.ArrayClass;
+import com.ibm.wala.classLoader.CallSiteReference;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IField;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.classLoader.NewSiteReference;
+import com.ibm.wala.core.util.strings.Atom;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.Context;
+import com.ibm.wala.ipa.callgraph.DelegatingContext;
+import com.ibm.wala.ipa.callgraph.impl.AbstractRootMethod;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.callgraph.impl.ExplicitCallGraph;
+import com.ibm.wala.ipa.callgraph.propagation.ArrayContentsKey;
+import com.ibm.wala.ipa.callgraph.propagation.ConcreteTypeKey;
+import com.ibm.wala.ipa.callgraph.propagation.ConstantKey;
+import com.ibm.wala.ipa.callgraph.propagation.FilteredPointerKey.MultipleClassesFilter;
+import com.ibm.wala.ipa.callgraph.propagation.FilteredPointerKey.SingleClassFilter;
+import com.ibm.wala.ipa.callgraph.propagation.FilteredPointerKey.SingleInstanceFilter;
+import com.ibm.wala.ipa.callgraph.propagation.FilteredPointerKey.TargetMethodFilter;
+import com.ibm.wala.ipa.callgraph.propagation.FilteredPointerKey.TypeFilter;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceFieldKey;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.LocalPointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.LocalPointerKeyWithFilter;
+import com.ibm.wala.ipa.callgraph.propagation.MultiNewArrayInNode;
+import com.ibm.wala.ipa.callgraph.propagation.NormalAllocationInNode;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointsToSetVariable;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder.TypedPointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationSystem;
+import com.ibm.wala.ipa.callgraph.propagation.ReceiverInstanceContext;
+import com.ibm.wala.ipa.callgraph.propagation.ReturnValueKey;
+import com.ibm.wala.ipa.callgraph.propagation.ReturnValueKeyWithFilter;
+import com.ibm.wala.ipa.callgraph.propagation.SmushedAllocationSiteInNode;
+import com.ibm.wala.ipa.callgraph.propagation.StaticFieldKey;
+import com.ibm.wala.ipa.callgraph.propagation.StringConstantCharArray;
+import com.ibm.wala.ipa.callgraph.propagation.ZeroLengthArrayInNode;
+import com.ibm.wala.ipa.callgraph.propagation.cfa.CallString;
+import com.ibm.wala.ipa.callgraph.propagation.cfa.CallStringContext;
+import com.ibm.wala.ipa.callgraph.propagation.cfa.CallStringContextSelector;
+import com.ibm.wala.ipa.callgraph.propagation.cfa.ExceptionReturnValueKey;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.shrike.shrikeBT.IInvokeInstruction;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSAAbstractInvokeInstruction;
+import com.ibm.wala.ssa.SSAArrayLoadInstruction;
+import com.ibm.wala.ssa.SSAArrayStoreInstruction;
+import com.ibm.wala.ssa.SSACheckCastInstruction;
+import com.ibm.wala.ssa.SSAGetInstruction;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.ssa.SSAInstructionFactory;
+import com.ibm.wala.ssa.SSANewInstruction;
+import com.ibm.wala.ssa.SSAPhiInstruction;
+import com.ibm.wala.ssa.SSAPutInstruction;
+import com.ibm.wala.ssa.SSAReturnInstruction;
+import com.ibm.wala.ssa.SymbolTable;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.FieldReference;
+import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.types.Selector;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+import com.ibm.wala.util.intset.OrdinalSetMapping;
+import com.ibm.wala.util.intset.SparseIntSet;
+import com.ibm.wala.util.intset.SparseIntSetRepository;
+import com.ibm.wala.util.io.VarInts;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, serializable record of a call graph built by a {@link PropagationCallGraphBuilder},
+ * its pointer analysis, and the numbering of instance keys in its {@link PropagationSystem}.
+ *
+ * <p>Types, methods and fields are recorded by their references. Nodes, contexts, instance keys and
+ * pointer keys are recorded as descriptors of their kind and their parts, e.g. a {@link
+ * NormalAllocationInNode} as the number of its node, the program counter and declared type of its
+ * allocation site and its concrete type. {@link #restore(ExplicitCallGraph, PropagationSystem,
+ * AnalysisOptions)} rebuilds the objects from the descriptors, looking up classes, methods and
+ * fields in the class hierarchy of the call graph it restores into. Synthetic methods, such as
+ * method summaries, are obtained again from the method target selector of the analysis options, at
+ * a call site which reached them.
+ *
+ * <p>Each distinct string is written once, in a string table, and each distinct set of node or
+ * instance key numbers once, in a set table; ints and {@link IntSet}s are written with {@link
+ * VarInts}.
+ *
+ * <p>The format describes the contexts, instance keys, pointer keys and type filters which the
+ * builders in {@link com.ibm.wala.ipa.callgraph.impl.Util} create for Java. {@link
+ * #make(PropagationCallGraphBuilder)} declines to record an analysis which holds any other kind.
+ */
+public class CallGraphSnapshot {
+
+  /** the version of the binary format; change it whenever the format changes */
+  public static final int FORMAT_VERSION = 2;
+
+  private static final int MAGIC = 0x57434753;
+
+  private static final int NONE = -1;
+
+  /** state of a pointer key which is represented implicitly */
+  private static final int IMPLICIT = -1;
+
+  /** state of a pointer key which is only a part of another one */
+  private static final int NOT_TRACKED = -2;
+
+  // kinds of methods
+  private static final int CODE = 0;
+  private static final int FAKE_ROOT = 1;
+  private static final int FAKE_WORLD_CLINIT = 2;
+  private static final int SYNTHETIC = 3;
+
+  // kinds of contexts
+  private static final int EVERYWHERE = 0;
+  private static final int DELEGATING = 1;
+  private static final int CALL_STRING = 2;
+  private static final int RECEIVER_INSTANCE = 3;
+  private static final int JAVA_TYPE = 4;
+  private static final int GET_METHOD = 5;
+
+  // kinds of type abstractions
+  private static final int POINT_TYPE = 0;
+  private static final int CONE_TYPE = 1;
+
+  // kinds of instance keys
+  private static final int CONCRETE_TYPE = 0;
+  private static final int NORMAL_ALLOCATION = 1;
+  private static final int ZERO_LENGTH_ARRAY = 2;
+  private static final int MULTI_NEW_ARRAY = 3;
+  private static final int SMUSHED_ALLOCATION = 4;
+  private static final int CONSTANT_STRING = 5;
+  private static final int CONSTANT_CLASS = 6;
+  private static final int CONSTANT_METHOD = 7;
+  private static final int CONSTANT_FIELD = 8;
+  private static final int STRING_CONSTANT_CHAR_ARRAY = 9;
+
+  // kinds of pointer keys
+  private static final int LOCAL = 0;
+  private static final int LOCAL_WITH_FILTER = 1;
+  private static final int RETURN_VALUE = 2;
+  private static final int RETURN_VALUE_WITH_FILTER = 3;
+  private static final int EXCEPTION_RETURN_VALUE = 4;
+  private static final int INSTANCE_FIELD = 5;
+  private static final int STATIC_FIELD = 6;
+  private static final int ARRAY_CONTENTS = 7;
+  private static final int TYPED = 8;
+
+  // kinds of type filters
+  private static final int SINGLE_CLASS = 0;
+  private static final int MULTIPLE_CLASSES = 1;
+  private static final int SINGLE_INSTANCE = 2;
+  private static final int TARGET_METHOD = 3;
+
+  // kinds of statements of the fake root methods
+  private static final int NEW = 0;
+  private static final int INVOKE = 1;
+  private static final int ARRAY_LOAD = 2;
+  private static final int ARRAY_STORE = 3;
+  private static final int GET = 4;
+  private static final int PUT = 5;
+  private static final int CHECK_CAST = 6;
+  private static final int PHI = 7;
+  private static final int RETURN = 8;
+
+  // kinds of constants of the fake root methods
+  private static final int INT_CONSTANT = 0;
+  private static final int BYTE_CONSTANT = 1;
+  private static final int CHAR_CONSTANT = 2;
+
+  private static final IInvokeInstruction.Dispatch[] DISPATCH =
+      IInvokeInstruction.Dispatch.values();
+
+  private final String[] strings;
+
+  /** loader name and type name of each type reference */
+  private final int[][] types;
+
+  /** declaring type and selector of each method reference */
+  private final int[][] methods;
+
+  /** declaring type, name and type of each field reference */
+  private final int[][] fields;
+
+  /** program counter, declared target and invocation code of each call site */
+  private final int[][] sites;
+
+  /** kind and parts of each method of a node, a call string or a constant */
+  private final int[][] nodeMethods;
+
+  /** kind and parts of each context */
+  private final int[][] contexts;
+
+  /** method and context of each node, in order of node numbers */
+  private final int[][] nodes;
+
+  /** for each node, pairs of a call site and the set of its targets */
+  private final int[][] callSites;
+
+  /** the statements of the fake root method, then of the fake world clinit method */
+  private final int[][][] rootStatements;
+
+  /** the constants (value number, kind, value) of the fake root methods */
+  private final int[][][] rootConstants;
+
+  /** the next free value number of each fake root method */
+  private final int[] rootLocals;
+
+  private final IntSet entrypoints;
+
+  /** kind and parts of each instance key; the first ones are numbered by the propagation system */
+  private final int[][] instanceKeys;
+
+  /** how many instance keys are numbered by the propagation system */
+  private final int numberedInstanceKeys;
+
+  /** kind and parts of each pointer key; the tracked ones in the order of the pointer analysis */
+  private final int[][] pointerKeys;
+
+  /** for each pointer key, the set of its points-to set, or IMPLICIT, or NOT_TRACKED */
+  private final int[] pointsTo;
+
+  /** the distinct sets of node numbers and of instance key numbers */
+  private final IntSet[] sets;
+
+  private CallGraphSnapshot(
+      String[] strings,
+      int[][] types,
+      int[][] methods,
+      int[][] fields,
+      int[][] sites,
+      int[][] nodeMethods,
+      int[][] contexts,
+      int[][] nodes,
+      int[][] callSites,
+      int[][][] rootStatements,
+      int[][][] rootConstants,
+      int[] rootLocals,
+      IntSet entrypoints,
+      int[][] instanceKeys,
+      int numberedInstanceKeys,
+      int[][] pointerKeys,
+      int[] pointsTo,
+      IntSet[] sets) {
+    this.strings = strings;
+    this.types = types;
+    this.methods = methods;
+    this.fields = fields;
+    this.sites = sites;
+    this.nodeMethods = nodeMethods;
+    this.contexts = contexts;
+    this.nodes = nodes;
+    this.callSites = callSites;
+    this.rootStatements = rootStatements;
+    this.rootConstants = rootConstants;
+    this.rootLocals = rootLocals;
+    this.entrypoints = entrypoints;
+    this.instanceKeys = instanceKeys;
+    this.numberedInstanceKeys = numberedInstanceKeys;
+    this.pointerKeys = pointerKeys;
+    this.pointsTo = pointsTo;
+    this.sets = sets;
+  }
+
+  /**
+   * Record the call graph, the pointer analysis and the instance key numbering of a builder which
+   * has built its call graph.
+   *
+   * @return the snapshot, or null if the analysis holds a method, context, instance key, pointer
+   *     key or type filter which the format cannot describe
+   * @throws IllegalArgumentException if builder is null or has not built a call graph
+   */
+  public static CallGraphSnapshot make(PropagationCallGraphBuilder builder) {
+    if (builder == null) {
+      throw new IllegalArgumentException("builder is null");
+    }
+    if (builder.getPropagationSystem() == null) {
+      throw new IllegalArgumentException("builder has not built a call graph");
+    }
+    try {
+      return new Recorder(builder).record();
+    } catch (UnsupportedKindException e) {
+      return null;
+    }
+  }
+
+  /** thrown while recording an object which the format cannot describe */
+  private static final class UnsupportedKindException extends Exception {
+    private static final long serialVersionUID = -3528393410512453270L;
+
+    UnsupportedKindException(Object o) {
+      super(String.valueOf(o));
+    }
+  }
+
+  /** interns objects as rows of ints, numbered in order of first occurrence */
+  private static final class Table<K> {
+    private final Map<K, Integer> numbers = HashMapFactory.make();
+
+    private final List<int[]> rows = new ArrayList<>();
+
+    Integer find(K key) {
+      return numbers.get(key);
+    }
+
+    /** number key before its row is known, so that rows may refer to it */
+    int reserve(K key) {
+      int i = rows.size();
+      numbers.put(key, i);
+      rows.add(null);
+      return i;
+    }
+
+    int add(K key, int[] row) {
+      int i = reserve(key);
+      rows.set(i, row);
+      return i;
+    }
+
+    void set(int i, int[] row) {
+      rows.set(i, row);
+    }
+
+    int size() {
+      return rows.size();
+    }
+
+    int[][] toArray() {
+      return rows.toArray(new int[0][]);
+    }
+  }
+
+  /** a growable row of ints */
+  private static final class Row {
+    private int[] ints = new int[8];
+
+    private int size;
+
+    Row(int kind) {
+      add(kind);
+    }
+
+    Row add(int i) {
+      if (size == ints.length) {
+        ints = Arrays.copyOf(ints, 2 * size);
+      }
+      ints[size++] = i;
+      return this;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(ints, size);
+    }
+  }
+
+  /** collects the tables of a snapshot from a builder */
+  private static final class Recorder {
+    private final ExplicitCallGraph cg;
+
+    private final PropagationSystem system;
+
+    private final PointerAnalysis<InstanceKey> pa;
+
+    private final IClassHierarchy cha;
+
+    private final Table<String> strings = new Table<>();
+
+    private final Table<TypeReference> types = new Table<>();
+
+    private final Table<MethodReference> methods = new Table<>();
+
+    private final Table<FieldReference> fields = new Table<>();
+
+    private final Table<List<Object>> sites = new Table<>();
+
+    private final Table<IMethod> nodeMethods = new Table<>();
+
+    private final Table<Context> contexts = new Table<>();
+
+    private final Table<CGNode> nodes = new Table<>();
+
+    private final Table<InstanceKey> instanceKeys = new Table<>();
+
+    private final Table<PointerKey> pointerKeys = new Table<>();
+
+    private final SparseIntSetRepository repository = new SparseIntSetRepository();
+
+    private final Map<SparseIntSet, Integer> setNumbers = new IdentityHashMap<>();
+
+    private final List<IntSet> sets = new ArrayList<>();
+
+    Recorder(PropagationCallGraphBuilder builder) {
+      this.cg = builder.getCallGraph();
+      this.system = builder.getPropagationSystem();
+      this.pa = builder.getPointerAnalysis();
+      this.cha = cg.getClassHierarchy();
+    }
+
+    CallGraphSnapshot record() throws UnsupportedKindException {
+      // number the nodes first, so that contexts and keys may refer to any of them
+      List<CGNode> order = new ArrayList<>();
+      for (int i = 0; i <= cg.getMaxNumber(); i++) {
+        CGNode n = cg.getNode(i);
+        if (n != null) {
+          nodes.reserve(n);
+          order.add(n);
+        }
+      }
+      // the pointer analysis iterates its keys in hash order; record them in the order the system
+      // numbered them, which restore() reproduces
+      List<PointerKey> tracked = new ArrayList<>();
+      pa.getPointerKeys().forEach(tracked::add);
+      tracked.sort(Comparator.comparingInt(system::getIndexForPointerKey));
+      // compute the points-to sets first: asking for some of them extends the instance key mapping
+      List<Integer> states = new ArrayList<>();
+      for (PointerKey key : tracked) {
+        if (system.isImplicit(key)) {
+          states.add(IMPLICIT);
+        } else {
+          IntSet s = pa.getPointsToSet(key).getBackingSet();
+          states.add(set(s == null ? MutableSparseIntSet.makeEmpty() : s));
+        }
+      }
+      // number the instance keys of the system before any context or key refers to them, so that
+      // they keep the numbers of the system
+      OrdinalSetMapping<InstanceKey> mapping = pa.getInstanceKeyMapping();
+      int numbered = mapping.getMaximumIndex() + 1;
+      for (int i = 0; i < numbered; i++) {
+        instanceKeys.reserve(mapping.getMappedObject(i));
+      }
+      for (CGNode n : order) {
+        nodes.set(nodes.find(n), new int[] {method(n.getMethod()), context(n.getContext())});
+      }
+      int[][] callSites = new int[order.size()][];
+      for (CGNode n : order) {
+        Row row = new Row(0);
+        int count = 0;
+        for (CallSiteReference site : Iterator2Iterable.make(n.iterateCallSites())) {
+          IntSet targets = cg.getPossibleTargetNumbers(n, site);
+          if (targets != null && !targets.isEmpty()) {
+            MutableSparseIntSet numbers = MutableSparseIntSet.makeEmpty();
+            for (IntIterator it = targets.intIterator(); it.hasNext(); ) {
+              numbers.add(nodes.find(cg.getNode(it.next())));
+            }
+            row.add(site(site)).add(set(numbers));
+            count++;
+          }
+        }
+        int[] pairs = row.toArray();
+        pairs[0] = count;
+        callSites[nodes.find(n)] = pairs;
+      }
+
+      int[][][] rootStatements = new int[2][][];
+      int[][][] rootConstants = new int[2][][];
+      int[] rootLocals = new int[2];
+      CGNode[] roots = {cg.getFakeRootNode(), cg.getFakeWorldClinitNode()};
+      for (int r = 0; r < roots.length; r++) {
+        if (roots[r] == null) {
+          rootStatements[r] = new int[0][];
+          rootConstants[r] = new int[0][];
+        } else {
+          AbstractRootMethod root = (AbstractRootMethod) roots[r].getMethod();
+          rootStatements[r] = statements(root);
+          rootConstants[r] = constants(roots[r].getIR());
+          rootLocals[r] = root.nextLocal;
+        }
+      }
+
+      MutableSparseIntSet entrypoints = MutableSparseIntSet.makeEmpty();
+      for (CGNode n : cg.getEntrypointNodes()) {
+        entrypoints.add(nodes.find(n));
+      }
+
+      for (int i = 0; i < numbered; i++) {
+        instanceKeys.set(i, describe(mapping.getMappedObject(i)));
+      }
+      for (PointerKey key : tracked) {
+        pointerKeys.reserve(key);
+      }
+      for (PointerKey key : tracked) {
+        pointerKeys.set(pointerKeys.find(key), describe(key));
+      }
+      int[] pointsTo = new int[pointerKeys.size()];
+      Arrays.fill(pointsTo, NOT_TRACKED);
+      for (int i = 0; i < states.size(); i++) {
+        pointsTo[i] = states.get(i);
+      }
+
+      String[] stringArray = new String[strings.size()];
+      for (Map.Entry<String, Integer> e : strings.numbers.entrySet()) {
+        stringArray[e.getValue()] = e.getKey();
+      }
+      return new CallGraphSnapshot(
+          stringArray,
+          types.toArray(),
+          methods.toArray(),
+          fields.toArray(),
+          sites.toArray(),
+          nodeMethods.toArray(),
+          contexts.toArray(),
+          nodes.toArray(),
+          callSites,
+          rootStatements,
+          rootConstants,
+          rootLocals,
+          entrypoints,
+          instanceKeys.toArray(),
+          numbered,
+          pointerKeys.toArray(),
+          Arrays.copyOf(pointsTo, pointerKeys.size()),
+          sets.toArray(new IntSet[0]));
+    }
+
+    private int set(IntSet s) {
+      SparseIntSet shared = repository.findOrCreate(s);
+      Integer i = setNumbers.get(shared);
+      if (i == null) {
+        i = sets.size();
+        setNumbers.put(shared, i);
+        sets.add(shared);
+      }
+      return i;
+    }
+
+    private int string(String s) {
+      Integer i = strings.find(s);
+      return i != null ? i : strings.add(s, null);
+    }
+
+    private int type(TypeReference t) {
+      Integer i = types.find(t);
+      return i != null
+          ? i
+          : types.add(
+              t,
+              new int[] {
+                string(t.getClassLoader().getName().toString()), string(t.getName().toString())
+              });
+    }
+
+    /** a class, which must be found in the class hierarchy under its name */
+    private int type(IClass klass) throws UnsupportedKindException {
+      if (klass == null || cha.lookupClass(klass.getReference()) != klass) {
+        throw new UnsupportedKindException(klass);
+      }
+      return type(klass.getReference());
+    }
+
+    private int method(MethodReference m) {
+      Integer i = methods.find(m);
+      return i != null
+          ? i
+          : methods.add(
+              m, new int[] {type(m.getDeclaringClass()), string(m.getSelector().toString())});
+    }
+
+    private int field(FieldReference f) {
+      Integer i = fields.find(f);
+      return i != null
+          ? i
+          : fields.add(
+              f,
+              new int[] {
+                type(f.getDeclaringClass()), string(f.getName().toString()), type(f.getFieldType())
+              });
+    }
+
+    /** a field, which must be found in its declaring class */
+    private int field(IField f) throws UnsupportedKindException {
+      IClass klass = f.getDeclaringClass();
+      type(klass);
+      if (klass.getField(f.getName(), f.getFieldTypeReference().getName()) != f) {
+        throw new UnsupportedKindException(f);
+      }
+      return field(f.getReference());
+    }
+
+    private int site(CallSiteReference site) throws UnsupportedKindException {
+      if (!(site.getInvocationCode() instanceof IInvokeInstruction.Dispatch)) {
+        throw new UnsupportedKindException(site);
+      }
+      List<Object> key =
+          Arrays.asList(
+              site.getProgramCounter(), site.getDeclaredTarget(), site.getInvocationCode());
+      Integer i = sites.find(key);
+      return i != null
+          ? i
+          : sites.add(
+              key,
+              new int[] {
+                site.getProgramCounter(),
+                method(site.getDeclaredTarget()),
+                ((IInvokeInstruction.Dispatch) site.getInvocationCode()).ordinal()
+              });
+    }
+
+    private int method(IMethod m) throws UnsupportedKindException {
+      Integer i = nodeMethods.find(m);
+      if (i != null) {
+        return i;
+      }
+      int[] row;
+      if (m.equals(cg.getFakeRootNode().getMethod())) {
+        row = new int[] {FAKE_ROOT};
+      } else if (cg.getFakeWorldClinitNode() != null
+          && m.equals(cg.getFakeWorldClinitNode().getMethod())) {
+        row = new int[] {FAKE_WORLD_CLINIT};
+      } else if (m.getDeclaringClass().getMethod(m.getSelector()) == m) {
+        type(m.getDeclaringClass());
+        row = new int[] {CODE, method(m.getReference())};
+      } else {
+        // a method which the class hierarchy does not know, e.g. a summary; it is obtained again
+        // from the method target selector, at a site which reached it
+        CGNode caller = null;
+        CallSiteReference callerSite = null;
+        search:
+        for (CGNode n : cg.getNodes(m.getReference())) {
+          if (!n.getMethod().equals(m)) {
+            continue;
+          }
+          for (CGNode pred : Iterator2Iterable.make(cg.getPredNodes(n))) {
+            if (caller == null || pred.getGraphNodeId() < caller.getGraphNodeId()) {
+              for (CallSiteReference site : Iterator2Iterable.make(cg.getPossibleSites(pred, n))) {
+                caller = pred;
+                callerSite = site;
+                continue search;
+              }
+            }
+          }
+        }
+        if (caller == null) {
+          throw new UnsupportedKindException(m);
+        }
+        row =
+            new int[] {
+              SYNTHETIC,
+              method(m.getReference()),
+              nodes.find(caller),
+              site(callerSite),
+              type(m.getDeclaringClass().getReference())
+            };
+      }
+      return nodeMethods.add(m, row);
+    }
+
+    private int node(CGNode n) throws UnsupportedKindException {
+      Integer i = nodes.find(n);
+      if (i == null) {
+        throw new UnsupportedKindException(n);
+      }
+      return i;
+    }
+
+    private Row typeAbstraction(Row row, TypeAbstraction t) throws UnsupportedKindException {
+      if (t.getClass() == PointType.class) {
+        return row.add(POINT_TYPE).add(type(((PointType) t).getIClass()));
+      } else if (t.getClass() == ConeType.class) {
+        return row.add(CONE_TYPE).add(type(((ConeType) t).getType()));
+      } else {
+        throw new UnsupportedKindException(t);
+      }
+    }
+
+    private int context(Context c) throws UnsupportedKindException {
+      Integer i = contexts.find(c);
+      if (i != null) {
+        return i;
+      }
+      Row row;
+      if (c == Everywhere.EVERYWHERE) {
+        row = new Row(EVERYWHERE);
+      } else if (c.getClass() == DelegatingContext.class) {
+        DelegatingContext d = (DelegatingContext) c;
+        row = new Row(DELEGATING).add(context(d.getA())).add(context(d.getB()));
+      } else if (c.getClass() == CallStringContext.class) {
+        CallString cs = (CallString) c.get(CallStringContextSelector.CALL_STRING);
+        row = new Row(CALL_STRING);
+        CallSiteReference[] callSites = cs.getCallSiteRefs();
+        IMethod[] callers = cs.getMethods();
+        for (int j = 0; j < callSites.length; j++) {
+          row.add(site(callSites[j])).add(method(callers[j]));
+        }
+      } else if (c.getClass() == ReceiverInstanceContext.class) {
+        row =
+            new Row(RECEIVER_INSTANCE)
+                .add(instanceKey(((ReceiverInstanceContext) c).getReceiver()));
+      } else if (c.getClass() == JavaTypeContext.class) {
+        row = typeAbstraction(new Row(JAVA_TYPE), ((JavaTypeContext) c).getType());
+      } else if (c.getClass() == GetMethodContext.class) {
+        GetMethodContext g = (GetMethodContext) c;
+        row = typeAbstraction(new Row(GET_METHOD), g.getType()).add(string(g.getName()));
+      } else {
+        throw new UnsupportedKindException(c);
+      }
+      return contexts.add(c, row.toArray());
+    }
+
+    private int instanceKey(InstanceKey ik) throws UnsupportedKindException {
+      Integer i = instanceKeys.find(ik);
+      return i != null ? i : instanceKeys.add(ik, describe(ik));
+    }
+
+    private int[] describe(InstanceKey ik) throws UnsupportedKindException {
+      Class<?> kind = ik.getClass();
+      if (kind == ConcreteTypeKey.class) {
+        return new int[] {CONCRETE_TYPE, type(ik.getConcreteType())};
+      } else if (kind == NormalAllocationInNode.class
+          || kind == ZeroLengthArrayInNode.class
+          || kind == MultiNewArrayInNode.class) {
+        NormalAllocationInNode a = null;
+        CGNode node;
+        NewSiteReference site;
+        int k;
+        if (kind == NormalAllocationInNode.class) {
+          a = (NormalAllocationInNode) ik;
+          node = a.getNode();
+          site = a.getSite();
+          k = NORMAL_ALLOCATION;
+        } else if (kind == ZeroLengthArrayInNode.class) {
+          node = ((ZeroLengthArrayInNode) ik).getNode();
+          site = ((ZeroLengthArrayInNode) ik).getSite();
+          k = ZERO_LENGTH_ARRAY;
+        } else {
+          node = ((MultiNewArrayInNode) ik).getNode();
+          site = ((MultiNewArrayInNode) ik).getSite();
+          k = MULTI_NEW_ARRAY;
+        }
+        Row row =
+            new Row(k)
+                .add(node(node))
+                .add(site.getProgramCounter())
+                .add(type(site.getDeclaredType()))
+                .add(type(ik.getConcreteType()));
+        if (kind == MultiNewArrayInNode.class) {
+          row.add(((MultiNewArrayInNode) ik).getDim());
+        }
+        return row.toArray();
+      } else if (kind == SmushedAllocationSiteInNode.class) {
+        SmushedAllocationSiteInNode s = (SmushedAllocationSiteInNode) ik;
+        return new int[] {SMUSHED_ALLOCATION, node(s.getNode()), type(s.getConcreteType())};
+      } else if (kind == ConstantKey.class) {
+        Object value = ((ConstantKey<?>) ik).getValue();
+        int concreteType = type(ik.getConcreteType());
+        if (value instanceof String) {
+          return new int[] {CONSTANT_STRING, string((String) value), concreteType};
+        } else if (value instanceof IClass) {
+          return new int[] {CONSTANT_CLASS, type((IClass) value), concreteType};
+        } else if (value instanceof IMethod) {
+          return new int[] {CONSTANT_METHOD, method((IMethod) value), concreteType};
+        } else if (value instanceof IField) {
+          return new int[] {CONSTANT_FIELD, field((IField) value), concreteType};
+        }
+      } else if (kind == StringConstantCharArray.class) {
+        return new int[] {
+          STRING_CONSTANT_CHAR_ARRAY, instanceKey(((StringConstantCharArray) ik).getConstant())
+        };
+      }
+      throw new UnsupportedKindException(ik);
+    }
+
+    private int pointerKey(PointerKey key) throws UnsupportedKindException {
+      Integer i = pointerKeys.find(key);
+      return i != null ? i : pointerKeys.add(key, describe(key));
+    }
+
+    private int[] describe(PointerKey key) throws UnsupportedKindException {
+      Class<?> kind = key.getClass();
+      if (kind == LocalPointerKey.class) {
+        LocalPointerKey l = (LocalPointerKey) key;
+        return new int[] {LOCAL, node(l.getNode()), l.getValueNumber()};
+      } else if (kind == LocalPointerKeyWithFilter.class) {
+        LocalPointerKeyWithFilter l = (LocalPointerKeyWithFilter) key;
+        Row row = new Row(LOCAL_WITH_FILTER).add(node(l.getNode())).add(l.getValueNumber());
+        return filter(row, l.getTypeFilter()).toArray();
+      } else if (kind == ReturnValueKey.class) {
+        return new int[] {RETURN_VALUE, node(((ReturnValueKey) key).getNode())};
+      } else if (kind == ReturnValueKeyWithFilter.class) {
+        ReturnValueKeyWithFilter r = (ReturnValueKeyWithFilter) key;
+        return filter(new Row(RETURN_VALUE_WITH_FILTER).add(node(r.getNode())), r.getTypeFilter())
+            .toArray();
+      } else if (kind == ExceptionReturnValueKey.class) {
+        return new int[] {EXCEPTION_RETURN_VALUE, node(((ExceptionReturnValueKey) key).getNode())};
+      } else if (kind == InstanceFieldKey.class) {
+        InstanceFieldKey f = (InstanceFieldKey) key;
+        return new int[] {INSTANCE_FIELD, instanceKey(f.getInstanceKey()), field(f.getField())};
+      } else if (kind == StaticFieldKey.class) {
+        return new int[] {STATIC_FIELD, field(((StaticFieldKey) key).getField())};
+      } else if (kind == ArrayContentsKey.class) {
+        return new int[] {ARRAY_CONTENTS, instanceKey(((ArrayContentsKey) key).getInstanceKey())};
+      } else if (kind == TypedPointerKey.class) {
+        TypedPointerKey t = (TypedPointerKey) key;
+        IClass type = ((SingleClassFilter) t.getTypeFilter()).getConcreteType();
+        return new int[] {TYPED, pointerKey(t.getBase()), type(type)};
+      }
+      throw new UnsupportedKindException(key);
+    }
+
+    private Row filter(Row row, TypeFilter filter) throws UnsupportedKindException {
+      Class<?> kind = filter.getClass();
+      if (kind == SingleClassFilter.class) {
+        return row.add(SINGLE_CLASS).add(type(((SingleClassFilter) filter).getConcreteType()));
+      } else if (kind == MultipleClassesFilter.class) {
+        row.add(MULTIPLE_CLASSES);
+        for (IClass c : ((MultipleClassesFilter) filter).getConcreteTypes()) {
+          row.add(type(c));
+        }
+        return row;
+      } else if (kind == SingleInstanceFilter.class) {
+        return row.add(SINGLE_INSTANCE)
+            .add(instanceKey(((SingleInstanceFilter) filter).getInstance()));
+      } else if (kind == TargetMethodFilter.class) {
+        return row.add(TARGET_METHOD).add(method(((TargetMethodFilter) filter).getMethod()));
+      }
+      throw new UnsupportedKindException(filter);
+    }
+
+    private int[][] statements(AbstractRootMethod root) throws UnsupportedKindException {
+      int[][] result = new int[root.statements.size()][];
+      for (int i = 0; i < result.length; i++) {
+        SSAInstruction s = root.statements.get(i);
+        Row row;
+        if (s instanceof SSANewInstruction) {
+          SSANewInstruction n = (SSANewInstruction) s;
+          row =
+              new Row(NEW)
+                  .add(n.iIndex())
+                  .add(n.getDef())
+                  .add(n.getNewSite().getProgramCounter())
+                  .add(type(n.getNewSite().getDeclaredType()));
+          uses(row, s);
+        } else if (s instanceof SSAAbstractInvokeInstruction) {
+          SSAAbstractInvokeInstruction call = (SSAAbstractInvokeInstruction) s;
+          row =
+              new Row(INVOKE)
+                  .add(call.iIndex())
+                  .add(site(call.getCallSite()))
+                  .add(call.hasDef() ? call.getDef() : NONE)
+                  .add(call.getException());
+          if (call.getCallSite().isStatic()
+              && call.getDeclaredTarget().getNumberOfParameters() == 0) {
+            // such calls may have no parameter array at all
+            row.add(NONE);
+          } else {
+            uses(row, s);
+          }
+        } else if (s instanceof SSAArrayLoadInstruction) {
+          SSAArrayLoadInstruction a = (SSAArrayLoadInstruction) s;
+          row =
+              new Row(ARRAY_LOAD)
+                  .add(a.iIndex())
+                  .add(a.getDef())
+                  .add(a.getArrayRef())
+                  .add(a.getIndex())
+                  .add(type(a.getElementType()));
+        } else if (s instanceof SSAArrayStoreInstruction) {
+          SSAArrayStoreInstruction a = (SSAArrayStoreInstruction) s;
+          row =
+              new Row(ARRAY_STORE)
+                  .add(a.iIndex())
+                  .add(a.getArrayRef())
+                  .add(a.getIndex())
+                  .add(a.getValue())
+                  .add(type(a.getElementType()));
+        } else if (s instanceof SSAGetInstruction) {
+          SSAGetInstruction g = (SSAGetInstruction) s;
+          row =
+              new Row(GET)
+                  .add(g.iIndex())
+                  .add(g.getDef())
+                  .add(g.isStatic() ? NONE : g.getRef())
+                  .add(field(g.getDeclaredField()));
+        } else if (s instanceof SSAPutInstruction) {
+          SSAPutInstruction p = (SSAPutInstruction) s;
+          row =
+              new Row(PUT)
+                  .add(p.iIndex())
+                  .add(p.isStatic() ? NONE : p.getRef())
+                  .add(p.getVal())
+                  .add(field(p.getDeclaredField()));
+        } else if (s instanceof SSACheckCastInstruction) {
+          SSACheckCastInstruction c = (SSACheckCastInstruction) s;
+          row =
+              new Row(CHECK_CAST)
+                  .add(c.iIndex())
+                  .add(c.getDef())
+                  .add(c.getVal())
+                  .add(c.isPEI() ? 1 : 0);
+          for (TypeReference t : c.getDeclaredResultTypes()) {
+            row.add(type(t));
+          }
+        } else if (s instanceof SSAPhiInstruction) {
+          row = new Row(PHI).add(s.iIndex()).add(s.getDef());
+          uses(row, s);
+        } else if (s instanceof SSAReturnInstruction) {
+          SSAReturnInstruction r = (SSAReturnInstruction) s;
+          row =
+              new Row(RETURN)
+                  .add(r.iIndex())
+                  .add(r.returnsVoid() ? NONE : r.getResult())
+                  .add(r.returnsPrimitiveType() ? 1 : 0);
+        } else {
+          throw new UnsupportedKindException(s);
+        }
+        result[i] = row.toArray();
+      }
+      return result;
+    }
+
+    private static void uses(Row row, SSAInstruction s) {
+      row.add(s.getNumberOfUses());
+      for (int j = 0; j < s.getNumberOfUses(); j++) {
+        row.add(s.getUse(j));
+      }
+    }
+
+    private static int[][] constants(IR ir) throws UnsupportedKindException {
+      List<int[]> result = new ArrayList<>();
+      SymbolTable symbols = ir.getSymbolTable();
+      for (int vn = 1; vn <= symbols.getMaxValueNumber(); vn++) {
+        if (symbols.isConstant(vn)) {
+          Object value = symbols.getConstantValue(vn);
+          if (value instanceof Integer) {
+            result.add(new int[] {vn, INT_CONSTANT, (Integer) value});
+          } else if (value instanceof Byte) {
+            result.add(new int[] {vn, BYTE_CONSTANT, (Byte) value});
+          } else if (value instanceof Character) {
+            result.add(new int[] {vn, CHAR_CONSTANT, (Character) value});
+          } else {
+            throw new UnsupportedKindException(value);
+          }
+        }
+      }
+      return result.toArray(new int[0][]);
+    }
+  }
+
+  /**
+   * Rebuild the recorded call graph and pointer analysis in cg and system, looking up classes,
+   * methods and fields in the class hierarchy of cg. {@link
+   * PropagationCallGraphBuilder#restoreCallGraph(AnalysisOptions, CallGraphSnapshot)} calls this
+   * with the call graph and a fresh system of a builder.
+   *
+   * @param cg a call graph which holds no nodes besides its fake root nodes
+   * @param system an empty propagation system for cg
+   * @param options the options with which the snapshot was recorded; its method target selector
+   *     yields the synthetic methods again
+   * @throws IllegalArgumentException if cg is not empty, or if a class, method or field of the
+   *     snapshot is not found in the class hierarchy of cg
+   */
+  public void restore(ExplicitCallGraph cg, PropagationSystem system, AnalysisOptions options)
+      throws CancelException {
+    if (cg == null) {
+      throw new IllegalArgumentException("cg is null");
+    }
+    if (system == null) {
+      throw new IllegalArgumentException("system is null");
+    }
+    if (options == null) {
+      throw new IllegalArgumentException("options is null");
+    }
+    if (cg.getNumberOfNodes() > 2) {
+      throw new IllegalArgumentException("call graph is not empty");
+    }
+    new Restorer(cg, system, options).restore();
+  }
+
+  /** rebuilds the objects described by the tables of this snapshot */
+  private final class Restorer {
+    private final ExplicitCallGraph cg;
+
+    private final PropagationSystem system;
+
+    private final AnalysisOptions options;
+
+    private final IClassHierarchy cha;
+
+    private final TypeReference[] typeRefs = new TypeReference[types.length];
+
+    private final MethodReference[] methodRefs = new MethodReference[methods.length];
+
+    private final FieldReference[] fieldRefs = new FieldReference[fields.length];
+
+    private final CallSiteReference[] siteRefs = new CallSiteReference[sites.length];
+
+    private final IMethod[] nodeMethodObjects = new IMethod[nodeMethods.length];
+
+    private final Context[] contextObjects = new Context[contexts.length];
+
+    private final CGNode[] nodeObjects = new CGNode[nodes.length];
+
+    private final InstanceKey[] instanceKeyObjects = new InstanceKey[instanceKeys.length];
+
+    private final PointerKey[] pointerKeyObjects = new PointerKey[pointerKeys.length];
+
+    Restorer(ExplicitCallGraph cg, PropagationSystem system, AnalysisOptions options) {
+      this.cg = cg;
+      this.system = system;
+      this.options = options;
+      this.cha = cg.getClassHierarchy();
+    }
+
+    void restore() throws CancelException {
+      CGNode[] roots = {cg.getFakeRootNode(), cg.getFakeWorldClinitNode()};
+      for (int r = 0; r < roots.length; r++) {
+        if (roots[r] != null) {
+          restoreRoot((AbstractRootMethod) roots[r].getMethod(), r);
+        }
+      }
+      for (int i = 0; i < nodes.length; i++) {
+        IMethod m = nodeMethod(nodes[i][0]);
+        Context c = context(nodes[i][1]);
+        if (m.equals(cg.getFakeRootNode().getMethod())) {
+          nodeObjects[i] = cg.getFakeRootNode();
+        } else if (cg.getFakeWorldClinitNode() != null
+            && m.equals(cg.getFakeWorldClinitNode().getMethod())) {
+          nodeObjects[i] = cg.getFakeWorldClinitNode();
+        } else {
+          nodeObjects[i] = cg.findOrCreateNode(m, c);
+        }
+      }
+      for (int i = 0; i < nodes.length; i++) {
+        ExplicitCallGraph.ExplicitNode n = (ExplicitCallGraph.ExplicitNode) nodeObjects[i];
+        int[] pairs = callSites[i];
+        for (int j = 0; j < pairs[0]; j++) {
+          CallSiteReference site = site(pairs[1 + 2 * j]);
+          for (IntIterator it = sets[pairs[2 + 2 * j]].intIterator(); it.hasNext(); ) {
+            n.addTarget(site, nodeObjects[it.next()]);
+          }
+        }
+      }
+      for (IntIterator it = entrypoints.intIterator(); it.hasNext(); ) {
+        cg.registerEntrypoint(nodeObjects[it.next()]);
+      }
+
+      for (int i = 0; i < numberedInstanceKeys; i++) {
+        if (system.findOrCreateIndexForInstanceKey(instanceKey(i)) != i) {
+          throw new IllegalArgumentException("instance key numbering differs at " + i);
+        }
+      }
+      for (int i = 0; i < pointerKeys.length; i++) {
+        if (pointsTo[i] == IMPLICIT) {
+          system.recordImplicitPointsToSet(pointerKey(i));
+        } else if (pointsTo[i] != NOT_TRACKED) {
+          PointsToSetVariable v = system.findOrCreatePointsToSet(pointerKey(i));
+          v.addAll(sets[pointsTo[i]]);
+        }
+      }
+    }
+
+    private void restoreRoot(AbstractRootMethod root, int r) {
+      SSAInstructionFactory insts =
+          root.getDeclaringClass().getClassLoader().getInstructionFactory();
+      // the statements which the call graph added at initialization are there already
+      for (int i = root.statements.size(); i < rootStatements[r].length; i++) {
+        root.statements.add(statement(insts, rootStatements[r][i]));
+      }
+      for (int[] constant : rootConstants[r]) {
+        // the root method numbers a constant when it is first asked for it
+        root.nextLocal = constant[0];
+        int vn;
+        switch (constant[1]) {
+          case INT_CONSTANT:
+            vn = root.getValueNumberForIntConstant(constant[2]);
+            break;
+          case BYTE_CONSTANT:
+            vn = root.getValueNumberForByteConstant((byte) constant[2]);
+            break;
+          default:
+            vn = root.getValueNumberForCharConstant((char) constant[2]);
+        }
+        if (vn != constant[0]) {
+          throw new IllegalArgumentException("constant numbered twice in " + root);
+        }
+      }
+      root.nextLocal = rootLocals[r];
+      cg.getAnalysisCache().invalidate(root, Everywhere.EVERYWHERE);
+    }
+
+    private SSAInstruction statement(SSAInstructionFactory insts, int[] row) {
+      int iindex = row[1];
+      switch (row[0]) {
+        case NEW:
+          {
+            NewSiteReference site = NewSiteReference.make(row[3], type(row[4]));
+            int[] sizes = Arrays.copyOfRange(row, 6, 6 + row[5]);
+            return sizes.length == 0
+                ? insts.NewInstruction(iindex, row[2], site)
+                : insts.NewInstruction(iindex, row[2], site, sizes);
+          }
+        case INVOKE:
+          {
+            CallSiteReference site = site(row[2]);
+            int[] params = row[5] == NONE ? null : Arrays.copyOfRange(row, 6, 6 + row[5]);
+            return row[3] == NONE
+                ? insts.InvokeInstruction(iindex, params, row[4], site, null)
+                : insts.InvokeInstruction(iindex, row[3], params, row[4], site, null);
+          }
+        case ARRAY_LOAD:
+          return insts.ArrayLoadInstruction(iindex, row[2], row[3], row[4], type(row[5]));
+        case ARRAY_STORE:
+          return insts.ArrayStoreInstruction(iindex, row[2], row[3], row[4], type(row[5]));
+        case GET:
+          return row[3] == NONE
+              ? insts.GetInstruction(iindex, row[2], field(row[4]))
+              : insts.GetInstruction(iindex, row[2], row[3], field(row[4]));
+        case PUT:
+          return row[2] == NONE
+              ? insts.PutInstruction(iindex, row[3], field(row[4]))
+              : insts.PutInstruction(iindex, row[2], row[3], field(row[4]));
+        case CHECK_CAST:
+          {
+            TypeReference[] declared = new TypeReference[row.length - 5];
+            for (int j = 0; j < declared.length; j++) {
+              declared[j] = type(row[5 + j]);
+            }
+            return insts.CheckCastInstruction(iindex, row[2], row[3], declared, row[4] != 0);
+          }
+        case PHI:
+          return insts.PhiInstruction(iindex, row[2], Arrays.copyOfRange(row, 4, 4 + row[3]));
+        case RETURN:
+          return row[2] == NONE
+              ? insts.ReturnInstruction(iindex)
+              : insts.ReturnInstruction(iindex, row[2], row[3] != 0);
+        default:
+          throw new IllegalArgumentException("bad statement kind " + row[0]);
+      }
+    }
+
+    private TypeReference type(int i) {
+      if (typeRefs[i] == null) {
+        ClassLoaderReference loader =
+            cha.getScope().getLoader(Atom.findOrCreateUnicodeAtom(strings[types[i][0]]));
+        if (loader == null) {
+          throw new IllegalArgumentException("no class loader " + strings[types[i][0]]);
+        }
+        typeRefs[i] = TypeReference.findOrCreate(loader, strings[types[i][1]]);
+      }
+      return typeRefs[i];
+    }
+
+    private IClass klass(int i) {
+      IClass klass = cha.lookupClass(type(i));
+      if (klass == null) {
+        throw new IllegalArgumentException("class " + type(i) + " not found");
+      }
+      return klass;
+    }
+
+    /**
+     * @return the class allocated at a site, asking the class target selector for a class which the
+     *     class hierarchy does not know yet, as the selector may define synthetic classes
+     */
+    private IClass allocatedClass(int node, int pc, int declaredType, int type) {
+      IClass klass = cha.lookupClass(type(type));
+      if (klass == null) {
+        klass =
+            options
+                .getClassTargetSelector()
+                .getAllocatedTarget(node(node), NewSiteReference.make(pc, type(declaredType)));
+        if (klass == null || !klass.getReference().equals(type(type))) {
+          throw new IllegalArgumentException("class " + type(type) + " not found");
+        }
+      }
+      return klass;
+    }
+
+    private MethodReference method(int i) {
+      if (methodRefs[i] == null) {
+        methodRefs[i] =
+            MethodReference.findOrCreate(
+                type(methods[i][0]), Selector.make(strings[methods[i][1]]));
+      }
+      return methodRefs[i];
+    }
+
+    private FieldReference field(int i) {
+      if (fieldRefs[i] == null) {
+        fieldRefs[i] =
+            FieldReference.findOrCreate(
+                type(fields[i][0]),
+                Atom.findOrCreateUnicodeAtom(strings[fields[i][1]]),
+                type(fields[i][2]));
+      }
+      return fieldRefs[i];
+    }
+
+    private IField fieldObject(int i) {
+      FieldReference ref = field(i);
+      IField f = klass(fields[i][0]).getField(ref.getName(), ref.getFieldType().getName());
+      if (f == null) {
+        throw new IllegalArgumentException("field " + ref + " not found");
+      }
+      return f;
+    }
+
+    private CallSiteReference site(int i) {
+      if (siteRefs[i] == null) {
+        siteRefs[i] =
+            CallSiteReference.make(sites[i][0], method(sites[i][1]), DISPATCH[sites[i][2]]);
+      }
+      return siteRefs[i];
+    }
+
+    private CGNode node(int i) {
+      if (nodeObjects[i] == null) {
+        throw new IllegalArgumentException("node " + i + " is needed before it is restored");
+      }
+      return nodeObjects[i];
+    }
+
+    private IMethod nodeMethod(int i) {
+      if (nodeMethodObjects[i] == null) {
+        int[] row = nodeMethods[i];
+        IMethod m;
+        switch (row[0]) {
+          case FAKE_ROOT:
+            m = cg.getFakeRootNode().getMethod();
+            break;
+          case FAKE_WORLD_CLINIT:
+            m = cg.getFakeWorldClinitNode().getMethod();
+            break;
+          case CODE:
+            m = klass(methods[row[1]][0]).getMethod(method(row[1]).getSelector());
+            if (m == null || !m.getReference().equals(method(row[1]))) {
+              throw new IllegalArgumentException("method " + method(row[1]) + " not found");
+            }
+            break;
+          case SYNTHETIC:
+            {
+              CGNode caller = node(row[2]);
+              CallSiteReference site = site(row[3]);
+              m =
+                  options
+                      .getMethodTargetSelector()
+                      .getCalleeTarget(caller, site, cha.lookupClass(type(row[4])));
+              if (m == null || !m.getReference().equals(method(row[1]))) {
+                m = options.getMethodTargetSelector().getCalleeTarget(caller, site, null);
+              }
+              if (m == null || !m.getReference().equals(method(row[1]))) {
+                throw new IllegalArgumentException(
+                    "method target selector does not yield " + method(row[1]));
+              }
+              break;
+            }
+          default:
+            throw new IllegalArgumentException("bad method kind " + row[0]);
+        }
+        nodeMethodObjects[i] = m;
+      }
+      return nodeMethodObjects[i];
+    }
+
+    private TypeAbstraction typeAbstraction(int kind, int type) {
+      return kind == POINT_TYPE ? new PointType(klass(type)) : new ConeType(klass(type));
+    }
+
+    private Context context(int i) {
+      if (contextObjects[i] == null) {
+        int[] row = contexts[i];
+        Context c;
+        switch (row[0]) {
+          case EVERYWHERE:
+            c = Everywhere.EVERYWHERE;
+            break;
+          case DELEGATING:
+            c = new DelegatingContext(context(row[1]), context(row[2]));
+            break;
+          case CALL_STRING:
+            {
+              int length = (row.length - 1) / 2;
+              CallSiteReference[] callSites = new CallSiteReference[length];
+              IMethod[] callers = new IMethod[length];
+              for (int j = 0; j < length; j++) {
+                callSites[j] = site(row[1 + 2 * j]);
+                callers[j] = nodeMethod(row[2 + 2 * j]);
+              }
+              c = new CallStringContext(new CallString(callSites, callers));
+              break;
+            }
+          case RECEIVER_INSTANCE:
+            c = new ReceiverInstanceContext(instanceKey(row[1]));
+            break;
+          case JAVA_TYPE:
+            c = new JavaTypeContext(typeAbstraction(row[1], row[2]));
+            break;
+          case GET_METHOD:
+            c =
+                new GetMethodContext(
+                    typeAbstraction(row[1], row[2]),
+                    new ConstantKey<>(
+                        strings[row[3]], cha.lookupClass(TypeReference.JavaLangString)));
+            break;
+          default:
+            throw new IllegalArgumentException("bad context kind " + row[0]);
+        }
+        contextObjects[i] = c;
+      }
+      return contextObjects[i];
+    }
+
+    @SuppressWarnings("unchecked")
+    private InstanceKey instanceKey(int i) {
+      if (instanceKeyObjects[i] == null) {
+        int[] row = instanceKeys[i];
+        InstanceKey ik;
+        switch (row[0]) {
+          case CONCRETE_TYPE:
+            ik = new ConcreteTypeKey(klass(row[1]));
+            break;
+          case NORMAL_ALLOCATION:
+            ik =
+                new NormalAllocationInNode(
+                    node(row[1]),
+                    NewSiteReference.make(row[2], type(row[3])),
+                    allocatedClass(row[1], row[2], row[3], row[4]));
+            break;
+          case ZERO_LENGTH_ARRAY:
+            ik =
+                new ZeroLengthArrayInNode(
+                    node(row[1]),
+                    NewSiteReference.make(row[2], type(row[3])),
+                    allocatedClass(row[1], row[2], row[3], row[4]));
+            break;
+          case MULTI_NEW_ARRAY:
+            {
+              // the key is made from the allocated array class, not from its concrete type, which
+              // is an element type of it
+              NewSiteReference site = NewSiteReference.make(row[2], type(row[3]));
+              IClass array =
+                  options.getClassTargetSelector().getAllocatedTarget(node(row[1]), site);
+              if (!(array instanceof ArrayClass)) {
+                throw new IllegalArgumentException("no array class allocated at " + site);
+              }
+              ik = new MultiNewArrayInNode(node(row[1]), site, (ArrayClass) array, row[5]);
+              if (!ik.getConcreteType().getReference().equals(type(row[4]))) {
+                throw new IllegalArgumentException("array class differs at " + site);
+              }
+              break;
+            }
+          case SMUSHED_ALLOCATION:
+            ik = new SmushedAllocationSiteInNode(node(row[1]), klass(row[2]));
+            break;
+          case CONSTANT_STRING:
+            ik = new ConstantKey<>(strings[row[1]], klass(row[2]));
+            break;
+          case CONSTANT_CLASS:
+            ik = new ConstantKey<>(klass(row[1]), klass(row[2]));
+            break;
+          case CONSTANT_METHOD:
+            ik = new ConstantKey<>(nodeMethod(row[1]), klass(row[2]));
+            break;
+          case CONSTANT_FIELD:
+            ik = new ConstantKey<>(fieldObject(row[1]), klass(row[2]));
+            break;
+          case STRING_CONSTANT_CHAR_ARRAY:
+            ik = StringConstantCharArray.make((ConstantKey<String>) instanceKey(row[1]));
+            break;
+          default:
+            throw new IllegalArgumentException("bad instance key kind " + row[0]);
+        }
+        instanceKeyObjects[i] = ik;
+      }
+      return instanceKeyObjects[i];
+    }
+
+    private PointerKey pointerKey(int i) {
+      if (pointerKeyObjects[i] == null) {
+        int[] row = pointerKeys[i];
+        PointerKey key;
+        switch (row[0]) {
+          case LOCAL:
+            key = new LocalPointerKey(node(row[1]), row[2]);
+            break;
+          case LOCAL_WITH_FILTER:
+            key = new LocalPointerKeyWithFilter(node(row[1]), row[2], filter(row, 3));
+            break;
+          case RETURN_VALUE:
+            key = new ReturnValueKey(node(row[1]));
+            break;
+          case RETURN_VALUE_WITH_FILTER:
+            key = new ReturnValueKeyWithFilter(node(row[1]), filter(row, 2));
+            break;
+          case EXCEPTION_RETURN_VALUE:
+            key = new ExceptionReturnValueKey(node(row[1]));
+            break;
+          case INSTANCE_FIELD:
+            key = new InstanceFieldKey(instanceKey(row[1]), fieldObject(row[2]));
+            break;
+          case STATIC_FIELD:
+            key = new StaticFieldKey(fieldObject(row[1]));
+            break;
+          case ARRAY_CONTENTS:
+            key = new ArrayContentsKey(instanceKey(row[1]));
+            break;
+          case TYPED:
+            key = TypedPointerKey.make(pointerKey(row[1]), klass(row[2]));
+            break;
+          default:
+            throw new IllegalArgumentException("bad pointer key kind " + row[0]);
+        }
+        pointerKeyObjects[i] = key;
+      }
+      return pointerKeyObjects[i];
+    }
+
+    private TypeFilter filter(int[] row, int start) {
+      switch (row[start]) {
+        case SINGLE_CLASS:
+          return new SingleClassFilter(klass(row[start + 1]));
+        case MULTIPLE_CLASSES:
+          {
+            IClass[] classes = new IClass[row.length - start - 1];
+            for (int j = 0; j < classes.length; j++) {
+              classes[j] = klass(row[start + 1 + j]);
+            }
+            return new MultipleClassesFilter(classes);
+          }
+        case SINGLE_INSTANCE:
+          return new SingleInstanceFilter(instanceKey(row[start + 1]));
+        case TARGET_METHOD:
+          return new TargetMethodFilter(nodeMethod(row[start + 1]));
+        default:
+          throw new IllegalArgumentException("bad type filter kind " + row[start]);
+      }
+    }
+  }
+
+  public int getNumberOfNodes() {
+    return nodes.length;
+  }
+
+  /** @return the number of instance keys numbered by the propagation system */
+  public int getNumberOfInstanceKeys() {
+    return numberedInstanceKeys;
+  }
+
+  /** @return the number of pointer keys of the pointer analysis */
+  public int getNumberOfPointerKeys() {
+    int result = 0;
+    for (int state : pointsTo) {
+      if (state != NOT_TRACKED) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  /** Write this snapshot to out, which is not closed. */
+  public void write(OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeInt(FORMAT_VERSION);
+    VarInts.writeInt(data, strings.length);
+    for (String s : strings) {
+      VarInts.writeString(data, s);
+    }
+    VarInts.writeInt(data, sets.length);
+    for (IntSet s : sets) {
+      VarInts.writeIntSet(data, s);
+    }
+    writeTable(data, types);
+    writeTable(data, methods);
+    writeTable(data, fields);
+    writeTable(data, sites);
+    writeTable(data, nodeMethods);
+    writeTable(data, contexts);
+    writeTable(data, nodes);
+    writeTable(data, callSites);
+    for (int r = 0; r < 2; r++) {
+      writeTable(data, rootStatements[r]);
+      writeTable(data, rootConstants[r]);
+      VarInts.writeInt(data, rootLocals[r]);
+    }
+    VarInts.writeIntSet(data, entrypoints);
+    writeTable(data, instanceKeys);
+    VarInts.writeInt(data, numberedInstanceKeys);
+    writeTable(data, pointerKeys);
+    writeRow(data, pointsTo);
+    data.flush();
+  }
+
+  private static void writeTable(DataOutput out, int[][] table) throws IOException {
+    VarInts.writeInt(out, table.length);
+    for (int[] row : table) {
+      writeRow(out, row);
+    }
+  }
+
+  private static void writeRow(DataOutput out, int[] row) throws IOException {
+    VarInts.writeInt(out, row.length);
+    for (int i : row) {
+      VarInts.writeSignedInt(out, i);
+    }
+  }
+
+  /**
+   * Read a snapshot written by {@link #write(OutputStream)}; in is not closed.
+   *
+   * @throws IOException if in does not hold a snapshot in the current format
+   */
+  public static CallGraphSnapshot read(InputStream in) throws IOException {
+    DataInputStream data = new DataInputStream(in);
+    if (data.readInt() != MAGIC) {
+      throw new IOException("not a call graph snapshot");
+    }
+    int version = data.readInt();
+    if (version != FORMAT_VERSION) {
+      throw new IOException("unsupported snapshot format version " + version);
+    }
+    String[] strings = new String[VarInts.readInt(data)];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = VarInts.readString(data);
+    }
+    IntSet[] sets = new IntSet[VarInts.readInt(data)];
+    for (int i = 0; i < sets.length; i++) {
+      sets[i] = VarInts.readIntSet(data);
+    }
+    int[][] types = readTable(data);
+    int[][] methods = readTable(data);
+    int[][] fields = readTable(data);
+    int[][] sites = readTable(data);
+    int[][] nodeMethods = readTable(data);
+    int[][] contexts = readTable(data);
+    int[][] nodes = readTable(data);
+    int[][] callSites = readTable(data);
+    int[][][] rootStatements = new int[2][][];
+    int[][][] rootConstants = new int[2][][];
+    int[] rootLocals = new int[2];
+    for (int r = 0; r < 2; r++) {
+      rootStatements[r] = readTable(data);
+      rootConstants[r] = readTable(data);
+      rootLocals[r] = VarInts.readInt(data);
+    }
+    IntSet entrypoints = VarInts.readIntSet(data);
+    int[][] instanceKeys = readTable(data);
+    int numberedInstanceKeys = VarInts.readInt(data);
+    int[][] pointerKeys = readTable(data);
+    int[] pointsTo = readRow(data);
+    if (nodes.length != callSites.length
+        || numberedInstanceKeys > instanceKeys.length
+        || pointsTo.length != pointerKeys.length) {
+      throw new IOException("inconsistent call graph snapshot");
+    }
+    return new CallGraphSnapshot(
+        strings,
+        types,
+        methods,
+        fields,
+        sites,
+        nodeMethods,
+        contexts,
+        nodes,
+        callSites,
+        rootStatements,
+        rootConstants,
+        rootLocals,
+        entrypoints,
+        instanceKeys,
+        numberedInstanceKeys,
+        pointerKeys,
+        pointsTo,
+        sets);
+  }
+
+  private static int[][] readTable(DataInput in) throws IOException {
+    int[][] result = new int[VarInts.readInt(in)][];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = readRow(in);
+    }
+    return result;
+  }
+
+  private static int[] readRow(DataInput in) throws IOException {
+    int[] result = new int[VarInts.readInt(in)];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = VarInts.readSignedInt(in);
+    }
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof CallGraphSnapshot)) {
+      return false;
+    }
+    CallGraphSnapshot other = (CallGraphSnapshot) obj;
+    if (!Arrays.equals(strings, other.strings)
+        || !Arrays.deepEquals(types, other.types)
+        || !Arrays.deepEquals(methods, other.methods)
+        || !Arrays.deepEquals(fields, other.fields)
+        || !Arrays.deepEquals(sites, other.sites)
+        || !Arrays.deepEquals(nodeMethods, other.nodeMethods)
+        || !Arrays.deepEquals(contexts, other.contexts)
+        || !Arrays.deepEquals(nodes, other.nodes)
+        || !Arrays.deepEquals(callSites, other.callSites)
+        || !Arrays.deepEquals(rootStatements, other.rootStatements)
+        || !Arrays.deepEquals(rootConstants, other.rootConstants)
+        || !Arrays.equals(rootLocals, other.rootLocals)
+        || !entrypoints.sameValue(other.entrypoints)
+        || !Arrays.deepEquals(instanceKeys, other.instanceKeys)
+        || numberedInstanceKeys != other.numberedInstanceKeys
+        || !Arrays.deepEquals(pointerKeys, other.pointerKeys)
+        || !Arrays.equals(pointsTo, other.pointsTo)
+        || sets.length != other.sets.length) {
+      return false;
+    }
+    for (int i = 0; i < sets.length; i++) {
+      if (!sets[i].sameValue(other.sets[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.deepHashCode(nodes) * 31 + Arrays.hashCode(pointsTo);
+  }
+
+  @Override
+  public String toString() {
+    return "call graph snapshot with "
+        + nodes.length
+        + " nodes, "
+        + numberedInstanceKeys
+        + " instance keys and "
+        + getNumberOfPointerKeys()
+        + " pointer keys";
+  }
+}
@@ -13,6 +13,7 @@ package com.ibm.wala.ipa.cha;
 import com.ibm.wala.classLoader.ArrayClass;
 import com.ibm.wala.classLoader.BytecodeClass;
 import com.ibm.wala.classLoader.ClassLoaderFactory;
+import com.ibm.wala.classLoader.ClassLoaderImpl;
 import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.classLoader.IClassLoader;
 import com.ibm.wala.classLoader.IField;
@@ -449,6 +450,110 @@ public class ClassHierarchy implements IClassHierarchy {
     return superClass;
   }
 
+  /**
+   * Replace classes in the hierarchy with new versions of themselves, e.g. ones read from changed
+   * class files. Each replacement must have the same name, loader, superclass and interfaces as the
+   * class it replaces, and be loaded by a {@link ClassLoaderImpl}. The subtypes of a replaced class
+   * forget the supertypes and inherited members they cached, so they must be classes which can do
+   * so, i.e. {@link BytecodeClass}es, array classes or phantom classes. Clients which cache results
+   * derived from the old classes, such as IRs, must invalidate them.
+   *
+   * @throws IllegalArgumentException if a replacement does not meet these conditions
+   */
+  public void replaceClasses(Collection<IClass> replacements) {
+    if (replacements == null) {
+      throw new IllegalArgumentException("replacements is null");
+    }
+    Map<ClassLoaderImpl, Set<IClass>> byLoader = HashMapFactory.make();
+    Set<IClass> subtypes = HashSetFactory.make();
+    for (IClass klass : replacements) {
+      Node node = findNode(klass);
+      if (node == null) {
+        throw new IllegalArgumentException("no class to replace with " + klass);
+      }
+      IClass old = node.getJavaClass();
+      if (!old.getClassLoader().equals(klass.getClassLoader())) {
+        throw new IllegalArgumentException(
+            "class " + klass + " is invalid, unexpected classloader");
+      }
+      if (!(klass.getClassLoader() instanceof ClassLoaderImpl)) {
+        throw new IllegalArgumentException(
+            "cannot replace " + klass + ", its loader cannot replace classes");
+      }
+      if (!getSupertypeNames(old).equals(getSupertypeNames(klass))) {
+        throw new IllegalArgumentException("cannot replace " + klass + ", its supertypes changed");
+      }
+      addSubtypes(node, subtypes);
+      Set<IClass> impls = implementors.get(old);
+      if (impls != null) {
+        for (IClass impl : impls) {
+          if (subtypes.add(impl)) {
+            addSubtypes(findNode(impl), subtypes);
+          }
+        }
+      }
+      MapUtil.findOrCreateSet(byLoader, (ClassLoaderImpl) klass.getClassLoader()).add(klass);
+    }
+    for (IClass sub : subtypes) {
+      if (!(sub instanceof BytecodeClass
+          || sub instanceof ArrayClass
+          || sub instanceof PhantomClass)) {
+        throw new IllegalArgumentException(
+            "cannot replace supertypes of " + sub + ", it cannot forget them");
+      }
+    }
+
+    for (IClass klass : replacements) {
+      Node node = findNode(klass);
+      IClass old = node.getJavaClass();
+      node.klass = klass;
+      for (Set<IClass> impls : implementors.values()) {
+        if (impls.remove(old)) {
+          impls.add(klass);
+        }
+      }
+    }
+    for (Map.Entry<ClassLoaderImpl, Set<IClass>> e : byLoader.entrySet()) {
+      e.getKey().replaceAll(e.getValue());
+    }
+    // the subtypes, and the replacements themselves, may have looked up the old supertypes
+    Set<IClass> stale = HashSetFactory.make(subtypes);
+    stale.addAll(replacements);
+    for (IClass klass : stale) {
+      if (klass instanceof BytecodeClass) {
+        ((BytecodeClass<?>) klass).clearSupertypeCaches();
+      }
+    }
+
+    // cached results may refer to the old classes and their members
+    targetCache.clear();
+    subclassesOfError = null;
+    subTypeRefsOfError = null;
+    runtimeExceptionClasses = null;
+    runtimeExceptionTypeRefs = null;
+  }
+
+  /** Add the classes of all nodes strictly below node in the tree to result */
+  private static void addSubtypes(Node node, Set<IClass> result) {
+    for (Node child : Iterator2Iterable.make(node.getChildren())) {
+      if (result.add(child.getJavaClass())) {
+        addSubtypes(child, result);
+      }
+    }
+  }
+
+  private static Set<TypeName> getSupertypeNames(IClass klass) {
+    Set<TypeName> result = HashSetFactory.make();
+    IClass superclass = klass.getSuperclass();
+    if (superclass != null) {
+      result.add(superclass.getName());
+    }
+    for (IClass iface : klass.getDirectInterfaces()) {
+      result.add(iface.getName());
+    }
+    return result;
+  }
+
   /** Record that a klass implements a particular interface */
   private void recordImplements(IClass klass, IClass iface) {
     Set<IClass> impls = MapUtil.findOrCreateSet(implementors, iface);
@@ -730,7 +835,7 @@ public class ClassHierarchy implements IClassHierarchy {
   /** internal representation of a node in the class hiearachy, representing one java class. */
   static final class Node {
 
-    private final IClass klass;
+    private IClass klass;
 
     private final Set<Node> children = HashSetFactory.make(3);
 
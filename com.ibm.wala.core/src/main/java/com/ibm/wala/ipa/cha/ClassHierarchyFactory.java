@@ -28,6 +28,27 @@ public class ClassHierarchyFactory {
     return make(scope, new ClassLoaderFactoryImpl(scope.getExclusions()));
   }
 
+  /**
+   * Like {@link #make(AnalysisScope)}, but the class files are read and parsed by as many threads
+   * as there are processors. Classes are still added to the hierarchy one at a time, in the same
+   * order, so the result is the same.
+   */
+  public static ClassHierarchy makeParallel(AnalysisScope scope) throws ClassHierarchyException {
+    return makeParallel(scope, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @param parallelism number of threads which read and parse the class files of each loader
+   * @return a ClassHierarchy object representing the analysis scope
+   */
+  public static ClassHierarchy makeParallel(AnalysisScope scope, int parallelism)
+      throws ClassHierarchyException {
+    if (scope == null) {
+      throw new IllegalArgumentException("null scope");
+    }
+    return make(scope, new ClassLoaderFactoryImpl(scope.getExclusions(), parallelism));
+  }
+
   /**
    * NOTE: phantom classes are a work-in-progress and this functionality has known bugs; see
    * https://github.com/wala/WALA/pull/335. At this point, we recommend using {@link
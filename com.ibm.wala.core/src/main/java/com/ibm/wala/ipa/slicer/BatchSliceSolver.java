@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ipa.slicer;
+
+import com.ibm.wala.dataflow.IFDS.IFlowFunction;
+import com.ibm.wala.dataflow.IFDS.IPartiallyBalancedFlowFunctions;
+import com.ibm.wala.dataflow.IFDS.ISupergraph;
+import com.ibm.wala.dataflow.IFDS.IUnaryFlowFunction;
+import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationSolver;
+import com.ibm.wala.ipa.slicer.Slicer.SliceProblem;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Collection;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.collections.Pair;
+import com.ibm.wala.util.debug.Assertions;
+import com.ibm.wala.util.intset.BitVector;
+import com.ibm.wala.util.intset.IntSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabulates the slices of many criteria in one pass over the SDG.
+ *
+ * <p>This follows the {@link PartiallyBalancedTabulationSolver} on a {@link SliceProblem} with a
+ * fact of its own for each criterion. The slice functions pass or kill the facts of all criteria
+ * alike, so instead of a path edge per criterion, this keeps for each entry and statement the set
+ * of criteria, as a bit vector, whose path edges reach the statement from the entry. Each edge of
+ * the supergraph is then followed once for all the criteria which reach it together.
+ */
+final class BatchSliceSolver {
+
+  /** a fact standing for any criterion, to evaluate flow functions with */
+  private static final int CRITERION = 1;
+
+  private final SliceProblem problem;
+
+  private final ISupergraph<Statement, PDG<?>> supergraph;
+
+  private final IPartiallyBalancedFlowFunctions<Statement> functions;
+
+  private final IProgressMonitor monitor;
+
+  /** the size of the bit vectors of criteria */
+  private int numberOfCriteria;
+
+  /** for each entry s_p and statement n, the criteria i s.t. &lt;s_p,i&gt; -&gt; &lt;n,i&gt; */
+  private final Map<Statement, Map<Statement, BitVector>> pathEdges = HashMapFactory.make();
+
+  /** for each callee entry and call, the criteria which flowed from the call to the entry */
+  private final Map<Statement, Map<Statement, BitVector>> callFlow = HashMapFactory.make();
+
+  /** for each entry, the criteria for which it was used as an unbalanced seed */
+  private final Map<Statement, BitVector> unbalancedSeeds = HashMapFactory.make();
+
+  /** the criteria added to each path edge on the worklist since it was last processed */
+  private final Map<Pair<Statement, Statement>, BitVector> pending = HashMapFactory.make();
+
+  private final ArrayDeque<Pair<Statement, Statement>> worklist = new ArrayDeque<>();
+
+  BatchSliceSolver(SliceProblem problem, IProgressMonitor monitor) {
+    this.problem = problem;
+    this.supergraph = problem.getSupergraph();
+    this.functions = problem.getFunctionMap();
+    this.monitor = monitor;
+  }
+
+  /** @return the slice of each of the criteria, in order */
+  List<Collection<Statement>> solve(List<Statement> criteria) throws CancelException {
+    numberOfCriteria = criteria.size();
+    for (int i = 0; i < criteria.size(); i++) {
+      Statement st = criteria.get(i);
+      BitVector b = new BitVector(numberOfCriteria);
+      b.set(i);
+      addSeed(problem.getFakeEntry(st), st, b);
+    }
+    while (!worklist.isEmpty()) {
+      MonitorUtil.throwExceptionIfCanceled(monitor);
+      Pair<Statement, Statement> edge = worklist.poll();
+      process(edge.fst, edge.snd, pending.remove(edge));
+    }
+
+    List<Collection<Statement>> result = new ArrayList<>(criteria.size());
+    for (int i = 0; i < criteria.size(); i++) {
+      result.add(HashSetFactory.make());
+    }
+    for (Map<Statement, BitVector> local : pathEdges.values()) {
+      for (Map.Entry<Statement, BitVector> e : local.entrySet()) {
+        BitVector b = e.getValue();
+        for (int i = b.nextSetBit(0); i >= 0; i = b.nextSetBit(i + 1)) {
+          result.get(i).add(e.getKey());
+        }
+      }
+    }
+    return result;
+  }
+
+  /** @return true if f passes the fact of a criterion, false if it kills it */
+  private static boolean passes(IFlowFunction f) {
+    if (!(f instanceof IUnaryFlowFunction)) {
+      Assertions.UNREACHABLE("Batch slicing not supported for binary flow functions");
+    }
+    IntSet targets = ((IUnaryFlowFunction) f).getTargets(CRITERION);
+    return targets != null && targets.contains(CRITERION);
+  }
+
+  /** Record path edges &lt;s_p,i&gt; -&gt; &lt;n,i&gt; for each criterion i in b. */
+  private void propagate(Statement s_p, Statement n, BitVector b) {
+    BitVector reached =
+        pathEdges
+            .computeIfAbsent(s_p, k -> HashMapFactory.make())
+            .computeIfAbsent(n, k -> new BitVector(numberOfCriteria));
+    if (b.isSubset(reached)) {
+      return;
+    }
+    Pair<Statement, Statement> edge = Pair.make(s_p, n);
+    BitVector delta = pending.get(edge);
+    if (delta == null) {
+      delta = new BitVector(numberOfCriteria);
+      pending.put(edge, delta);
+      worklist.add(edge);
+    }
+    reached.orWithDelta(b, delta);
+  }
+
+  /** Restart tabulation from &lt;s_p,i&gt; -&gt; &lt;n,i&gt;, for each criterion i in b. */
+  private void addSeed(Statement s_p, Statement n, BitVector b) {
+    BitVector seeds = unbalancedSeeds.computeIfAbsent(s_p, k -> new BitVector(numberOfCriteria));
+    BitVector fresh = BitVector.andNot(b, seeds);
+    seeds.or(b);
+    propagate(s_p, n, b);
+    if (!fresh.isZero()) {
+      // path edges from s_p may have reached an exit before s_p was a seed; return from them now
+      Map<Statement, BitVector> local = pathEdges.get(s_p);
+      for (Statement x : supergraph.getExitsForProcedure(supergraph.getProcOf(s_p))) {
+        BitVector reached = local.get(x);
+        if (reached != null) {
+          returnUnbalanced(x, BitVector.and(reached, fresh));
+        }
+      }
+    }
+  }
+
+  /** Return from exit x to every caller, for the criteria in b. */
+  private void returnUnbalanced(Statement x, BitVector b) {
+    if (b.isZero()) {
+      return;
+    }
+    for (Statement retSite : Iterator2Iterable.make(supergraph.getSuccNodes(x))) {
+      if (passes(functions.getUnbalancedReturnFlowFunction(x, retSite))) {
+        addSeed(problem.getFakeEntry(retSite), retSite, b);
+      }
+    }
+  }
+
+  /** Process the criteria b newly reaching n from s_p. */
+  private void process(Statement s_p, Statement n, BitVector b) {
+    if (supergraph.isExit(n)) {
+      BitVector seeds = unbalancedSeeds.get(s_p);
+      if (seeds != null) {
+        returnUnbalanced(n, BitVector.and(b, seeds));
+      }
+    }
+    if (supergraph.isCall(n)) {
+      processCall(s_p, n, b);
+    } else if (supergraph.isExit(n)) {
+      processExit(s_p, n, b);
+    } else {
+      for (Statement m : Iterator2Iterable.make(supergraph.getSuccNodes(n))) {
+        if (passes(functions.getNormalFlowFunction(n, m))) {
+          propagate(s_p, m, b);
+        }
+      }
+    }
+  }
+
+  private void processCall(Statement s_p, Statement c, BitVector b) {
+    Collection<Statement> allReturnSites =
+        Iterator2Collection.toSet(supergraph.getReturnSites(c, null));
+    boolean hasCallee = false;
+    for (Statement calleeEntry : Iterator2Iterable.make(supergraph.getCalledNodes(c))) {
+      hasCallee = true;
+      PDG<?> callee = supergraph.getProcOf(calleeEntry);
+      Collection<Statement> returnSites =
+          Iterator2Collection.toSet(supergraph.getReturnSites(c, callee));
+      allReturnSites.addAll(returnSites);
+      boolean entered = passes(functions.getCallFlowFunction(c, calleeEntry, null));
+      for (Statement retSite : returnSites) {
+        entered |= passes(functions.getCallFlowFunction(c, calleeEntry, retSite));
+      }
+      if (!entered) {
+        continue;
+      }
+      callFlow
+          .computeIfAbsent(calleeEntry, k -> HashMapFactory.make())
+          .computeIfAbsent(c, k -> new BitVector(numberOfCriteria))
+          .or(b);
+      propagate(calleeEntry, calleeEntry, b);
+      // apply the summary edges of the callee, which are its path edges to exits
+      Map<Statement, BitVector> local = pathEdges.get(calleeEntry);
+      for (Statement x : supergraph.getExitsForProcedure(callee)) {
+        BitVector summary = local.get(x);
+        if (summary == null) {
+          continue;
+        }
+        BitVector returned = BitVector.and(summary, b);
+        if (returned.isZero()) {
+          continue;
+        }
+        for (Statement retSite : returnSites) {
+          if (supergraph.hasEdge(x, retSite)
+              && passes(functions.getReturnFlowFunction(c, x, retSite))) {
+            propagate(s_p, retSite, returned);
+          }
+        }
+      }
+    }
+    for (Statement m : Iterator2Iterable.make(supergraph.getNormalSuccessors(c))) {
+      if (passes(functions.getNormalFlowFunction(c, m))) {
+        propagate(s_p, m, b);
+      }
+    }
+    for (Statement retSite : allReturnSites) {
+      IUnaryFlowFunction f =
+          hasCallee
+              ? functions.getCallToReturnFlowFunction(c, retSite)
+              : functions.getCallNoneToReturnFlowFunction(c, retSite);
+      if (passes(f)) {
+        propagate(s_p, retSite, b);
+      }
+    }
+  }
+
+  private void processExit(Statement s_p, Statement x, BitVector b) {
+    Map<Statement, BitVector> calls = callFlow.get(s_p);
+    if (calls == null) {
+      return;
+    }
+    PDG<?> callee = supergraph.getProcOf(x);
+    for (Map.Entry<Statement, BitVector> e : calls.entrySet()) {
+      Statement c = e.getKey();
+      BitVector returned = BitVector.and(e.getValue(), b);
+      if (returned.isZero()) {
+        continue;
+      }
+      for (Statement retSite : Iterator2Iterable.make(supergraph.getReturnSites(c, callee))) {
+        if (!supergraph.hasEdge(x, retSite)
+            || !passes(functions.getReturnFlowFunction(c, x, retSite))) {
+          continue;
+        }
+        for (Statement s_q : supergraph.getEntriesForProcedure(supergraph.getProcOf(c))) {
+          Map<Statement, BitVector> local = pathEdges.get(s_q);
+          BitVector atCall = local == null ? null : local.get(c);
+          if (atCall != null) {
+            BitVector reached = BitVector.and(atCall, returned);
+            if (!reached.isZero()) {
+              propagate(s_q, retSite, reached);
+            }
+          }
+        }
+      }
+    }
+  }
+}
@@ -72,7 +72,13 @@ import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
-/** Program dependence graph for a single call graph node */
+/**
+ * Program dependence graph for a single call graph node.
+ *
+ * <p>Heap data dependences are computed lazily, as nodes are queried. Once the PDG is {@link
+ * #setConcurrent() shared between threads}, this is done while holding the lock of the PDG, and the
+ * successors and predecessors of a node are returned as a copy.
+ */
 public class PDG<T extends InstanceKey> implements NumberedLabeledGraph<Statement, Dependency> {
 
   private final SlowSparseNumberedLabeledGraph<Statement, Dependency> delegate =
@@ -82,6 +88,9 @@ public class PDG<T extends InstanceKey> implements NumberedLabeledGraph<Statemen
 
   private final CGNode node;
 
+  /** may several threads query this PDG? */
+  private volatile boolean concurrent = false;
+
   private Statement[] paramCalleeStatements;
 
   private Statement[] returnStatements;
@@ -180,7 +189,7 @@ public class PDG<T extends InstanceKey> implements NumberedLabeledGraph<Statemen
    * SSAInstruction} assumes a canonical representative for each instruction, we <b>must</b> ensure
    * that we use the same IR object throughout initialization!!
    */
-  private void populate() {
+  private synchronized void populate() {
     if (!isPopulated) {
       // ensure that we keep the single, canonical IR live throughout initialization, while the
       // instructionIndices map
@@ -194,6 +203,26 @@ public class PDG<T extends InstanceKey> implements NumberedLabeledGraph<Statemen
     }
   }
 
+  /**
+   * Compute all dependences of this PDG now, including the heap data dependences which are
+   * otherwise computed as nodes are queried. This only writes state of this PDG, so the PDGs of
+   * different nodes may be built by different threads at once.
+   */
+  synchronized void computeAllDependences() {
+    populate();
+    if (!dOptions.isIgnoreHeap()) {
+      for (Statement s : Iterator2Collection.toList(delegate.iterator())) {
+        computeIncomingHeapDependencies(s);
+        computeOutgoingHeapDependencies(s);
+      }
+    }
+  }
+
+  /** Let several threads query this PDG from now on. */
+  void setConcurrent() {
+    concurrent = true;
+  }
+
   private void createScalarEdges(
       ControlDependenceOptions cOptions, IR ir, Map<SSAInstruction, Integer> instructionIndices) {
     createScalarDataDependenceEdges(ir, instructionIndices);
@@ -820,7 +849,7 @@ public class PDG<T extends InstanceKey> implements NumberedLabeledGraph<Statemen
     return ssaInstruction2Statement(node, s, instructionIndices, ir);
   }
 
-  public static synchronized Statement ssaInstruction2Statement(
+  public static Statement ssaInstruction2Statement(
       CGNode node, SSAInstruction s, Map<SSAInstruction, Integer> instructionIndices, IR ir) {
     if (node == null) {
       throw new IllegalArgumentException("null node");
@@ -1101,6 +1130,15 @@ public class PDG<T extends InstanceKey> implements NumberedLabeledGraph<Statemen
 
   @Override
   public Iterator<Statement> getPredNodes(Statement N) {
+    if (concurrent) {
+      synchronized (this) {
+        return Iterator2Collection.toList(predNodes(N)).iterator();
+      }
+    }
+    return predNodes(N);
+  }
+
+  private Iterator<Statement> predNodes(Statement N) {
     populate();
     if (!dOptions.isIgnoreHeap()) {
       computeIncomingHeapDependencies(N);
@@ -1165,6 +1203,15 @@ public class PDG<T extends InstanceKey> implements NumberedLabeledGraph<Statemen
 
   @Override
   public Iterator<Statement> getSuccNodes(Statement N) {
+    if (concurrent) {
+      synchronized (this) {
+        return Iterator2Collection.toList(succNodes(N)).iterator();
+      }
+    }
+    return succNodes(N);
+  }
+
+  private Iterator<Statement> succNodes(Statement N) {
     populate();
     if (!dOptions.isIgnoreHeap()) {
       computeOutgoingHeapDependencies(N);
@@ -1174,6 +1221,12 @@ public class PDG<T extends InstanceKey> implements NumberedLabeledGraph<Statemen
 
   @Override
   public boolean hasEdge(Statement src, Statement dst) throws UnimplementedError {
+    if (concurrent) {
+      synchronized (this) {
+        populate();
+        return delegate.hasEdge(src, dst);
+      }
+    }
     populate();
     return delegate.hasEdge(src, dst);
   }
@@ -15,6 +15,7 @@ import com.ibm.wala.ipa.callgraph.CGNode;
 import com.ibm.wala.ipa.callgraph.CallGraph;
 import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
 import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysisImpl;
 import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.ipa.modref.ModRef;
@@ -41,17 +42,22 @@ import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.MutableSparseIntSet;
 import com.ibm.wala.util.intset.OrdinalSet;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * System dependence graph.
  *
- * <p>An SDG comprises a set of PDGs, one for each method. We compute these lazily.
+ * <p>An SDG comprises a set of PDGs, one for each method. We compute these lazily, unless {@link
+ * #setNumberOfThreads(int) several threads} build them all at once.
  *
  * <p>Prototype implementation. Not efficient.
  */
@@ -104,6 +110,12 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
   /** Have we eagerly populated all nodes of this SDG? */
   private boolean eagerComputed = false;
 
+  /** how many threads build the PDGs when the SDG is constructed eagerly */
+  private int numberOfThreads = 1;
+
+  /** may several threads query the PDGs? */
+  private boolean concurrent = false;
+
   public SDG(
       final CallGraph cg,
       PointerAnalysis<T> pa,
@@ -180,11 +192,66 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
     }
   }
 
+  public int getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
+  /**
+   * Set how many threads build the PDGs when the entire SDG is constructed. With more than one, all
+   * dependences of each PDG, heap data dependences included, are computed then rather than as nodes
+   * are queried. Call this before the SDG is used.
+   */
+  public void setNumberOfThreads(int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + n);
+    }
+    numberOfThreads = n;
+  }
+
+  /**
+   * Let several threads query the PDGs of this SDG from now on. PDGs created later are shared too,
+   * but creating them is not safe for several threads, so construct the SDG eagerly first.
+   */
+  void setConcurrent() {
+    concurrent = true;
+    for (PDG<T> pdg : pdgMap.values()) {
+      pdg.setConcurrent();
+    }
+  }
+
   /** force computation of all PDGs in the SDG */
   private void computeAllPDGs() {
     for (CGNode n : cg) {
       getPDG(n);
     }
+    if (numberOfThreads > 1) {
+      // each PDG only writes state of its own, but the IR of its node must stay the same while it
+      // is built, so hold on to the IRs. synthetic nodes do not cache their IRs, which context
+      // interpreters may build anew each time, so build their PDGs first, in this thread.
+      List<IR> irs = new ArrayList<>();
+      List<PDG<T>> pdgs = new ArrayList<>();
+      for (CGNode n : cg) {
+        if (n.getMethod().isWalaSynthetic()) {
+          getPDG(n).computeAllDependences();
+        } else {
+          irs.add(n.getIR());
+          pdgs.add(getPDG(n));
+        }
+      }
+      // looking up points-to sets must then only read the instance key mapping
+      if (pa instanceof PointerAnalysisImpl) {
+        ((PointerAnalysisImpl) pa).addStringConstantContents();
+      }
+      ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+      try {
+        pool.invoke(
+            ForkJoinTask.adapt(() -> pdgs.parallelStream().forEach(PDG::computeAllDependences)));
+      } finally {
+        pool.shutdown();
+      }
+      // the IRs may be collected from now on
+      irs.clear();
+    }
   }
 
   /**
@@ -841,6 +908,9 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
     PDG<T> result = pdgMap.get(node);
     if (result == null) {
       result = new PDG<>(node, pa, mod, ref, dOptions, cOptions, heapExclude, cg, modRef);
+      if (concurrent) {
+        result.setConcurrent();
+      }
       pdgMap.put(node, result);
       // Let's not eagerly add nodes, shall we?
       // for (Iterator<? extends Statement> it = result.iterator(); it.hasNext();) {
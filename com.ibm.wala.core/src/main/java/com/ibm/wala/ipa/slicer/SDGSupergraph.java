@@ -138,8 +138,7 @@ class SDGSupergraph implements ISupergraph<Statement, PDG<? extends InstanceKey>
 
   @Override
   public int getNumberOfBlocks(PDG<? extends InstanceKey> procedure) {
-    Assertions.UNREACHABLE();
-    return 0;
+    return procedure.getNumberOfNodes();
   }
 
   @Override
@@ -17,6 +17,7 @@ import com.ibm.wala.dataflow.IFDS.ISupergraph;
 import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationProblem;
 import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationSolver;
 import com.ibm.wala.dataflow.IFDS.PathEdge;
+import com.ibm.wala.dataflow.IFDS.SummaryCache;
 import com.ibm.wala.dataflow.IFDS.TabulationDomain;
 import com.ibm.wala.dataflow.IFDS.TabulationResult;
 import com.ibm.wala.dataflow.IFDS.UnorderedDomain;
@@ -26,9 +27,14 @@ import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
 import com.ibm.wala.ipa.modref.ModRef;
 import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A demand-driven context-sensitive slicer.
@@ -45,6 +51,15 @@ public class Slicer {
 
   public static final boolean VERBOSE = false;
 
+  /** how many threads tabulate a slice */
+  private int numberOfThreads = 1;
+
+  /** the heap budget of the tabulation solver, or -1 for no limit */
+  private long heapBudget = -1;
+
+  /** summaries of procedures from earlier slices, or null */
+  private SummaryCache<PDG<?>, Object> summaryCache;
+
   /** options to control data dependence edges in the SDG */
   public static enum DataDependenceOptions {
     FULL("full", false, false, false, false),
@@ -169,6 +184,53 @@ public class Slicer {
     }
   }
 
+  public int getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
+  /**
+   * Set how many threads tabulate a slice. With more than one, the whole SDG is built before
+   * slicing, so that the threads only read it.
+   */
+  public void setNumberOfThreads(int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + n);
+    }
+    numberOfThreads = n;
+  }
+
+  public long getHeapBudget() {
+    return heapBudget;
+  }
+
+  /**
+   * Bound the heap used to tabulate a slice, by spilling path edges to disk.
+   *
+   * @param bytes the heap budget, or -1 for no limit
+   * @see com.ibm.wala.dataflow.IFDS.TabulationSolver#setHeapBudget(long)
+   */
+  public void setHeapBudget(long bytes) {
+    if (bytes < -1) {
+      throw new IllegalArgumentException("invalid heap budget: " + bytes);
+    }
+    heapBudget = bytes;
+  }
+
+  public SummaryCache<PDG<?>, Object> getSummaryCache() {
+    return summaryCache;
+  }
+
+  /**
+   * Use summaries of procedures from earlier slices over SDGs built the same way. The slice then
+   * leaves out the statements of the procedures whose summaries were used.
+   *
+   * @param cache the summaries, or null to compute all of them
+   * @see com.ibm.wala.dataflow.IFDS.TabulationSolver#setSummaryCache(SummaryCache)
+   */
+  public void setSummaryCache(SummaryCache<PDG<?>, Object> cache) {
+    summaryCache = cache;
+  }
+
   /**
    * @param s a statement of interest
    * @return the backward slice of s.
@@ -217,6 +279,32 @@ public class Slicer {
     return computeSlice(sdg, ss, true);
   }
 
+  /**
+   * Use the passed-in SDG
+   *
+   * @return the backward slice of each of the statements
+   */
+  public static Map<Statement, Collection<Statement>> computeBackwardSlices(
+      SDG<?> sdg, Collection<Statement> ss) throws IllegalArgumentException, CancelException {
+    if (sdg == null) {
+      throw new IllegalArgumentException("sdg cannot be null");
+    }
+    return new Slicer().sliceEach(sdg, ss, true);
+  }
+
+  /**
+   * Use the passed-in SDG
+   *
+   * @return the forward slice of each of the statements
+   */
+  public static Map<Statement, Collection<Statement>> computeForwardSlices(
+      SDG<?> sdg, Collection<Statement> ss) throws IllegalArgumentException, CancelException {
+    if (sdg == null) {
+      throw new IllegalArgumentException("sdg cannot be null");
+    }
+    return new Slicer().sliceEach(sdg, ss, false);
+  }
+
   /** @param ss a collection of statements of interest */
   protected static Collection<Statement> computeSlice(
       SDG<?> sdg, Collection<Statement> ss, boolean backward) throws CancelException {
@@ -255,10 +343,18 @@ public class Slicer {
       throw new IllegalArgumentException("sdg cannot be null");
     }
 
+    if (numberOfThreads > 1) {
+      // forces eager construction of the SDG
+      sdg.getNumberOfNodes();
+      sdg.setConcurrent();
+    }
     SliceProblem p = makeSliceProblem(roots, sdg, backward);
 
     PartiallyBalancedTabulationSolver<Statement, PDG<?>, Object> solver =
         PartiallyBalancedTabulationSolver.createPartiallyBalancedTabulationSolver(p, monitor);
+    solver.setNumberOfThreads(numberOfThreads);
+    solver.setHeapBudget(heapBudget);
+    solver.setSummaryCache(summaryCache);
     TabulationResult<Statement, PDG<?>, Object> tr = solver.solve();
 
     Collection<Statement> slice = tr.getSupergraphNodesReached();
@@ -270,6 +366,57 @@ public class Slicer {
     return slice;
   }
 
+  /**
+   * Compute the slice of each of many criteria, in one pass over the SDG. This is much cheaper than
+   * slicing from each criterion in turn, as the criteria share the traversal of the statements they
+   * reach together.
+   *
+   * @param sdg governing system dependence graph
+   * @param criteria statements to slice from, each on its own
+   * @param backward do backwards slices?
+   * @return the slice of each criterion, as {@link #slice(SDG, Collection, boolean)} would find it
+   *     for the criterion alone
+   */
+  public Map<Statement, Collection<Statement>> sliceEach(
+      SDG<?> sdg, Collection<Statement> criteria, boolean backward) throws CancelException {
+    return sliceEach(sdg, criteria, backward, null);
+  }
+
+  /**
+   * Compute the slice of each of many criteria, in one pass over the SDG. This runs in one thread,
+   * with no heap budget, and does not use the {@link #setSummaryCache(SummaryCache) summary cache}.
+   *
+   * @param sdg governing system dependence graph
+   * @param criteria statements to slice from, each on its own
+   * @param backward do backwards slices?
+   * @param monitor to cancel analysis if needed
+   * @return the slice of each criterion
+   */
+  public Map<Statement, Collection<Statement>> sliceEach(
+      SDG<?> sdg, Collection<Statement> criteria, boolean backward, IProgressMonitor monitor)
+      throws CancelException {
+    if (sdg == null) {
+      throw new IllegalArgumentException("sdg cannot be null");
+    }
+    if (criteria == null) {
+      throw new IllegalArgumentException("criteria cannot be null");
+    }
+
+    List<Statement> distinct = new ArrayList<>(new LinkedHashSet<>(criteria));
+    List<Collection<Statement>> slices =
+        new BatchSliceSolver(makeSliceProblem(distinct, sdg, backward), monitor).solve(distinct);
+
+    if (VERBOSE) {
+      System.err.println("Slicer done.");
+    }
+
+    Map<Statement, Collection<Statement>> result = HashMapFactory.make();
+    for (int i = 0; i < distinct.size(); i++) {
+      result.put(distinct.get(i), slices.get(i));
+    }
+    return result;
+  }
+
   /**
    * Return an object which encapsulates the tabulation logic for the slice problem. Subclasses can
    * override this method to implement special semantics.
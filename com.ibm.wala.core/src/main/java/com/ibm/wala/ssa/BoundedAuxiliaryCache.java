@@ -0,0 +1,384 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ssa;
+
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ipa.callgraph.Context;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.Pair;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * A cache for auxiliary information based on an SSA representation, which holds on to its entries
+ * with strong references until their estimated total size exceeds a budget, and then evicts entries
+ * as chosen by an {@link EvictionPolicy}.
+ *
+ * <p>Unlike {@link AuxiliaryCache}, what is retained does not depend on the garbage collector, so
+ * the memory used for IRs can be tuned with the budget and the hit, miss and eviction counts.
+ *
+ * <p>Note that a {@link DefUse} keeps its {@link IR} alive, so an IR evicted from the IR cache
+ * stays in memory as long as its DefUse is cached.
+ */
+public class BoundedAuxiliaryCache implements IAuxiliaryCache {
+
+  /** Decides which entry to evict when the cache is over its budget */
+  public interface EvictionPolicy {
+
+    /** key was looked up and found */
+    void recordHit(Object key);
+
+    /** key was looked up and not found */
+    void recordMiss(Object key);
+
+    /** key was added to the cache */
+    void recordInsertion(Object key);
+
+    /** key was evicted or invalidated */
+    void recordRemoval(Object key);
+
+    /**
+     * @return the cached keys, in the order in which they should be evicted; the cache does not
+     *     record anything while it iterates over them
+     */
+    Iterator<Object> victims();
+
+    /**
+     * @return true if candidate, which is not cached, should be cached even though victim, the
+     *     first of the entries which must be evicted to make room for it, and the entries after it
+     *     are evicted
+     */
+    default boolean admit(Object candidate, Object victim) {
+      return true;
+    }
+  }
+
+  /** Evict the least recently used entry */
+  public static class LRUPolicy implements EvictionPolicy {
+
+    /** the cached keys, least recently used first */
+    private final LinkedHashMap<Object, Object> order = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Override
+    public void recordHit(Object key) {
+      order.get(key);
+    }
+
+    @Override
+    public void recordMiss(Object key) {}
+
+    @Override
+    public void recordInsertion(Object key) {
+      order.put(key, key);
+    }
+
+    @Override
+    public void recordRemoval(Object key) {
+      order.remove(key);
+    }
+
+    @Override
+    public Iterator<Object> victims() {
+      return order.keySet().iterator();
+    }
+  }
+
+  /**
+   * Evict the least recently used entry, but only to make room for an entry which has been asked
+   * for more often than the victim, as in TinyLFU. The frequencies are kept approximately, in a
+   * count-min sketch whose counts are halved periodically so that old accesses are forgotten.
+   */
+  public static class TinyLFUPolicy extends LRUPolicy {
+
+    private static final int DEPTH = 4;
+
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final int[][] counts;
+
+    private final int mask;
+
+    /** number of increments after which all counts are halved */
+    private final int sampleSize;
+
+    private int increments = 0;
+
+    /** @param expectedEntries roughly how many entries the cache will hold */
+    public TinyLFUPolicy(int expectedEntries) {
+      if (expectedEntries < 1) {
+        throw new IllegalArgumentException("expectedEntries must be positive: " + expectedEntries);
+      }
+      int width = Integer.highestOneBit(Math.max(16, expectedEntries) * 2 - 1);
+      counts = new int[DEPTH][width];
+      mask = width - 1;
+      sampleSize = 10 * width;
+    }
+
+    private int index(Object key, int row) {
+      int h = key.hashCode() * SEEDS[row];
+      return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void increment(Object key) {
+      for (int row = 0; row < DEPTH; row++) {
+        counts[row][index(key, row)]++;
+      }
+      if (++increments == sampleSize) {
+        for (int[] row : counts) {
+          for (int i = 0; i < row.length; i++) {
+            row[i] >>>= 1;
+          }
+        }
+        increments /= 2;
+      }
+    }
+
+    /** @return an upper bound on the recent number of accesses to key */
+    int frequency(Object key) {
+      int result = Integer.MAX_VALUE;
+      for (int row = 0; row < DEPTH; row++) {
+        result = Math.min(result, counts[row][index(key, row)]);
+      }
+      return result;
+    }
+
+    @Override
+    public void recordHit(Object key) {
+      super.recordHit(key);
+      increment(key);
+    }
+
+    @Override
+    public void recordMiss(Object key) {
+      increment(key);
+    }
+
+    @Override
+    public boolean admit(Object candidate, Object victim) {
+      return frequency(candidate) > frequency(victim);
+    }
+  }
+
+  /** A cached object with its estimated size */
+  private static class Entry {
+    final Object value;
+
+    final long size;
+
+    Entry(Object value, long size) {
+      this.value = value;
+      this.size = size;
+    }
+  }
+
+  /** A mapping from (IMethod,Context) -&gt; SSAOptions -&gt; Entry */
+  private final Map<Pair<IMethod, Context>, Map<SSAOptions, Entry>> dictionary =
+      HashMapFactory.make();
+
+  private final long budget;
+
+  private final ToLongFunction<Object> sizeEstimator;
+
+  private final EvictionPolicy policy;
+
+  /** estimated size of all entries */
+  private long size = 0;
+
+  private long hits = 0;
+
+  private long misses = 0;
+
+  private long evictions = 0;
+
+  /** number of entries which were not cached, see {@link #getRejectionCount()} */
+  private long rejections = 0;
+
+  /**
+   * @param budget the maximum estimated size, in bytes, of the cached objects
+   * @param sizeEstimator estimates the size, in bytes, of an object to cache
+   * @param policy chooses entries to evict
+   */
+  public BoundedAuxiliaryCache(
+      long budget, ToLongFunction<Object> sizeEstimator, EvictionPolicy policy) {
+    if (budget < 0) {
+      throw new IllegalArgumentException("negative budget: " + budget);
+    }
+    if (sizeEstimator == null) {
+      throw new IllegalArgumentException("sizeEstimator is null");
+    }
+    if (policy == null) {
+      throw new IllegalArgumentException("policy is null");
+    }
+    this.budget = budget;
+    this.sizeEstimator = sizeEstimator;
+    this.policy = policy;
+  }
+
+  /**
+   * A cache of the given budget which estimates sizes with {@link #estimateSize(Object)} and evicts
+   * the least recently used entries.
+   */
+  public BoundedAuxiliaryCache(long budget) {
+    this(budget, BoundedAuxiliaryCache::estimateSize, new LRUPolicy());
+  }
+
+  /**
+   * A rough estimate of the memory held by an {@link IR} or a {@link DefUse}, from the number of
+   * instructions, values and basic blocks. Shared objects, such as the method, are not counted.
+   */
+  public static long estimateSize(Object o) {
+    if (o instanceof IR) {
+      IR ir = (IR) o;
+      return 256L
+          + 64L * ir.getInstructions().length
+          + 32L * (ir.getSymbolTable().getMaxValueNumber() + 1)
+          + 128L * ir.getControlFlowGraph().getNumberOfNodes();
+    } else if (o instanceof DefUse) {
+      DefUse du = (DefUse) o;
+      return 64L + 8L * du.allInstructions.size() + 48L * (du.getMaxValueNumber() + 1);
+    } else {
+      return 64L;
+    }
+  }
+
+  private static Pair<Pair<IMethod, Context>, SSAOptions> key(
+      Pair<IMethod, Context> p, SSAOptions options) {
+    return Pair.make(p, options);
+  }
+
+  @Override
+  public synchronized void wipe() {
+    for (Map.Entry<Pair<IMethod, Context>, Map<SSAOptions, Entry>> e : dictionary.entrySet()) {
+      for (SSAOptions options : e.getValue().keySet()) {
+        policy.recordRemoval(key(e.getKey(), options));
+      }
+    }
+    dictionary.clear();
+    size = 0;
+  }
+
+  @Override
+  public synchronized Object find(IMethod m, Context c, SSAOptions options) {
+    Pair<IMethod, Context> p = Pair.make(m, c);
+    Map<SSAOptions, Entry> methodMap = dictionary.get(p);
+    Entry entry = methodMap == null ? null : methodMap.get(options);
+    if (entry == null) {
+      misses++;
+      policy.recordMiss(key(p, options));
+      return null;
+    }
+    hits++;
+    policy.recordHit(key(p, options));
+    return entry.value;
+  }
+
+  @Override
+  public synchronized void cache(IMethod m, Context c, SSAOptions options, Object aux) {
+    Pair<IMethod, Context> p = Pair.make(m, c);
+    remove(p, options);
+    long entrySize = sizeEstimator.applyAsLong(aux);
+    if (entrySize > budget) {
+      rejections++;
+      return;
+    }
+    Pair<Pair<IMethod, Context>, SSAOptions> k = key(p, options);
+    // choose all the victims before evicting any of them, so that a rejected entry evicts nothing
+    List<Pair<Pair<IMethod, Context>, SSAOptions>> victims = new ArrayList<>();
+    long freed = 0;
+    for (Iterator<Object> it = policy.victims(); size - freed + entrySize > budget; ) {
+      if (!it.hasNext()) {
+        rejections++;
+        return;
+      }
+      @SuppressWarnings("unchecked")
+      Pair<Pair<IMethod, Context>, SSAOptions> victim =
+          (Pair<Pair<IMethod, Context>, SSAOptions>) it.next();
+      Map<SSAOptions, Entry> methodMap = dictionary.get(victim.fst);
+      Entry entry = methodMap == null ? null : methodMap.get(victim.snd);
+      if (entry != null) {
+        victims.add(victim);
+        freed += entry.size;
+      }
+    }
+    if (!victims.isEmpty() && !policy.admit(k, victims.get(0))) {
+      rejections++;
+      return;
+    }
+    for (Pair<Pair<IMethod, Context>, SSAOptions> victim : victims) {
+      remove(victim.fst, victim.snd);
+      evictions++;
+    }
+    dictionary
+        .computeIfAbsent(p, x -> HashMapFactory.make())
+        .put(options, new Entry(aux, entrySize));
+    size += entrySize;
+    policy.recordInsertion(k);
+  }
+
+  private void remove(Pair<IMethod, Context> p, SSAOptions options) {
+    Map<SSAOptions, Entry> methodMap = dictionary.get(p);
+    if (methodMap != null) {
+      Entry old = methodMap.remove(options);
+      if (old != null) {
+        size -= old.size;
+        policy.recordRemoval(key(p, options));
+        if (methodMap.isEmpty()) {
+          dictionary.remove(p);
+        }
+      }
+    }
+  }
+
+  @Override
+  public synchronized void invalidate(IMethod method, Context c) {
+    Pair<IMethod, Context> p = Pair.make(method, c);
+    Map<SSAOptions, Entry> methodMap = dictionary.remove(p);
+    if (methodMap != null) {
+      for (Map.Entry<SSAOptions, Entry> e : methodMap.entrySet()) {
+        size -= e.getValue().size;
+        policy.recordRemoval(key(p, e.getKey()));
+      }
+    }
+  }
+
+  public long getBudget() {
+    return budget;
+  }
+
+  /** @return the estimated size, in bytes, of the cached objects */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  public synchronized long getHitCount() {
+    return hits;
+  }
+
+  public synchronized long getMissCount() {
+    return misses;
+  }
+
+  public synchronized long getEvictionCount() {
+    return evictions;
+  }
+
+  /**
+   * @return the number of objects which were not cached, because they did not fit in the budget or
+   *     the eviction policy did not admit them
+   */
+  public synchronized long getRejectionCount() {
+    return rejections;
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ssa;
+
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.core.util.ref.CacheReference;
+import com.ibm.wala.ipa.callgraph.Context;
+import com.ibm.wala.util.collections.Pair;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link AuxiliaryCache} which several threads may use at once without blocking each other.
+ *
+ * <p>A mapping from (IMethod,Context) -&gt; SSAOptions -&gt; SoftReference -&gt; something
+ */
+public class ConcurrentAuxiliaryCache implements IAuxiliaryCache {
+
+  /** A mapping from (IMethod,Context) -&gt; SSAOptions -&gt; SoftReference -&gt; something */
+  private final ConcurrentHashMap<Pair<IMethod, Context>, Map<SSAOptions, Object>> dictionary =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Help out the garbage collector: drop entries whose referent is gone when the number of items
+   * cached since the last time is &gt; RESET_THRESHOLD
+   */
+  private static final int RESET_THRESHOLD = 2000;
+
+  /** number of items cached since the last reset. */
+  private final AtomicInteger nItems = new AtomicInteger();
+
+  @Override
+  public void wipe() {
+    dictionary.clear();
+    nItems.set(0);
+  }
+
+  /** clear out things from which no IR is reachable */
+  private void reset() {
+    for (Iterator<Map<SSAOptions, Object>> it = dictionary.values().iterator(); it.hasNext(); ) {
+      Map<SSAOptions, Object> m = it.next();
+      m.values().removeIf(ref -> CacheReference.get(ref) == null);
+      if (m.isEmpty()) {
+        it.remove();
+      }
+    }
+  }
+
+  @Override
+  public Object find(IMethod m, Context c, SSAOptions options) {
+    Map<SSAOptions, Object> methodMap = dictionary.get(Pair.make(m, c));
+    if (methodMap == null) {
+      return null;
+    }
+    return CacheReference.get(methodMap.get(options));
+  }
+
+  @Override
+  public void cache(IMethod m, Context c, SSAOptions options, Object aux) {
+    if (nItems.incrementAndGet() > RESET_THRESHOLD) {
+      nItems.set(0);
+      reset();
+    }
+    dictionary
+        .computeIfAbsent(Pair.make(m, c), p -> new ConcurrentHashMap<>())
+        .put(options, CacheReference.make(aux));
+  }
+
+  @Override
+  public void invalidate(IMethod method, Context c) {
+    dictionary.remove(Pair.make(method, c));
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.ssa;
+
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ipa.callgraph.Context;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.util.collections.Pair;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * An {@link SSACache} which builds IRs and {@link DefUse}s for different &lt;method, context,
+ * options&gt; keys in parallel, while still building each at most once at a time: a thread which
+ * asks for a key that another thread is building waits for that result.
+ */
+public class ConcurrentSSACache extends SSACache {
+
+  /** IRs being built, by &lt;&lt;method, context&gt;, options&gt; */
+  private final ConcurrentHashMap<Pair<Pair<IMethod, Context>, SSAOptions>, FutureTask<Object>>
+      irsInProgress = new ConcurrentHashMap<>();
+
+  /** DefUses being built, by &lt;&lt;method, context&gt;, options&gt; */
+  private final ConcurrentHashMap<Pair<Pair<IMethod, Context>, SSAOptions>, FutureTask<Object>>
+      dusInProgress = new ConcurrentHashMap<>();
+
+  /** @param factory a factory for creating IRs */
+  public ConcurrentSSACache(IRFactory<IMethod> factory) {
+    super(factory, new ConcurrentAuxiliaryCache(), new ConcurrentAuxiliaryCache());
+  }
+
+  /**
+   * Find the object cached for a key, or else compute it, unless another thread is computing it
+   * already, in which case wait for that thread.
+   */
+  private static Object findOrCompute(
+      IAuxiliaryCache cache,
+      ConcurrentHashMap<Pair<Pair<IMethod, Context>, SSAOptions>, FutureTask<Object>> inProgress,
+      IMethod m,
+      Context c,
+      SSAOptions options,
+      Callable<Object> compute) {
+    Object result = cache.find(m, c, options);
+    if (result != null) {
+      return result;
+    }
+    Pair<Pair<IMethod, Context>, SSAOptions> key = Pair.make(Pair.make(m, c), options);
+    FutureTask<Object> task =
+        new FutureTask<>(
+            () -> {
+              // another thread may have finished computing this since we looked
+              Object cached = cache.find(m, c, options);
+              if (cached != null) {
+                return cached;
+              }
+              Object computed = compute.call();
+              cache.cache(m, c, options, computed);
+              return computed;
+            });
+    FutureTask<Object> running = inProgress.putIfAbsent(key, task);
+    if (running == null) {
+      try {
+        task.run();
+      } finally {
+        inProgress.remove(key, task);
+      }
+      running = task;
+    }
+    return await(running);
+  }
+
+  private static Object await(FutureTask<Object> task) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return task.get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        throw new IllegalStateException(cause);
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * @param m a "normal" (bytecode-based) method
+   * @param options options governing ssa construction
+   * @return an IR for m, built according to the specified options. null if m is abstract or native.
+   * @throws IllegalArgumentException if m is null
+   */
+  @Override
+  public IR findOrCreateIR(final IMethod m, Context c, final SSAOptions options) {
+    if (m == null) {
+      throw new IllegalArgumentException("m is null");
+    }
+    if (m.isAbstract() || m.isNative()) {
+      return null;
+    }
+    if (factory.contextIsIrrelevant(m)) {
+      c = Everywhere.EVERYWHERE;
+    }
+    final Context context = c;
+    return (IR)
+        findOrCompute(
+            irCache, irsInProgress, m, context, options, () -> factory.makeIR(m, context, options));
+  }
+
+  /**
+   * @param m a method
+   * @param options options governing ssa construction
+   * @return DefUse information for m, built according to the specified options. null if unavailable
+   * @throws IllegalArgumentException if m is null
+   */
+  @Override
+  public DefUse findOrCreateDU(IMethod m, Context c, SSAOptions options) {
+    if (m == null) {
+      throw new IllegalArgumentException("m is null");
+    }
+    if (m.isAbstract() || m.isNative()) {
+      return null;
+    }
+    if (factory.contextIsIrrelevant(m)) {
+      c = Everywhere.EVERYWHERE;
+    }
+    final Context context = c;
+    return (DefUse)
+        findOrCompute(
+            duCache,
+            dusInProgress,
+            m,
+            context,
+            options,
+            () -> new DefUse(findOrCreateIR(m, context, options)));
+  }
+
+  /**
+   * @return {@link DefUse} information for m, built according to the specified options. null if
+   *     unavailable
+   * @throws IllegalArgumentException if ir is null
+   */
+  @Override
+  public DefUse findOrCreateDU(IR ir, Context C) {
+    if (ir == null) {
+      throw new IllegalArgumentException("ir is null");
+    }
+    return (DefUse)
+        findOrCompute(
+            duCache, dusInProgress, ir.getMethod(), C, ir.getOptions(), () -> new DefUse(ir));
+  }
+}
@@ -13,7 +13,7 @@ package com.ibm.wala.ssa;
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.ipa.callgraph.Context;
 
-interface IAuxiliaryCache {
+public interface IAuxiliaryCache {
 
   /** The existence of this is unfortunate. */
   void wipe();
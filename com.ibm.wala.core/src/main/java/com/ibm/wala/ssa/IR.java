@@ -27,9 +27,11 @@ import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.intset.BasicNaturalRelation;
 import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntSet;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -63,11 +65,24 @@ public abstract class IR implements IRView {
   /** Mapping from CallSiteReference program counters to instruction[] indices */
   private final BasicNaturalRelation callSiteMapping = new BasicNaturalRelation();
 
-  /** Mapping from NewSiteReference program counters to instruction[] indices */
-  private final Map<NewSiteReference, Integer> newSiteMapping = HashMapFactory.make();
+  /**
+   * Mapping from NewSiteReference program counters to instruction[] indices: the sorted program
+   * counters, and the index of the last new instruction at each
+   */
+  private int[] newSitePCs = new int[0];
+
+  private int[] newSiteIndices = new int[0];
+
+  /** index of the first new instruction at each program counter in {@link #newSitePCs} */
+  private int[] firstNewSiteIndices = new int[0];
+
+  /**
+   * Mapping from PEI program counters to instruction[] indices: the sorted program counters, and
+   * the index of the last PEI at each
+   */
+  private int[] peiPCs = new int[0];
 
-  /** Mapping from PEI program counters to instruction[] indices */
-  private final Map<ProgramCounter, Integer> peiMapping = HashMapFactory.make();
+  private int[] peiIndices = new int[0];
 
   /** Mapping from SSAInstruction to Basic Block, computed lazily */
   private Map<SSAInstruction, ISSABasicBlock> instruction2Block;
@@ -98,8 +113,17 @@ public abstract class IR implements IRView {
     this.options = options;
   }
 
-  /** create mappings from call sites, new sites, and PEIs to instruction index */
+  /**
+   * create mappings from call sites, new sites, and PEIs to instruction index
+   *
+   * <p>The mappings for new sites and PEIs are kept in sorted int arrays rather than in hash maps
+   * of boxed keys and values, since IRs are retained in large numbers.
+   */
   protected void setupLocationMap() {
+    long[] news = new long[instructions.length];
+    int nNews = 0;
+    long[] peis = new long[instructions.length];
+    int nPeis = 0;
     for (int i = 0; i < instructions.length; i++) {
       SSAInstruction x = instructions[i];
       if (x != null) {
@@ -108,13 +132,54 @@ public abstract class IR implements IRView {
               ((SSAAbstractInvokeInstruction) x).getCallSite().getProgramCounter(), i);
         }
         if (x instanceof SSANewInstruction) {
-          newSiteMapping.put(((SSANewInstruction) x).getNewSite(), i);
+          news[nNews++] = pack(((SSANewInstruction) x).getNewSite().getProgramCounter(), i);
         }
         if (x.isPEI()) {
-          peiMapping.put(new ProgramCounter(cfg.getProgramCounter(i)), i);
+          peis[nPeis++] = pack(cfg.getProgramCounter(i), i);
         }
       }
     }
+
+    int[][] newSites = sortByProgramCounter(news, nNews);
+    newSitePCs = newSites[0];
+    firstNewSiteIndices = newSites[1];
+    newSiteIndices = newSites[2];
+    int[][] peiSites = sortByProgramCounter(peis, nPeis);
+    peiPCs = peiSites[0];
+    peiIndices = peiSites[2];
+  }
+
+  private static long pack(int pc, int index) {
+    return ((long) pc << 32) | index;
+  }
+
+  /**
+   * @param sites (program counter, instruction index) pairs, see {@link #pack(int, int)}, in
+   *     instruction order
+   * @return the distinct program counters, sorted, and the first and the last index for each
+   */
+  private static int[][] sortByProgramCounter(long[] sites, int n) {
+    Arrays.sort(sites, 0, n);
+    int distinct = 0;
+    for (int i = 0; i < n; i++) {
+      if (i == 0 || (sites[i] >> 32) != (sites[i - 1] >> 32)) {
+        distinct++;
+      }
+    }
+    int[] pcs = new int[distinct];
+    int[] first = new int[distinct];
+    int[] last = new int[distinct];
+    int j = -1;
+    for (int i = 0; i < n; i++) {
+      int pc = (int) (sites[i] >> 32);
+      if (j < 0 || pcs[j] != pc) {
+        j++;
+        pcs[j] = pc;
+        first[j] = (int) sites[i];
+      }
+      last[j] = (int) sites[i];
+    }
+    return new int[][] {pcs, first, last};
   }
 
   /**
@@ -541,35 +606,62 @@ public abstract class IR implements IRView {
     return callSiteMapping.getRelated(site.getProgramCounter());
   }
 
-  /** Return the new instruction corresponding to an allocation site */
+  /**
+   * Return the new instruction corresponding to an allocation site, or null if there is none. Sites
+   * are matched by program counter only, see {@link NewSiteReference#equals(Object)}.
+   */
   public SSANewInstruction getNew(NewSiteReference site) {
-    Integer i = newSiteMapping.get(site);
-    return (SSANewInstruction) instructions[i];
+    int i = getNewInstructionIndex(site);
+    return i < 0 ? null : (SSANewInstruction) instructions[i];
   }
 
-  /** Return the instruction index corresponding to an allocation site */
+  /**
+   * Return the instruction index corresponding to an allocation site, or -1 if there is none. If
+   * several new instructions share the site's program counter, the last one is returned.
+   */
   public int getNewInstructionIndex(NewSiteReference site) {
-    Integer i = newSiteMapping.get(site);
-    return i;
+    if (site == null) {
+      throw new IllegalArgumentException("site is null");
+    }
+    int i = Arrays.binarySearch(newSitePCs, site.getProgramCounter());
+    return i < 0 ? -1 : newSiteIndices[i];
   }
 
   /**
    * @param pc a program counter
-   * @return the instruction (a PEI) at this program counter
+   * @return the instruction (a PEI) at this program counter, or null if there is none
    */
   @Override
   public SSAInstruction getPEI(ProgramCounter pc) {
-    Integer i = peiMapping.get(pc);
-    return instructions[i];
+    if (pc == null) {
+      throw new IllegalArgumentException("pc is null");
+    }
+    int i = Arrays.binarySearch(peiPCs, pc.getProgramCounter());
+    return i < 0 ? null : instructions[peiIndices[i]];
   }
 
   /**
    * @return an {@link Iterator} of all the allocation sites ( {@link NewSiteReference}s ) in this
-   *     IR
+   *     IR, one per program counter
    */
   @Override
   public Iterator<NewSiteReference> iterateNewSites() {
-    return newSiteMapping.keySet().iterator();
+    return new Iterator<NewSiteReference>() {
+      private int i = 0;
+
+      @Override
+      public boolean hasNext() {
+        return i < firstNewSiteIndices.length;
+      }
+
+      @Override
+      public NewSiteReference next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return ((SSANewInstruction) instructions[firstNewSiteIndices[i++]]).getNewSite();
+      }
+    };
   }
 
   /** @return an {@link Iterator} of all the call sites ( {@link CallSiteReference}s ) in this IR */
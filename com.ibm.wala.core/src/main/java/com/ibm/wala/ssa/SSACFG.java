@@ -230,7 +230,8 @@ public class SSACFG
     return instructions;
   }
 
-  private final Map<RefPathKey, SSAPiInstruction> piInstructions = HashMapFactory.make(2);
+  /** pi instructions by value and path, created when the first one is added */
+  private Map<RefPathKey, SSAPiInstruction> piInstructions;
 
   private static class RefPathKey {
     private final int n;
@@ -433,23 +434,32 @@ public class SSACFG
     }
 
     public SSAPiInstruction getPiForRefAndPath(int n, Object path) {
-      return piInstructions.get(new RefPathKey(n, this, path));
+      return piInstructions == null ? null : piInstructions.get(new RefPathKey(n, this, path));
     }
 
-    private final LinkedList<SSAPiInstruction> blockPiInstructions = new LinkedList<>();
+    /** pi instructions of this block, null until the first one is added, since most have none */
+    private List<SSAPiInstruction> blockPiInstructions;
 
     /**
      * @param n can be the val in the pi instruction
      * @param path can be the successor block in the pi instruction
      */
     public void addPiForRefAndPath(int n, Object path, SSAPiInstruction pi) {
+      if (piInstructions == null) {
+        piInstructions = HashMapFactory.make(2);
+      }
       piInstructions.put(new RefPathKey(n, this, path), pi);
+      if (blockPiInstructions == null) {
+        blockPiInstructions = new ArrayList<>(1);
+      }
       blockPiInstructions.add(pi);
     }
 
     @Override
     public Iterator<SSAPiInstruction> iteratePis() {
-      return blockPiInstructions.iterator();
+      return blockPiInstructions == null
+          ? EmptyIterator.instance()
+          : blockPiInstructions.iterator();
     }
 
     public Iterator<SSAInstruction> iterateNormalInstructions() {
@@ -26,13 +26,13 @@ public class SSACache {
   private static final boolean DISABLE = false;
 
   /** The factory that actually creates new IR objects */
-  private final IRFactory<IMethod> factory;
+  final IRFactory<IMethod> factory;
 
   /** A cache of SSA IRs */
-  private final IAuxiliaryCache irCache;
+  final IAuxiliaryCache irCache;
 
   /** A cache of DefUse information */
-  private final IAuxiliaryCache duCache;
+  final IAuxiliaryCache duCache;
 
   /** @param factory a factory for creating IRs */
   public SSACache(IRFactory<IMethod> factory, IAuxiliaryCache irCache, IAuxiliaryCache duCache) {
@@ -121,6 +121,19 @@ public class SSACache {
     duCache.wipe();
   }
 
+  /**
+   * Wipe the caches whose size is not bounded. A {@link BoundedAuxiliaryCache} already keeps its
+   * entries within its budget, so it is left alone.
+   */
+  public void wipeUnbounded() {
+    if (!(irCache instanceof BoundedAuxiliaryCache)) {
+      irCache.wipe();
+    }
+    if (!(duCache instanceof BoundedAuxiliaryCache)) {
+      duCache.wipe();
+    }
+  }
+
   /** Invalidate the cached IR for a &lt;method,context&gt; pair */
   public void invalidateIR(IMethod method, Context c) {
     irCache.invalidate(method, c);
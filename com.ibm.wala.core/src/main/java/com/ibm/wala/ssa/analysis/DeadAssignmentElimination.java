@@ -18,12 +18,13 @@ import com.ibm.wala.fixpoint.UnaryOr;
 import com.ibm.wala.ssa.*;
 import com.ibm.wala.ssa.SSACFG.BasicBlock;
 import com.ibm.wala.util.CancelException;
-import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.IntObjectHashMap;
 import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSetUtil;
+import com.ibm.wala.util.intset.MutableIntSet;
 import java.util.HashSet;
-import java.util.Map;
-import java.util.Map.Entry;
 
 /** Eliminate dead assignments (phis) from an SSA IR. */
 public class DeadAssignmentElimination {
@@ -84,10 +85,10 @@ public class DeadAssignmentElimination {
   private static class DeadValueSystem extends DefaultFixedPointSolver<BooleanVariable> {
 
     /** Map: value number -&gt; BooleanVariable isLive */
-    private final Map<Integer, BooleanVariable> vars = HashMapFactory.make();
+    private final IntObjectHashMap<BooleanVariable> vars = new IntObjectHashMap<>();
 
     /** set of value numbers that are trivially dead */
-    private final HashSet<Integer> trivialDead = HashSetFactory.make();
+    private final MutableIntSet trivialDead = IntSetUtil.make();
 
     /**
      * @param ir the IR to analyze
@@ -122,12 +123,12 @@ public class DeadAssignmentElimination {
       }
 
       // Now create dataflow equations; v is live iff any phi that uses v is live
-      for (Entry<Integer, BooleanVariable> E : vars.entrySet()) {
-        Integer def = E.getKey();
-        BooleanVariable B = E.getValue();
+      for (IntIterator it = vars.keyIterator(); it.hasNext(); ) {
+        int def = it.next();
+        BooleanVariable B = vars.get(def);
         for (SSAInstruction use : Iterator2Iterable.make(DU.getUses(def))) {
           SSAPhiInstruction u = (SSAPhiInstruction) use;
-          Integer ud = u.getDef();
+          int ud = u.getDef();
           if (trivialDead.contains(ud)) {
             // do nothing ... u will not keep def live
           } else {
@@ -158,11 +159,10 @@ public class DeadAssignmentElimination {
 
     /** @return true iff there are no uses of the given value number */
     private boolean isDead(int value) {
-      Integer V = value;
-      if (trivialDead.contains(V)) {
+      if (trivialDead.contains(value)) {
         return true;
       } else {
-        BooleanVariable B = vars.get(V);
+        BooleanVariable B = vars.get(value);
         if (B == null) {
           return false;
         } else {
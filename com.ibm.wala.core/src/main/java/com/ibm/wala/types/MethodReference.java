@@ -13,13 +13,13 @@ package com.ibm.wala.types;
 import com.ibm.wala.classLoader.Language;
 import com.ibm.wala.core.util.shrike.ShrikeUtil;
 import com.ibm.wala.core.util.strings.Atom;
-import com.ibm.wala.util.collections.HashMapFactory;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** A class to represent the reference in a class file to a method. */
 public final class MethodReference extends MemberReference {
   /** Used to canonicalize MethodReferences a mapping from Key -&gt; MethodReference */
-  private static final HashMap<Key, MethodReference> dictionary = HashMapFactory.make();
+  private static final ConcurrentHashMap<Key, MethodReference> dictionary =
+      new ConcurrentHashMap<>();
 
   public static final Atom newInstanceAtom = Atom.findOrCreateUnicodeAtom("newInstance");
 
@@ -97,8 +97,7 @@ public final class MethodReference extends MemberReference {
    * @param mn the name of the member
    * @param md the descriptor of the member
    */
-  public static synchronized MethodReference findOrCreate(
-      TypeReference tref, Atom mn, Descriptor md) {
+  public static MethodReference findOrCreate(TypeReference tref, Atom mn, Descriptor md) {
     if (tref == null) {
       throw new IllegalArgumentException("null tref");
     }
@@ -107,8 +106,8 @@ public final class MethodReference extends MemberReference {
     MethodReference val = dictionary.get(key);
     if (val != null) return val;
     val = new MethodReference(key);
-    dictionary.put(key, val);
-    return val;
+    MethodReference prev = dictionary.putIfAbsent(key, val);
+    return prev == null ? val : prev;
   }
 
   /**
@@ -118,7 +117,7 @@ public final class MethodReference extends MemberReference {
    * @param selector the selector for the method
    * @throws IllegalArgumentException if selector is null
    */
-  public static synchronized MethodReference findOrCreate(TypeReference tref, Selector selector) {
+  public static MethodReference findOrCreate(TypeReference tref, Selector selector) {
     if (selector == null) {
       throw new IllegalArgumentException("selector is null");
     }
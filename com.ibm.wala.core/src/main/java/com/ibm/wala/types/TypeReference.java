@@ -14,9 +14,10 @@ import static com.ibm.wala.types.TypeName.ArrayMask;
 import static com.ibm.wala.types.TypeName.ElementBits;
 import static com.ibm.wala.types.TypeName.PrimitiveMask;
 
-import com.ibm.wala.util.collections.HashMapFactory;
 import java.io.Serializable;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A class to represent the reference in a class file to some type (class, primitive or array). A
@@ -42,10 +43,10 @@ public final class TypeReference implements Serializable {
    */
 
   /** Used for fast access to primitives. Primitives appear in the main dictionary also. */
-  private static final Map<TypeName, TypeReference> primitiveMap = HashMapFactory.make();
+  private static final Map<TypeName, TypeReference> primitiveMap = new ConcurrentHashMap<>();
 
-  /** Used to canonicalize TypeReferences. */
-  private static final Map<Key, TypeReference> dictionary = HashMapFactory.make();
+  /** Used to canonicalize TypeReferences. Lookups do not lock. */
+  private static final ConcurrentMap<Key, TypeReference> dictionary = new ConcurrentHashMap<>();
 
   /*
    * Primitive Dispatch *
@@ -434,8 +435,7 @@ public final class TypeReference implements Serializable {
    *
    * @param cl the classloader (defining/initiating depending on usage)
    */
-  public static synchronized TypeReference findOrCreate(
-      ClassLoaderReference cl, TypeName typeName) {
+  public static TypeReference findOrCreate(ClassLoaderReference cl, TypeName typeName) {
 
     if (cl == null) {
       throw new IllegalArgumentException("null cl");
@@ -458,7 +458,10 @@ public final class TypeReference implements Serializable {
     TypeReference val = dictionary.get(key);
     if (val == null) {
       val = new TypeReference(cl, typeName);
-      dictionary.put(key, val);
+      TypeReference prev = dictionary.putIfAbsent(key, val);
+      if (prev != null) {
+        val = prev;
+      }
     }
     return val;
   }
@@ -469,11 +472,11 @@ public final class TypeReference implements Serializable {
    * @param cl the classloader (defining/initiating depending on usage)
    * @param typeName something like "Ljava/util/Arrays"
    */
-  public static synchronized TypeReference findOrCreate(ClassLoaderReference cl, String typeName) {
+  public static TypeReference findOrCreate(ClassLoaderReference cl, String typeName) {
     return findOrCreate(cl, TypeName.string2TypeName(typeName));
   }
 
-  public static synchronized TypeReference find(ClassLoaderReference cl, String typeName) {
+  public static TypeReference find(ClassLoaderReference cl, String typeName) {
     return find(cl, TypeName.string2TypeName(typeName));
   }
 
@@ -482,7 +485,7 @@ public final class TypeReference implements Serializable {
    *
    * @param cl the classloader (defining/initiating depending on usage)
    */
-  public static synchronized TypeReference find(ClassLoaderReference cl, TypeName typeName) {
+  public static TypeReference find(ClassLoaderReference cl, TypeName typeName) {
     if (cl == null) {
       throw new IllegalArgumentException("null cl");
     }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.basic;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Collection;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.graph.GraphUtil;
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.impl.CompactNumberedGraph;
+import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
+import com.ibm.wala.util.graph.traverse.SCCIterator;
+import com.ibm.wala.util.intset.IntSet;
+import java.io.IOException;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Check that {@link CompactNumberedGraph} is an exact copy of the graph it was made from */
+public class CompactGraphTest extends WalaTestCase {
+
+  /** some graphs return null instead of an empty set */
+  private static void checkSameNumbers(IntSet expected, IntSet actual) {
+    if (expected == null || expected.isEmpty()) {
+      Assert.assertTrue(actual == null || actual.isEmpty());
+    } else {
+      Assert.assertTrue(expected.sameValue(actual));
+    }
+  }
+
+  private static <T> void checkSame(NumberedGraph<T> expected, NumberedGraph<T> actual) {
+    Assert.assertEquals(expected.getNumberOfNodes(), actual.getNumberOfNodes());
+    Assert.assertEquals(expected.getMaxNumber(), actual.getMaxNumber());
+    Assert.assertEquals(
+        Iterator2Collection.toSet(expected.iterator()),
+        Iterator2Collection.toSet(actual.iterator()));
+    for (T n : expected) {
+      int number = expected.getNumber(n);
+      Assert.assertTrue(actual.containsNode(n));
+      Assert.assertEquals(number, actual.getNumber(n));
+      Assert.assertSame(n, actual.getNode(number));
+      Assert.assertEquals(
+          Iterator2Collection.toSet(expected.getSuccNodes(n)),
+          Iterator2Collection.toSet(actual.getSuccNodes(n)));
+      Assert.assertEquals(
+          Iterator2Collection.toSet(expected.getPredNodes(n)),
+          Iterator2Collection.toSet(actual.getPredNodes(n)));
+      Assert.assertEquals(expected.getSuccNodeCount(n), actual.getSuccNodeCount(n));
+      Assert.assertEquals(expected.getPredNodeCount(n), actual.getPredNodeCount(n));
+      checkSameNumbers(expected.getSuccNodeNumbers(n), actual.getSuccNodeNumbers(n));
+      checkSameNumbers(expected.getPredNodeNumbers(n), actual.getPredNodeNumbers(n));
+      for (T m : expected) {
+        Assert.assertEquals(expected.hasEdge(n, m), actual.hasEdge(n, m));
+      }
+    }
+
+    Set<Set<T>> expectedSCCs = HashSetFactory.make();
+    for (Set<T> s : Iterator2Iterable.make(new SCCIterator<>(expected))) {
+      expectedSCCs.add(s);
+    }
+    Set<Set<T>> actualSCCs = HashSetFactory.make();
+    for (Set<T> s : Iterator2Iterable.make(new SCCIterator<>(actual))) {
+      actualSCCs.add(s);
+    }
+    Assert.assertEquals(expectedSCCs, actualSCCs);
+  }
+
+  @Test
+  public void testRandomGraph() {
+    NumberedGraph<Integer> G = SlowSparseNumberedGraph.make();
+    for (int i = 0; i < 200; i++) {
+      G.addNode(i);
+    }
+    Random random = new Random(3);
+    for (int i = 0; i < 600; i++) {
+      G.addEdge(random.nextInt(200), random.nextInt(200));
+    }
+    // leave holes in the numbering
+    for (int i = 0; i < 200; i += 7) {
+      G.removeNodeAndEdges(i);
+    }
+    NumberedGraph<Integer> frozen = GraphUtil.freeze(G);
+    checkSame(G, frozen);
+    Assert.assertSame(frozen, GraphUtil.freeze(frozen));
+    Assert.assertFalse(frozen.containsNode(7));
+    Assert.assertFalse(frozen.containsNode(1000));
+    Assert.assertNull(frozen.getNode(7));
+    try {
+      frozen.addEdge(1, 2);
+      Assert.fail("frozen graph was modified");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testEmptyGraph() {
+    checkSame(SlowSparseNumberedGraph.make(), GraphUtil.freeze(SlowSparseNumberedGraph.make()));
+  }
+
+  @Test
+  public void testCallGraph()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AnalysisOptions options =
+        CallGraphTestUtil.makeAnalysisOptions(
+            scope, Util.makeMainEntrypoints(cha, "Ldemandpa/TestHashMapGet"));
+    CallGraph cg =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha)
+            .makeCallGraph(options, null);
+    checkSame(cg, GraphUtil.<CGNode>freeze(cg));
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.basic;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Collection;
+import com.ibm.wala.util.graph.Graph;
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.dominators.DominanceFrontiers;
+import com.ibm.wala.util.graph.dominators.Dominators;
+import com.ibm.wala.util.graph.dominators.GenericDominators;
+import com.ibm.wala.util.graph.dominators.NumberedDominators;
+import com.ibm.wala.util.graph.impl.GraphInverter;
+import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Check {@link NumberedDominators} against the Lengauer-Tarjan {@link GenericDominators} */
+public class DominatorsTest extends WalaTestCase {
+
+  /** @return a random graph, in which most but not all nodes are reachable from node 0 */
+  private static NumberedGraph<Integer> buildGraph(int nodes, int edges, long seed) {
+    NumberedGraph<Integer> G = SlowSparseNumberedGraph.make();
+    for (int i = 0; i < nodes; i++) {
+      G.addNode(i);
+    }
+    Random random = new Random(seed);
+    // a spine, so that the graph is not too shallow
+    for (int i = 1; i < nodes - 10; i++) {
+      G.addEdge(random.nextInt(i), i);
+    }
+    for (int i = 0; i < edges; i++) {
+      G.addEdge(random.nextInt(nodes), random.nextInt(nodes));
+    }
+    return G;
+  }
+
+  private static void check(NumberedGraph<Integer> G, Integer root) {
+    Dominators<Integer> expected = new GenericDominators<>(G, root);
+    Dominators<Integer> actual = Dominators.make(G, root);
+    Assert.assertTrue(actual instanceof NumberedDominators);
+    for (Integer n : G) {
+      Assert.assertEquals(n.toString(), expected.getIdom(n), actual.getIdom(n));
+      for (Integer m : G) {
+        Assert.assertEquals(n + " " + m, expected.isDominatedBy(n, m), actual.isDominatedBy(n, m));
+      }
+    }
+    // the rest of the API is shared, and must not need the Lengauer-Tarjan state
+    Graph<Integer> expectedTree = expected.dominatorTree();
+    Graph<Integer> actualTree = actual.dominatorTree();
+    for (Integer n : G) {
+      Assert.assertEquals(
+          n.toString(),
+          Iterator2Collection.toSet(expectedTree.getSuccNodes(n)),
+          Iterator2Collection.toSet(actualTree.getSuccNodes(n)));
+    }
+    Assert.assertEquals(expected.toString(), actual.toString());
+
+    DominanceFrontiers<Integer> expectedDF = new DominanceFrontiers<>(G, expected);
+    DominanceFrontiers<Integer> actualDF = new DominanceFrontiers<>(G, actual);
+    for (Integer n : G) {
+      if (actual.isDominatedBy(n, root)) {
+        Assert.assertEquals(
+            n.toString(),
+            HashSetFactory.make(Iterator2Collection.toSet(expectedDF.getDominanceFrontier(n))),
+            HashSetFactory.make(Iterator2Collection.toSet(actualDF.getDominanceFrontier(n))));
+      } else {
+        try {
+          actualDF.getDominanceFrontier(n);
+          Assert.fail("frontier of unreachable node " + n);
+        } catch (IllegalArgumentException e) {
+          // expected
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRandomGraphs() {
+    for (int seed = 0; seed < 5; seed++) {
+      check(buildGraph(100, 30, seed), 0);
+      check(buildGraph(100, 150, seed), 0);
+    }
+  }
+
+  @Test
+  public void testPostDominators() {
+    NumberedGraph<Integer> G = buildGraph(100, 60, 7);
+    Dominators<Integer> post = Dominators.makePostDominators(G, 50);
+    Dominators<Integer> expected = new GenericDominators<>(GraphInverter.invert(G), 50);
+    for (Integer n : G) {
+      Assert.assertEquals(n.toString(), expected.getIdom(n), post.getIdom(n));
+    }
+    check(GraphInverter.invert(G), 50);
+  }
+
+  /** a subclass written against the old extension points, which only calls analyze() */
+  private static class LegacyDominators<T> extends Dominators<T> {
+    @SuppressWarnings("deprecation")
+    LegacyDominators(Graph<T> G, T root) {
+      super(G, root);
+      analyze();
+    }
+  }
+
+  @Test
+  public void testLegacySubclass() {
+    NumberedGraph<Integer> G = buildGraph(100, 60, 3);
+    Dominators<Integer> expected = new GenericDominators<>(G, 0);
+    Dominators<Integer> legacy = new LegacyDominators<>(G, 0);
+    for (Integer n : G) {
+      Assert.assertEquals(n.toString(), expected.getIdom(n), legacy.getIdom(n));
+    }
+  }
+
+  @Test
+  public void testSingleNode() {
+    NumberedGraph<Integer> G = SlowSparseNumberedGraph.make();
+    G.addNode(0);
+    check(G, 0);
+    G.addEdge(0, 0);
+    check(G, 0);
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.basic;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.dataflow.graph.BitVectorSolver;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphTransitiveClosure;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.modref.GenReach;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.graph.Graph;
+import com.ibm.wala.util.graph.GraphReachability;
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.NumberedGraphReachability;
+import com.ibm.wala.util.graph.impl.GraphInverter;
+import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
+import com.ibm.wala.util.intset.MutableMapping;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+import com.ibm.wala.util.intset.OrdinalSet;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Check {@link NumberedGraphReachability} against the iterative solution of {@link GenReach} */
+public class GraphReachabilityTest extends WalaTestCase {
+
+  /** @return a random graph, with a value generated at every third node */
+  private static NumberedGraph<Integer> buildGraph(int nodes, int edges, long seed) {
+    NumberedGraph<Integer> G = SlowSparseNumberedGraph.make();
+    for (int i = 0; i < nodes; i++) {
+      G.addNode(i);
+    }
+    Random random = new Random(seed);
+    for (int i = 0; i < edges; i++) {
+      G.addEdge(random.nextInt(nodes), random.nextInt(nodes));
+    }
+    return G;
+  }
+
+  private static Map<Integer, Collection<String>> gen(Graph<Integer> G) {
+    Map<Integer, Collection<String>> gen = HashMapFactory.make();
+    for (Integer n : G) {
+      if (n % 3 == 0) {
+        gen.put(n, Collections.singleton("v" + n));
+      }
+    }
+    return gen;
+  }
+
+  /** @return the values reachable from each node, computed by {@link BitVectorSolver} */
+  private static <T, L> Map<T, Set<L>> expected(Graph<T> G, Map<T, Collection<L>> gen)
+      throws CancelException {
+    GenReach<T, L> reach = new GenReach<>(GraphInverter.invert(G), gen);
+    BitVectorSolver<T> solver = new BitVectorSolver<>(reach);
+    solver.solve(null);
+    Map<T, Set<L>> result = HashMapFactory.make();
+    for (T n : G) {
+      result.put(
+          n,
+          HashSetFactory.make(
+              OrdinalSet.toCollection(
+                  new OrdinalSet<>(solver.getOut(n).getValue(), reach.getLatticeValues()))));
+    }
+    return result;
+  }
+
+  private static void check(NumberedGraph<Integer> G, int threads) throws CancelException {
+    Map<Integer, Collection<String>> gen = gen(G);
+    MutableMapping<String> domain = MutableMapping.make();
+    gen.values().forEach(c -> c.forEach(domain::add));
+    NumberedGraphReachability<Integer, String> reach =
+        new NumberedGraphReachability<>(
+            G,
+            domain,
+            n -> {
+              if (!gen.containsKey(n)) {
+                return null;
+              }
+              MutableSparseIntSet s = MutableSparseIntSet.makeEmpty();
+              gen.get(n).forEach(v -> s.add(domain.getMappedIndex(v)));
+              return s;
+            });
+    reach.setNumberOfThreads(threads);
+    reach.solve(null);
+    Map<Integer, Set<String>> expected = expected(G, gen);
+    for (Integer n : G) {
+      Assert.assertEquals(
+          n.toString(),
+          expected.get(n),
+          HashSetFactory.make(OrdinalSet.toCollection(reach.getReachableSet(n))));
+    }
+  }
+
+  @Test
+  public void testRandomGraphs() throws CancelException {
+    check(SlowSparseNumberedGraph.make(), 1);
+    for (int seed = 0; seed < 3; seed++) {
+      check(buildGraph(300, 200, seed), 1);
+      check(buildGraph(300, 600, seed), 1);
+      check(buildGraph(300, 600, seed), 4);
+    }
+  }
+
+  @Test
+  public void testLargeGraph() throws CancelException {
+    // large enough for parallel SCCs and wide layers
+    NumberedGraph<Integer> G = buildGraph(10000, 9000, 17);
+    check(G, 1);
+    check(G, 4);
+  }
+
+  @Test
+  public void testGraphReachability() throws CancelException {
+    NumberedGraph<Integer> G = buildGraph(300, 400, 5);
+    GraphReachability<Integer, Integer> reach = new GraphReachability<>(G, n -> n % 3 == 0);
+    reach.solve(null);
+    Map<Integer, Set<String>> expected = expected(G, gen(G));
+    for (Integer n : G) {
+      Set<String> actual = HashSetFactory.make();
+      for (Integer m : reach.getReachableSet(n)) {
+        actual.add("v" + m);
+      }
+      Assert.assertEquals(n.toString(), expected.get(n), actual);
+    }
+  }
+
+  @Test
+  public void testTransitiveClosure()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AnalysisOptions options =
+        CallGraphTestUtil.makeAnalysisOptions(
+            scope, Util.makeMainEntrypoints(cha, "Ldemandpa/TestHashMapGet"));
+    CallGraph cg =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha)
+            .makeCallGraph(options, null);
+    Map<CGNode, Collection<String>> names =
+        CallGraphTransitiveClosure.collectNodeResults(
+            cg, n -> Collections.singleton(n.getMethod().getName().toString()));
+    Map<CGNode, OrdinalSet<String>> actual =
+        CallGraphTransitiveClosure.transitiveClosure(cg, names);
+    Map<CGNode, Set<String>> expected = expected(cg, names);
+    for (CGNode n : cg) {
+      Assert.assertEquals(
+          n.toString(),
+          expected.get(n),
+          HashSetFactory.make(OrdinalSet.toCollection(actual.get(n))));
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.basic;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.core.util.strings.Atom;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.Descriptor;
+import com.ibm.wala.types.FieldReference;
+import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.types.TypeName;
+import com.ibm.wala.types.TypeReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests that names and references stay canonical when many threads create them at once. */
+public class InterningTest extends WalaTestCase {
+
+  private static final int THREADS = 8;
+
+  private static final int NAMES = 2000;
+
+  /** @return everything interned for the i'th name, in a fixed order */
+  private static Object[] intern(String prefix, int i) {
+    TypeName typeName = TypeName.string2TypeName("L" + prefix + "/C" + i);
+    TypeReference type = TypeReference.findOrCreate(ClassLoaderReference.Application, typeName);
+    Atom name = Atom.findOrCreateUnicodeAtom(prefix + "m" + i);
+    Descriptor descriptor =
+        Descriptor.findOrCreate(new TypeName[] {typeName}, TypeReference.VoidName);
+    MethodReference method = MethodReference.findOrCreate(type, name, descriptor);
+    FieldReference field = FieldReference.findOrCreate(type, name, type);
+    return new Object[] {typeName, type, name, descriptor, method, field};
+  }
+
+  @Test
+  public void testConcurrentFindOrCreate() throws Exception {
+    // a fresh prefix, so that no thread finds the names already interned
+    String prefix = "interning" + System.nanoTime();
+    CyclicBarrier start = new CyclicBarrier(THREADS);
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<Object[][]>> results = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        results.add(
+            pool.submit(
+                () -> {
+                  start.await();
+                  Object[][] result = new Object[NAMES][];
+                  for (int i = 0; i < NAMES; i++) {
+                    result[i] = intern(prefix, i);
+                  }
+                  return result;
+                }));
+      }
+      Object[][] expected = results.get(0).get();
+      for (Future<Object[][]> f : results) {
+        Object[][] actual = f.get();
+        for (int i = 0; i < NAMES; i++) {
+          for (int j = 0; j < expected[i].length; j++) {
+            Assert.assertSame(expected[i][j], actual[i][j]);
+          }
+        }
+      }
+      // and later lookups find the same instances
+      for (int i = 0; i < NAMES; i++) {
+        Object[] again = intern(prefix, i);
+        for (int j = 0; j < again.length; j++) {
+          Assert.assertSame(expected[i][j], again[j]);
+        }
+      }
+      Assert.assertSame(
+          expected[0][1],
+          TypeReference.find(ClassLoaderReference.Application, (TypeName) expected[0][0]));
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.basic;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Pair;
+import com.ibm.wala.util.graph.GraphUtil;
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
+import com.ibm.wala.util.graph.traverse.BFSPathFinder;
+import com.ibm.wala.util.graph.traverse.DFS;
+import com.ibm.wala.util.graph.traverse.MultiSourceBFS;
+import com.ibm.wala.util.intset.IntSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Check {@link MultiSourceBFS} against {@link DFS} and {@link BFSPathFinder} */
+public class MultiSourceBFSTest extends WalaTestCase {
+
+  private static NumberedGraph<Integer> buildGraph(int nodes, int edges, long seed) {
+    NumberedGraph<Integer> G = SlowSparseNumberedGraph.make();
+    for (int i = 0; i < nodes; i++) {
+      G.addNode(i);
+    }
+    Random random = new Random(seed);
+    for (int i = 0; i < edges; i++) {
+      G.addEdge(random.nextInt(nodes), random.nextInt(nodes));
+    }
+    return G;
+  }
+
+  /** more sources than fit in one batch, some of them repeated */
+  private static List<Integer> sources(NumberedGraph<Integer> G, long seed) {
+    Random random = new Random(seed);
+    List<Integer> result = new ArrayList<>();
+    for (int i = 0; i < 150; i++) {
+      result.add(random.nextInt(G.getNumberOfNodes()));
+    }
+    return result;
+  }
+
+  @Test
+  public void testReachability() {
+    NumberedGraph<Integer> G = buildGraph(300, 450, 1);
+    List<Integer> sources = sources(G, 2);
+    MultiSourceBFS<Integer> bfs = new MultiSourceBFS<>(G);
+    IntSet[] reached = bfs.getReachableNodeNumbers(sources);
+    Assert.assertEquals(sources.size(), reached.length);
+    for (int i = 0; i < sources.size(); i++) {
+      Set<Integer> expected = DFS.getReachableNodes(G, Collections.singleton(sources.get(i)));
+      Assert.assertEquals(expected.size(), reached[i].size());
+      for (Integer n : expected) {
+        Assert.assertTrue(reached[i].contains(G.getNumber(n)));
+      }
+    }
+  }
+
+  private static void checkPaths(
+      NumberedGraph<Integer> G,
+      List<Integer> sources,
+      List<Integer> sinks,
+      Map<Pair<Integer, Integer>, List<Integer>> paths) {
+    Set<Pair<Integer, Integer>> found = HashSetFactory.make();
+    for (Integer source : sources) {
+      for (Integer sink : sinks) {
+        List<Integer> expected = new BFSPathFinder<>(G, source, sink).find();
+        List<Integer> actual = paths.get(Pair.make(source, sink));
+        if (expected == null) {
+          Assert.assertNull(actual);
+          continue;
+        }
+        found.add(Pair.make(source, sink));
+        Assert.assertNotNull(source + " -> " + sink, actual);
+        Assert.assertEquals(expected.size(), actual.size());
+        Assert.assertEquals(sink, actual.get(0));
+        Assert.assertEquals(source, actual.get(actual.size() - 1));
+        for (int i = actual.size() - 1; i > 0; i--) {
+          Assert.assertTrue(G.hasEdge(actual.get(i), actual.get(i - 1)));
+        }
+      }
+    }
+    Assert.assertEquals(found, paths.keySet());
+  }
+
+  @Test
+  public void testPaths() {
+    NumberedGraph<Integer> G = buildGraph(300, 400, 3);
+    List<Integer> sources = sources(G, 4);
+    List<Integer> sinks = sources(G, 5).subList(0, 20);
+    MultiSourceBFS<Integer> bfs = new MultiSourceBFS<>(G);
+    checkPaths(G, sources, sinks, bfs.findPaths(sources, sinks));
+
+    bfs = new MultiSourceBFS<>(GraphUtil.freeze(G));
+    bfs.setNumberOfThreads(3);
+    checkPaths(G, sources, sinks, bfs.findPaths(sources, sinks));
+  }
+
+  @Test
+  public void testPairs() {
+    NumberedGraph<Integer> G = buildGraph(200, 300, 6);
+    Random random = new Random(7);
+    List<Pair<Integer, Integer>> pairs = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      pairs.add(Pair.make(random.nextInt(200), random.nextInt(200)));
+    }
+    Map<Pair<Integer, Integer>, List<Integer>> paths = new MultiSourceBFS<>(G).findPaths(pairs);
+    for (Pair<Integer, Integer> p : pairs) {
+      List<Integer> expected = new BFSPathFinder<>(G, p.fst, p.snd).find();
+      List<Integer> actual = paths.get(p);
+      if (expected == null) {
+        Assert.assertNull(actual);
+      } else {
+        Assert.assertEquals(expected.size(), actual.size());
+      }
+    }
+  }
+}
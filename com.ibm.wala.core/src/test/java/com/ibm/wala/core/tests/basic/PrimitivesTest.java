@@ -42,6 +42,7 @@ import com.ibm.wala.util.intset.MutableSharedBitVectorIntSetFactory;
 import com.ibm.wala.util.intset.MutableSparseIntSetFactory;
 import com.ibm.wala.util.intset.MutableSparseLongSetFactory;
 import com.ibm.wala.util.intset.OffsetBitVector;
+import com.ibm.wala.util.intset.RoaringIntSetFactory;
 import com.ibm.wala.util.intset.SemiSparseMutableIntSet;
 import com.ibm.wala.util.intset.SemiSparseMutableIntSetFactory;
 import com.ibm.wala.util.intset.SparseIntSet;
@@ -355,6 +356,12 @@ public class PrimitivesTest extends WalaTestCase {
     doMutableIntSet(new SemiSparseMutableIntSetFactory());
   }
 
+  /** Test the RoaringIntSet implementation */
+  @Test
+  public void testRoaringIntSet() {
+    doMutableIntSet(new RoaringIntSetFactory());
+  }
+
   /** Test the MutableSparseIntSet implementation */
   private static void doMutableLongSet(MutableLongSetFactory factory) {
     MutableLongSet v = factory.parse("{9,17}");
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.basic;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.dataflow.graph.BitVectorIdentity;
+import com.ibm.wala.fixedpoint.impl.DefaultFixedPointSystem;
+import com.ibm.wala.fixpoint.BitVectorVariable;
+import com.ibm.wala.fixpoint.UnaryStatement;
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
+import com.ibm.wala.util.graph.traverse.IncrementalTopologicalOrder;
+import com.ibm.wala.util.graph.traverse.ParallelSCC;
+import com.ibm.wala.util.graph.traverse.SCCIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests for {@link ParallelSCC} and {@link IncrementalTopologicalOrder} */
+public class SCCTest extends WalaTestCase {
+
+  /** a random graph whose SCCs are of all sizes, from one node to most of the graph */
+  private static NumberedGraph<Integer> randomGraph(int nodes, int edges, long seed) {
+    NumberedGraph<Integer> G = SlowSparseNumberedGraph.make();
+    for (int i = 0; i < nodes; i++) {
+      G.addNode(i);
+    }
+    Random random = new Random(seed);
+    for (int i = 0; i < edges; i++) {
+      int src = random.nextInt(nodes);
+      // mostly forward edges, with a few long chains and backward edges
+      int dst = random.nextInt(10) == 0 ? random.nextInt(nodes) : Math.min(nodes - 1, src + 1);
+      G.addEdge(src, dst);
+    }
+    return G;
+  }
+
+  /** @return the number of the SCC of each node, as computed by {@link SCCIterator} */
+  private static int[] sequentialComponents(NumberedGraph<Integer> G) {
+    int[] result = new int[G.getMaxNumber() + 1];
+    int c = 0;
+    for (SCCIterator<Integer> it = new SCCIterator<>(G); it.hasNext(); c++) {
+      for (Integer n : it.next()) {
+        result[G.getNumber(n)] = c;
+      }
+    }
+    return result;
+  }
+
+  private static void assertSamePartition(int[] expected, int[] actual) {
+    Assert.assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      for (int j = i + 1; j < Math.min(expected.length, i + 50); j++) {
+        Assert.assertEquals(i + " " + j, expected[i] == expected[j], actual[i] == actual[j]);
+      }
+    }
+  }
+
+  @Test
+  public void testParallelSCC() {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (int seed = 0; seed < 3; seed++) {
+        NumberedGraph<Integer> G = randomGraph(20000, 20000 + 2000 * seed, seed);
+        int[] expected = sequentialComponents(G);
+        int[] actual = ParallelSCC.computeComponents(G, pool);
+        assertSamePartition(expected, actual);
+
+        int count = 0;
+        for (int c : expected) {
+          count = Math.max(count, c + 1);
+        }
+        Assert.assertEquals(count, ParallelSCC.computeSCCs(G).size());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testIncrementalOrder() {
+    NumberedGraph<Integer> G = SlowSparseNumberedGraph.make();
+    IncrementalTopologicalOrder<Integer> order = new IncrementalTopologicalOrder<>(G, null);
+    NumberedGraph<Integer> source = randomGraph(2000, 2500, 7);
+    for (Integer n : source) {
+      G.addNode(n);
+      order.addNode(G.getNumber(n));
+    }
+    // add the edges in a random order, checking the order as it grows
+    Random random = new Random(7);
+    for (int step = 0; step < 2500; step++) {
+      Integer src = random.nextInt(2000);
+      for (Integer dst : (Iterable<Integer>) () -> source.getSuccNodes(src)) {
+        if (!G.hasEdge(src, dst)) {
+          G.addEdge(src, dst);
+          order.addEdge(G.getNumber(src), G.getNumber(dst));
+          break;
+        }
+      }
+      if (step % 500 == 0) {
+        checkOrder(G, order);
+      }
+    }
+    checkOrder(G, order);
+    Assert.assertTrue(order.getNumberOfReorderings() > 0);
+  }
+
+  @Test
+  public void testOrderOfExistingGraph() {
+    NumberedGraph<Integer> G = SlowSparseNumberedGraph.make();
+    for (int i = 0; i < 4; i++) {
+      G.addNode(i);
+    }
+    G.addEdge(3, 0);
+    G.addEdge(0, 1);
+    G.addEdge(2, 3);
+    IncrementalTopologicalOrder<Integer> order = new IncrementalTopologicalOrder<>(G, null);
+    checkOrder(G, order);
+    Assert.assertTrue(order.getOrder(2) < order.getOrder(3));
+    Assert.assertTrue(order.getOrder(0) < order.getOrder(1));
+
+    // start from part of a random graph, then add the rest of its edges
+    for (long seed = 0; seed < 3; seed++) {
+      NumberedGraph<Integer> source = randomGraph(2000, 2500, seed);
+      G = SlowSparseNumberedGraph.make();
+      for (Integer n : source) {
+        G.addNode(n);
+      }
+      Random random = new Random(seed);
+      for (Integer n : source) {
+        for (Integer m : (Iterable<Integer>) () -> source.getSuccNodes(n)) {
+          if (random.nextBoolean()) {
+            G.addEdge(n, m);
+          }
+        }
+      }
+      order = new IncrementalTopologicalOrder<>(G, null);
+      checkOrder(G, order);
+      for (Integer n : source) {
+        for (Integer m : (Iterable<Integer>) () -> source.getSuccNodes(n)) {
+          if (!G.hasEdge(n, m)) {
+            G.addEdge(n, m);
+            order.addEdge(G.getNumber(n), G.getNumber(m));
+          }
+        }
+      }
+      checkOrder(G, order);
+    }
+  }
+
+  @Test
+  public void testRemoveNode() {
+    NumberedGraph<Integer> G = SlowSparseNumberedGraph.make();
+    for (int i = 0; i < 5; i++) {
+      G.addNode(i);
+    }
+    // a cycle 0 -> 1 -> 2 -> 0, entered from 3 and left to 4
+    G.addEdge(0, 1);
+    G.addEdge(1, 2);
+    G.addEdge(2, 0);
+    G.addEdge(3, 0);
+    G.addEdge(2, 4);
+    IncrementalTopologicalOrder<Integer> order = new IncrementalTopologicalOrder<>(G, null);
+    int cycle = order.getOrder(1);
+    for (int removed : new int[] {0, 1}) {
+      G.removeNodeAndEdges(removed);
+      order.removeNode(removed);
+      try {
+        order.getOrder(removed);
+        Assert.fail("removed node " + removed + " still has an order number");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+    Assert.assertEquals(cycle, order.getOrder(2));
+    Assert.assertTrue(order.getOrder(3) < order.getOrder(2));
+    Assert.assertTrue(order.getOrder(2) < order.getOrder(4));
+    // a new edge from 4 to 3 closes a cycle of the remaining nodes
+    G.addEdge(4, 3);
+    order.addEdge(4, 3);
+    G.addEdge(3, 2);
+    order.addEdge(3, 2);
+    checkOrder(G, order);
+  }
+
+  private static void checkOrder(NumberedGraph<Integer> G, IncrementalTopologicalOrder<?> order) {
+    int[] components = sequentialComponents(G);
+    for (Integer n : G) {
+      int src = G.getNumber(n);
+      for (Integer m : (Iterable<Integer>) () -> G.getSuccNodes(n)) {
+        int dst = G.getNumber(m);
+        if (components[src] == components[dst]) {
+          Assert.assertEquals(order.getOrder(src), order.getOrder(dst));
+        } else {
+          Assert.assertTrue(n + " -> " + m, order.getOrder(src) < order.getOrder(dst));
+        }
+      }
+    }
+    for (Set<Integer> scc : ParallelSCC.computeSCCs(G)) {
+      int o = order.getOrder(G.getNumber(scc.iterator().next()));
+      for (Integer n : scc) {
+        Assert.assertEquals(o, order.getOrder(G.getNumber(n)));
+      }
+    }
+  }
+
+  @Test
+  public void testFixedPointSystem() {
+    DefaultFixedPointSystem<BitVectorVariable> system = new DefaultFixedPointSystem<>(1, true);
+    BitVectorVariable[] v = new BitVectorVariable[5];
+    for (int i = 0; i < v.length; i++) {
+      v[i] = new BitVectorVariable();
+    }
+    // v4 <- v3 <- v2 <- v1 <- v0, then close the cycle v1 <- v2
+    List<UnaryStatement<BitVectorVariable>> chain = new ArrayList<>();
+    for (int i = 4; i > 0; i--) {
+      chain.add(0, BitVectorIdentity.instance().makeEquation(v[i], v[i - 1]));
+      system.addStatement(chain.get(0));
+    }
+    for (int i = 1; i < v.length; i++) {
+      Assert.assertTrue(v[i - 1].getOrderNumber() < v[i].getOrderNumber());
+    }
+    system.addStatement(BitVectorIdentity.instance().makeEquation(v[1], v[2]));
+    Assert.assertEquals(v[1].getOrderNumber(), v[2].getOrderNumber());
+    Assert.assertTrue(v[0].getOrderNumber() < v[1].getOrderNumber());
+    Assert.assertTrue(v[2].getOrderNumber() < v[3].getOrderNumber());
+    Assert.assertTrue(v[3].getOrderNumber() < v[4].getOrderNumber());
+
+    int[] before = new int[v.length];
+    for (int i = 0; i < v.length; i++) {
+      before[i] = v[i].getOrderNumber();
+    }
+    system.reorder();
+    for (int i = 0; i < v.length; i++) {
+      Assert.assertEquals(before[i], v[i].getOrderNumber());
+    }
+
+    // removing a statement leaves the order numbers of the variables alone, and the order is still
+    // maintained afterwards
+    system.removeStatement(chain.get(1));
+    for (int i = 0; i < v.length; i++) {
+      Assert.assertEquals(before[i], v[i].getOrderNumber());
+    }
+    system.addStatement(BitVectorIdentity.instance().makeEquation(v[2], v[3]));
+    Assert.assertEquals(v[2].getOrderNumber(), v[3].getOrderNumber());
+    Assert.assertTrue(v[0].getOrderNumber() < v[2].getOrderNumber());
+    Assert.assertTrue(v[3].getOrderNumber() < v[4].getOrderNumber());
+  }
+}
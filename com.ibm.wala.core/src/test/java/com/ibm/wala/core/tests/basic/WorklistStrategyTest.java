@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.basic;
+
+import com.ibm.wala.core.tests.ptrs.ParallelPropagationTest;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.dataflow.graph.AbstractMeetOperator;
+import com.ibm.wala.dataflow.graph.BitVectorFramework;
+import com.ibm.wala.dataflow.graph.BitVectorSolver;
+import com.ibm.wala.dataflow.graph.BitVectorUnion;
+import com.ibm.wala.dataflow.graph.BitVectorUnionConstant;
+import com.ibm.wala.dataflow.graph.ITransferFunctionProvider;
+import com.ibm.wala.fixedpoint.impl.FIFOWorklist;
+import com.ibm.wala.fixedpoint.impl.IFixedPointWorklist;
+import com.ibm.wala.fixedpoint.impl.LRFWorklist;
+import com.ibm.wala.fixedpoint.impl.WaveWorklist;
+import com.ibm.wala.fixedpoint.impl.Worklist;
+import com.ibm.wala.fixpoint.BitVectorVariable;
+import com.ibm.wala.fixpoint.UnaryOperator;
+import com.ibm.wala.fixpoint.UnaryStatement;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.graph.Graph;
+import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
+import com.ibm.wala.util.intset.MutableMapping;
+import com.ibm.wala.util.intset.OrdinalSetMapping;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Check that all {@link IFixedPointWorklist} strategies reach the same fixed point */
+public class WorklistStrategyTest extends WalaTestCase {
+
+  private static final List<Supplier<? extends IFixedPointWorklist>> STRATEGIES =
+      Arrays.asList(Worklist::new, LRFWorklist::new, WaveWorklist::new, FIFOWorklist::new);
+
+  private static final int NODES = 500;
+
+  /** @return a random graph with many cycles */
+  private static Graph<Integer> buildGraph() {
+    Graph<Integer> G = SlowSparseNumberedGraph.make();
+    for (int i = 0; i < NODES; i++) {
+      G.addNode(i);
+    }
+    Random random = new Random(13);
+    for (int i = 0; i < 2 * NODES; i++) {
+      G.addEdge(random.nextInt(NODES), random.nextInt(NODES));
+    }
+    return G;
+  }
+
+  /** @return the solved union of the node numbers of all predecessors, for each node of G */
+  private static BitVectorSolver<Integer> solve(
+      Graph<Integer> G, Supplier<? extends IFixedPointWorklist> strategy) throws CancelException {
+    OrdinalSetMapping<Integer> values = MutableMapping.make();
+    for (Integer n : G) {
+      values.add(n);
+    }
+    ITransferFunctionProvider<Integer, BitVectorVariable> functions =
+        new ITransferFunctionProvider<Integer, BitVectorVariable>() {
+
+          @Override
+          public UnaryOperator<BitVectorVariable> getNodeTransferFunction(Integer node) {
+            return new BitVectorUnionConstant(values.getMappedIndex(node));
+          }
+
+          @Override
+          public boolean hasNodeTransferFunctions() {
+            return true;
+          }
+
+          @Override
+          public UnaryOperator<BitVectorVariable> getEdgeTransferFunction(
+              Integer from, Integer to) {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public boolean hasEdgeTransferFunctions() {
+            return false;
+          }
+
+          @Override
+          public AbstractMeetOperator<BitVectorVariable> getMeetOperator() {
+            return BitVectorUnion.instance();
+          }
+        };
+    BitVectorSolver<Integer> solver =
+        new BitVectorSolver<>(new BitVectorFramework<>(G, functions, values));
+    solver.setWorklistFactory(strategy);
+    solver.solve(null);
+    return solver;
+  }
+
+  @Test
+  public void testDataflow() throws CancelException {
+    Graph<Integer> G = buildGraph();
+    BitVectorSolver<Integer> expected = solve(G, Worklist::new);
+    for (Supplier<? extends IFixedPointWorklist> strategy : STRATEGIES) {
+      BitVectorSolver<Integer> actual = solve(G, strategy);
+      for (Integer n : G) {
+        Assert.assertEquals(
+            n.toString(), expected.getOut(n).toString(), actual.getOut(n).toString());
+      }
+    }
+  }
+
+  @Test
+  public void testWorklistContract() {
+    for (Supplier<? extends IFixedPointWorklist> strategy : STRATEGIES) {
+      IFixedPointWorklist w = strategy.get();
+      Assert.assertTrue(w.isEmpty());
+      BitVectorVariable v = new BitVectorVariable();
+      BitVectorVariable u = new BitVectorVariable();
+      v.setOrderNumber(2);
+      u.setOrderNumber(1);
+      w.insertStatement(new BitVectorUnionConstant(0).makeEquation(v, u));
+      w.insertStatement(new BitVectorUnionConstant(0).makeEquation(v, u));
+      w.insertStatement(new BitVectorUnionConstant(1).makeEquation(u, v));
+      Assert.assertEquals(2, w.size());
+      w.takeStatement();
+      w.reorder();
+      Assert.assertEquals(1, w.size());
+      w.takeStatement();
+      Assert.assertTrue(w.isEmpty());
+    }
+  }
+
+  /** @return a statement with the given order number */
+  private static UnaryStatement<BitVectorVariable> makeStatement(int order) {
+    BitVectorVariable lhs = new BitVectorVariable();
+    lhs.setOrderNumber(order);
+    return new BitVectorUnionConstant(order).makeEquation(lhs, new BitVectorVariable());
+  }
+
+  @Test
+  public void testLRFOrder() {
+    LRFWorklist w = new LRFWorklist();
+    UnaryStatement<BitVectorVariable> a = makeStatement(1);
+    UnaryStatement<BitVectorVariable> b = makeStatement(2);
+    UnaryStatement<BitVectorVariable> c = makeStatement(3);
+    w.insertStatement(c);
+    w.insertStatement(b);
+    w.insertStatement(a);
+    Assert.assertSame(a, w.takeStatement());
+    Assert.assertSame(b, w.takeStatement());
+    Assert.assertSame(c, w.takeStatement());
+    // once fired again, a goes behind b and c in spite of its order number
+    w.insertStatement(c);
+    w.insertStatement(b);
+    w.insertStatement(a);
+    Assert.assertSame(a, w.takeStatement());
+    w.insertStatement(a);
+    Assert.assertSame(b, w.takeStatement());
+    Assert.assertSame(c, w.takeStatement());
+    Assert.assertSame(a, w.takeStatement());
+    // a statement never fired comes before all others
+    w.insertStatement(a);
+    w.insertStatement(makeStatement(4));
+    Assert.assertEquals(4, w.takeStatement().getOrderNumber());
+    Assert.assertSame(a, w.takeStatement());
+  }
+
+  @Test
+  public void testLRFRemoveStatement() {
+    LRFWorklist w = new LRFWorklist();
+    UnaryStatement<BitVectorVariable> a = makeStatement(1);
+    UnaryStatement<BitVectorVariable> b = makeStatement(2);
+    w.insertStatement(a);
+    w.insertStatement(b);
+    Assert.assertSame(a, w.takeStatement());
+    w.removeStatement(a);
+    Assert.assertEquals(1, w.getNumberOfTrackedStatements());
+    // a pending statement is still taken, and forgotten then
+    w.removeStatement(b);
+    Assert.assertEquals(1, w.getNumberOfTrackedStatements());
+    Assert.assertSame(b, w.takeStatement());
+    Assert.assertEquals(0, w.getNumberOfTrackedStatements());
+    Assert.assertTrue(w.isEmpty());
+  }
+
+  @Test
+  public void testWaveOrder() {
+    WaveWorklist w = new WaveWorklist();
+    UnaryStatement<BitVectorVariable> a = makeStatement(1);
+    UnaryStatement<BitVectorVariable> b = makeStatement(2);
+    UnaryStatement<BitVectorVariable> c = makeStatement(3);
+    UnaryStatement<BitVectorVariable> d = makeStatement(4);
+    w.insertStatement(c);
+    w.insertStatement(b);
+    Assert.assertSame(b, w.takeStatement());
+    // a lies behind the sweep, so it waits for the next wave; d lies ahead of it
+    w.insertStatement(a);
+    w.insertStatement(d);
+    Assert.assertSame(c, w.takeStatement());
+    Assert.assertSame(d, w.takeStatement());
+    Assert.assertEquals(1, w.getNumberOfWaves());
+    Assert.assertSame(a, w.takeStatement());
+    Assert.assertEquals(2, w.getNumberOfWaves());
+    Assert.assertTrue(w.isEmpty());
+  }
+
+  @Test
+  public void testPointsTo()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    for (Supplier<? extends IFixedPointWorklist> strategy : STRATEGIES) {
+      ParallelPropagationTest.checkSameSolution(
+          "Ldemandpa/TestHashMapGet", options -> options.setSolverWorklistFactory(strategy));
+    }
+  }
+}
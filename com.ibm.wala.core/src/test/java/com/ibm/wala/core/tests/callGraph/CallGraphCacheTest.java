@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.callGraph;
+
+import com.ibm.wala.classLoader.CallSiteReference;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions.ReflectionOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Context;
+import com.ibm.wala.ipa.callgraph.ContextItem;
+import com.ibm.wala.ipa.callgraph.ContextKey;
+import com.ibm.wala.ipa.callgraph.ContextSelector;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.util.CallGraphCache;
+import com.ibm.wala.ipa.callgraph.util.CallGraphSnapshot;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.config.FileOfClasses;
+import com.ibm.wala.util.intset.EmptyIntSet;
+import com.ibm.wala.util.intset.IntSet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests for {@link CallGraphSnapshot} and {@link CallGraphCache} */
+public class CallGraphCacheTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(CallGraphCacheTest.class);
+  }
+
+  /** makes the builder under test for a class hierarchy */
+  private interface BuilderFactory {
+    PropagationCallGraphBuilder make(AnalysisOptions options, IClassHierarchy cha);
+  }
+
+  private static final BuilderFactory ZERO_ONE_CFA =
+      (options, cha) ->
+          Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha);
+
+  private static final BuilderFactory ONE_CFA =
+      (options, cha) -> Util.makeNCFABuilder(1, options, new AnalysisCacheImpl(), cha);
+
+  private static AnalysisScope makeScope() throws IOException {
+    return CallGraphTestUtil.makeJ2SEAnalysisScope(
+        TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+  }
+
+  private static AnalysisOptions makeOptions(
+      AnalysisScope scope, IClassHierarchy cha, String mainClass) {
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(cha, mainClass);
+    return CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+  }
+
+  /**
+   * Build a call graph, record it, serialize the snapshot, and restore it into a builder over a
+   * fresh class hierarchy.
+   */
+  private static void testRoundTrip(String mainClass, BuilderFactory factory)
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = makeScope();
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AnalysisOptions options = makeOptions(scope, cha, mainClass);
+    PropagationCallGraphBuilder builder = factory.make(options, cha);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    CallGraphSnapshot snapshot = CallGraphSnapshot.make(builder);
+    Assert.assertNotNull(snapshot);
+    Assert.assertEquals(cg.getNumberOfNodes(), snapshot.getNumberOfNodes());
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    snapshot.write(bytes);
+    CallGraphSnapshot copy = CallGraphSnapshot.read(new ByteArrayInputStream(bytes.toByteArray()));
+    Assert.assertEquals(snapshot, copy);
+
+    AnalysisScope otherScope = makeScope();
+    ClassHierarchy otherCha = ClassHierarchyFactory.make(otherScope);
+    AnalysisOptions otherOptions = makeOptions(otherScope, otherCha, mainClass);
+    PropagationCallGraphBuilder restorer = factory.make(otherOptions, otherCha);
+    CallGraph restored = restorer.restoreCallGraph(otherOptions, copy);
+
+    Assert.assertEquals(describe(cg), describe(restored));
+    Assert.assertEquals(
+        describe(builder.getPointerAnalysis()), describe(restorer.getPointerAnalysis()));
+    Assert.assertEquals(snapshot, CallGraphSnapshot.make(restorer));
+  }
+
+  /** @return the nodes of cg with their call sites and targets, rendered and sorted */
+  private static List<String> describe(CallGraph cg) {
+    List<String> result = new ArrayList<>();
+    for (CGNode n : cg) {
+      result.add(n.toString());
+      for (CallSiteReference site : Iterator2Iterable.make(n.iterateCallSites())) {
+        List<String> targets = new ArrayList<>();
+        for (CGNode target : cg.getPossibleTargets(n, site)) {
+          targets.add(target.toString());
+        }
+        Collections.sort(targets);
+        result.add(n + " " + site + " -> " + targets);
+      }
+    }
+    Collections.sort(result);
+    return result;
+  }
+
+  /** @return the pointer keys of pa with their points-to sets, rendered and sorted */
+  private static List<String> describe(PointerAnalysis<InstanceKey> pa) {
+    List<String> result = new ArrayList<>();
+    for (PointerKey key : pa.getPointerKeys()) {
+      List<String> instances = new ArrayList<>();
+      for (InstanceKey ik : pa.getPointsToSet(key)) {
+        instances.add(ik.toString());
+      }
+      Collections.sort(instances);
+      result.add(key + " -> " + instances);
+    }
+    Collections.sort(result);
+    return result;
+  }
+
+  @Test
+  public void testRoundTrip()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    testRoundTrip(TestConstants.RECURSE_MAIN, ZERO_ONE_CFA);
+  }
+
+  /** reflection yields synthetic methods and the contexts which the reflection selectors create */
+  @Test
+  public void testRoundTripReflection()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    testRoundTrip(TestConstants.REFLECT7_MAIN, ZERO_ONE_CFA);
+  }
+
+  @Test
+  public void testRoundTripCallStrings()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    testRoundTrip(TestConstants.RECURSE_MAIN, ONE_CFA);
+  }
+
+  /** a context which the format does not describe */
+  private static final class CustomContext implements Context {
+    @Override
+    public ContextItem get(ContextKey name) {
+      return null;
+    }
+  }
+
+  @Test
+  public void testUnsupportedContext()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = makeScope();
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AnalysisOptions options = makeOptions(scope, cha, TestConstants.RECURSE_MAIN);
+    Context custom = new CustomContext();
+    ContextSelector selector =
+        new ContextSelector() {
+          @Override
+          public Context getCalleeTarget(
+              CGNode caller,
+              CallSiteReference site,
+              IMethod callee,
+              InstanceKey[] actualParameters) {
+            return custom;
+          }
+
+          @Override
+          public IntSet getRelevantParameters(CGNode caller, CallSiteReference site) {
+            return EmptyIntSet.instance;
+          }
+        };
+    PropagationCallGraphBuilder builder =
+        Util.makeZeroOneCFABuilder(
+            Language.JAVA, options, new AnalysisCacheImpl(), cha, selector, null);
+    builder.makeCallGraph(options, null);
+    Assert.assertNull(CallGraphSnapshot.make(builder));
+  }
+
+  /** the key covers exclusions which are too long for writeUTF */
+  @Test
+  public void testLongExclusions() throws ClassHierarchyException, IOException {
+    AnalysisScope scope = makeScope();
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AnalysisOptions options = makeOptions(scope, cha, TestConstants.RECURSE_MAIN);
+    String key = CallGraphCache.computeKey(scope, options, "0-1-CFA");
+
+    StringBuilder exclusions = new StringBuilder();
+    for (int i = 0; exclusions.length() < 100000; i++) {
+      exclusions.append("com/example/excluded/Class").append(i).append('\n');
+    }
+    scope.setExclusions(
+        new FileOfClasses(
+            new ByteArrayInputStream(exclusions.toString().getBytes(StandardCharsets.UTF_8))));
+    String longKey = CallGraphCache.computeKey(scope, options, "0-1-CFA");
+    Assert.assertNotEquals(key, longKey);
+    Assert.assertEquals(longKey, CallGraphCache.computeKey(scope, options, "0-1-CFA"));
+  }
+
+  @Test
+  public void testCache()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = makeScope();
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AnalysisOptions options = makeOptions(scope, cha, TestConstants.RECURSE_MAIN);
+
+    String key = CallGraphCache.computeKey(scope, options, "0-1-CFA");
+    Assert.assertEquals(key, CallGraphCache.computeKey(makeScope(), options, "0-1-CFA"));
+    Assert.assertNotEquals(key, CallGraphCache.computeKey(scope, options, "0-CFA"));
+    AnalysisOptions other = makeOptions(scope, cha, TestConstants.RECURSE_MAIN);
+    other.setReflectionOptions(ReflectionOptions.NONE);
+    Assert.assertNotEquals(key, CallGraphCache.computeKey(scope, other, "0-1-CFA"));
+
+    File dir = Files.createTempDirectory("wala-cg-cache").toFile();
+    try {
+      CallGraphCache cache = new CallGraphCache(dir);
+      Assert.assertNull(cache.load(key));
+
+      PropagationCallGraphBuilder builder = ZERO_ONE_CFA.make(options, cha);
+      CallGraph cg = builder.makeCallGraph(options, null);
+      CallGraphSnapshot snapshot = CallGraphSnapshot.make(builder);
+      cache.store(key, snapshot);
+      CallGraphSnapshot loaded = cache.load(key);
+      Assert.assertEquals(snapshot, loaded);
+
+      PropagationCallGraphBuilder restorer = ZERO_ONE_CFA.make(options, cha);
+      Assert.assertEquals(describe(cg), describe(restorer.restoreCallGraph(options, loaded)));
+    } finally {
+      for (File f : dir.listFiles()) {
+        Files.delete(f.toPath());
+      }
+      Files.delete(dir.toPath());
+    }
+  }
+}
@@ -20,6 +20,7 @@ import com.ibm.wala.util.intset.IntSetUtil;
 import com.ibm.wala.util.intset.MutableIntSetFactory;
 import com.ibm.wala.util.intset.MutableSharedBitVectorIntSetFactory;
 import com.ibm.wala.util.intset.MutableSparseIntSetFactory;
+import com.ibm.wala.util.intset.RoaringIntSetFactory;
 import com.ibm.wala.util.intset.SemiSparseMutableIntSetFactory;
 import java.io.IOException;
 import org.junit.Test;
@@ -77,4 +78,10 @@ public class DebuggingBitsetCallGraphTest extends WalaTestCase {
       throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
     runBitsetTest(new SemiSparseMutableIntSetFactory(), new MutableSharedBitVectorIntSetFactory());
   }
+
+  @Test
+  public void testRoaringShared()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    runBitsetTest(new RoaringIntSetFactory(), new MutableSharedBitVectorIntSetFactory());
+  }
 }
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.callGraph;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.JarFileModule;
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.classLoader.ModuleEntry;
+import com.ibm.wala.classLoader.ShrikeClass;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.core.util.config.AnalysisScopeReader;
+import com.ibm.wala.core.util.io.FileProvider;
+import com.ibm.wala.core.util.shrike.ShrikeClassReaderHandle;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.shrike.shrikeBT.shrikeCT.ClassInstrumenter;
+import com.ibm.wala.shrike.shrikeCT.ClassWriter;
+import com.ibm.wala.shrike.shrikeCT.InvalidClassFileException;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.Selector;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.io.Streams;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ClassHierarchy#replaceClasses(java.util.Collection)}: a call graph built on a
+ * hierarchy in which a class was replaced must be the same as one built on a copy of the test data
+ * in which the class was changed.
+ */
+public class ReplaceClassesTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(ReplaceClassesTest.class);
+  }
+
+  private static final String TESTDATA_JAR = "com.ibm.wala.core.testdata_1.0.0.jar";
+
+  private static final String MAIN = "Lincremental/Main";
+
+  private static final String WORKER = "incremental/Worker";
+
+  /** a different version of {@link #WORKER}, under another name */
+  private static final String WORKER_V2 = "incremental/WorkerV2";
+
+  private static final String SUBCLASSING_MAIN = "Lincremental/Subclassing";
+
+  /** a superclass of {@link #DERIVED} */
+  private static final String BASE = "incremental/Base";
+
+  /** a different version of {@link #BASE}, under another name */
+  private static final String BASE_V2 = "incremental/BaseV2";
+
+  private static final String DERIVED = "incremental/Derived";
+
+  private static AnalysisScope makeScope(File jar) throws IOException {
+    return AnalysisScopeReader.instance.makeJavaBinaryAnalysisScope(
+        jar.getAbsolutePath(), new FileProvider().getFile(CallGraphTestUtil.REGRESSION_EXCLUSIONS));
+  }
+
+  private static AnalysisOptions makeOptions(AnalysisScope scope, ClassHierarchy cha, String main) {
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(cha, main);
+    return CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+  }
+
+  /** Copy jar to result, with the class named from renamed to, and replacing the class named to. */
+  private static void copyWithRenamedClass(File jar, File result, String from, String to)
+      throws IOException, InvalidClassFileException {
+    try (JarFile in = new JarFile(jar);
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(result))) {
+      byte[] renamed;
+      try (InputStream s = in.getInputStream(in.getEntry(from + ".class"))) {
+        ClassWriter w =
+            new ClassInstrumenter(from, Streams.inputStream2ByteArray(s), null).emitClass();
+        w.setName(to);
+        renamed = w.makeBytes();
+      }
+      for (Enumeration<JarEntry> e = in.entries(); e.hasMoreElements(); ) {
+        JarEntry entry = e.nextElement();
+        out.putNextEntry(new JarEntry(entry.getName()));
+        if (entry.getName().equals(to + ".class")) {
+          out.write(renamed);
+        } else {
+          try (InputStream s = in.getInputStream(entry)) {
+            out.write(Streams.inputStream2ByteArray(s));
+          }
+        }
+        out.closeEntry();
+      }
+    }
+  }
+
+  private static IClass readClass(File jar, String name, ClassHierarchy cha)
+      throws IOException, InvalidClassFileException {
+    for (ModuleEntry entry :
+        Iterator2Iterable.make(new JarFileModule(new JarFile(jar)).getEntries())) {
+      if (entry.getName().equals(name + ".class")) {
+        return new ShrikeClass(
+            new ShrikeClassReaderHandle(entry),
+            cha.getLoader(ClassLoaderReference.Application),
+            cha);
+      }
+    }
+    throw new IllegalArgumentException("no class " + name + " in " + jar);
+  }
+
+  /**
+   * @return a mapping from each call graph node and pointer key, rendered as a string, to its
+   *     callees or points-to set, also rendered as strings
+   */
+  private static Map<String, Set<String>> summarize(CallGraph cg, PointerAnalysis<InstanceKey> pa) {
+    Map<String, Set<String>> result = HashMapFactory.make();
+    for (CGNode n : cg) {
+      Set<String> callees = HashSetFactory.make();
+      for (CGNode s : Iterator2Iterable.make(cg.getSuccNodes(n))) {
+        callees.add(s.toString());
+      }
+      result.computeIfAbsent(n.toString(), k -> HashSetFactory.make()).addAll(callees);
+    }
+    for (PointerKey pk : pa.getPointerKeys()) {
+      Set<String> instances = HashSetFactory.make();
+      for (InstanceKey ik : pa.getPointsToSet(pk)) {
+        instances.add(ik.toString());
+      }
+      result.computeIfAbsent(pk.toString(), k -> HashSetFactory.make()).addAll(instances);
+    }
+    return result;
+  }
+
+  /** @return the summary of a 0-1-CFA call graph for main, built on cha */
+  private static Map<String, Set<String>> summarize(
+      AnalysisScope scope, ClassHierarchy cha, String main)
+      throws IllegalArgumentException, CancelException {
+    AnalysisOptions options = makeOptions(scope, cha, main);
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha);
+    return summarize(builder.makeCallGraph(options, null), builder.getPointerAnalysis());
+  }
+
+  private static void assertSameSummary(
+      Map<String, Set<String>> expected, Map<String, Set<String>> actual) {
+    Assert.assertEquals(expected.keySet(), actual.keySet());
+    for (Map.Entry<String, Set<String>> e : expected.entrySet()) {
+      Assert.assertEquals(e.getKey(), e.getValue(), actual.get(e.getKey()));
+    }
+  }
+
+  @Test
+  public void testReplaceClass()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException,
+          InvalidClassFileException {
+    File original = new FileProvider().getFile(TESTDATA_JAR);
+    File changed = File.createTempFile("testdata", ".jar");
+    try {
+      copyWithRenamedClass(original, changed, WORKER_V2, WORKER);
+
+      AnalysisScope scope = makeScope(original);
+      ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+      Map<String, Set<String>> before = summarize(scope, cha, MAIN);
+
+      IClass replacement = readClass(changed, WORKER, cha);
+      cha.replaceClasses(Collections.singleton(replacement));
+      Assert.assertSame(replacement, cha.lookupClass(replacement.getReference()));
+      Assert.assertSame(
+          replacement,
+          cha.getLoader(ClassLoaderReference.Application).lookupClass(replacement.getName()));
+      Map<String, Set<String>> replaced = summarize(scope, cha, MAIN);
+
+      AnalysisScope changedScope = makeScope(changed);
+      Map<String, Set<String>> expected =
+          summarize(changedScope, ClassHierarchyFactory.make(changedScope), MAIN);
+      Assert.assertNotEquals(before.keySet(), expected.keySet());
+      assertSameSummary(expected, replaced);
+    } finally {
+      changed.delete();
+    }
+  }
+
+  /** replace a superclass: its subclass must inherit the methods of the new version */
+  @Test
+  public void testReplaceSuperclass()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException,
+          InvalidClassFileException {
+    File original = new FileProvider().getFile(TESTDATA_JAR);
+    File changed = File.createTempFile("testdata", ".jar");
+    try {
+      copyWithRenamedClass(original, changed, BASE_V2, BASE);
+
+      AnalysisScope scope = makeScope(original);
+      ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+      Map<String, Set<String>> before = summarize(scope, cha, SUBCLASSING_MAIN);
+      IClass base =
+          cha.lookupClass(TypeReference.findOrCreate(ClassLoaderReference.Application, 'L' + BASE));
+      IClass derived =
+          cha.lookupClass(
+              TypeReference.findOrCreate(ClassLoaderReference.Application, 'L' + DERIVED));
+      Selector make = Selector.make("make()Ljava/lang/Object;");
+      Assert.assertSame(base.getMethod(make), derived.getMethod(make));
+
+      IClass replacement = readClass(changed, BASE, cha);
+      cha.replaceClasses(Collections.singleton(replacement));
+      Assert.assertSame(replacement, derived.getSuperclass());
+      Assert.assertSame(replacement.getMethod(make), derived.getMethod(make));
+      Map<String, Set<String>> replaced = summarize(scope, cha, SUBCLASSING_MAIN);
+
+      AnalysisScope changedScope = makeScope(changed);
+      Map<String, Set<String>> expected =
+          summarize(changedScope, ClassHierarchyFactory.make(changedScope), SUBCLASSING_MAIN);
+      Assert.assertNotEquals(before.keySet(), expected.keySet());
+      assertSameSummary(expected, replaced);
+    } finally {
+      changed.delete();
+    }
+  }
+}
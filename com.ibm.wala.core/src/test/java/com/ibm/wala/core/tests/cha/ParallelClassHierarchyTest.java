@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.cha;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.core.util.warnings.Warnings;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.SeqClassHierarchyFactory;
+import com.ibm.wala.util.collections.HashMapFactory;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests that reading class files in parallel gives the same hierarchy as reading them in turn. */
+public class ParallelClassHierarchyTest extends WalaTestCase {
+
+  /** @return for each class, its superclass and direct interfaces */
+  private static Map<String, String> describe(ClassHierarchy cha) {
+    Map<String, String> result = HashMapFactory.make();
+    for (IClass klass : cha) {
+      TreeSet<String> interfaces = new TreeSet<>();
+      for (IClass i : klass.getDirectInterfaces()) {
+        interfaces.add(i.getReference().toString());
+      }
+      IClass superclass = klass.getSuperclass();
+      result.put(
+          klass.getReference().toString(),
+          (superclass == null ? null : superclass.getReference()) + " " + interfaces);
+    }
+    return result;
+  }
+
+  @Test
+  public void testSameHierarchy() throws IOException, ClassHierarchyException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+
+    Warnings.clear();
+    ClassHierarchy sequential = SeqClassHierarchyFactory.make(scope);
+    String sequentialWarnings = Warnings.asString();
+
+    Warnings.clear();
+    ClassHierarchy parallel = ClassHierarchyFactory.makeParallel(scope, 4);
+    String parallelWarnings = Warnings.asString();
+
+    Assert.assertEquals(sequential.getNumberOfClasses(), parallel.getNumberOfClasses());
+    Assert.assertEquals(describe(sequential), describe(parallel));
+    Assert.assertEquals(sequentialWarnings, parallelWarnings);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadParallelism() throws IOException, ClassHierarchyException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    ClassHierarchyFactory.makeParallel(scope, 0);
+  }
+}
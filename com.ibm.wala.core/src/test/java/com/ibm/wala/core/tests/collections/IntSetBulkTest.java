@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2002 - 2014 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.collections;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.intset.BimodalMutableIntSetFactory;
+import com.ibm.wala.util.intset.BitVectorIntSetFactory;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableIntSet;
+import com.ibm.wala.util.intset.MutableIntSetFactory;
+import com.ibm.wala.util.intset.MutableSharedBitVectorIntSetFactory;
+import com.ibm.wala.util.intset.MutableSparseIntSetFactory;
+import com.ibm.wala.util.intset.RoaringIntSetFactory;
+import com.ibm.wala.util.intset.SemiSparseMutableIntSetFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link IntSet#copyInto}, {@link MutableIntSet#addAllWithDelta} and the three-argument
+ * {@link MutableIntSet#addAllInIntersection} for every mix of set representations.
+ */
+public final class IntSetBulkTest extends WalaTestCase {
+
+  private static final List<MutableIntSetFactory<?>> factories =
+      Arrays.asList(
+          new BitVectorIntSetFactory(),
+          new MutableSparseIntSetFactory(),
+          new MutableSharedBitVectorIntSetFactory(),
+          new BimodalMutableIntSetFactory(),
+          new SemiSparseMutableIntSetFactory(),
+          new RoaringIntSetFactory());
+
+  /** a few elements or many, over a range spanning several words */
+  private static Set<Integer> randomSet(Random random) {
+    Set<Integer> result = HashSetFactory.make();
+    int n = random.nextBoolean() ? random.nextInt(5) : random.nextInt(300);
+    int range = 1 + random.nextInt(2000);
+    for (int i = 0; i < n; i++) {
+      result.add(random.nextInt(range));
+    }
+    return result;
+  }
+
+  private static MutableIntSet make(MutableIntSetFactory<?> factory, Set<Integer> elements) {
+    MutableIntSet result = factory.make();
+    for (int i : elements) {
+      result.add(i);
+    }
+    return result;
+  }
+
+  private static Set<Integer> contents(IntSet s) {
+    Set<Integer> result = HashSetFactory.make();
+    for (IntIterator it = s.intIterator(); it.hasNext(); ) {
+      Assert.assertTrue(result.add(it.next()));
+    }
+    Assert.assertEquals(result.size(), s.size());
+    return result;
+  }
+
+  @Test
+  public void testCopyInto() {
+    Random random = new Random(31);
+    for (MutableIntSetFactory<?> factory : factories) {
+      for (int trial = 0; trial < 50; trial++) {
+        MutableIntSet s = make(factory, randomSet(random));
+        int[] buffer = new int[s.size() + 3];
+        Arrays.fill(buffer, -1);
+        Assert.assertEquals(s.size(), s.copyInto(buffer));
+        int n = 0;
+        for (IntIterator it = s.intIterator(); it.hasNext(); ) {
+          Assert.assertEquals(it.next(), buffer[n++]);
+        }
+        Assert.assertEquals(-1, buffer[n]);
+      }
+      try {
+        make(factory, HashSetFactory.make(Arrays.asList(1, 2))).copyInto(new int[1]);
+        Assert.fail("expected IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testAddAllWithDelta() {
+    Random random = new Random(32);
+    for (MutableIntSetFactory<?> thisFactory : factories) {
+      for (MutableIntSetFactory<?> setFactory : factories) {
+        for (MutableIntSetFactory<?> deltaFactory : factories) {
+          for (int trial = 0; trial < 5; trial++) {
+            Set<Integer> before = randomSet(random);
+            Set<Integer> added = randomSet(random);
+            Set<Integer> oldDelta = randomSet(random);
+            MutableIntSet s = make(thisFactory, before);
+            MutableIntSet delta = make(deltaFactory, oldDelta);
+
+            Set<Integer> expected = HashSetFactory.make(before);
+            expected.addAll(added);
+            Set<Integer> expectedDelta = HashSetFactory.make(added);
+            expectedDelta.removeAll(before);
+            expectedDelta.addAll(oldDelta);
+
+            boolean changed = s.addAllWithDelta(make(setFactory, added), delta);
+            Assert.assertEquals(expected.size() > before.size(), changed);
+            Assert.assertEquals(expected, contents(s));
+            Assert.assertEquals(expectedDelta, contents(delta));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testAddAllInIntersection() {
+    Random random = new Random(33);
+    for (MutableIntSetFactory<?> thisFactory : factories) {
+      for (MutableIntSetFactory<?> otherFactory : factories) {
+        for (MutableIntSetFactory<?> filterFactory : factories) {
+          for (int trial = 0; trial < 5; trial++) {
+            Set<Integer> before = randomSet(random);
+            Set<Integer> other = randomSet(random);
+            Set<Integer> filter = randomSet(random);
+            Set<Integer> oldDelta = randomSet(random);
+            IntSet o = make(otherFactory, other);
+            IntSet f = make(filterFactory, filter);
+
+            Set<Integer> kept = HashSetFactory.make(other);
+            kept.retainAll(filter);
+            Set<Integer> expected = HashSetFactory.make(before);
+            expected.addAll(kept);
+            Set<Integer> expectedDelta = HashSetFactory.make(kept);
+            expectedDelta.removeAll(before);
+            expectedDelta.addAll(oldDelta);
+
+            MutableIntSet s = make(thisFactory, before);
+            Assert.assertEquals(expected.size() > before.size(), s.addAllInIntersection(o, f));
+            Assert.assertEquals(expected, contents(s));
+
+            s = make(thisFactory, before);
+            MutableIntSet delta = make(thisFactory, oldDelta);
+            Assert.assertEquals(
+                expected.size() > before.size(), s.addAllInIntersection(o, f, delta));
+            Assert.assertEquals(expected, contents(s));
+            Assert.assertEquals(expectedDelta, contents(delta));
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2002 - 2014 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.collections;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.IntIntHashMap;
+import com.ibm.wala.util.collections.IntObjectHashMap;
+import com.ibm.wala.util.collections.ObjectIntHashMap;
+import com.ibm.wala.util.intset.IntIterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link IntObjectHashMap}, {@link ObjectIntHashMap} and {@link IntIntHashMap} against {@code
+ * HashMap}, with a random mix of insertions and removals over few enough keys that runs of
+ * colliding keys are common.
+ */
+public final class PrimitiveHashMapTest extends WalaTestCase {
+
+  private static final int OPERATIONS = 20000;
+
+  /** keys in a small range, with some negative and some 0 */
+  private static int randomKey(Random random) {
+    return random.nextInt(1000) - 100;
+  }
+
+  private static Set<Integer> keys(IntIterator it) {
+    Set<Integer> result = HashSetFactory.make();
+    while (it.hasNext()) {
+      Assert.assertTrue(result.add(it.next()));
+    }
+    return result;
+  }
+
+  @Test
+  public void testIntObject() {
+    Random random = new Random(11);
+    Map<Integer, String> expected = HashMapFactory.make();
+    IntObjectHashMap<String> actual = new IntObjectHashMap<>();
+    for (int i = 0; i < OPERATIONS; i++) {
+      int key = randomKey(random);
+      if (random.nextInt(3) == 0) {
+        Assert.assertEquals(expected.remove(key), actual.remove(key));
+      } else {
+        String value = Integer.toString(i);
+        Assert.assertEquals(expected.put(key, value), actual.put(key, value));
+      }
+      Assert.assertEquals(expected.size(), actual.size());
+    }
+    for (int key = -100; key < 900; key++) {
+      Assert.assertEquals(expected.get(key), actual.get(key));
+      Assert.assertEquals(expected.containsKey(key), actual.containsKey(key));
+    }
+    Assert.assertEquals(expected.keySet(), keys(actual.keyIterator()));
+    IntIterator keys = actual.keyIterator();
+    actual.valueIterator().forEachRemaining(v -> Assert.assertEquals(expected.get(keys.next()), v));
+
+    Assert.assertEquals("x", actual.computeIfAbsent(5000, k -> "x"));
+    Assert.assertEquals("x", actual.computeIfAbsent(5000, k -> "y"));
+    actual.clear();
+    Assert.assertTrue(actual.isEmpty());
+    Assert.assertNull(actual.get(5000));
+  }
+
+  @Test
+  public void testObjectInt() {
+    Random random = new Random(12);
+    Map<String, Integer> expected = HashMapFactory.make();
+    ObjectIntHashMap<String> actual = new ObjectIntHashMap<>();
+    for (int i = 0; i < OPERATIONS; i++) {
+      String key = Integer.toString(randomKey(random));
+      if (random.nextInt(3) == 0) {
+        Assert.assertEquals(expected.remove(key) != null, actual.remove(key));
+      } else {
+        expected.put(key, i);
+        actual.put(key, i);
+      }
+      Assert.assertEquals(expected.size(), actual.size());
+    }
+    for (int key = -100; key < 900; key++) {
+      String s = Integer.toString(key);
+      Assert.assertEquals(expected.getOrDefault(s, -1).intValue(), actual.getOrDefault(s, -1));
+      Assert.assertEquals(expected.containsKey(s), actual.containsKey(s));
+    }
+    Assert.assertEquals(expected.keySet(), actual.keySet());
+    Map<String, Integer> copy = HashMapFactory.make();
+    new ObjectIntHashMap<>(actual).forEach(copy::put);
+    Assert.assertEquals(expected, copy);
+    Assert.assertFalse(actual.containsKey(null));
+  }
+
+  @Test
+  public void testIntInt() {
+    Random random = new Random(13);
+    Map<Integer, Integer> expected = HashMapFactory.make();
+    IntIntHashMap actual = new IntIntHashMap();
+    for (int i = 0; i < OPERATIONS; i++) {
+      int key = randomKey(random);
+      if (random.nextInt(3) == 0) {
+        Assert.assertEquals(expected.remove(key) != null, actual.remove(key));
+      } else {
+        expected.put(key, i);
+        actual.put(key, i);
+      }
+      Assert.assertEquals(expected.size(), actual.size());
+    }
+    for (int key = -100; key < 900; key++) {
+      Assert.assertEquals(expected.getOrDefault(key, -1).intValue(), actual.getOrDefault(key, -1));
+      Assert.assertEquals(expected.containsKey(key), actual.containsKey(key));
+    }
+    Assert.assertEquals(expected.keySet(), keys(actual.keyIterator()));
+
+    actual.clear();
+    Assert.assertEquals(2, actual.increment(0, 2));
+    Assert.assertEquals(5, actual.increment(0, 3));
+    Assert.assertEquals(1, actual.size());
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2002 - 2014 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.collections;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.util.intset.BitVectorIntSet;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.IntSetUtil;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+import com.ibm.wala.util.intset.RoaringIntSet;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link RoaringIntSet} against {@link BitVectorIntSet} on sets whose chunks are sparse
+ * arrays, dense bitmaps and runs.
+ */
+public final class RoaringIntSetTest extends WalaTestCase {
+
+  public static void main(final String[] args) {
+    justThisTest(RoaringIntSetTest.class);
+  }
+
+  /** a few elements spread over millions, as many points-to sets are */
+  private static final int SPREAD = 5_000_000;
+
+  /** a set of the given shape, added to both a roaring set and a bit vector set */
+  private static RoaringIntSet make(Random random, int shape, BitVectorIntSet expected) {
+    RoaringIntSet result = new RoaringIntSet();
+    int base = random.nextInt(SPREAD);
+    switch (shape) {
+      case 0: // sparse
+        for (int i = 0; i < 200; i++) {
+          int x = random.nextInt(SPREAD);
+          result.add(x);
+          expected.add(x);
+        }
+        break;
+      case 1: // dense, so that chunks become bitmaps
+        for (int i = 0; i < 30_000; i++) {
+          int x = base + random.nextInt(100_000);
+          result.add(x);
+          expected.add(x);
+        }
+        break;
+      default: // long runs
+        for (int r = 0; r < 20; r++) {
+          int start = base + random.nextInt(200_000);
+          int length = random.nextInt(10_000);
+          for (int x = start; x < start + length; x++) {
+            result.add(x);
+            expected.add(x);
+          }
+        }
+        result.runOptimize();
+        break;
+    }
+    return result;
+  }
+
+  private static void assertSame(IntSet expected, IntSet actual) {
+    Assert.assertEquals(expected.size(), actual.size());
+    Assert.assertEquals(expected.isEmpty(), actual.isEmpty());
+    if (!expected.isEmpty()) {
+      Assert.assertEquals(expected.max(), actual.max());
+    }
+    IntIterator e = expected.intIterator();
+    IntIterator a = actual.intIterator();
+    while (e.hasNext()) {
+      Assert.assertTrue(a.hasNext());
+      Assert.assertEquals(e.next(), a.next());
+    }
+    Assert.assertFalse(a.hasNext());
+    Assert.assertTrue(actual.sameValue(expected));
+  }
+
+  @Test
+  public void testBulkOperations() {
+    Random random = new Random(17);
+    for (int round = 0; round < 30; round++) {
+      BitVectorIntSet e1 = new BitVectorIntSet();
+      BitVectorIntSet e2 = new BitVectorIntSet();
+      RoaringIntSet s1 = make(random, round % 3, e1);
+      RoaringIntSet s2 = make(random, (round / 3) % 3, e2);
+      assertSame(e1, s1);
+      assertSame(e2, s2);
+
+      BitVectorIntSet union = new BitVectorIntSet(e1);
+      union.addAll(e2);
+      RoaringIntSet u = new RoaringIntSet(s1);
+      Assert.assertEquals(!e2.isSubset(e1), u.addAll(s2));
+      assertSame(union, u);
+      Assert.assertFalse(u.addAll(s2));
+      Assert.assertTrue(s1.isSubset(u));
+      Assert.assertTrue(s2.isSubset(u));
+
+      assertSame(e1.intersection(e2), s1.intersection(s2));
+      Assert.assertEquals(e1.containsAny(e2), s1.containsAny(s2));
+      assertSame(IntSetUtil.diff(e1, e2), RoaringIntSet.diff(s1, s2));
+
+      // operations with other kinds of sets
+      MutableSparseIntSet sparse = MutableSparseIntSet.make(e2);
+      RoaringIntSet i = new RoaringIntSet(s1);
+      i.intersectWith(sparse);
+      assertSame(e1.intersection(e2), i);
+      RoaringIntSet d = new RoaringIntSet(s1).removeAll(sparse);
+      assertSame(IntSetUtil.diff(e1, e2), d);
+      Assert.assertEquals(e1.containsAny(e2), s1.containsAny(sparse));
+
+      RoaringIntSet filtered = new RoaringIntSet();
+      filtered.addAllInIntersection(s1, s2);
+      assertSame(e1.intersection(e2), filtered);
+
+      // shrink the union back to the first set, one element at a time
+      for (IntIterator it = s2.intIterator(); it.hasNext(); ) {
+        int x = it.next();
+        Assert.assertEquals(!e1.contains(x), u.remove(x) && !e1.contains(x));
+        if (e1.contains(x)) {
+          u.add(x);
+        }
+      }
+      assertSame(e1, u);
+    }
+  }
+
+  @Test
+  public void testRuns() {
+    RoaringIntSet s = new RoaringIntSet();
+    for (int x = 65_000; x < 140_000; x++) {
+      s.add(x);
+    }
+    s.runOptimize();
+    Assert.assertEquals(75_000, s.size());
+    Assert.assertTrue(s.contains(65_536));
+    Assert.assertFalse(s.contains(140_000));
+    // split a run, and join it again
+    Assert.assertTrue(s.remove(100_000));
+    Assert.assertFalse(s.contains(100_000));
+    Assert.assertEquals(74_999, s.size());
+    Assert.assertTrue(s.add(100_000));
+    Assert.assertFalse(s.add(100_000));
+    Assert.assertEquals(75_000, s.size());
+    // so many runs that the chunk becomes a bitmap
+    for (int x = 65_000; x < 131_072; x += 2) {
+      s.remove(x);
+    }
+    int expected = 0;
+    for (int x = 65_000; x < 140_000; x++) {
+      if (x >= 131_072 || x % 2 == 1) {
+        expected++;
+        Assert.assertTrue(s.contains(x));
+      }
+    }
+    Assert.assertEquals(expected, s.size());
+    Assert.assertEquals(139_999, s.max());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegative() {
+    new RoaringIntSet().add(-1);
+  }
+}
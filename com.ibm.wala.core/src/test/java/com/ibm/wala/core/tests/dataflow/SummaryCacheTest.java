@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.dataflow;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.dataflow.IFDS.ICFGSupergraph;
+import com.ibm.wala.dataflow.IFDS.IFlowFunction;
+import com.ibm.wala.dataflow.IFDS.IFlowFunctionMap;
+import com.ibm.wala.dataflow.IFDS.IMergeFunction;
+import com.ibm.wala.dataflow.IFDS.ISupergraph;
+import com.ibm.wala.dataflow.IFDS.IUnaryFlowFunction;
+import com.ibm.wala.dataflow.IFDS.IdentityFlowFunction;
+import com.ibm.wala.dataflow.IFDS.KillEverything;
+import com.ibm.wala.dataflow.IFDS.PathEdge;
+import com.ibm.wala.dataflow.IFDS.SummaryCache;
+import com.ibm.wala.dataflow.IFDS.TabulationDomain;
+import com.ibm.wala.dataflow.IFDS.TabulationProblem;
+import com.ibm.wala.dataflow.IFDS.TabulationResult;
+import com.ibm.wala.dataflow.IFDS.TabulationSolver;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.cfg.BasicBlockInContext;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.ssa.SSAPutInstruction;
+import com.ibm.wala.ssa.analysis.IExplodedBasicBlock;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.Pair;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableMapping;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+import com.ibm.wala.util.intset.SparseIntSet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests for {@link SummaryCache} */
+public class SummaryCacheTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(SummaryCacheTest.class);
+  }
+
+  private static final Pair<CGNode, Integer> ZERO = Pair.make(null, -1);
+
+  /** numbers the zero fact and the putstatic instructions in the order they are added */
+  private static class DefsDomain extends MutableMapping<Pair<CGNode, Integer>>
+      implements TabulationDomain<Pair<CGNode, Integer>, BasicBlockInContext<IExplodedBasicBlock>> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public boolean hasPriorityOver(
+        PathEdge<BasicBlockInContext<IExplodedBasicBlock>> p1,
+        PathEdge<BasicBlockInContext<IExplodedBasicBlock>> p2) {
+      return false;
+    }
+  }
+
+  /**
+   * Reaching definitions of static fields, with a zero fact. Definitions are added to the domain as
+   * tabulation reaches them, so their numbers depend on the order of tabulation, and on the facts
+   * which were in the domain before.
+   */
+  private static class ReachingDefsProblem
+      implements TabulationProblem<
+          BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> {
+
+    private final ISupergraph<BasicBlockInContext<IExplodedBasicBlock>, CGNode> supergraph;
+
+    private final DefsDomain domain;
+
+    private final int zero;
+
+    private final BasicBlockInContext<IExplodedBasicBlock> entry;
+
+    ReachingDefsProblem(CallGraph cg, DefsDomain domain) {
+      this.supergraph = ICFGSupergraph.make(cg);
+      this.domain = domain;
+      this.zero = domain.add(ZERO);
+      this.entry = supergraph.getEntriesForProcedure(cg.getFakeRootNode())[0];
+    }
+
+    private SSAPutInstruction getPut(Pair<CGNode, Integer> def) {
+      return (SSAPutInstruction) def.fst.getIR().getInstructions()[def.snd];
+    }
+
+    private final IFlowFunctionMap<BasicBlockInContext<IExplodedBasicBlock>> flowFunctions =
+        new IFlowFunctionMap<BasicBlockInContext<IExplodedBasicBlock>>() {
+
+          @Override
+          public IUnaryFlowFunction getNormalFlowFunction(
+              BasicBlockInContext<IExplodedBasicBlock> src,
+              BasicBlockInContext<IExplodedBasicBlock> dest) {
+            SSAInstruction instruction = src.getDelegate().getInstruction();
+            if (!(instruction instanceof SSAPutInstruction)
+                || !((SSAPutInstruction) instruction).isStatic()) {
+              return IdentityFlowFunction.identity();
+            }
+            SSAPutInstruction put = (SSAPutInstruction) instruction;
+            Pair<CGNode, Integer> def =
+                Pair.make(src.getNode(), src.getDelegate().getFirstInstructionIndex());
+            return d1 -> {
+              if (d1 == zero) {
+                MutableSparseIntSet result = MutableSparseIntSet.makeEmpty();
+                result.add(zero);
+                result.add(domain.add(def));
+                return result;
+              } else if (getPut(domain.getMappedObject(d1))
+                  .getDeclaredField()
+                  .equals(put.getDeclaredField())) {
+                return null;
+              } else {
+                return SparseIntSet.singleton(d1);
+              }
+            };
+          }
+
+          @Override
+          public IUnaryFlowFunction getCallFlowFunction(
+              BasicBlockInContext<IExplodedBasicBlock> src,
+              BasicBlockInContext<IExplodedBasicBlock> dest,
+              BasicBlockInContext<IExplodedBasicBlock> ret) {
+            return IdentityFlowFunction.identity();
+          }
+
+          @Override
+          public IFlowFunction getReturnFlowFunction(
+              BasicBlockInContext<IExplodedBasicBlock> call,
+              BasicBlockInContext<IExplodedBasicBlock> src,
+              BasicBlockInContext<IExplodedBasicBlock> dest) {
+            return IdentityFlowFunction.identity();
+          }
+
+          @Override
+          public IUnaryFlowFunction getCallToReturnFlowFunction(
+              BasicBlockInContext<IExplodedBasicBlock> src,
+              BasicBlockInContext<IExplodedBasicBlock> dest) {
+            return KillEverything.singleton();
+          }
+
+          @Override
+          public IUnaryFlowFunction getCallNoneToReturnFlowFunction(
+              BasicBlockInContext<IExplodedBasicBlock> src,
+              BasicBlockInContext<IExplodedBasicBlock> dest) {
+            return IdentityFlowFunction.identity();
+          }
+        };
+
+    @Override
+    public ISupergraph<BasicBlockInContext<IExplodedBasicBlock>, CGNode> getSupergraph() {
+      return supergraph;
+    }
+
+    @Override
+    public TabulationDomain<Pair<CGNode, Integer>, BasicBlockInContext<IExplodedBasicBlock>>
+        getDomain() {
+      return domain;
+    }
+
+    @Override
+    public IFlowFunctionMap<BasicBlockInContext<IExplodedBasicBlock>> getFunctionMap() {
+      return flowFunctions;
+    }
+
+    @Override
+    public Collection<PathEdge<BasicBlockInContext<IExplodedBasicBlock>>> initialSeeds() {
+      return Collections.singleton(PathEdge.createPathEdge(entry, zero, entry, zero));
+    }
+
+    @Override
+    public IMergeFunction getMergeFunction() {
+      return null;
+    }
+  }
+
+  private static String key(Pair<CGNode, Integer> fact) {
+    return fact == ZERO ? "0" : fact.fst + "@" + fact.snd;
+  }
+
+  /** @return the definitions in cg, by their keys */
+  private static Map<String, Pair<CGNode, Integer>> defs(CallGraph cg) {
+    Map<String, Pair<CGNode, Integer>> result = HashMapFactory.make();
+    result.put(key(ZERO), ZERO);
+    for (CGNode n : cg) {
+      if (n.getIR() == null) {
+        continue;
+      }
+      SSAInstruction[] instructions = n.getIR().getInstructions();
+      for (int i = 0; i < instructions.length; i++) {
+        if (instructions[i] instanceof SSAPutInstruction
+            && ((SSAPutInstruction) instructions[i]).isStatic()) {
+          Pair<CGNode, Integer> def = Pair.make(n, i);
+          result.put(key(def), def);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static CGNode findMethod(CallGraph cg, String name) {
+    for (CGNode n : cg) {
+      if (n.getMethod().getName().toString().equals(name)) {
+        return n;
+      }
+    }
+    Assert.fail("no node for " + name);
+    return null;
+  }
+
+  /** @return the facts reaching each block of proc, by their keys */
+  private static List<TreeSet<String>> describe(
+      TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+          result,
+      DefsDomain domain,
+      CGNode proc) {
+    ISupergraph<BasicBlockInContext<IExplodedBasicBlock>, CGNode> supergraph =
+        result.getProblem().getSupergraph();
+    List<TreeSet<String>> facts = new ArrayList<>();
+    for (int i = 0; i < supergraph.getNumberOfBlocks(proc); i++) {
+      TreeSet<String> keys = new TreeSet<>();
+      IntSet reached = result.getResult(supergraph.getLocalBlock(proc, i));
+      for (IntIterator it = reached.intIterator(); it.hasNext(); ) {
+        keys.add(key(domain.getMappedObject(it.next())));
+      }
+      facts.add(keys);
+    }
+    return facts;
+  }
+
+  /**
+   * Summaries recorded in one run are used in a run whose domain numbers the facts the other way
+   * around.
+   */
+  @Test
+  public void testRenumberedFacts()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    IClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(cha, "Ldataflow/StaticDataflow");
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    CallGraph cg =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha)
+            .makeCallGraph(options, null);
+    CGNode caller = findMethod(cg, "testInterproc");
+    CGNode callee = findMethod(cg, "m");
+
+    DefsDomain domain = new DefsDomain();
+    TabulationSolver<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+        solver = TabulationSolver.make(new ReachingDefsProblem(cg, domain));
+    List<TreeSet<String>> expected = describe(solver.solve(), domain, caller);
+
+    SummaryCache<CGNode, Pair<CGNode, Integer>> cache =
+        new SummaryCache<>(CGNode::toString, SummaryCacheTest::key, k -> null);
+    Assert.assertEquals(1, cache.record(solver, callee::equals));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    cache.write(bytes);
+
+    // number the facts the other way around, and use the summaries of m instead of entering it
+    Map<String, Pair<CGNode, Integer>> defs = defs(cg);
+    DefsDomain reversed = new DefsDomain();
+    for (int i = domain.getMaximumIndex(); i >= 0; i--) {
+      reversed.add(domain.getMappedObject(i));
+    }
+    Assert.assertNotEquals(domain.getMappedIndex(ZERO), reversed.getMappedIndex(ZERO));
+    solver = TabulationSolver.make(new ReachingDefsProblem(cg, reversed));
+    solver.setSummaryCache(
+        SummaryCache.read(
+            new ByteArrayInputStream(bytes.toByteArray()),
+            CGNode::toString,
+            SummaryCacheTest::key,
+            defs::get));
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+        result = solver.solve();
+    Assert.assertEquals(expected, describe(result, reversed, caller));
+    Assert.assertTrue(describe(result, reversed, callee).stream().allMatch(TreeSet::isEmpty));
+  }
+}
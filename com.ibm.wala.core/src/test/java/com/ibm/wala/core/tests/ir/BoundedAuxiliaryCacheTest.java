@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.ir;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ssa.AuxiliaryCache;
+import com.ibm.wala.ssa.BoundedAuxiliaryCache;
+import com.ibm.wala.ssa.DefUse;
+import com.ibm.wala.ssa.DefaultIRFactory;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSACache;
+import com.ibm.wala.ssa.SSAOptions;
+import com.ibm.wala.types.TypeReference;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Tests for {@link BoundedAuxiliaryCache}. */
+public class BoundedAuxiliaryCacheTest extends WalaTestCase {
+
+  private static IClassHierarchy cha;
+
+  /** methods to use as keys */
+  private static List<IMethod> methods;
+
+  private final SSAOptions options = new AnalysisOptions().getSSAOptions();
+
+  @BeforeClass
+  public static void beforeClass() throws ClassHierarchyException, IOException {
+    cha = AnnotationTest.makeCHA();
+    methods = new ArrayList<>();
+    IClass string = cha.lookupClass(TypeReference.JavaLangString);
+    for (IMethod m : string.getDeclaredMethods()) {
+      if (!m.isAbstract() && !m.isNative()) {
+        methods.add(m);
+      }
+    }
+  }
+
+  @Test
+  public void testLRU() {
+    // room for three entries of size 10
+    BoundedAuxiliaryCache cache =
+        new BoundedAuxiliaryCache(30, o -> 10, new BoundedAuxiliaryCache.LRUPolicy());
+    for (int i = 0; i < 3; i++) {
+      cache.cache(methods.get(i), Everywhere.EVERYWHERE, options, "v" + i);
+    }
+    Assert.assertEquals(30, cache.getSize());
+    // use 0, so that 1 is the least recently used
+    Assert.assertEquals("v0", cache.find(methods.get(0), Everywhere.EVERYWHERE, options));
+    cache.cache(methods.get(3), Everywhere.EVERYWHERE, options, "v3");
+
+    Assert.assertNull(cache.find(methods.get(1), Everywhere.EVERYWHERE, options));
+    Assert.assertEquals("v0", cache.find(methods.get(0), Everywhere.EVERYWHERE, options));
+    Assert.assertEquals("v2", cache.find(methods.get(2), Everywhere.EVERYWHERE, options));
+    Assert.assertEquals("v3", cache.find(methods.get(3), Everywhere.EVERYWHERE, options));
+    Assert.assertEquals(1, cache.getEvictionCount());
+    Assert.assertEquals(4, cache.getHitCount());
+    Assert.assertEquals(1, cache.getMissCount());
+    Assert.assertEquals(30, cache.getSize());
+
+    cache.invalidate(methods.get(0), Everywhere.EVERYWHERE);
+    Assert.assertEquals(20, cache.getSize());
+    cache.wipe();
+    Assert.assertEquals(0, cache.getSize());
+    Assert.assertNull(cache.find(methods.get(2), Everywhere.EVERYWHERE, options));
+  }
+
+  @Test
+  public void testTooLarge() {
+    BoundedAuxiliaryCache cache =
+        new BoundedAuxiliaryCache(30, o -> 31, new BoundedAuxiliaryCache.LRUPolicy());
+    cache.cache(methods.get(0), Everywhere.EVERYWHERE, options, "v0");
+    Assert.assertNull(cache.find(methods.get(0), Everywhere.EVERYWHERE, options));
+    Assert.assertEquals(1, cache.getRejectionCount());
+    Assert.assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  public void testTinyLFU() {
+    BoundedAuxiliaryCache cache =
+        new BoundedAuxiliaryCache(20, o -> 10, new BoundedAuxiliaryCache.TinyLFUPolicy(2));
+    // 0 and 1 are popular
+    for (int i = 0; i < 2; i++) {
+      IMethod m = methods.get(i);
+      Assert.assertNull(cache.find(m, Everywhere.EVERYWHERE, options));
+      cache.cache(m, Everywhere.EVERYWHERE, options, "v" + i);
+      for (int j = 0; j < 5; j++) {
+        Assert.assertNotNull(cache.find(m, Everywhere.EVERYWHERE, options));
+      }
+    }
+    // a scan of methods asked for once does not displace them
+    for (int i = 2; i < methods.size(); i++) {
+      IMethod m = methods.get(i);
+      Assert.assertNull(cache.find(m, Everywhere.EVERYWHERE, options));
+      cache.cache(m, Everywhere.EVERYWHERE, options, "v" + i);
+    }
+    Assert.assertEquals("v0", cache.find(methods.get(0), Everywhere.EVERYWHERE, options));
+    Assert.assertEquals("v1", cache.find(methods.get(1), Everywhere.EVERYWHERE, options));
+    Assert.assertEquals(methods.size() - 2, cache.getRejectionCount());
+  }
+
+  /** an entry which needs several victims is admitted or rejected as a whole */
+  @Test
+  public void testAdmitOnce() {
+    BoundedAuxiliaryCache cache =
+        new BoundedAuxiliaryCache(
+            20, o -> o.equals("big") ? 20 : 10, new BoundedAuxiliaryCache.TinyLFUPolicy(4));
+    // 1 is the least recently used and never asked for; 0 is popular
+    cache.cache(methods.get(1), Everywhere.EVERYWHERE, options, "v1");
+    cache.cache(methods.get(0), Everywhere.EVERYWHERE, options, "v0");
+    for (int j = 0; j < 5; j++) {
+      Assert.assertNotNull(cache.find(methods.get(0), Everywhere.EVERYWHERE, options));
+    }
+    // big is asked for more often than 1, the first victim, but less often than 0
+    for (int j = 0; j < 2; j++) {
+      Assert.assertNull(cache.find(methods.get(2), Everywhere.EVERYWHERE, options));
+    }
+    cache.cache(methods.get(2), Everywhere.EVERYWHERE, options, "big");
+    Assert.assertEquals("big", cache.find(methods.get(2), Everywhere.EVERYWHERE, options));
+    Assert.assertEquals(2, cache.getEvictionCount());
+    Assert.assertEquals(0, cache.getRejectionCount());
+    Assert.assertEquals(20, cache.getSize());
+
+    // a policy which admits nothing evicts nothing
+    cache =
+        new BoundedAuxiliaryCache(
+            20,
+            o -> o.equals("big") ? 20 : 10,
+            new BoundedAuxiliaryCache.LRUPolicy() {
+              @Override
+              public boolean admit(Object candidate, Object victim) {
+                return false;
+              }
+            });
+    cache.cache(methods.get(0), Everywhere.EVERYWHERE, options, "v0");
+    cache.cache(methods.get(1), Everywhere.EVERYWHERE, options, "v1");
+    cache.cache(methods.get(2), Everywhere.EVERYWHERE, options, "big");
+    Assert.assertEquals(0, cache.getEvictionCount());
+    Assert.assertEquals(1, cache.getRejectionCount());
+    Assert.assertEquals("v0", cache.find(methods.get(0), Everywhere.EVERYWHERE, options));
+    Assert.assertEquals("v1", cache.find(methods.get(1), Everywhere.EVERYWHERE, options));
+  }
+
+  @Test
+  public void testIRBudget() {
+    long budget = 100_000;
+    BoundedAuxiliaryCache irCache = new BoundedAuxiliaryCache(budget);
+    BoundedAuxiliaryCache duCache = new BoundedAuxiliaryCache(budget);
+    DefaultIRFactory factory = new DefaultIRFactory();
+    AnalysisCacheImpl cache =
+        new AnalysisCacheImpl(factory, options, new SSACache(factory, irCache, duCache));
+    for (IMethod m : methods) {
+      IR ir = cache.getIR(m);
+      Assert.assertSame(ir, cache.getIR(m));
+      cache.getDefUse(ir);
+      Assert.assertTrue(irCache.getSize() <= budget);
+      Assert.assertTrue(duCache.getSize() <= budget);
+    }
+    Assert.assertTrue(irCache.getEvictionCount() > 0);
+    Assert.assertEquals(methods.size(), irCache.getHitCount());
+  }
+
+  /** clearing soft caches leaves a bounded cache alone */
+  @Test
+  public void testWipeUnbounded() {
+    BoundedAuxiliaryCache irCache = new BoundedAuxiliaryCache(Long.MAX_VALUE);
+    DefaultIRFactory factory = new DefaultIRFactory();
+    AnalysisCacheImpl cache =
+        new AnalysisCacheImpl(
+            factory, options, new SSACache(factory, irCache, new AuxiliaryCache()));
+    IMethod m = methods.get(0);
+    IR ir = cache.getIR(m);
+    DefUse du = cache.getDefUse(ir);
+    long size = irCache.getSize();
+
+    cache.getSSACache().wipeUnbounded();
+    Assert.assertEquals(size, irCache.getSize());
+    Assert.assertSame(ir, cache.getIR(m));
+    Assert.assertNotSame(du, cache.getDefUse(ir));
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.ir;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.ConcurrentAnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.Context;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ssa.DefUse;
+import com.ibm.wala.ssa.DefaultIRFactory;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSAOptions;
+import com.ibm.wala.types.ClassLoaderReference;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests for building IRs from several threads through a {@link ConcurrentAnalysisCacheImpl}. */
+public class ConcurrentSSACacheTest extends WalaTestCase {
+
+  private static final int THREADS = 8;
+
+  private static IClassHierarchy makeCHA() throws IOException, ClassHierarchyException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    return ClassHierarchyFactory.make(scope);
+  }
+
+  /** @return the application methods, except those of classes with invalid bytecodes */
+  private static List<IMethod> applicationMethods(IClassHierarchy cha) {
+    List<IMethod> result = new ArrayList<>();
+    for (IClass klass : cha) {
+      if (klass.getClassLoader().getReference().equals(ClassLoaderReference.Application)
+          && !klass.getName().toString().equals("LCodeDeleted")) {
+        result.addAll(klass.getDeclaredMethods());
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testPrefetchIRs() throws IOException, ClassHierarchyException {
+    IClassHierarchy cha = makeCHA();
+    List<IMethod> methods = applicationMethods(cha);
+    ConcurrentAnalysisCacheImpl cache = new ConcurrentAnalysisCacheImpl();
+    cache.prefetchIRs(methods, THREADS);
+
+    AnalysisCacheImpl sequential = new AnalysisCacheImpl();
+    for (IMethod m : methods) {
+      IR ir = cache.getIR(m);
+      IR expected = sequential.getIR(m);
+      if (expected == null) {
+        Assert.assertNull(ir);
+      } else {
+        Assert.assertEquals(expected.toString(), ir.toString());
+        Assert.assertSame(ir, cache.getIR(m));
+        Assert.assertSame(cache.getDefUse(ir), cache.getDefUse(ir));
+      }
+    }
+  }
+
+  @Test
+  public void testBuildOnce() throws Exception {
+    IClassHierarchy cha = makeCHA();
+    AtomicInteger built = new AtomicInteger();
+    DefaultIRFactory counting =
+        new DefaultIRFactory() {
+          @Override
+          public IR makeIR(IMethod method, Context c, SSAOptions options) {
+            built.incrementAndGet();
+            return super.makeIR(method, c, options);
+          }
+        };
+    ConcurrentAnalysisCacheImpl cache = new ConcurrentAnalysisCacheImpl(counting);
+    List<IMethod> methods = applicationMethods(cha);
+
+    CyclicBarrier start = new CyclicBarrier(THREADS);
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<List<Object>>> results = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        results.add(
+            pool.submit(
+                () -> {
+                  start.await();
+                  List<Object> result = new ArrayList<>();
+                  for (IMethod m : methods) {
+                    IR ir = cache.getIR(m);
+                    DefUse du = ir == null ? null : cache.getDefUse(ir);
+                    result.add(ir);
+                    result.add(du);
+                  }
+                  return result;
+                }));
+      }
+      List<Object> expected = results.get(0).get();
+      for (Future<List<Object>> f : results) {
+        List<Object> actual = f.get();
+        for (int i = 0; i < expected.size(); i++) {
+          Assert.assertSame(expected.get(i), actual.get(i));
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+    int concrete = 0;
+    for (IMethod m : methods) {
+      if (!m.isAbstract() && !m.isNative()) {
+        concrete++;
+      }
+    }
+    Assert.assertEquals(concrete, built.get());
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.ir;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.classLoader.NewSiteReference;
+import com.ibm.wala.classLoader.ProgramCounter;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ipa.summaries.MethodSummary;
+import com.ibm.wala.ipa.summaries.SummarizedMethod;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.ssa.SSAInstructionFactory;
+import com.ibm.wala.ssa.SSANewInstruction;
+import com.ibm.wala.ssa.SSAOptions;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Tests the mappings from allocation sites and PEIs to instructions of an {@link IR}. */
+public class LocationMapTest extends WalaTestCase {
+
+  @Test
+  public void testLocationMaps() throws ClassHierarchyException, IOException {
+    IClassHierarchy cha = AnnotationTest.makeCHA();
+    AnalysisCacheImpl cache = new AnalysisCacheImpl();
+    IClass klass =
+        cha.lookupClass(
+            TypeReference.findOrCreate(ClassLoaderReference.Primordial, "Ljava/util/HashMap"));
+    int checked = 0;
+    for (IMethod m : klass.getDeclaredMethods()) {
+      IR ir = cache.getIR(m);
+      if (ir == null) {
+        continue;
+      }
+      SSAInstruction[] instructions = ir.getInstructions();
+      List<NewSiteReference> expectedSites = new ArrayList<>();
+      Set<Integer> seen = HashSetFactory.make();
+      for (int i = 0; i < instructions.length; i++) {
+        SSAInstruction s = instructions[i];
+        if (s instanceof SSANewInstruction) {
+          NewSiteReference site = ((SSANewInstruction) s).getNewSite();
+          if (seen.add(site.getProgramCounter())) {
+            expectedSites.add(site);
+          }
+          Assert.assertEquals(site, ir.getNew(site).getNewSite());
+          checked++;
+        }
+        if (s != null && s.isPEI()) {
+          int pc = ir.getControlFlowGraph().getProgramCounter(i);
+          SSAInstruction pei = ir.getPEI(new ProgramCounter(pc));
+          Assert.assertEquals(pc, ir.getControlFlowGraph().getProgramCounter(pei.iIndex()));
+          checked++;
+        }
+      }
+      List<NewSiteReference> sites = new ArrayList<>();
+      for (NewSiteReference site : Iterator2Iterable.make(ir.iterateNewSites())) {
+        sites.add(site);
+      }
+      expectedSites.sort(Comparator.comparingInt(NewSiteReference::getProgramCounter));
+      Assert.assertEquals(expectedSites, sites);
+    }
+    Assert.assertTrue(checked > 0);
+  }
+
+  /**
+   * several allocation sites at one program counter, as front ends other than Shrike may emit: as
+   * {@link NewSiteReference#equals(Object)} only compares program counters, the last new
+   * instruction at the pc stands for all of them
+   */
+  @Test
+  public void testSitesAtOnePC() throws ClassHierarchyException, IOException {
+    IClassHierarchy cha = AnnotationTest.makeCHA();
+    IClass object = cha.lookupClass(TypeReference.JavaLangObject);
+    MethodReference ref =
+        MethodReference.findOrCreate(TypeReference.JavaLangObject, "allocate", "()V");
+    MethodSummary summary = new MethodSummary(ref);
+    summary.setStatic(true);
+    SSAInstructionFactory insts = Language.JAVA.instructionFactory();
+    NewSiteReference objectSite = NewSiteReference.make(0, TypeReference.JavaLangObject);
+    NewSiteReference stringSite = NewSiteReference.make(0, TypeReference.JavaLangString);
+    summary.addStatement(insts.NewInstruction(0, 1, objectSite));
+    summary.addStatement(insts.NewInstruction(1, 2, stringSite));
+    summary.addStatement(insts.NewInstruction(2, 3, objectSite));
+    IR ir =
+        new SummarizedMethod(ref, summary, object)
+            .makeIR(Everywhere.EVERYWHERE, SSAOptions.defaultOptions());
+
+    Assert.assertEquals(2, ir.getNewInstructionIndex(objectSite));
+    Assert.assertEquals(2, ir.getNewInstructionIndex(stringSite));
+    Assert.assertSame(ir.getInstructions()[2], ir.getNew(stringSite));
+    List<NewSiteReference> sites = new ArrayList<>();
+    for (NewSiteReference site : Iterator2Iterable.make(ir.iterateNewSites())) {
+      sites.add(site);
+    }
+    Assert.assertEquals(Collections.singletonList(objectSite), sites);
+    Assert.assertSame(objectSite, sites.get(0));
+  }
+
+  @Test
+  public void testMissingSites() throws ClassHierarchyException, IOException {
+    IClassHierarchy cha = AnnotationTest.makeCHA();
+    IClass klass = cha.lookupClass(TypeReference.JavaLangObject);
+    IR ir = new AnalysisCacheImpl().getIR(klass.getMethod(MethodReference.initSelector));
+    NewSiteReference site = NewSiteReference.make(Integer.MAX_VALUE, TypeReference.JavaLangObject);
+    Assert.assertEquals(-1, ir.getNewInstructionIndex(site));
+    Assert.assertNull(ir.getNew(site));
+    Assert.assertNull(ir.getPEI(new ProgramCounter(Integer.MAX_VALUE)));
+  }
+}
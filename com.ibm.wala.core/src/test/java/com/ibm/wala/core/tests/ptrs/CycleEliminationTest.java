@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.ptrs;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationSystem;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.util.CancelException;
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Check that collapsing assignment cycles does not change the computed fixed point */
+public class CycleEliminationTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(CycleEliminationTest.class);
+  }
+
+  @Test
+  public void testRecursion()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    ParallelPropagationTest.checkSameSolution(
+        TestConstants.RECURSE_MAIN, options -> options.setUseCycleElimination(true));
+  }
+
+  @Test
+  public void testHashMap()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    ParallelPropagationTest.checkSameSolution(
+        "Ldemandpa/TestHashMapGet", options -> options.setUseCycleElimination(true));
+  }
+
+  @Test
+  public void testLinkedList()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    ParallelPropagationTest.checkSameSolution(
+        "Ldemandpa/TestLinkedListIter", options -> options.setUseCycleElimination(true));
+  }
+
+  @Test
+  public void testCopyCycle()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    ParallelPropagationTest.checkSameSolution(
+        "Lcycles/CopyCycle", options -> options.setUseCycleElimination(true));
+  }
+
+  @Test
+  public void testWithDifferencePropagation()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    ParallelPropagationTest.checkSameSolution(
+        "Lcycles/CopyCycle",
+        options -> {
+          options.setUseCycleElimination(true);
+          options.setUseDifferencePropagation(true);
+        });
+  }
+
+  /** check that some assignment cycles are actually collapsed */
+  @Test
+  public void testCyclesCollapsed()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(cha, "Lcycles/CopyCycle");
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    options.setUseCycleElimination(true);
+    PropagationCallGraphBuilder builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha);
+    builder.makeCallGraph(options, null);
+    PropagationSystem system = builder.getPropagationSystem();
+    int unified = 0;
+    for (PointerKey key : builder.getPointerAnalysis().getPointerKeys()) {
+      if (system.isUnified(key)) {
+        unified++;
+      }
+    }
+    Assert.assertTrue("expected some unified pointer keys", unified > 0);
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.ptrs;
+
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import java.io.IOException;
+import org.junit.Test;
+
+/** Check that difference propagation computes the same fixed point as full propagation */
+public class DeltaPropagationTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(DeltaPropagationTest.class);
+  }
+
+  @Test
+  public void testRecursion()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    ParallelPropagationTest.checkSameSolution(
+        TestConstants.RECURSE_MAIN, options -> options.setUseDifferencePropagation(true));
+  }
+
+  @Test
+  public void testHashMap()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    ParallelPropagationTest.checkSameSolution(
+        "Ldemandpa/TestHashMapGet", options -> options.setUseDifferencePropagation(true));
+  }
+
+  @Test
+  public void testLinkedList()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    ParallelPropagationTest.checkSameSolution(
+        "Ldemandpa/TestLinkedListIter", options -> options.setUseDifferencePropagation(true));
+  }
+
+  @Test
+  public void testWithParallelSolver()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    ParallelPropagationTest.checkSameSolution(
+        "Ldemandpa/TestHashMapGet",
+        options -> {
+          options.setUseDifferencePropagation(true);
+          options.setNumberOfSolverThreads(4);
+        });
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.ptrs;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysisImpl;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.cfa.ZeroXCFABuilder;
+import com.ibm.wala.ipa.callgraph.propagation.cfa.ZeroXInstanceKeys;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+import com.ibm.wala.util.intset.SparseIntSetRepository;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Check that freezing a pointer analysis keeps its points-to sets and shares equal ones */
+public class FrozenPointerAnalysisTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(FrozenPointerAnalysisTest.class);
+  }
+
+  /** @return a mapping from each pointer key to its points-to set, all rendered as strings */
+  private static Map<String, Set<String>> summarize(PointerAnalysisImpl pa) {
+    Map<String, Set<String>> result = HashMapFactory.make();
+    for (PointerKey pk : pa.getPointerKeys()) {
+      Set<String> instances = HashSetFactory.make();
+      for (InstanceKey ik : pa.getPointsToSet(pk)) {
+        instances.add(ik.toString());
+      }
+      result.computeIfAbsent(pk.toString(), k -> HashSetFactory.make()).addAll(instances);
+    }
+    return result;
+  }
+
+  @Test
+  public void testFreeze()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AnalysisOptions options =
+        CallGraphTestUtil.makeAnalysisOptions(
+            scope, Util.makeMainEntrypoints(cha, "Ldemandpa/TestHashMapGet"));
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha);
+    builder.makeCallGraph(options, null);
+    PointerAnalysisImpl pa = (PointerAnalysisImpl) builder.getPointerAnalysis();
+    Map<String, Set<String>> expected = summarize(pa);
+
+    Assert.assertFalse(pa.isFrozen());
+    SparseIntSetRepository repository = pa.freeze();
+    Assert.assertTrue(pa.isFrozen());
+    Assert.assertTrue(repository.getNumberOfSets() < repository.getNumberOfQueries());
+    Assert.assertTrue(repository.getSharingRatio() > 1.0);
+
+    Map<String, Set<String>> actual = summarize(pa);
+    Assert.assertEquals(expected.keySet(), actual.keySet());
+    for (Map.Entry<String, Set<String>> e : expected.entrySet()) {
+      Assert.assertEquals(e.getKey(), e.getValue(), actual.get(e.getKey()));
+    }
+
+    // each shared set serves some pointer key; implicit points-to sets are computed afresh
+    int sets = repository.getNumberOfSets();
+    Set<IntSet> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (PointerKey k : pa.getPointerKeys()) {
+      IntSet s = pa.getPointsToSet(k).getBackingSet();
+      if (s != null && repository.findOrCreate(s) == s) {
+        shared.add(s);
+      }
+    }
+    Assert.assertEquals(sets, shared.size());
+  }
+
+  /** once the contents of string constants are numbered, looking up points-to sets adds nothing */
+  @Test
+  public void testStringConstantContents()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AnalysisOptions options =
+        CallGraphTestUtil.makeAnalysisOptions(
+            scope, Util.makeMainEntrypoints(cha, "Lstring/SimpleStringOps"));
+    Util.addDefaultSelectors(options, cha);
+    CallGraphBuilder<InstanceKey> builder =
+        ZeroXCFABuilder.make(
+            Language.JAVA,
+            cha,
+            options,
+            new AnalysisCacheImpl(),
+            null,
+            null,
+            ZeroXInstanceKeys.ALLOCATIONS | ZeroXInstanceKeys.CONSTANT_SPECIFIC);
+    builder.makeCallGraph(options, null);
+    PointerAnalysisImpl pa = (PointerAnalysisImpl) builder.getPointerAnalysis();
+
+    int before = pa.getInstanceKeyMapping().getSize();
+    pa.addStringConstantContents();
+    int after = pa.getInstanceKeyMapping().getSize();
+    Assert.assertTrue(after > before);
+    summarize(pa);
+    Assert.assertEquals(after, pa.getInstanceKeyMapping().getSize());
+  }
+
+  @Test
+  public void testRepository() {
+    SparseIntSetRepository repository = new SparseIntSetRepository();
+    MutableSparseIntSet a = MutableSparseIntSet.make(MutableSparseIntSet.pair(3, 7));
+    MutableSparseIntSet b = MutableSparseIntSet.make(MutableSparseIntSet.pair(3, 7));
+    IntSet shared = repository.findOrCreate(a);
+    Assert.assertSame(shared, repository.findOrCreate(b));
+    Assert.assertTrue(shared.sameValue(a));
+    a.add(9);
+    Assert.assertNotSame(shared, repository.findOrCreate(a));
+    Assert.assertEquals(2, shared.size());
+    Assert.assertEquals(3, repository.getNumberOfQueries());
+    Assert.assertEquals(2, repository.getNumberOfSets());
+    Assert.assertEquals(7.0 / 5.0, repository.getSharingRatio(), 1e-9);
+  }
+}
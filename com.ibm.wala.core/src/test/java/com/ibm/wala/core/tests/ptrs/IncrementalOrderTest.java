@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.ptrs;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.fixpoint.IVariable;
+import com.ibm.wala.fixpoint.UnaryStatement;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationSystem;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.graph.INodeWithNumber;
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Check that maintaining the order of the pointer analysis constraints incrementally computes the
+ * same fixed point, and a valid order
+ */
+public class IncrementalOrderTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(IncrementalOrderTest.class);
+  }
+
+  @Test
+  public void testRecursion()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    ParallelPropagationTest.checkSameSolution(
+        TestConstants.RECURSE_MAIN, options -> options.setUseIncrementalOrder(true));
+  }
+
+  @Test
+  public void testHashMap()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    ParallelPropagationTest.checkSameSolution(
+        "Ldemandpa/TestHashMapGet", options -> options.setUseIncrementalOrder(true));
+  }
+
+  @Test
+  public void testWithCycleElimination()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    ParallelPropagationTest.checkSameSolution(
+        "Ldemandpa/TestLinkedListIter",
+        options -> {
+          options.setUseIncrementalOrder(true);
+          options.setUseCycleElimination(true);
+        });
+  }
+
+  /** check that no unary constraint goes against the order once the solver is done */
+  @Test
+  public void testOrder()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(cha, "Ldemandpa/TestHashMapGet");
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    options.setUseIncrementalOrder(true);
+    PropagationCallGraphBuilder builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha);
+    builder.makeCallGraph(options, null);
+    PropagationSystem system = builder.getPropagationSystem();
+    Assert.assertTrue(system.getUseIncrementalOrder());
+    int checked = 0;
+    for (INodeWithNumber n : Iterator2Iterable.make(system.getFixedPointSystem().getStatements())) {
+      if (n instanceof UnaryStatement && ((UnaryStatement<?>) n).getLHS() != null) {
+        UnaryStatement<?> s = (UnaryStatement<?>) n;
+        IVariable<?> lhs = s.getLHS();
+        IVariable<?> rhs = s.getRightHandSide();
+        Assert.assertTrue(s.toString(), rhs.getOrderNumber() <= lhs.getOrderNumber());
+        checked++;
+      }
+    }
+    Assert.assertTrue(checked > 0);
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.core.tests.ptrs;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Consumer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Check that the parallel points-to solver computes the same fixed point as the sequential one */
+public class ParallelPropagationTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(ParallelPropagationTest.class);
+  }
+
+  private static final int THREADS = 4;
+
+  @Test
+  public void testRecursion()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    checkSameSolution(
+        TestConstants.RECURSE_MAIN, options -> options.setNumberOfSolverThreads(THREADS));
+  }
+
+  @Test
+  public void testHashMap()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    checkSameSolution(
+        "Ldemandpa/TestHashMapGet", options -> options.setNumberOfSolverThreads(THREADS));
+  }
+
+  @Test
+  public void testLinkedList()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    checkSameSolution(
+        "Ldemandpa/TestLinkedListIter", options -> options.setNumberOfSolverThreads(THREADS));
+  }
+
+  /** check that the solver does not leave the threads of its pool behind */
+  @Test
+  public void testNoThreadsLeft()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException,
+          InterruptedException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(cha, "Ldemandpa/TestHashMapGet");
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    options.setNumberOfSolverThreads(THREADS);
+    Set<Thread> before = Thread.getAllStackTraces().keySet();
+    solve(options, cha);
+    for (Thread t : Thread.getAllStackTraces().keySet()) {
+      if (!before.contains(t) && t instanceof ForkJoinWorkerThread) {
+        t.join(10000);
+        Assert.assertFalse(t.getName(), t.isAlive());
+      }
+    }
+  }
+
+  /**
+   * Build a 0-1-CFA call graph for mainClass with default options and with the options configured
+   * by variant, and check that both builds reach the same call graph and points-to sets.
+   */
+  public static void checkSameSolution(String mainClass, Consumer<AnalysisOptions> variant)
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope =
+        CallGraphTestUtil.makeJ2SEAnalysisScope(
+            TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(cha, mainClass);
+
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    Map<String, Set<String>> expected = solve(options, cha);
+
+    options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    variant.accept(options);
+    Map<String, Set<String>> actual = solve(options, cha);
+
+    Assert.assertEquals(expected.keySet(), actual.keySet());
+    for (Map.Entry<String, Set<String>> e : expected.entrySet()) {
+      Assert.assertEquals(e.getKey(), e.getValue(), actual.get(e.getKey()));
+    }
+  }
+
+  /**
+   * @return a mapping from each call graph node and pointer key, rendered as a string, to its
+   *     callees or points-to set, also rendered as strings
+   */
+  private static Map<String, Set<String>> solve(AnalysisOptions options, ClassHierarchy cha)
+      throws IllegalArgumentException, CancelException {
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    PointerAnalysis<InstanceKey> pa = builder.getPointerAnalysis();
+
+    Map<String, Set<String>> result = HashMapFactory.make();
+    for (CGNode n : cg) {
+      Set<String> callees = HashSetFactory.make();
+      for (CGNode s : Iterator2Iterable.make(cg.getSuccNodes(n))) {
+        callees.add(s.toString());
+      }
+      result.computeIfAbsent(n.toString(), k -> HashSetFactory.make()).addAll(callees);
+    }
+    for (PointerKey pk : pa.getPointerKeys()) {
+      Set<String> instances = HashSetFactory.make();
+      for (InstanceKey ik : pa.getPointsToSet(pk)) {
+        instances.add(ik.toString());
+      }
+      result.computeIfAbsent(pk.toString(), k -> HashSetFactory.make()).addAll(instances);
+    }
+    return result;
+  }
+}
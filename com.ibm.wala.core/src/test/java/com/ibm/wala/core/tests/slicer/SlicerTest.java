@@ -16,6 +16,8 @@ import com.ibm.wala.core.tests.util.TestConstants;
 import com.ibm.wala.core.util.config.AnalysisScopeReader;
 import com.ibm.wala.core.util.io.FileProvider;
 import com.ibm.wala.core.util.strings.Atom;
+import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationSolver;
+import com.ibm.wala.dataflow.IFDS.SummaryCache;
 import com.ibm.wala.examples.drivers.PDFSlice;
 import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
 import com.ibm.wala.ipa.callgraph.AnalysisOptions;
@@ -44,6 +46,7 @@ import com.ibm.wala.ipa.slicer.HeapStatement.HeapReturnCaller;
 import com.ibm.wala.ipa.slicer.MethodEntryStatement;
 import com.ibm.wala.ipa.slicer.NormalReturnCaller;
 import com.ibm.wala.ipa.slicer.NormalStatement;
+import com.ibm.wala.ipa.slicer.PDG;
 import com.ibm.wala.ipa.slicer.SDG;
 import com.ibm.wala.ipa.slicer.Slicer;
 import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
@@ -51,19 +54,25 @@ import com.ibm.wala.ipa.slicer.Slicer.DataDependenceOptions;
 import com.ibm.wala.ipa.slicer.SlicerUtil;
 import com.ibm.wala.ipa.slicer.Statement;
 import com.ibm.wala.ipa.slicer.thin.ThinSlicer;
+import com.ibm.wala.ssa.SSAInstruction;
 import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.types.Descriptor;
 import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Collection;
 import com.ibm.wala.util.config.FileOfClasses;
 import com.ibm.wala.util.graph.GraphIntegrity;
 import com.ibm.wala.util.graph.GraphIntegrity.UnsoundGraphException;
 import com.ibm.wala.util.io.FileUtil;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.junit.AfterClass;
 import org.junit.Assert;
@@ -1111,4 +1120,233 @@ public class SlicerTest {
     // returns for Integer.valueOf() and getInt()
     Assert.assertEquals(2, inMain.stream().filter(st -> st instanceof NormalReturnCaller).count());
   }
+
+  /** Slicing with several threads should find the same statements as slicing with one. */
+  @Test
+  public void testParallelSlice()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = findOrCreateAnalysisScope();
+
+    IClassHierarchy cha = findOrCreateCHA(scope);
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(cha, TestConstants.SLICE1_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha);
+    CallGraph cg = builder.makeCallGraph(options, null);
+
+    CGNode main = CallGraphSearchUtil.findMainMethod(cg);
+
+    Statement s = SlicerUtil.findCallTo(main, "println");
+    final PointerAnalysis<InstanceKey> pointerAnalysis = builder.getPointerAnalysis();
+    for (ControlDependenceOptions cOptions :
+        new ControlDependenceOptions[] {
+          ControlDependenceOptions.NONE, ControlDependenceOptions.FULL
+        }) {
+      for (boolean backward : new boolean[] {true, false}) {
+        Collection<Statement> expected =
+            new Slicer()
+                .slice(
+                    new SDG<>(cg, pointerAnalysis, DataDependenceOptions.FULL, cOptions),
+                    Collections.singleton(s),
+                    backward);
+        Slicer slicer = new Slicer();
+        slicer.setNumberOfThreads(4);
+        Collection<Statement> actual =
+            slicer.slice(
+                new SDG<>(cg, pointerAnalysis, DataDependenceOptions.FULL, cOptions),
+                Collections.singleton(s),
+                backward);
+        Assert.assertEquals(expected, actual);
+      }
+    }
+  }
+
+  @Test
+  public void testParallelSDG()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = findOrCreateAnalysisScope();
+
+    IClassHierarchy cha = findOrCreateCHA(scope);
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(cha, TestConstants.SLICE1_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha);
+    CallGraph cg = builder.makeCallGraph(options, null);
+
+    SDG<InstanceKey> expected =
+        new SDG<>(
+            cg,
+            builder.getPointerAnalysis(),
+            DataDependenceOptions.FULL,
+            ControlDependenceOptions.FULL);
+    SDG<InstanceKey> actual =
+        new SDG<>(
+            cg,
+            builder.getPointerAnalysis(),
+            DataDependenceOptions.FULL,
+            ControlDependenceOptions.FULL);
+    actual.setNumberOfThreads(4);
+    Assert.assertEquals(expected.getNumberOfNodes(), actual.getNumberOfNodes());
+    for (Statement s : expected) {
+      Assert.assertEquals(
+          Iterator2Collection.toSet(expected.getSuccNodes(s)),
+          Iterator2Collection.toSet(actual.getSuccNodes(s)));
+    }
+  }
+
+  @Test
+  public void testSliceWithHeapBudget()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = findOrCreateAnalysisScope();
+
+    IClassHierarchy cha = findOrCreateCHA(scope);
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(cha, TestConstants.SLICE1_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha);
+    CallGraph cg = builder.makeCallGraph(options, null);
+
+    CGNode main = CallGraphSearchUtil.findMainMethod(cg);
+
+    Statement s = SlicerUtil.findCallTo(main, "println");
+    SDG<InstanceKey> sdg =
+        new SDG<>(
+            cg,
+            builder.getPointerAnalysis(),
+            DataDependenceOptions.FULL,
+            ControlDependenceOptions.FULL);
+    Collection<Statement> expected = new Slicer().slice(sdg, Collections.singleton(s), false);
+
+    // with no heap to spare, idle path edges are spilled at every check
+    PartiallyBalancedTabulationSolver<Statement, PDG<?>, Object> solver =
+        PartiallyBalancedTabulationSolver.createPartiallyBalancedTabulationSolver(
+            new Slicer.SliceProblem(Collections.singleton(s), sdg, false), null);
+    solver.setHeapBudget(0);
+    Collection<Statement> actual = solver.solve().getSupergraphNodesReached();
+    Assert.assertTrue(solver.getNumberOfSpilledPathEdges() > 0);
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void testSliceEach()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = findOrCreateAnalysisScope();
+
+    IClassHierarchy cha = findOrCreateCHA(scope);
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(cha, TestConstants.SLICE1_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha);
+    CallGraph cg = builder.makeCallGraph(options, null);
+
+    CGNode main = CallGraphSearchUtil.findMainMethod(cg);
+
+    Collection<Statement> criteria = HashSetFactory.make();
+    criteria.add(SlicerUtil.findCallTo(main, "println"));
+    SSAInstruction[] instructions = main.getIR().getInstructions();
+    for (int i = 0; i < instructions.length && criteria.size() < 5; i++) {
+      if (instructions[i] != null) {
+        criteria.add(new NormalStatement(main, i));
+      }
+    }
+    SDG<InstanceKey> sdg =
+        new SDG<>(
+            cg,
+            builder.getPointerAnalysis(),
+            DataDependenceOptions.FULL,
+            ControlDependenceOptions.FULL);
+    for (boolean backward : new boolean[] {true, false}) {
+      Map<Statement, Collection<Statement>> slices =
+          new Slicer().sliceEach(sdg, criteria, backward);
+      Assert.assertEquals(criteria, slices.keySet());
+      for (Statement s : criteria) {
+        Assert.assertEquals(
+            new Slicer().slice(sdg, Collections.singleton(s), backward), slices.get(s));
+      }
+    }
+  }
+
+  private static boolean isPrimordial(PDG<?> pdg) {
+    return pdg.getCallGraphNode()
+        .getMethod()
+        .getDeclaringClass()
+        .getClassLoader()
+        .getReference()
+        .equals(ClassLoaderReference.Primordial);
+  }
+
+  @Test
+  public void testSliceWithSummaryCache()
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = findOrCreateAnalysisScope();
+
+    IClassHierarchy cha = findOrCreateCHA(scope);
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(cha, TestConstants.SLICE1_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha);
+    CallGraph cg = builder.makeCallGraph(options, null);
+
+    CGNode main = CallGraphSearchUtil.findMainMethod(cg);
+
+    Statement s = SlicerUtil.findCallTo(main, "println");
+    SDG<InstanceKey> sdg =
+        new SDG<>(
+            cg,
+            builder.getPointerAnalysis(),
+            DataDependenceOptions.FULL,
+            ControlDependenceOptions.FULL);
+    PartiallyBalancedTabulationSolver<Statement, PDG<?>, Object> solver =
+        PartiallyBalancedTabulationSolver.createPartiallyBalancedTabulationSolver(
+            new Slicer.SliceProblem(Collections.singleton(s), sdg, false), null);
+    Collection<Statement> expected = solver.solve().getSupergraphNodesReached();
+
+    // summarize the library, and save the summaries
+    SummaryCache<PDG<?>, Object> cache =
+        new SummaryCache<>(pdg -> pdg.getCallGraphNode().toString());
+    Assert.assertTrue(cache.record(solver, SlicerTest::isPrimordial) > 0);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    cache.write(bytes);
+
+    // slice again over a new SDG, without entering the summarized procedures
+    sdg =
+        new SDG<>(
+            cg,
+            builder.getPointerAnalysis(),
+            DataDependenceOptions.FULL,
+            ControlDependenceOptions.FULL);
+    solver =
+        PartiallyBalancedTabulationSolver.createPartiallyBalancedTabulationSolver(
+            new Slicer.SliceProblem(Collections.singleton(s), sdg, false), null);
+    solver.setSummaryCache(
+        SummaryCache.read(
+            new ByteArrayInputStream(bytes.toByteArray()),
+            pdg -> pdg.getCallGraphNode().toString()));
+    Collection<Statement> actual = solver.solve().getSupergraphNodesReached();
+
+    Assert.assertTrue(actual.size() < expected.size());
+    Set<Statement> expectedInClient = HashSetFactory.make();
+    for (Statement st : expected) {
+      if (!isPrimordial(sdg.getPDG(st.getNode()))) {
+        expectedInClient.add(st);
+      }
+    }
+    Set<Statement> actualInClient = HashSetFactory.make();
+    for (Statement st : actual) {
+      if (!isPrimordial(sdg.getPDG(st.getNode()))) {
+        actualInClient.add(st);
+      }
+    }
+    Assert.assertEquals(expectedInClient, actualInClient);
+  }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.examples.analysis;
+
+import static com.ibm.wala.examples.analysis.TimingUtil.time;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.util.config.AnalysisScopeReader;
+import com.ibm.wala.core.util.io.FileProvider;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.slicer.NormalStatement;
+import com.ibm.wala.ipa.slicer.SDG;
+import com.ibm.wala.ipa.slicer.Slicer;
+import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
+import com.ibm.wala.ipa.slicer.Slicer.DataDependenceOptions;
+import com.ibm.wala.ipa.slicer.Statement;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.util.config.FileOfClasses;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times {@link Slicer#sliceEach(SDG, Collection, boolean)} against a loop slicing from each
+ * criterion in turn, on the main class given as the second command-line argument in the jar given
+ * as the first. The criteria are the first statements of the application methods, as many as the
+ * optional third argument (100 by default). This reports the best time of a few runs of forward
+ * slices over one SDG, and checks that both find the same slices.
+ *
+ * <p>The runs are timed with {@link TimingUtil}, which needs a HotSpot JVM.
+ */
+public class BatchSliceTiming {
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      System.err.println("usage: BatchSliceTiming <jar> <main class> [number of criteria]");
+      System.exit(1);
+    }
+    AnalysisScope scope =
+        AnalysisScopeReader.instance.makeJavaBinaryAnalysisScope(
+            args[0], new FileProvider().getFile(CallGraphTestUtil.REGRESSION_EXCLUSIONS));
+    // as in SlicerTest, also exclude java.security to avoid blowup during slicing
+    String exclusions =
+        new String(
+                Files.readAllBytes(
+                    new FileProvider().getFile(CallGraphTestUtil.REGRESSION_EXCLUSIONS).toPath()),
+                "UTF-8")
+            + "java\\/security\\/.*\n";
+    scope.setExclusions(new FileOfClasses(new ByteArrayInputStream(exclusions.getBytes("UTF-8"))));
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AnalysisOptions options =
+        CallGraphTestUtil.makeAnalysisOptions(scope, Util.makeMainEntrypoints(cha, args[1]));
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha);
+    CallGraph cg = builder.makeCallGraph(options, null);
+
+    int max = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+    List<Statement> criteria = new ArrayList<>();
+    for (CGNode node : cg) {
+      IR ir = node.getIR();
+      if (ir == null
+          || !node.getMethod()
+              .getDeclaringClass()
+              .getClassLoader()
+              .getReference()
+              .equals(ClassLoaderReference.Application)) {
+        continue;
+      }
+      SSAInstruction[] instructions = ir.getInstructions();
+      for (int i = 0; i < instructions.length && criteria.size() < max; i++) {
+        if (instructions[i] != null) {
+          criteria.add(new NormalStatement(node, i));
+        }
+      }
+    }
+
+    SDG<InstanceKey> sdg =
+        new SDG<>(
+            cg,
+            builder.getPointerAnalysis(),
+            DataDependenceOptions.FULL,
+            ControlDependenceOptions.FULL);
+    // build the PDGs before timing
+    sdg.getNumberOfNodes();
+
+    System.out.println(criteria.size() + " criteria");
+    long[] size = new long[1];
+    time(
+        "per-criterion",
+        () -> {
+          size[0] = 0;
+          for (Statement s : criteria) {
+            size[0] += new Slicer().slice(sdg, Collections.singleton(s), false).size();
+          }
+        });
+    report(size[0]);
+
+    time("batched", () -> new Slicer().sliceEach(sdg, criteria, false));
+    Map<Statement, Collection<Statement>> slices = new Slicer().sliceEach(sdg, criteria, false);
+    size[0] = 0;
+    for (Collection<Statement> slice : slices.values()) {
+      size[0] += slice.size();
+    }
+    report(size[0]);
+
+    for (Statement s : criteria) {
+      if (!new Slicer().slice(sdg, Collections.singleton(s), false).equals(slices.get(s))) {
+        System.err.println("slices differ for " + s);
+        System.exit(1);
+      }
+    }
+  }
+
+  private static void report(long size) {
+    System.out.printf("%34s %10d statements in slices%n", "", size);
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.examples.analysis;
+
+import static com.ibm.wala.examples.analysis.TimingUtil.time;
+
+import com.ibm.wala.core.util.config.AnalysisScopeReader;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.SeqClassHierarchyFactory;
+
+/**
+ * Times the construction of the class hierarchy of the primordial scope, i.e. of the runtime
+ * library of the running JDK (its module image on Java 9 and later), with {@link
+ * SeqClassHierarchyFactory} and with {@link ClassHierarchyFactory#makeParallel(AnalysisScope, int)}
+ * for 1, 2, 4, ... up to the number of processors (or the first command-line argument) threads.
+ *
+ * <p>The runs are timed with {@link TimingUtil}; for the parallel builds, the bytes reported are
+ * those allocated by the calling thread only.
+ */
+public class ClassHierarchyTiming {
+
+  public static void main(String[] args) throws Exception {
+    int maxThreads =
+        args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+    System.out.println("available processors: " + Runtime.getRuntime().availableProcessors());
+    AnalysisScope scope = AnalysisScopeReader.instance.makePrimordialScope(null);
+
+    // warm up the file system cache and the JIT
+    System.out.println(SeqClassHierarchyFactory.make(scope).getNumberOfClasses() + " classes");
+
+    time("sequential", () -> SeqClassHierarchyFactory.make(scope));
+    for (int threads = 1; threads <= maxThreads; threads *= 2) {
+      int n = threads;
+      time(n + " threads", () -> ClassHierarchyFactory.makeParallel(scope, n));
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.examples.analysis;
+
+import static com.ibm.wala.examples.analysis.TimingUtil.time;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.util.config.AnalysisScopeReader;
+import com.ibm.wala.core.util.io.FileProvider;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.util.graph.GraphUtil;
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.impl.CompactNumberedGraph;
+import com.ibm.wala.util.graph.traverse.BFSIterator;
+import com.ibm.wala.util.graph.traverse.DFS;
+import com.ibm.wala.util.graph.traverse.SCCIterator;
+import java.util.Iterator;
+
+/**
+ * Compares traversals of a graph with traversals of its {@link CompactNumberedGraph} copy, for the
+ * 0-1-CFA call graph and the points-to assignment graph of the main class given as the second
+ * command-line argument in the jar given as the first.
+ *
+ * <p>The traversals are timed with {@link TimingUtil}, which needs a HotSpot JVM.
+ */
+public class CompactGraphTiming {
+
+  /** the number of nodes visited, so that the traversals are not optimized away */
+  private static long sink;
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      System.err.println("usage: CompactGraphTiming <jar> <main class>");
+      System.exit(1);
+    }
+    AnalysisScope scope =
+        AnalysisScopeReader.instance.makeJavaBinaryAnalysisScope(
+            args[0], new FileProvider().getFile(CallGraphTestUtil.REGRESSION_EXCLUSIONS));
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AnalysisOptions options =
+        CallGraphTestUtil.makeAnalysisOptions(scope, Util.makeMainEntrypoints(cha, args[1]));
+    SSAPropagationCallGraphBuilder builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha);
+    CallGraph cg = builder.makeCallGraph(options, null);
+
+    compare("call graph", cg);
+    compare("assignments", builder.getPropagationSystem().getAssignmentGraph());
+  }
+
+  private static <T> void compare(String name, NumberedGraph<T> G) throws Exception {
+    System.out.printf(
+        "%s: %d nodes, %d edges%n", name, G.getNumberOfNodes(), GraphUtil.countEdges(G));
+    time("freeze", () -> sink += GraphUtil.freeze(G).getNumberOfNodes());
+    NumberedGraph<T> frozen = GraphUtil.freeze(G);
+    time("original", () -> traverse(G));
+    time("compact", () -> traverse(frozen));
+  }
+
+  /** DFS, BFS and SCC traversals of G */
+  private static <T> void traverse(NumberedGraph<T> G) {
+    for (Iterator<T> it = DFS.iterateFinishTime(G); it.hasNext(); ) {
+      it.next();
+      sink++;
+    }
+    for (Iterator<T> it = new BFSIterator<>(G); it.hasNext(); ) {
+      it.next();
+      sink++;
+    }
+    for (Iterator<?> it = new SCCIterator<>(G); it.hasNext(); ) {
+      it.next();
+      sink++;
+    }
+  }
+}
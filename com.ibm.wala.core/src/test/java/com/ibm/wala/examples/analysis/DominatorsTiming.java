@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.examples.analysis;
+
+import static com.ibm.wala.examples.analysis.TimingUtil.time;
+
+import com.ibm.wala.cfg.ShrikeCFG;
+import com.ibm.wala.classLoader.IBytecodeMethod;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.core.util.config.AnalysisScopeReader;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.shrike.shrikeBT.IInstruction;
+import com.ibm.wala.util.graph.dominators.DominanceFrontiers;
+import com.ibm.wala.util.graph.dominators.Dominators;
+import com.ibm.wala.util.graph.dominators.GenericDominators;
+import com.ibm.wala.util.graph.dominators.NumberedDominators;
+import com.ibm.wala.util.graph.impl.GraphInverter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times the computation of dominators, post-dominators and dominance frontiers for the CFG of every
+ * method of the runtime library of the running JDK, with the Lengauer-Tarjan {@link
+ * GenericDominators} and with {@link NumberedDominators}. The first command-line argument, if any,
+ * limits the number of methods.
+ *
+ * <p>The runs are timed with {@link TimingUtil}, which needs a HotSpot JVM.
+ */
+public class DominatorsTiming {
+
+  public static void main(String[] args) throws Exception {
+    int limit = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+    AnalysisScope scope = AnalysisScopeReader.instance.makePrimordialScope(null);
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+
+    List<ShrikeCFG> cfgs = new ArrayList<>();
+    int blocks = 0;
+    collect:
+    for (IClass c : cha) {
+      for (IMethod m : c.getDeclaredMethods()) {
+        if (cfgs.size() == limit) {
+          break collect;
+        }
+        if (m instanceof IBytecodeMethod && !m.isAbstract() && !m.isNative()) {
+          @SuppressWarnings("unchecked")
+          ShrikeCFG cfg = ShrikeCFG.make((IBytecodeMethod<IInstruction>) m);
+          cfgs.add(cfg);
+          blocks += cfg.getNumberOfNodes();
+        }
+      }
+    }
+    System.out.println(cfgs.size() + " methods, " + blocks + " basic blocks");
+
+    time(
+        "Lengauer-Tarjan",
+        () -> {
+          for (ShrikeCFG cfg : cfgs) {
+            new DominanceFrontiers<>(cfg, new GenericDominators<>(cfg, cfg.entry()));
+            new GenericDominators<>(GraphInverter.invert(cfg), cfg.exit());
+          }
+        });
+    time(
+        "semi-NCA",
+        () -> {
+          for (ShrikeCFG cfg : cfgs) {
+            new DominanceFrontiers<>(cfg, cfg.entry());
+            Dominators.makePostDominators(cfg, cfg.exit());
+          }
+        });
+  }
+}
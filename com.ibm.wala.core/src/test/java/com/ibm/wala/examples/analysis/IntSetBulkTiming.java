@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.examples.analysis;
+
+import static com.ibm.wala.examples.analysis.TimingUtil.time;
+
+import com.ibm.wala.util.intset.BitVectorIntSet;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableIntSet;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+import java.util.Random;
+
+/**
+ * Compares the bulk {@link IntSet} operations {@link IntSet#copyInto}, {@link
+ * MutableIntSet#addAllWithDelta} and {@link MutableIntSet#addAllInIntersection} with the code they
+ * replace, for bit vector and sparse sets, reporting the time and bytes allocated. If a jar and a
+ * main class are given, also reports the same for a 0-1-CFA call graph built with difference
+ * propagation, which records its deltas with {@link MutableIntSet#addAllWithDelta}.
+ *
+ * <p>The runs are timed with {@link TimingUtil}, which needs a HotSpot JVM.
+ */
+public class IntSetBulkTiming {
+
+  private static final int SETS = 2000;
+
+  private static final int RANGE = 20000;
+
+  /** the result of the last run, so that it is not optimized away */
+  private static long sink;
+
+  private interface Maker {
+    MutableIntSet make();
+  }
+
+  public static void main(String[] args) throws Exception {
+    compare("bit vector", BitVectorIntSet::new);
+    compare("sparse", MutableSparseIntSet::makeEmpty);
+    if (args.length >= 2) {
+      TimingUtil.callGraph(
+          "0-1-CFA, difference propagation",
+          args[0],
+          args[1],
+          options -> options.setUseDifferencePropagation(true));
+    }
+  }
+
+  private static MutableIntSet[] randomSets(Random random, Maker maker, int elements) {
+    MutableIntSet[] result = new MutableIntSet[SETS];
+    for (int i = 0; i < SETS; i++) {
+      result[i] = maker.make();
+      for (int j = 0; j < elements; j++) {
+        result[i].add(random.nextInt(RANGE));
+      }
+    }
+    return result;
+  }
+
+  private static void compare(String name, Maker maker) throws Exception {
+    Random random = new Random(19);
+    MutableIntSet[] sets = randomSets(random, maker, 200);
+    MutableIntSet[] filters = randomSets(random, maker, 2000);
+    System.out.println(name + ":");
+
+    time(
+        "foreach",
+        () -> {
+          long[] sum = new long[1];
+          for (IntSet s : sets) {
+            s.foreach(i -> sum[0] += i);
+          }
+          sink += sum[0];
+        });
+    time(
+        "intIterator",
+        () -> {
+          for (IntSet s : sets) {
+            for (IntIterator it = s.intIterator(); it.hasNext(); ) {
+              sink += it.next();
+            }
+          }
+        });
+    int[] buffer = new int[RANGE];
+    time(
+        "copyInto",
+        () -> {
+          for (IntSet s : sets) {
+            int n = s.copyInto(buffer);
+            for (int i = 0; i < n; i++) {
+              sink += buffer[i];
+            }
+          }
+        });
+
+    time(
+        "foreachExcluding+addAll",
+        () -> {
+          MutableIntSet target = maker.make();
+          MutableIntSet delta = maker.make();
+          for (IntSet s : sets) {
+            s.foreachExcluding(target, delta::add);
+            target.addAll(s);
+          }
+          sink += delta.size();
+        });
+    time(
+        "addAllWithDelta",
+        () -> {
+          MutableIntSet target = maker.make();
+          MutableIntSet delta = maker.make();
+          for (IntSet s : sets) {
+            target.addAllWithDelta(s, delta);
+          }
+          sink += delta.size();
+        });
+
+    time(
+        "copy+intersect+addAll",
+        () -> {
+          MutableIntSet target = maker.make();
+          for (int i = 0; i < SETS; i++) {
+            BitVectorIntSet o = new BitVectorIntSet(sets[i]);
+            o.intersectWith(filters[i]);
+            target.addAll(o);
+          }
+          sink += target.size();
+        });
+    time(
+        "addAllInIntersection",
+        () -> {
+          MutableIntSet target = maker.make();
+          for (int i = 0; i < SETS; i++) {
+            target.addAllInIntersection(sets[i], filters[i]);
+          }
+          sink += target.size();
+        });
+  }
+}
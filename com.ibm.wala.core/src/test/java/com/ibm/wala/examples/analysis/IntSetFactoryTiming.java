@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.examples.analysis;
+
+import static com.ibm.wala.examples.analysis.TimingUtil.time;
+
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.util.config.AnalysisScopeReader;
+import com.ibm.wala.core.util.io.FileProvider;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.util.intset.BitVectorIntSetFactory;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.IntSetUtil;
+import com.ibm.wala.util.intset.MutableIntSet;
+import com.ibm.wala.util.intset.MutableIntSetFactory;
+import com.ibm.wala.util.intset.MutableSharedBitVectorIntSetFactory;
+import com.ibm.wala.util.intset.MutableSparseIntSetFactory;
+import com.ibm.wala.util.intset.OrdinalSet;
+import com.ibm.wala.util.intset.RoaringIntSetFactory;
+import com.ibm.wala.util.intset.SemiSparseMutableIntSetFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the {@link MutableIntSetFactory}s for points-to sets, on a 0-1-container-CFA of the main
+ * class given as the second command-line argument in the jar given as the first.
+ *
+ * <p>For each factory, this reports the time to build the call graph with that factory as the
+ * default, and then replays a trace of the points-to sets of the first call graph: it builds all of
+ * them, reports the heap they take, and times {@code addAll}, {@code intersection}, {@code
+ * containsAny} and {@link IntSetUtil#diff(IntSet, IntSet)} on random pairs of them. With a third
+ * argument k, every element of the trace is multiplied by k, to mimic the sparser numbering of
+ * instance keys in a larger program.
+ *
+ * <p>The runs are timed with {@link TimingUtil}, which needs a HotSpot JVM.
+ */
+public class IntSetFactoryTiming {
+
+  private static final int PAIRS = 200_000;
+
+  /** the results of the last run, so that they are not optimized away */
+  private static long sink;
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      System.err.println("usage: IntSetFactoryTiming <jar> <main class> [spread]");
+      System.exit(1);
+    }
+    int spread = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+    AnalysisScope scope =
+        AnalysisScopeReader.instance.makeJavaBinaryAnalysisScope(
+            args[0], new FileProvider().getFile(CallGraphTestUtil.REGRESSION_EXCLUSIONS));
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AnalysisOptions options =
+        CallGraphTestUtil.makeAnalysisOptions(scope, Util.makeMainEntrypoints(cha, args[1]));
+
+    Map<String, MutableIntSetFactory<?>> factories = new LinkedHashMap<>();
+    factories.put("shared bit vector", new MutableSharedBitVectorIntSetFactory());
+    factories.put("sparse", new MutableSparseIntSetFactory());
+    factories.put("semi-sparse", new SemiSparseMutableIntSetFactory());
+    factories.put("bit vector", new BitVectorIntSetFactory());
+    factories.put("roaring", new RoaringIntSetFactory());
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneContainerCFABuilder(options, new AnalysisCacheImpl(), cha);
+    builder.makeCallGraph(options, null);
+    List<int[]> trace = capture(builder.getPointerAnalysis(), spread);
+    System.out.println("trace: " + trace.size() + " points-to sets");
+
+    MutableIntSetFactory<?> save = IntSetUtil.getDefaultIntSetFactory();
+    try {
+      for (Map.Entry<String, MutableIntSetFactory<?>> e : factories.entrySet()) {
+        IntSetUtil.setDefaultIntSetFactory(e.getValue());
+        time(
+            e.getKey() + ": call graph",
+            () ->
+                Util.makeZeroOneContainerCFABuilder(options, new AnalysisCacheImpl(), cha)
+                    .makeCallGraph(options, null));
+      }
+    } finally {
+      IntSetUtil.setDefaultIntSetFactory(save);
+    }
+
+    for (Map.Entry<String, MutableIntSetFactory<?>> e : factories.entrySet()) {
+      replay(e.getKey(), e.getValue(), trace);
+    }
+  }
+
+  /** @return the non-empty points-to sets of pa, with each element multiplied by spread */
+  private static List<int[]> capture(PointerAnalysis<InstanceKey> pa, int spread) {
+    List<int[]> result = new ArrayList<>();
+    for (PointerKey k : pa.getPointerKeys()) {
+      OrdinalSet<InstanceKey> s = pa.getPointsToSet(k);
+      if (s.getBackingSet() != null && !s.isEmpty()) {
+        int[] elements = new int[s.size()];
+        int[] n = {0};
+        s.getBackingSet().foreach(x -> elements[n[0]++] = x * spread);
+        result.add(elements);
+      }
+    }
+    return result;
+  }
+
+  private static long usedMemory() {
+    Runtime r = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return r.totalMemory() - r.freeMemory();
+  }
+
+  private static void replay(String name, MutableIntSetFactory<?> factory, List<int[]> trace)
+      throws Exception {
+    long before = usedMemory();
+    MutableIntSet[] sets = new MutableIntSet[trace.size()];
+    for (int i = 0; i < sets.length; i++) {
+      sets[i] = factory.make(trace.get(i));
+    }
+    long bytes = usedMemory() - before;
+
+    Random random = new Random(1);
+    int[] pairs = new int[2 * PAIRS];
+    for (int i = 0; i < pairs.length; i++) {
+      pairs[i] = random.nextInt(sets.length);
+    }
+    System.out.printf("%s: %d bytes%n", name, bytes);
+    time(
+        "copy+addAll",
+        () -> {
+          for (int i = 0; i < pairs.length; i += 2) {
+            MutableIntSet s = factory.makeCopy(sets[pairs[i]]);
+            sink += s.addAll(sets[pairs[i + 1]]) ? 1 : 0;
+          }
+        });
+    time(
+        "intersection",
+        () -> {
+          for (int i = 0; i < pairs.length; i += 2) {
+            sink += sets[pairs[i]].intersection(sets[pairs[i + 1]]).size();
+          }
+        });
+    time(
+        "containsAny",
+        () -> {
+          for (int i = 0; i < pairs.length; i += 2) {
+            sink += sets[pairs[i]].containsAny(sets[pairs[i + 1]]) ? 1 : 0;
+          }
+        });
+    time(
+        "diff",
+        () -> {
+          for (int i = 0; i < pairs.length; i += 2) {
+            sink += IntSetUtil.diff(sets[pairs[i]], sets[pairs[i + 1]], factory).size();
+          }
+        });
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.examples.analysis;
+
+import static com.ibm.wala.examples.analysis.TimingUtil.time;
+
+import com.ibm.wala.core.util.strings.Atom;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.FieldReference;
+import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.types.TypeReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A micro-benchmark for contention on the dictionaries which canonicalize {@link Atom}s, {@link
+ * TypeReference}s and member references, as when classes are read by several threads at once.
+ *
+ * <p>For 1, 2, 4, ... up to 32 threads (or the first command-line argument), each thread looks up
+ * the same names the same number of times, and the time for all threads and the throughput is
+ * reported. Most lookups find an existing entry, as they do when reading class files.
+ *
+ * <p>The runs are timed with {@link TimingUtil}; the bytes it reports are those allocated by the
+ * calling thread only, i.e. hardly any.
+ */
+public class InternContention {
+
+  private static final int NAMES = 20000;
+
+  private static final int ROUNDS = 20;
+
+  /** the seed of the last run, so that each run makes new names of its own */
+  private static int seed;
+
+  public static void main(String[] args) throws Exception {
+    int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+    System.out.println("available processors: " + Runtime.getRuntime().availableProcessors());
+    // warm up the dictionaries and the JIT
+    run(1, 0);
+    long[] lookups = new long[1];
+    for (int threads = 1; threads <= maxThreads; threads *= 2) {
+      int n = threads;
+      time(n + " threads", () -> lookups[0] = run(n, ++seed));
+      System.out.printf("%34s %10d lookups%n", "", lookups[0]);
+    }
+  }
+
+  /** @return the number of lookups performed */
+  private static long run(int threads, int seed) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Long>> results = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        results.add(pool.submit(() -> lookup(seed)));
+      }
+      long total = 0;
+      for (Future<Long> f : results) {
+        total += f.get();
+      }
+      return total;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static long lookup(int seed) {
+    long n = 0;
+    for (int r = 0; r < ROUNDS; r++) {
+      for (int i = 0; i < NAMES; i++) {
+        // a new name every round for a few names, existing ones otherwise
+        String suffix = (i % 100 == 0) ? "_" + seed + '_' + r : "";
+        TypeReference t =
+            TypeReference.findOrCreate(ClassLoaderReference.Application, "Lbench/C" + i + suffix);
+        Atom name = Atom.findOrCreateUnicodeAtom("m" + (i % 64));
+        MethodReference.findOrCreate(t, name.toString(), "(Ljava/lang/Object;)V");
+        FieldReference.findOrCreate(t, name, TypeReference.JavaLangObject);
+        n += 4;
+      }
+    }
+    return n;
+  }
+}
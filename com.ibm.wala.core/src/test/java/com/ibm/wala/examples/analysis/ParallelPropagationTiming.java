@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.examples.analysis;
+
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+
+/**
+ * Reports the time to build a 0-1-CFA call graph for the main class given as the second
+ * command-line argument in the jar given as the first, with the sequential points-to solver and
+ * with {@link AnalysisOptions#setNumberOfSolverThreads} set to 2, 4, ... up to the number given as
+ * the third argument (default: the number of available processors).
+ *
+ * <p>The runs are timed with {@link TimingUtil}, which needs a HotSpot JVM. It counts the bytes
+ * allocated by the calling thread only, not by the threads of the solver.
+ */
+public class ParallelPropagationTiming {
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      System.err.println("usage: ParallelPropagationTiming <jar> <main class> [max threads]");
+      System.exit(1);
+    }
+    int max =
+        args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+    System.out.println("available processors: " + Runtime.getRuntime().availableProcessors());
+    TimingUtil.callGraph("sequential", args[0], args[1], options -> {});
+    for (int threads = 2; threads <= Math.max(2, max); threads *= 2) {
+      int n = threads;
+      TimingUtil.callGraph(
+          n + " threads", args[0], args[1], options -> options.setNumberOfSolverThreads(n));
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.examples.analysis;
+
+import static com.ibm.wala.examples.analysis.TimingUtil.time;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.util.config.AnalysisScopeReader;
+import com.ibm.wala.core.util.io.FileProvider;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Pair;
+import com.ibm.wala.util.graph.GraphUtil;
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.traverse.BFSPathFinder;
+import com.ibm.wala.util.graph.traverse.MultiSourceBFS;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares finding paths between many pairs of call graph nodes with one {@link BFSPathFinder} per
+ * pair and with {@link MultiSourceBFS}, for the 0-1-CFA call graph of the main class given as the
+ * second command-line argument in the jar given as the first; sources and sinks are chosen at
+ * random, so some repeat. An optional third argument gives the number of threads.
+ *
+ * <p>The runs are timed with {@link TimingUtil}, which counts the bytes allocated by the calling
+ * thread only, so those of the {@link MultiSourceBFS} workers are missing with several threads.
+ */
+public class PathFinderTiming {
+
+  private static final int SOURCES = 256;
+
+  private static final int SINKS = 32;
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      System.err.println("usage: PathFinderTiming <jar> <main class> [threads]");
+      System.exit(1);
+    }
+    AnalysisScope scope =
+        AnalysisScopeReader.instance.makeJavaBinaryAnalysisScope(
+            args[0], new FileProvider().getFile(CallGraphTestUtil.REGRESSION_EXCLUSIONS));
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AnalysisOptions options =
+        CallGraphTestUtil.makeAnalysisOptions(scope, Util.makeMainEntrypoints(cha, args[1]));
+    CallGraph cg =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha)
+            .makeCallGraph(options, null);
+    int threads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+    Random random = new Random(23);
+    List<CGNode> sources = new ArrayList<>();
+    List<CGNode> sinks = new ArrayList<>();
+    for (int i = 0; i < SOURCES; i++) {
+      sources.add(cg.getNode(random.nextInt(cg.getNumberOfNodes())));
+    }
+    for (int i = 0; i < SINKS; i++) {
+      sinks.add(cg.getNode(random.nextInt(cg.getNumberOfNodes())));
+    }
+    System.out.printf(
+        "%d nodes, %d sources, %d sinks, %d threads%n",
+        cg.getNumberOfNodes(), SOURCES, SINKS, threads);
+
+    Set<Pair<CGNode, CGNode>> paths = HashSetFactory.make();
+    time(
+        "BFSPathFinder",
+        () -> {
+          paths.clear();
+          for (CGNode s : sources) {
+            for (CGNode t : sinks) {
+              if (new BFSPathFinder<>(cg, s, t).find() != null) {
+                paths.add(Pair.make(s, t));
+              }
+            }
+          }
+        });
+    System.out.println(paths.size() + " paths");
+
+    NumberedGraph<CGNode> frozen = GraphUtil.freeze(cg);
+    int[] found = new int[1];
+    time(
+        "MultiSourceBFS",
+        () -> {
+          MultiSourceBFS<CGNode> bfs = new MultiSourceBFS<>(frozen);
+          bfs.setNumberOfThreads(threads);
+          found[0] = bfs.findPaths(sources, sinks).size();
+        });
+    System.out.println(found[0] + " paths");
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.examples.analysis;
+
+import static com.ibm.wala.examples.analysis.TimingUtil.time;
+
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.IntObjectHashMap;
+import com.ibm.wala.util.collections.ObjectIntHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares {@link IntObjectHashMap} and {@link ObjectIntHashMap} with boxed {@code HashMap}s, and
+ * reports the time and the bytes allocated to build a 0-1-CFA call graph for the main class given
+ * as the second command-line argument in the jar given as the first.
+ *
+ * <p>The runs are timed with {@link TimingUtil}, which needs a HotSpot JVM.
+ */
+public class PrimitiveMapTiming {
+
+  private static final int KEYS = 1000000;
+
+  /** the result of the last run, so that it is not optimized away */
+  private static int sink;
+
+  public static void main(String[] args) throws Exception {
+    Random random = new Random(17);
+    int[] ints = new int[KEYS];
+    Object[] objects = new Object[KEYS];
+    for (int i = 0; i < KEYS; i++) {
+      ints[i] = random.nextInt();
+      objects[i] = new Object();
+    }
+
+    time(
+        "HashMap<Integer, Object>",
+        () -> {
+          Map<Integer, Object> m = HashMapFactory.make();
+          for (int k : ints) {
+            m.put(k, m);
+          }
+          for (int k : ints) {
+            sink += m.get(k) == null ? 0 : 1;
+          }
+        });
+    time(
+        "IntObjectHashMap",
+        () -> {
+          IntObjectHashMap<Object> m = new IntObjectHashMap<>();
+          for (int k : ints) {
+            m.put(k, m);
+          }
+          for (int k : ints) {
+            sink += m.get(k) == null ? 0 : 1;
+          }
+        });
+    time(
+        "HashMap<Object, Integer>",
+        () -> {
+          Map<Object, Integer> m = HashMapFactory.make();
+          for (int i = 0; i < KEYS; i++) {
+            m.put(objects[i], i);
+          }
+          for (Object o : objects) {
+            sink += m.get(o);
+          }
+        });
+    time(
+        "ObjectIntHashMap",
+        () -> {
+          ObjectIntHashMap<Object> m = new ObjectIntHashMap<>();
+          for (int i = 0; i < KEYS; i++) {
+            m.put(objects[i], i);
+          }
+          for (Object o : objects) {
+            sink += m.getOrDefault(o, -1);
+          }
+        });
+
+    if (args.length >= 2) {
+      TimingUtil.callGraph("0-1-CFA call graph", args[0], args[1], options -> {});
+    }
+  }
+}
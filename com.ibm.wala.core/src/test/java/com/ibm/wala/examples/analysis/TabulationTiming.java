@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.examples.analysis;
+
+import static com.ibm.wala.examples.analysis.TimingUtil.time;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.util.config.AnalysisScopeReader;
+import com.ibm.wala.core.util.io.FileProvider;
+import com.ibm.wala.dataflow.IFDS.TabulationSolver;
+import com.ibm.wala.examples.analysis.dataflow.ContextSensitiveReachingDefs;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.util.CallGraphSearchUtil;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.slicer.SDG;
+import com.ibm.wala.ipa.slicer.Slicer;
+import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
+import com.ibm.wala.ipa.slicer.Slicer.DataDependenceOptions;
+import com.ibm.wala.ipa.slicer.SlicerUtil;
+import com.ibm.wala.ipa.slicer.Statement;
+import com.ibm.wala.util.config.FileOfClasses;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+
+/**
+ * Times the {@link TabulationSolver} with one, two and four threads, on the main class given as the
+ * second command-line argument in the jar given as the first. This reports the best time of a few
+ * runs for a forward slice from the first call in main to the method named by the optional third
+ * argument (println by default), and for {@link ContextSensitiveReachingDefs}. It also times
+ * building the SDG, with all its dependences, with as many threads.
+ *
+ * <p>The runs are timed with {@link TimingUtil}; the bytes it reports are those allocated by the
+ * calling thread only.
+ */
+public class TabulationTiming {
+
+  private static final int[] THREADS = {1, 2, 4};
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      System.err.println("usage: TabulationTiming <jar> <main class> [callee name]");
+      System.exit(1);
+    }
+    AnalysisScope scope =
+        AnalysisScopeReader.instance.makeJavaBinaryAnalysisScope(
+            args[0], new FileProvider().getFile(CallGraphTestUtil.REGRESSION_EXCLUSIONS));
+    // as in SlicerTest, also exclude java.security to avoid blowup during slicing
+    String exclusions =
+        new String(
+                Files.readAllBytes(
+                    new FileProvider().getFile(CallGraphTestUtil.REGRESSION_EXCLUSIONS).toPath()),
+                "UTF-8")
+            + "java\\/security\\/.*\n";
+    scope.setExclusions(new FileOfClasses(new ByteArrayInputStream(exclusions.getBytes("UTF-8"))));
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    AnalysisOptions options =
+        CallGraphTestUtil.makeAnalysisOptions(scope, Util.makeMainEntrypoints(cha, args[1]));
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    CGNode main = CallGraphSearchUtil.findMainMethod(cg);
+    Statement s = SlicerUtil.findCallTo(main, args.length > 2 ? args[2] : "println");
+
+    int[] size = new int[1];
+    for (int threads : THREADS) {
+      time(
+          "SDG, " + threads + " threads",
+          () -> {
+            SDG<InstanceKey> sdg =
+                new SDG<>(
+                    cg,
+                    builder.getPointerAnalysis(),
+                    DataDependenceOptions.FULL,
+                    ControlDependenceOptions.FULL);
+            sdg.setNumberOfThreads(threads);
+            size[0] = sdg.getNumberOfNodes();
+            // with one thread, heap data dependences are only computed as nodes are queried
+            for (Statement st : sdg) {
+              sdg.getSuccNodes(st);
+            }
+          });
+      report(size[0]);
+    }
+
+    for (int threads : THREADS) {
+      SDG<InstanceKey> sdg =
+          new SDG<>(
+              cg,
+              builder.getPointerAnalysis(),
+              DataDependenceOptions.FULL,
+              ControlDependenceOptions.FULL);
+      // build the PDGs before timing, as the slicer does itself with several threads
+      sdg.getNumberOfNodes();
+      time(
+          "forward slice, " + threads + " threads",
+          () -> {
+            Slicer slicer = new Slicer();
+            slicer.setNumberOfThreads(threads);
+            size[0] = slicer.slice(sdg, Collections.singleton(s), false).size();
+          });
+      report(size[0]);
+    }
+
+    for (int threads : THREADS) {
+      time(
+          "reaching defs, " + threads + " threads",
+          () ->
+              size[0] =
+                  new ContextSensitiveReachingDefs(cg)
+                      .analyze(threads)
+                      .getSupergraphNodesReached()
+                      .size());
+      report(size[0]);
+    }
+  }
+
+  private static void report(int size) {
+    System.out.printf("%34s %8d nodes reached%n", "", size);
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.examples.analysis;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.util.config.AnalysisScopeReader;
+import com.ibm.wala.core.util.io.FileProvider;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import java.lang.management.ManagementFactory;
+import java.util.function.Consumer;
+
+/**
+ * Timing of the drivers in this package: the best time and the least allocation of a few runs.
+ *
+ * <p>Allocation is measured with {@link com.sun.management.ThreadMXBean}, so this needs a HotSpot
+ * JVM.
+ */
+public final class TimingUtil {
+
+  private static final int RUNS = 5;
+
+  private static final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  /** the number of call graph nodes built, so that the builds are not optimized away */
+  private static long sink;
+
+  private TimingUtil() {}
+
+  /** Code to time */
+  @FunctionalInterface
+  public interface Run {
+    void run() throws Exception;
+  }
+
+  /** Print the best time and the least allocation of a few runs of r. */
+  public static void time(String name, Run r) throws Exception {
+    long bestTime = Long.MAX_VALUE;
+    long bestBytes = Long.MAX_VALUE;
+    long thread = Thread.currentThread().getId();
+    for (int i = 0; i < RUNS; i++) {
+      long bytes = threads.getThreadAllocatedBytes(thread);
+      long start = System.nanoTime();
+      r.run();
+      bestTime = Math.min(bestTime, System.nanoTime() - start);
+      bestBytes = Math.min(bestBytes, threads.getThreadAllocatedBytes(thread) - bytes);
+    }
+    System.out.printf(
+        "%-34s %8.2f ms %10.2f MB allocated%n", name, bestTime / 1e6, bestBytes / (1024.0 * 1024));
+  }
+
+  /**
+   * Time the construction of a 0-1-CFA call graph for mainClass in jar.
+   *
+   * @param configure sets up the options of each build, beyond the defaults of {@link
+   *     CallGraphTestUtil#makeAnalysisOptions}
+   */
+  public static void callGraph(
+      String name, String jar, String mainClass, Consumer<AnalysisOptions> configure)
+      throws Exception {
+    AnalysisScope scope =
+        AnalysisScopeReader.instance.makeJavaBinaryAnalysisScope(
+            jar, new FileProvider().getFile(CallGraphTestUtil.REGRESSION_EXCLUSIONS));
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+    time(
+        name,
+        () -> {
+          AnalysisOptions options =
+              CallGraphTestUtil.makeAnalysisOptions(
+                  scope, Util.makeMainEntrypoints(cha, mainClass));
+          configure.accept(options);
+          sink +=
+              Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha)
+                  .makeCallGraph(options, null)
+                  .getNumberOfNodes();
+        });
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.examples.analysis;
+
+import static com.ibm.wala.examples.analysis.TimingUtil.time;
+
+import com.ibm.wala.analysis.typeInference.TypeInference;
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.util.config.AnalysisScopeReader;
+import com.ibm.wala.core.util.io.FileProvider;
+import com.ibm.wala.dataflow.graph.AbstractMeetOperator;
+import com.ibm.wala.dataflow.graph.BitVectorFramework;
+import com.ibm.wala.dataflow.graph.BitVectorSolver;
+import com.ibm.wala.dataflow.graph.BitVectorUnion;
+import com.ibm.wala.dataflow.graph.BitVectorUnionConstant;
+import com.ibm.wala.dataflow.graph.ITransferFunctionProvider;
+import com.ibm.wala.fixedpoint.impl.FIFOWorklist;
+import com.ibm.wala.fixedpoint.impl.IFixedPointWorklist;
+import com.ibm.wala.fixedpoint.impl.LRFWorklist;
+import com.ibm.wala.fixedpoint.impl.WaveWorklist;
+import com.ibm.wala.fixedpoint.impl.Worklist;
+import com.ibm.wala.fixpoint.BitVectorVariable;
+import com.ibm.wala.fixpoint.UnaryOperator;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.intset.MutableMapping;
+import com.ibm.wala.util.intset.OrdinalSetMapping;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Compares the {@link IFixedPointWorklist} strategies on the main class given as the second
+ * command-line argument in the jar given as the first.
+ *
+ * <p>For each strategy, this reports the number of statements evaluated and the best time of a few
+ * runs for three solvers: the points-to solver ({@code PropagationSystem}) of a 0-1-CFA call graph,
+ * a {@link BitVectorSolver} computing the transitive callers of each node of that call graph, and
+ * {@link TypeInference} on the IR of every node.
+ *
+ * <p>The runs are timed with {@link TimingUtil}, which needs a HotSpot JVM.
+ */
+public class WorklistStrategyTiming {
+
+  /** the strategy used by {@link StrategyTypeInference}, which is created by the constructor */
+  private static Supplier<? extends IFixedPointWorklist> typeInferenceWorklist;
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      System.err.println("usage: WorklistStrategyTiming <jar> <main class>");
+      System.exit(1);
+    }
+    AnalysisScope scope =
+        AnalysisScopeReader.instance.makeJavaBinaryAnalysisScope(
+            args[0], new FileProvider().getFile(CallGraphTestUtil.REGRESSION_EXCLUSIONS));
+    ClassHierarchy cha = ClassHierarchyFactory.make(scope);
+
+    Map<String, Supplier<? extends IFixedPointWorklist>> strategies = new LinkedHashMap<>();
+    strategies.put("topological", Worklist::new);
+    strategies.put("LRF", LRFWorklist::new);
+    strategies.put("wave", WaveWorklist::new);
+    strategies.put("FIFO", FIFOWorklist::new);
+
+    AnalysisOptions options =
+        CallGraphTestUtil.makeAnalysisOptions(scope, Util.makeMainEntrypoints(cha, args[1]));
+    CallGraph cg =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha)
+            .makeCallGraph(options, null);
+
+    int[] evaluations = new int[1];
+    for (Map.Entry<String, Supplier<? extends IFixedPointWorklist>> e : strategies.entrySet()) {
+      time(
+          "points-to, " + e.getKey(),
+          () -> {
+            AnalysisOptions o =
+                CallGraphTestUtil.makeAnalysisOptions(
+                    scope, Util.makeMainEntrypoints(cha, args[1]));
+            o.setSolverWorklistFactory(e.getValue());
+            SSAPropagationCallGraphBuilder builder =
+                Util.makeZeroOneCFABuilder(Language.JAVA, o, new AnalysisCacheImpl(), cha);
+            builder.makeCallGraph(o, null);
+            evaluations[0] = builder.getPropagationSystem().getNumberOfEvaluations();
+          });
+      report(evaluations[0]);
+    }
+
+    for (Map.Entry<String, Supplier<? extends IFixedPointWorklist>> e : strategies.entrySet()) {
+      time("bit vector, " + e.getKey(), () -> evaluations[0] = transitiveCallers(cg, e.getValue()));
+      report(evaluations[0]);
+    }
+
+    List<IR> irs = new ArrayList<>();
+    for (CGNode n : cg) {
+      if (n.getIR() != null) {
+        irs.add(n.getIR());
+      }
+    }
+    for (Map.Entry<String, Supplier<? extends IFixedPointWorklist>> e : strategies.entrySet()) {
+      typeInferenceWorklist = e.getValue();
+      time(
+          "type inference, " + e.getKey(),
+          () -> {
+            evaluations[0] = 0;
+            for (IR ir : irs) {
+              evaluations[0] += new StrategyTypeInference(ir).getNumberOfEvaluations();
+            }
+          });
+      report(evaluations[0]);
+    }
+  }
+
+  private static void report(int evaluations) {
+    System.out.printf("%34s %8d evaluations%n", "", evaluations);
+  }
+
+  /** @return the number of evaluations to compute the transitive callers of each node of cg */
+  private static int transitiveCallers(
+      CallGraph cg, Supplier<? extends IFixedPointWorklist> strategy) throws CancelException {
+    OrdinalSetMapping<CGNode> values = MutableMapping.make();
+    for (CGNode n : cg) {
+      values.add(n);
+    }
+    ITransferFunctionProvider<CGNode, BitVectorVariable> functions =
+        new ITransferFunctionProvider<CGNode, BitVectorVariable>() {
+
+          @Override
+          public UnaryOperator<BitVectorVariable> getNodeTransferFunction(CGNode node) {
+            return new BitVectorUnionConstant(values.getMappedIndex(node));
+          }
+
+          @Override
+          public boolean hasNodeTransferFunctions() {
+            return true;
+          }
+
+          @Override
+          public UnaryOperator<BitVectorVariable> getEdgeTransferFunction(CGNode from, CGNode to) {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public boolean hasEdgeTransferFunctions() {
+            return false;
+          }
+
+          @Override
+          public AbstractMeetOperator<BitVectorVariable> getMeetOperator() {
+            return BitVectorUnion.instance();
+          }
+        };
+    BitVectorSolver<CGNode> solver =
+        new BitVectorSolver<>(new BitVectorFramework<>(cg, functions, values));
+    solver.setWorklistFactory(strategy);
+    solver.solve(null);
+    return solver.getNumberOfEvaluations();
+  }
+
+  /** Type inference with the work list chosen by {@link #typeInferenceWorklist} */
+  private static class StrategyTypeInference extends TypeInference {
+
+    StrategyTypeInference(IR ir) {
+      super(ir, true);
+    }
+
+    @Override
+    protected IFixedPointWorklist makeWorklist() {
+      return typeInferenceWorklist.get();
+    }
+  }
+}
@@ -224,4 +224,24 @@ public class DataflowTest extends WalaTestCase {
       }
     }
   }
+
+  @Test
+  public void testContextSensitiveParallel() throws IllegalArgumentException, CancelException {
+    Iterable<Entrypoint> entrypoints =
+        com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(cha, "Ldataflow/StaticDataflow");
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+
+    CallGraphBuilder<InstanceKey> builder =
+        Util.makeZeroOneCFABuilder(Language.JAVA, options, new AnalysisCacheImpl(), cha);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    ContextSensitiveReachingDefs reachingDefs = new ContextSensitiveReachingDefs(cg);
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+        expected = reachingDefs.analyze();
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>>
+        actual = reachingDefs.analyze(4);
+    Assert.assertEquals(expected.getSupergraphNodesReached(), actual.getSupergraphNodesReached());
+    for (BasicBlockInContext<IExplodedBasicBlock> bb : reachingDefs.getSupergraph()) {
+      Assert.assertTrue(bb.toString(), expected.getResult(bb).sameValue(actual.getResult(bb)));
+    }
+  }
 }
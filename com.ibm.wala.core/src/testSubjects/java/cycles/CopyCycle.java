@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package cycles;
+
+/** Values copied around a loop through calls, which gives cycles of assignment constraints. */
+public class CopyCycle {
+
+  static Object id(Object o) {
+    return o;
+  }
+
+  static Object pick(Object a, Object b) {
+    return (a.hashCode() > b.hashCode()) ? a : b;
+  }
+
+  public static void main(String[] args) {
+    Object x = new Object();
+    Object y = new Object();
+    for (int i = 0; i < args.length; i++) {
+      x = id(x);
+      y = pick(y, x);
+      x = pick(x, y);
+    }
+    System.out.println(x.toString() + y.toString());
+  }
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package incremental;
+
+public class Main {
+
+  public static void main(String[] args) {
+    Object o = Worker.work(args);
+    System.out.println(o.toString());
+  }
+}
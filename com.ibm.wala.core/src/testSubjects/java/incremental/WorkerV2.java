@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package incremental;
+
+/** A changed version of {@link Worker}, which tests rename and substitute for it. */
+public class WorkerV2 {
+
+  public static Object work(String[] args) {
+    StringBuilder result = new StringBuilder();
+    for (String arg : args) {
+      result.append(arg);
+    }
+    return result;
+  }
+}
@@ -21,11 +21,21 @@ import com.ibm.wala.fixpoint.UnaryStatement;
 import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.MonitorUtil;
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.debug.VerboseAction;
 import com.ibm.wala.util.graph.INodeWithNumber;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * Represents a set of {@link IFixedPointStatement}s to be solved by a {@link IFixedPointSolver}
@@ -87,12 +97,28 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
   /** During verbose evaluation, holds the number of dataflow equations created */
   private int nCreated = 0;
 
+  /** creates the worklist, which decides the order in which statements are evaluated */
+  private Supplier<? extends IFixedPointWorklist> worklistFactory = Worklist::new;
+
   /** worklist for the iterative solver */
-  protected Worklist workList = new Worklist();
+  protected IFixedPointWorklist workList = makeWorklist();
 
   /** A boolean which is initially true, but set to false after the first call to solve(); */
   private boolean firstSolve = true;
 
+  /**
+   * How many threads may evaluate statements concurrently? When greater than one, the solver
+   * evaluates waves of independent {@link #isParallelizable(AbstractStatement) parallelizable}
+   * statements on a thread pool; all other statements are still evaluated one at a time.
+   */
+  private int numberOfThreads = 1;
+
+  /** A tuning parameter: the maximum number of statements evaluated in one parallel wave */
+  private static final int MAX_WAVE_SIZE = 4096;
+
+  /** thread pool for parallel waves; created on demand, and shut down when solve() returns */
+  private ForkJoinPool pool;
+
   protected abstract T[] makeStmtRHS(int size);
 
   /** Some setup which occurs only before the first solve */
@@ -125,40 +151,181 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
       initForFirstSolve();
     }
 
-    while (!workList.isEmpty()) {
-      MonitorUtil.throwExceptionIfCanceled(monitor);
-      orderStatements();
+    try {
+      while (!workList.isEmpty()) {
+        MonitorUtil.throwExceptionIfCanceled(monitor);
+        orderStatements();
+
+        // duplicate insertion detection
+        AbstractStatement s = workList.takeStatement();
 
-      // duplicate insertion detection
-      AbstractStatement s = workList.takeStatement();
+        if (numberOfThreads > 1 && isParallelizable(s)) {
+          if (evaluateWave(s)) {
+            globalChange = true;
+          }
+          continue;
+        }
 
-      if (DEBUG) {
-        System.err.println(("Before evaluation " + s));
+        if (DEBUG) {
+          System.err.println(("Before evaluation " + s));
+        }
+        byte code = s.evaluate();
+        nEvaluated++;
+        statementEvaluated(s);
+        if (verbose) {
+          if (nEvaluated % getVerboseInterval() == 0) {
+            performVerboseAction();
+          }
+          if (nEvaluated % getPeriodicMaintainInterval() == 0) {
+            periodicMaintenance();
+          }
+        }
+        if (DEBUG) {
+          System.err.println(("After evaluation  " + s + ' ' + isChanged(code)));
+        }
+        if (isChanged(code)) {
+          globalChange = true;
+          updateWorkList(s);
+        }
+        if (isFixed(code)) {
+          removeStatement(s);
+        }
       }
-      byte code = s.evaluate();
-      nEvaluated++;
-      if (verbose) {
-        if (nEvaluated % getVerboseInterval() == 0) {
-          performVerboseAction();
+    } finally {
+      // the threads of the pool, if any, are not kept beyond the call
+      if (pool != null) {
+        pool.shutdown();
+        pool = null;
+      }
+    }
+    return globalChange;
+  }
+
+  /**
+   * Evaluate a wave of parallelizable statements, starting with s, on the thread pool.
+   *
+   * <p>The wave is built from the work list so that no variable written by one statement of the
+   * wave is read by another. Statements with the same left-hand side are evaluated in order by a
+   * single task, so each variable is written by at most one thread, and variables which are read
+   * are not written at all while the wave runs. Statements that do not fit into the wave are
+   * returned to the work list.
+   *
+   * @return true iff the evaluation of some statement changed the value of some variable
+   */
+  @SuppressWarnings("unchecked")
+  private boolean evaluateWave(AbstractStatement first) throws CancelException {
+    Map<T, List<UnaryStatement<T>>> byLHS = new LinkedHashMap<>();
+    Set<T> read = HashSetFactory.make();
+    List<AbstractStatement> deferred = new ArrayList<>();
+    int size = 0;
+    AbstractStatement s = first;
+    while (true) {
+      if (isParallelizable(s)) {
+        UnaryStatement<T> u = (UnaryStatement<T>) s;
+        T lhs = u.getLHS();
+        T rhs = u.getRightHandSide();
+        if (read.contains(lhs) || (rhs != lhs && byLHS.containsKey(rhs))) {
+          deferred.add(s);
+        } else {
+          byLHS.computeIfAbsent(lhs, k -> new ArrayList<>()).add(u);
+          read.add(rhs);
+          size++;
         }
-        if (nEvaluated % getPeriodicMaintainInterval() == 0) {
-          periodicMaintenance();
+      } else {
+        deferred.add(s);
+      }
+      if (size >= MAX_WAVE_SIZE || deferred.size() >= MAX_WAVE_SIZE || workList.isEmpty()) {
+        break;
+      }
+      s = workList.takeStatement();
+    }
+    for (AbstractStatement d : deferred) {
+      workList.insertStatement(d);
+    }
+
+    List<List<UnaryStatement<T>>> groups = new ArrayList<>(byLHS.values());
+    List<byte[]> codes = new ArrayList<>(groups.size());
+    if (groups.size() == 1) {
+      codes.add(evaluateGroup(groups.get(0)));
+    } else {
+      List<Callable<byte[]>> tasks = new ArrayList<>(groups.size());
+      for (List<UnaryStatement<T>> group : groups) {
+        tasks.add(() -> evaluateGroup(group));
+      }
+      try {
+        for (Future<byte[]> f : getPool().invokeAll(tasks)) {
+          codes.add(f.get());
         }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw CancelException.make("interrupted during parallel evaluation");
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        } else if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw new IllegalStateException(e.getCause());
       }
-      if (DEBUG) {
-        System.err.println(("After evaluation  " + s + ' ' + isChanged(code)));
+    }
+
+    // propagate the results sequentially
+    boolean globalChange = false;
+    for (int i = 0; i < groups.size(); i++) {
+      List<UnaryStatement<T>> group = groups.get(i);
+      byte[] groupCodes = codes.get(i);
+      boolean changed = false;
+      for (int j = 0; j < group.size(); j++) {
+        nEvaluated++;
+        statementEvaluated(group.get(j));
+        if (isChanged(groupCodes[j])) {
+          changed = true;
+        }
       }
-      if (isChanged(code)) {
+      if (changed) {
         globalChange = true;
-        updateWorkList(s);
+        updateWorkList(group.get(0));
       }
-      if (isFixed(code)) {
-        removeStatement(s);
+      for (int j = 0; j < group.size(); j++) {
+        if (isFixed(groupCodes[j])) {
+          removeStatement(group.get(j));
+        }
       }
     }
     return globalChange;
   }
 
+  private static <T extends IVariable<T>> byte[] evaluateGroup(List<UnaryStatement<T>> group) {
+    byte[] result = new byte[group.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = group.get(i).evaluate();
+    }
+    return result;
+  }
+
+  private ForkJoinPool getPool() {
+    if (pool == null) {
+      pool = new ForkJoinPool(numberOfThreads);
+    }
+    return pool;
+  }
+
+  /**
+   * May statement s be evaluated concurrently with other statements? Subclasses that answer true
+   * for s must guarantee that s is a {@link UnaryStatement} whose evaluation reads only its
+   * right-hand side, writes only its left-hand side, and touches no other shared state. By default,
+   * no statement is parallelizable.
+   */
+  protected boolean isParallelizable(@SuppressWarnings("unused") AbstractStatement<T, ?> s) {
+    return false;
+  }
+
+  /**
+   * Called on the solving thread after each evaluation of statement s, once its new value is
+   * visible. Subclasses should override as desired.
+   */
+  protected void statementEvaluated(@SuppressWarnings("unused") AbstractStatement<T, ?> s) {}
+
   @Override
   public void performVerboseAction() {
     System.err.println("Evaluated " + nEvaluated);
@@ -197,6 +364,7 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
 
   public void removeStatement(AbstractStatement<T, ?> s) {
     getFixedPointSystem().removeStatement(s);
+    workList.removeStatement(s);
   }
 
   @Override
@@ -278,6 +446,7 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
   private void incorporateNewStatement(boolean toWorkList, boolean eager, AbstractStatement s) {
     if (eager) {
       byte code = s.evaluate();
+      statementEvaluated(s);
       if (verbose) {
         nEvaluated++;
         if (nEvaluated % getVerboseInterval() == 0) {
@@ -486,20 +655,34 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
 
   /** Re-order the step definitions. */
   private void reorder() {
-    // drain the worklist
-    LinkedList<AbstractStatement> temp = new LinkedList<>();
-    while (!workList.isEmpty()) {
-      AbstractStatement eq = workList.takeStatement();
-      temp.add(eq);
-    }
-    workList = new Worklist();
-
     // compute new ordering
     getFixedPointSystem().reorder();
+    workList.reorder();
+  }
 
-    // re-populate worklist
-    for (AbstractStatement s : temp) {
-      workList.insertStatement(s);
+  /**
+   * Create the worklist. This is called during construction, so overriding implementations must not
+   * depend on the state of subclasses; by default, the factory set with {@link
+   * #setWorklistFactory(Supplier)} is used, which initially creates a {@link Worklist}.
+   */
+  protected IFixedPointWorklist makeWorklist() {
+    return worklistFactory.get();
+  }
+
+  /**
+   * Choose the order in which statements are evaluated, e.g. {@code Worklist::new} (topological,
+   * the default), {@code LRFWorklist::new}, {@code WaveWorklist::new} or {@code FIFOWorklist::new}.
+   * Statements already in the work list are moved to a new one.
+   */
+  public void setWorklistFactory(Supplier<? extends IFixedPointWorklist> factory) {
+    if (factory == null) {
+      throw new IllegalArgumentException("factory is null");
+    }
+    worklistFactory = factory;
+    IFixedPointWorklist old = workList;
+    workList = makeWorklist();
+    while (!old.isEmpty()) {
+      workList.insertStatement(old.takeStatement());
     }
   }
 
@@ -539,6 +722,21 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<T>>
     topologicalGrowthFactor = d;
   }
 
+  public int getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
+  /**
+   * @param n how many threads may evaluate {@link #isParallelizable(AbstractStatement)
+   *     parallelizable} statements concurrently; 1 means the solver is purely sequential
+   */
+  public void setNumberOfThreads(int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + n);
+    }
+    numberOfThreads = n;
+  }
+
   public int getNumberOfEvaluations() {
     return nEvaluated;
   }
@@ -28,6 +28,17 @@ public abstract class DefaultFixedPointSolver<T extends IVariable<T>>
     graph = new DefaultFixedPointSystem<>(expectedOut);
   }
 
+  /**
+   * @param expectedOut number of expected out edges in the "usual" case for constraints .. used to
+   *     tune graph representation
+   * @param incrementalOrder if true, the order of the statements is updated as they are added,
+   *     rather than recomputed periodically; see {@link DefaultFixedPointSystem#reorder()}
+   */
+  public DefaultFixedPointSolver(int expectedOut, boolean incrementalOrder) {
+    super();
+    graph = new DefaultFixedPointSystem<>(expectedOut, incrementalOrder);
+  }
+
   public DefaultFixedPointSolver() {
     super();
     graph = new DefaultFixedPointSystem<>();
@@ -24,12 +24,19 @@ import com.ibm.wala.util.graph.GraphIntegrity;
 import com.ibm.wala.util.graph.INodeWithNumber;
 import com.ibm.wala.util.graph.NumberedGraph;
 import com.ibm.wala.util.graph.impl.SparseNumberedGraph;
+import com.ibm.wala.util.graph.traverse.IncrementalTopologicalOrder;
 import com.ibm.wala.util.graph.traverse.Topological;
 import java.util.Iterator;
 import java.util.Objects;
 import java.util.Set;
 
-/** Default implementation of a dataflow graph */
+/**
+ * Default implementation of a dataflow graph
+ *
+ * <p>Optionally, the topological order of the variables is maintained as statements are added, so
+ * that {@link #reorder()} has nothing left to compute; see {@link #DefaultFixedPointSystem(int,
+ * boolean)}.
+ */
 public class DefaultFixedPointSystem<T extends IVariable<T>> implements IFixedPointSystem<T> {
   static final boolean DEBUG = false;
 
@@ -48,13 +55,28 @@ public class DefaultFixedPointSystem<T extends IVariable<T>> implements IFixedPo
    */
   private final Set<IVariable<?>> variables = HashSetFactory.make();
 
+  /** the order of the graph, if it is maintained incrementally; otherwise null */
+  private final IncrementalTopologicalOrder<INodeWithNumber> order;
+
   /**
    * @param expectedOut number of expected out edges in the "usual" case for constraints .. used to
    *     tune graph representation
    */
   public DefaultFixedPointSystem(int expectedOut) {
+    this(expectedOut, false);
+  }
+
+  /**
+   * @param expectedOut number of expected out edges in the "usual" case for constraints .. used to
+   *     tune graph representation
+   * @param incrementalOrder if true, the order numbers of the variables are updated as each
+   *     statement is added, by an {@link IncrementalTopologicalOrder}, instead of by a topological
+   *     sort of the whole graph in {@link #reorder()}
+   */
+  public DefaultFixedPointSystem(int expectedOut, boolean incrementalOrder) {
     super();
     graph = new SparseNumberedGraph<>(expectedOut);
+    order = incrementalOrder ? new IncrementalTopologicalOrder<>(graph, this::updateOrder) : null;
   }
 
   /** default constructor ... tuned for one use for each def in dataflow graph. */
@@ -77,8 +99,39 @@ public class DefaultFixedPointSystem<T extends IVariable<T>> implements IFixedPo
     return graph.toString();
   }
 
+  /** @return true iff the order of the variables is maintained as statements are added */
+  public boolean isIncrementallyOrdered() {
+    return order != null;
+  }
+
+  private void updateOrder(int number) {
+    INodeWithNumber n = graph.getNode(number);
+    if (n instanceof IVariable) {
+      ((IVariable<?>) n).setOrderNumber(order.getOrder(number));
+    }
+  }
+
+  private void addNode(INodeWithNumber n) {
+    graph.addNode(n);
+    if (order != null) {
+      int number = n.getGraphNodeId();
+      order.addNode(number);
+      updateOrder(number);
+    }
+  }
+
+  private void addEdge(INodeWithNumber src, INodeWithNumber dst) {
+    graph.addEdge(src, dst);
+    if (order != null) {
+      order.addEdge(src.getGraphNodeId(), dst.getGraphNodeId());
+    }
+  }
+
   @Override
   public void removeStatement(IFixedPointStatement<T> s) {
+    if (order != null && graph.containsNode(s)) {
+      order.removeNode(s.getGraphNodeId());
+    }
     graph.removeNodeAndEdges(s);
   }
 
@@ -114,18 +167,18 @@ public class DefaultFixedPointSystem<T extends IVariable<T>> implements IFixedPo
     IVariable<?> lhs = s.getLHS();
 
     equations.add(s);
-    graph.addNode(s);
+    addNode(s);
     if (lhs != null) {
       variables.add(lhs);
-      graph.addNode(lhs);
-      graph.addEdge(s, lhs);
+      addNode(lhs);
+      addEdge(s, lhs);
     }
     for (IVariable<?> v : rhs) {
       IVariable<?> variable = v;
       if (variable != null) {
         variables.add(variable);
-        graph.addNode(variable);
-        graph.addEdge(variable, s);
+        addNode(variable);
+        addEdge(variable, s);
       }
     }
 
@@ -142,15 +195,15 @@ public class DefaultFixedPointSystem<T extends IVariable<T>> implements IFixedPo
     IVariable<?> rhs = s.getRightHandSide();
 
     equations.add(s);
-    graph.addNode(s);
+    addNode(s);
     if (lhs != null) {
       variables.add(lhs);
-      graph.addNode(lhs);
-      graph.addEdge(s, lhs);
+      addNode(lhs);
+      addEdge(s, lhs);
     }
     variables.add(rhs);
-    graph.addNode(rhs);
-    graph.addEdge(rhs, s);
+    addNode(rhs);
+    addEdge(rhs, s);
 
     if (DEBUG) {
       checkGraph();
@@ -164,11 +217,11 @@ public class DefaultFixedPointSystem<T extends IVariable<T>> implements IFixedPo
     IVariable<?> lhs = s.getLHS();
 
     equations.add(s);
-    graph.addNode(s);
+    addNode(s);
     if (lhs != null) {
       variables.add(lhs);
-      graph.addNode(lhs);
-      graph.addEdge(s, lhs);
+      addNode(lhs);
+      addEdge(s, lhs);
     }
 
     if (DEBUG) {
@@ -178,7 +231,7 @@ public class DefaultFixedPointSystem<T extends IVariable<T>> implements IFixedPo
 
   public void addVariable(T v) {
     variables.add(v);
-    graph.addNode(v);
+    addNode(v);
     if (DEBUG) {
       checkGraph();
     }
@@ -193,11 +246,15 @@ public class DefaultFixedPointSystem<T extends IVariable<T>> implements IFixedPo
     if (DEBUG) {
       checkGraph();
     }
+    if (order != null) {
+      // the order numbers are already up to date
+      return;
+    }
 
-    Iterator<INodeWithNumber> order = Topological.makeTopologicalIter(graph).iterator();
+    Iterator<INodeWithNumber> nodes = Topological.makeTopologicalIter(graph).iterator();
     int number = 0;
-    while (order.hasNext()) {
-      Object elt = order.next();
+    while (nodes.hasNext()) {
+      Object elt = nodes.next();
       if (elt instanceof IVariable) {
         @SuppressWarnings("unchecked")
         T v = (T) elt;
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.fixedpoint.impl;
+
+import com.ibm.wala.fixpoint.AbstractStatement;
+import com.ibm.wala.util.collections.HashSetFactory;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+
+/** A work list which hands out statements in the order they were first inserted. */
+@SuppressWarnings("rawtypes")
+public class FIFOWorklist implements IFixedPointWorklist {
+
+  private final ArrayDeque<AbstractStatement> queue = new ArrayDeque<>();
+
+  private final HashSet<AbstractStatement> contents = HashSetFactory.make();
+
+  @Override
+  public AbstractStatement takeStatement() throws NoSuchElementException {
+    AbstractStatement result = queue.remove();
+    contents.remove(result);
+    return result;
+  }
+
+  @Override
+  public void insertStatement(AbstractStatement eq) {
+    if (contents.add(eq)) {
+      queue.add(eq);
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return queue.isEmpty();
+  }
+
+  @Override
+  public int size() {
+    return queue.size();
+  }
+
+  @Override
+  public void reorder() {}
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.fixedpoint.impl;
+
+import com.ibm.wala.fixpoint.AbstractStatement;
+import java.util.NoSuchElementException;
+
+/**
+ * The statements waiting to be evaluated by an {@link AbstractFixedPointSolver}. The order in which
+ * they are taken is the solver's scheduling strategy; it does not change the fixed point, but can
+ * change how many evaluations it takes to get there.
+ *
+ * <p>A statement is held at most once, no matter how often it is inserted before it is taken.
+ */
+@SuppressWarnings("rawtypes")
+public interface IFixedPointWorklist {
+
+  /** @return the next statement to evaluate, which is removed from the work list */
+  AbstractStatement takeStatement() throws NoSuchElementException;
+
+  /** Add eq, unless it is already in the work list. */
+  void insertStatement(AbstractStatement eq);
+
+  boolean isEmpty();
+
+  int size();
+
+  /** Called after the order numbers of the statements may have changed. */
+  void reorder();
+
+  /**
+   * Called when eq is removed from the fixed-point system, so that the work list may forget what it
+   * knows about eq. eq may still be pending, in which case it is taken as usual.
+   */
+  default void removeStatement(AbstractStatement eq) {}
+}
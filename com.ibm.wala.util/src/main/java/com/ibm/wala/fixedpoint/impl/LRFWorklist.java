@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.fixedpoint.impl;
+
+import com.ibm.wala.fixpoint.AbstractStatement;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.Heap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A "least recently fired" work list: the statement taken next is the one whose last evaluation
+ * lies furthest back, so that statements which have never been evaluated come first, and a few
+ * statements which keep changing cannot starve the rest. Ties are broken by order number.
+ *
+ * <p>See Pearce, Kelly and Hankin, "Efficient Field-Sensitive Pointer Analysis of C", TOPLAS 2007.
+ */
+@SuppressWarnings("rawtypes")
+public class LRFWorklist implements IFixedPointWorklist {
+
+  /** A statement in the heap, with its priority at the time it was inserted */
+  private static final class Entry {
+    final AbstractStatement statement;
+
+    final int fired;
+
+    final int order;
+
+    Entry(AbstractStatement statement, int fired) {
+      this.statement = statement;
+      this.fired = fired;
+      this.order = statement.getOrderNumber();
+    }
+  }
+
+  private final Heap<Entry> heap =
+      new Heap<Entry>(100) {
+        @Override
+        protected boolean compareElements(Entry e1, Entry e2) {
+          return e1.fired < e2.fired || (e1.fired == e2.fired && e1.order < e2.order);
+        }
+      };
+
+  /**
+   * the time at which each statement was last taken, and whether it is in the heap: {@link
+   * #PENDING}, or {@link #REMOVED} if it is in the heap but was removed from the system. Entries of
+   * removed statements are dropped, so that they can be collected.
+   */
+  private final Map<AbstractStatement, int[]> state = HashMapFactory.make();
+
+  private static final int PENDING = 1;
+
+  private static final int REMOVED = 2;
+
+  private int time = 0;
+
+  @Override
+  public AbstractStatement takeStatement() throws NoSuchElementException {
+    AbstractStatement result = heap.take().statement;
+    int[] s = state.get(result);
+    if (s[1] == REMOVED) {
+      state.remove(result);
+    } else {
+      s[0] = ++time;
+      s[1] = 0;
+    }
+    return result;
+  }
+
+  @Override
+  public void insertStatement(AbstractStatement eq) {
+    int[] s = state.computeIfAbsent(eq, k -> new int[] {0, 0});
+    if (s[1] == 0) {
+      heap.insert(new Entry(eq, s[0]));
+    }
+    s[1] = PENDING;
+  }
+
+  @Override
+  public void removeStatement(AbstractStatement eq) {
+    int[] s = state.get(eq);
+    if (s != null) {
+      if (s[1] == PENDING) {
+        s[1] = REMOVED;
+      } else {
+        state.remove(eq);
+      }
+    }
+  }
+
+  /** @return the number of statements this work list keeps state for */
+  public int getNumberOfTrackedStatements() {
+    return state.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return heap.isEmpty();
+  }
+
+  @Override
+  public int size() {
+    return heap.size();
+  }
+
+  @Override
+  public void reorder() {
+    List<Entry> entries = new ArrayList<>(heap.size());
+    while (!heap.isEmpty()) {
+      entries.add(heap.take());
+    }
+    for (Entry e : entries) {
+      heap.insert(new Entry(e.statement, e.fired));
+    }
+  }
+}
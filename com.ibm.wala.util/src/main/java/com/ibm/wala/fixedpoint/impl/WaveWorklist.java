@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.fixedpoint.impl;
+
+import com.ibm.wala.fixpoint.AbstractStatement;
+import com.ibm.wala.util.collections.HashSetFactory;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+
+/**
+ * A work list which evaluates statements in waves. Each wave sweeps the pending statements once, in
+ * order; a statement inserted ahead of the sweep joins the current wave, while one inserted behind
+ * it waits for the next wave. Statements with the same order number, such as the statements of one
+ * strongly connected component when the order is maintained by an {@link
+ * com.ibm.wala.util.graph.traverse.IncrementalTopologicalOrder}, are iterated within the current
+ * wave until they settle, before the sweep moves on.
+ *
+ * <p>When the order is topological, this amounts to the two phases of wave propagation: collapse
+ * the cycles, then push all changes through the acyclic graph in one pass. See Pereira and Berlin,
+ * "Wave Propagation and Deep Propagation for Pointer Analysis", CGO 2009.
+ */
+@SuppressWarnings("rawtypes")
+public class WaveWorklist implements IFixedPointWorklist {
+
+  private final HashSet<AbstractStatement> contents = HashSetFactory.make();
+
+  private Worklist current = new Worklist();
+
+  private Worklist next = new Worklist();
+
+  /** the order number of the last statement taken in the current wave */
+  private int sweep = Integer.MIN_VALUE;
+
+  private int waves = 0;
+
+  @Override
+  public AbstractStatement takeStatement() throws NoSuchElementException {
+    if (current.isEmpty()) {
+      if (next.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      Worklist w = current;
+      current = next;
+      next = w;
+      sweep = Integer.MIN_VALUE;
+    }
+    if (sweep == Integer.MIN_VALUE) {
+      waves++;
+    }
+    AbstractStatement result = current.takeStatement();
+    contents.remove(result);
+    sweep = result.getOrderNumber();
+    return result;
+  }
+
+  @Override
+  public void insertStatement(AbstractStatement eq) {
+    if (contents.add(eq)) {
+      if (eq.getOrderNumber() >= sweep) {
+        current.insertStatement(eq);
+      } else {
+        next.insertStatement(eq);
+      }
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return current.isEmpty() && next.isEmpty();
+  }
+
+  @Override
+  public int size() {
+    return current.size() + next.size();
+  }
+
+  @Override
+  public void reorder() {
+    // start a new wave with everything pending
+    while (!next.isEmpty()) {
+      current.insertStatement(next.takeStatement());
+    }
+    current.reorder();
+    sweep = Integer.MIN_VALUE;
+  }
+
+  /** @return the number of waves started so far */
+  public int getNumberOfWaves() {
+    return waves;
+  }
+}
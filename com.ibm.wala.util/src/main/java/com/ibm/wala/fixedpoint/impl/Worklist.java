@@ -13,12 +13,17 @@ package com.ibm.wala.fixedpoint.impl;
 import com.ibm.wala.fixpoint.AbstractStatement;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Heap;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
 
-/** Worklist for fixed-point solver implementation */
+/**
+ * Worklist for fixed-point solver implementation, which hands out the statement with the smallest
+ * order number first. This is the default {@link IFixedPointWorklist}.
+ */
 @SuppressWarnings("rawtypes")
-public class Worklist extends Heap<AbstractStatement> {
+public class Worklist extends Heap<AbstractStatement> implements IFixedPointWorklist {
 
   private final HashSet<AbstractStatement> contents = HashSetFactory.make();
 
@@ -31,15 +36,28 @@ public class Worklist extends Heap<AbstractStatement> {
     return (eq1.getOrderNumber() < eq2.getOrderNumber());
   }
 
+  @Override
   public AbstractStatement takeStatement() throws NoSuchElementException {
     AbstractStatement result = super.take();
     contents.remove(result);
     return result;
   }
 
+  @Override
   public void insertStatement(AbstractStatement eq) {
     if (contents.add(eq)) {
       super.insert(eq);
     }
   }
+
+  @Override
+  public void reorder() {
+    List<AbstractStatement> temp = new ArrayList<>(size());
+    while (!isEmpty()) {
+      temp.add(super.take());
+    }
+    for (AbstractStatement s : temp) {
+      super.insert(s);
+    }
+  }
 }
@@ -53,6 +53,21 @@ public abstract class IntSetVariable<T extends IntSetVariable<T>> extends Abstra
     }
   }
 
+  /**
+   * Add all integers from the set B, and add to delta those which were not already in this
+   *
+   * @return true iff the value of this changes
+   */
+  public boolean addAllWithDelta(IntSet B, MutableIntSet delta) {
+    if (V == null) {
+      V = IntSetUtil.getDefaultIntSetFactory().makeCopy(B);
+      delta.addAll(B);
+      return (B.size() > 0);
+    } else {
+      return V.addAllWithDelta(B, delta);
+    }
+  }
+
   /**
    * Add all integers from the other int set variable.
    *
@@ -170,6 +185,27 @@ public abstract class IntSetVariable<T extends IntSetVariable<T>> extends Abstra
     }
   }
 
+  /**
+   * Add all integers from other which are in filter, and add to delta those which were not already
+   * in this
+   *
+   * @return true iff the value of this changes
+   */
+  public boolean addAllInIntersection(IntSet other, IntSet filter, MutableIntSet delta) {
+    if (V == null) {
+      V = IntSetUtil.getDefaultIntSetFactory().makeCopy(other);
+      V.intersectWith(filter);
+      if (V.isEmpty()) {
+        V = null;
+        return false;
+      }
+      delta.addAll(V);
+      return true;
+    } else {
+      return V.addAllInIntersection(other, filter, delta);
+    }
+  }
+
   public void removeAll() {
     V = null;
   }
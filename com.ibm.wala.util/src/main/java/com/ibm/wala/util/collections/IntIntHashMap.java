@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.collections;
+
+import com.ibm.wala.util.intset.IntIterator;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A map from ints to ints, with open addressing and linear probing in two parallel arrays. An empty
+ * slot holds the key 0, so the key 0 itself is kept apart from the table.
+ */
+public class IntIntHashMap implements Serializable {
+
+  private static final long serialVersionUID = -1390437516232212394L;
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /** the keys, with 0 for an empty slot; the length is a power of two */
+  private int[] keys;
+
+  private int[] values;
+
+  /** the number of keys in the table, not counting 0 */
+  private int size;
+
+  private boolean hasZeroKey;
+
+  private int zeroValue;
+
+  /** grow when size reaches this */
+  private int threshold;
+
+  public IntIntHashMap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /** @param expectedSize the number of keys this map should hold without growing */
+  public IntIntHashMap(int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("invalid expectedSize: " + expectedSize);
+    }
+    allocate(IntObjectHashMap.tableSize(expectedSize));
+  }
+
+  private void allocate(int capacity) {
+    keys = new int[capacity];
+    values = new int[capacity];
+    threshold = IntObjectHashMap.threshold(capacity);
+  }
+
+  /** @return the slot holding key, which is not 0, or the empty slot where it would go */
+  private int slot(int key) {
+    int mask = keys.length - 1;
+    int i = IntObjectHashMap.mix(key) & mask;
+    while (keys[i] != 0 && keys[i] != key) {
+      i = (i + 1) & mask;
+    }
+    return i;
+  }
+
+  public int size() {
+    return hasZeroKey ? size + 1 : size;
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public boolean containsKey(int key) {
+    return key == 0 ? hasZeroKey : keys[slot(key)] != 0;
+  }
+
+  /** @return the value of key, or defaultValue if key is not in the map */
+  public int getOrDefault(int key, int defaultValue) {
+    if (key == 0) {
+      return hasZeroKey ? zeroValue : defaultValue;
+    }
+    int i = slot(key);
+    return keys[i] == 0 ? defaultValue : values[i];
+  }
+
+  /** Map key to value, replacing any previous value. */
+  public void put(int key, int value) {
+    if (key == 0) {
+      hasZeroKey = true;
+      zeroValue = value;
+      return;
+    }
+    int i = slot(key);
+    values[i] = value;
+    if (keys[i] == 0) {
+      keys[i] = key;
+      if (++size >= threshold) {
+        rehash(2 * keys.length);
+      }
+    }
+  }
+
+  /**
+   * Add delta to the value of key, which is taken to be 0 if key is not in the map.
+   *
+   * @return the new value
+   */
+  public int increment(int key, int delta) {
+    int value = getOrDefault(key, 0) + delta;
+    put(key, value);
+    return value;
+  }
+
+  /** @return true iff key was in the map */
+  public boolean remove(int key) {
+    if (key == 0) {
+      boolean result = hasZeroKey;
+      hasZeroKey = false;
+      return result;
+    }
+    int gap = slot(key);
+    if (keys[gap] == 0) {
+      return false;
+    }
+    size--;
+    // shift back later entries of the same run which could have gone in the gap
+    int mask = keys.length - 1;
+    for (int i = (gap + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+      int ideal = IntObjectHashMap.mix(keys[i]) & mask;
+      if (((i - ideal) & mask) >= ((i - gap) & mask)) {
+        keys[gap] = keys[i];
+        values[gap] = values[i];
+        gap = i;
+      }
+    }
+    keys[gap] = 0;
+    return true;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, 0);
+    size = 0;
+    hasZeroKey = false;
+  }
+
+  private void rehash(int capacity) {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        int j = slot(oldKeys[i]);
+        keys[j] = oldKeys[i];
+        values[j] = oldValues[i];
+      }
+    }
+  }
+
+  /** @return an iterator of the keys, in no particular order */
+  public IntIterator keyIterator() {
+    return new IntIterator() {
+      /** -1 for the zero key, then slots of the table */
+      private int next = hasZeroKey ? -1 : advance(0);
+
+      private int advance(int i) {
+        while (i < keys.length && keys[i] == 0) {
+          i++;
+        }
+        return i;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next < keys.length;
+      }
+
+      @Override
+      public int next() {
+        if (next >= keys.length) {
+          throw new NoSuchElementException();
+        }
+        int result = next == -1 ? 0 : keys[next];
+        next = advance(next + 1);
+        return result;
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder("{");
+    for (IntIterator it = keyIterator(); it.hasNext(); ) {
+      int key = it.next();
+      if (result.length() > 1) {
+        result.append(", ");
+      }
+      result.append(key).append('=').append(getOrDefault(key, 0));
+    }
+    return result.append('}').toString();
+  }
+}
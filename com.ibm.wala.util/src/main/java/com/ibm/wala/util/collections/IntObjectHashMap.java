@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.collections;
+
+import com.ibm.wala.util.intset.IntIterator;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * A map from ints to objects, with open addressing and linear probing in two parallel arrays.
+ * Unlike {@link SparseVector}, insertion takes constant time however sparse the keys are, and
+ * unlike a {@code HashMap<Integer, V>} no key is boxed and no entry object is allocated.
+ *
+ * <p>Values may not be null.
+ */
+public class IntObjectHashMap<V> implements Serializable {
+
+  private static final long serialVersionUID = 6620964738591474021L;
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private int[] keys;
+
+  /** the values, with null for an empty slot; the length is a power of two */
+  private Object[] values;
+
+  private int size;
+
+  /** grow when size reaches this */
+  private int threshold;
+
+  public IntObjectHashMap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /** @param expectedSize the number of keys this map should hold without growing */
+  public IntObjectHashMap(int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("invalid expectedSize: " + expectedSize);
+    }
+    allocate(tableSize(expectedSize));
+  }
+
+  /** @return the smallest power of two table which holds expectedSize keys below the threshold */
+  static int tableSize(int expectedSize) {
+    int capacity = 4;
+    while (capacity < MAX_CAPACITY && threshold(capacity) <= expectedSize) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  /** a load factor of 3/4 */
+  static int threshold(int capacity) {
+    return capacity == MAX_CAPACITY ? capacity : capacity - (capacity >> 2);
+  }
+
+  /** spread the bits of a hash code, so that consecutive keys do not form long runs */
+  static int mix(int h) {
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private void allocate(int capacity) {
+    keys = new int[capacity];
+    values = new Object[capacity];
+    threshold = threshold(capacity);
+  }
+
+  /** @return the slot holding key, or the empty slot where it would go */
+  private int slot(int key) {
+    int mask = keys.length - 1;
+    int i = mix(key) & mask;
+    while (values[i] != null && keys[i] != key) {
+      i = (i + 1) & mask;
+    }
+    return i;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean containsKey(int key) {
+    return values[slot(key)] != null;
+  }
+
+  /** @return the value of key, or null if key is not in the map */
+  @SuppressWarnings("unchecked")
+  public V get(int key) {
+    return (V) values[slot(key)];
+  }
+
+  /**
+   * Map key to value.
+   *
+   * @return the previous value of key, or null if there was none
+   * @throws IllegalArgumentException if value is null
+   */
+  @SuppressWarnings("unchecked")
+  public V put(int key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("value is null");
+    }
+    int i = slot(key);
+    V old = (V) values[i];
+    values[i] = value;
+    if (old == null) {
+      keys[i] = key;
+      if (++size >= threshold) {
+        rehash(2 * keys.length);
+      }
+    }
+    return old;
+  }
+
+  /**
+   * @return the value of key, which is computed by f and added to the map if key is not in the map
+   *     already
+   */
+  @SuppressWarnings("unchecked")
+  public V computeIfAbsent(int key, IntFunction<? extends V> f) {
+    int i = slot(key);
+    if (values[i] != null) {
+      return (V) values[i];
+    }
+    V value = f.apply(key);
+    put(key, value);
+    return value;
+  }
+
+  /** @return the value key had, or null if it was not in the map */
+  @SuppressWarnings("unchecked")
+  public V remove(int key) {
+    int gap = slot(key);
+    V old = (V) values[gap];
+    if (old == null) {
+      return null;
+    }
+    size--;
+    // shift back later entries of the same run which could have gone in the gap
+    int mask = keys.length - 1;
+    for (int i = (gap + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+      int ideal = mix(keys[i]) & mask;
+      if (((i - ideal) & mask) >= ((i - gap) & mask)) {
+        keys[gap] = keys[i];
+        values[gap] = values[i];
+        gap = i;
+      }
+    }
+    values[gap] = null;
+    return old;
+  }
+
+  public void clear() {
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  private void rehash(int capacity) {
+    int[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != null) {
+        int j = slot(oldKeys[i]);
+        keys[j] = oldKeys[i];
+        values[j] = oldValues[i];
+      }
+    }
+  }
+
+  /** @return the index of the first occupied slot at or after i */
+  private int advance(int i) {
+    while (i < values.length && values[i] == null) {
+      i++;
+    }
+    return i;
+  }
+
+  /** @return an iterator of the keys, in no particular order */
+  public IntIterator keyIterator() {
+    return new IntIterator() {
+      private int next = advance(0);
+
+      @Override
+      public boolean hasNext() {
+        return next < values.length;
+      }
+
+      @Override
+      public int next() {
+        if (next >= values.length) {
+          throw new NoSuchElementException();
+        }
+        int result = keys[next];
+        next = advance(next + 1);
+        return result;
+      }
+    };
+  }
+
+  /** @return an iterator of the values, in the same order as {@link #keyIterator()} */
+  public Iterator<V> valueIterator() {
+    return new Iterator<V>() {
+      private int next = advance(0);
+
+      @Override
+      public boolean hasNext() {
+        return next < values.length;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public V next() {
+        if (next >= values.length) {
+          throw new NoSuchElementException();
+        }
+        V result = (V) values[next];
+        next = advance(next + 1);
+        return result;
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder("{");
+    for (int i = advance(0); i < values.length; i = advance(i + 1)) {
+      if (result.length() > 1) {
+        result.append(", ");
+      }
+      result.append(keys[i]).append('=').append(values[i]);
+    }
+    return result.append('}').toString();
+  }
+}
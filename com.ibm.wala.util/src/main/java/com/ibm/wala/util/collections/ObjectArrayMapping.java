@@ -13,7 +13,6 @@ package com.ibm.wala.util.collections;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.debug.UnimplementedError;
 import com.ibm.wala.util.intset.OrdinalSetMapping;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.stream.Stream;
@@ -26,14 +25,15 @@ public class ObjectArrayMapping<T> implements OrdinalSetMapping<T> {
 
   private final T[] array;
 
-  /** A mapping from object to Integer */
-  private final HashMap<T, Integer> map = HashMapFactory.make();
+  /** A mapping from object to index */
+  private final ObjectIntHashMap<T> map;
 
   public ObjectArrayMapping(final T[] array) {
     if (array == null) {
       throw new IllegalArgumentException("null array");
     }
     this.array = array;
+    this.map = new ObjectIntHashMap<>(array.length);
     for (int i = 0; i < array.length; i++) {
       map.put(array[i], i);
     }
@@ -50,15 +50,12 @@ public class ObjectArrayMapping<T> implements OrdinalSetMapping<T> {
 
   @Override
   public int getMappedIndex(Object o) {
-    if (map.get(o) == null) {
-      return -1;
-    }
-    return map.get(o);
+    return map.getOrDefault(o, -1);
   }
 
   @Override
   public boolean hasMappedIndex(Object o) {
-    return map.get(o) != null;
+    return map.containsKey(o);
   }
 
   @Override
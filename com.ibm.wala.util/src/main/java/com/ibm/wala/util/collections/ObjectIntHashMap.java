@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.collections;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A map from objects to ints, with open addressing and linear probing in parallel arrays of keys,
+ * their hash codes and values. This allocates no entry objects and boxes no values, so it takes
+ * about half the space of a {@code HashMap<K, Integer>}. As in a {@code HashMap}, keys are compared
+ * with {@code equals} only if their hash codes are equal.
+ *
+ * <p>Keys may not be null.
+ */
+public class ObjectIntHashMap<K> implements Serializable {
+
+  private static final long serialVersionUID = -3585404361245463231L;
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /** the keys, with null for an empty slot; the length is a power of two */
+  private Object[] keys;
+
+  /** the mixed hash code of each key */
+  private int[] hashes;
+
+  private int[] values;
+
+  private int size;
+
+  /** grow when size reaches this */
+  private int threshold;
+
+  public ObjectIntHashMap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /** @param expectedSize the number of keys this map should hold without growing */
+  public ObjectIntHashMap(int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("invalid expectedSize: " + expectedSize);
+    }
+    allocate(IntObjectHashMap.tableSize(expectedSize));
+  }
+
+  /** Make a copy of other. */
+  public ObjectIntHashMap(ObjectIntHashMap<? extends K> other) {
+    if (other == null) {
+      throw new IllegalArgumentException("other is null");
+    }
+    keys = other.keys.clone();
+    hashes = other.hashes.clone();
+    values = other.values.clone();
+    size = other.size;
+    threshold = other.threshold;
+  }
+
+  private void allocate(int capacity) {
+    keys = new Object[capacity];
+    hashes = new int[capacity];
+    values = new int[capacity];
+    threshold = IntObjectHashMap.threshold(capacity);
+  }
+
+  private static int hash(Object key) {
+    return IntObjectHashMap.mix(key.hashCode());
+  }
+
+  /** @return the slot holding key, which has the given hash, or the empty slot where it would go */
+  private int slot(Object key, int hash) {
+    int mask = keys.length - 1;
+    int i = hash & mask;
+    for (Object k = keys[i];
+        k != null && (hashes[i] != hash || (k != key && !key.equals(k)));
+        k = keys[i]) {
+      i = (i + 1) & mask;
+    }
+    return i;
+  }
+
+  private int slot(Object key) {
+    return slot(key, hash(key));
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean containsKey(Object key) {
+    return key != null && keys[slot(key)] != null;
+  }
+
+  /** @return the value of key, or defaultValue if key is not in the map */
+  public int getOrDefault(Object key, int defaultValue) {
+    if (key == null) {
+      return defaultValue;
+    }
+    int i = slot(key);
+    return keys[i] == null ? defaultValue : values[i];
+  }
+
+  /**
+   * Map key to value, replacing any previous value.
+   *
+   * @throws IllegalArgumentException if key is null
+   */
+  public void put(K key, int value) {
+    if (key == null) {
+      throw new IllegalArgumentException("key is null");
+    }
+    int hash = hash(key);
+    int i = slot(key, hash);
+    values[i] = value;
+    if (keys[i] == null) {
+      keys[i] = key;
+      hashes[i] = hash;
+      if (++size >= threshold) {
+        rehash(2 * keys.length);
+      }
+    }
+  }
+
+  /** @return true iff key was in the map */
+  public boolean remove(Object key) {
+    if (key == null) {
+      return false;
+    }
+    int gap = slot(key);
+    if (keys[gap] == null) {
+      return false;
+    }
+    size--;
+    // shift back later entries of the same run which could have gone in the gap
+    int mask = keys.length - 1;
+    for (int i = (gap + 1) & mask; keys[i] != null; i = (i + 1) & mask) {
+      int ideal = hashes[i] & mask;
+      if (((i - ideal) & mask) >= ((i - gap) & mask)) {
+        keys[gap] = keys[i];
+        hashes[gap] = hashes[i];
+        values[gap] = values[i];
+        gap = i;
+      }
+    }
+    keys[gap] = null;
+    return true;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, null);
+    size = 0;
+  }
+
+  private void rehash(int capacity) {
+    Object[] oldKeys = keys;
+    int[] oldHashes = hashes;
+    int[] oldValues = values;
+    allocate(capacity);
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != null) {
+        int j = oldHashes[i] & mask;
+        while (keys[j] != null) {
+          j = (j + 1) & mask;
+        }
+        keys[j] = oldKeys[i];
+        hashes[j] = oldHashes[i];
+        values[j] = oldValues[i];
+      }
+    }
+  }
+
+  /** Apply action to each key and its value. */
+  @SuppressWarnings("unchecked")
+  public void forEach(ObjIntConsumer<? super K> action) {
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null) {
+        action.accept((K) keys[i], values[i]);
+      }
+    }
+  }
+
+  /** @return an unmodifiable view of the keys */
+  public Set<K> keySet() {
+    return new AbstractSet<K>() {
+      @Override
+      public Iterator<K> iterator() {
+        return new Iterator<K>() {
+          private int next = advance(0);
+
+          private int advance(int i) {
+            while (i < keys.length && keys[i] == null) {
+              i++;
+            }
+            return i;
+          }
+
+          @Override
+          public boolean hasNext() {
+            return next < keys.length;
+          }
+
+          @Override
+          @SuppressWarnings("unchecked")
+          public K next() {
+            if (next >= keys.length) {
+              throw new NoSuchElementException();
+            }
+            K result = (K) keys[next];
+            next = advance(next + 1);
+            return result;
+          }
+        };
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return containsKey(o);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder("{");
+    forEach(
+        (k, v) -> {
+          if (result.length() > 1) {
+            result.append(", ");
+          }
+          result.append(k).append('=').append(v);
+        });
+    return result.append('}').toString();
+  }
+}
@@ -29,12 +29,16 @@ import com.ibm.wala.util.graph.impl.GraphInverter;
 import com.ibm.wala.util.intset.MutableMapping;
 import com.ibm.wala.util.intset.OrdinalSet;
 import com.ibm.wala.util.intset.OrdinalSetMapping;
+import com.ibm.wala.util.intset.SparseIntSet;
 import java.util.Iterator;
 import java.util.function.Predicate;
 
 /**
  * A dataflow system that computes, for each graph node, the set of "interesting" nodes that are
  * reachable
+ *
+ * <p>For a {@link NumberedGraph}, the sets are computed by {@link NumberedGraphReachability}
+ * instead of an iterative solver.
  */
 public class GraphReachability<T, S> {
 
@@ -44,6 +48,9 @@ public class GraphReachability<T, S> {
   /** Killdall-style dataflow solver */
   private DataflowSolver<T, BitVectorVariable> solver;
 
+  /** solver for numbered graphs */
+  private NumberedGraphReachability<T, S> reachability;
+
   /** set of "interesting" CGNodes */
   final OrdinalSetMapping<S> domain;
 
@@ -63,6 +70,9 @@ public class GraphReachability<T, S> {
 
   /** @return the set of interesting nodes reachable from n */
   public OrdinalSet<S> getReachableSet(Object n) throws IllegalStateException {
+    if (reachability != null) {
+      return reachability.getReachableSet(n);
+    }
     if (solver == null) {
       throw new IllegalStateException("must call solve() before calling getReachableSet()");
     }
@@ -79,6 +89,17 @@ public class GraphReachability<T, S> {
    * @return true iff the evaluation of some equation caused a change in the value of some variable.
    */
   public boolean solve(IProgressMonitor monitor) throws CancelException {
+    if (g instanceof NumberedGraph) {
+      reachability =
+          new NumberedGraphReachability<>(
+              (NumberedGraph<T>) g,
+              domain,
+              n -> {
+                int index = domain.getMappedIndex(n);
+                return index > -1 ? SparseIntSet.singleton(index) : null;
+              });
+      return reachability.solve(monitor);
+    }
 
     ITransferFunctionProvider<T, BitVectorVariable> functions =
         new ITransferFunctionProvider<T, BitVectorVariable>() {
@@ -10,6 +10,8 @@
  */
 package com.ibm.wala.util.graph;
 
+import com.ibm.wala.util.graph.impl.CompactNumberedGraph;
+
 /** Utility methods for graphs. */
 public class GraphUtil {
 
@@ -24,4 +26,16 @@ public class GraphUtil {
     }
     return edgeCount;
   }
+
+  /**
+   * @return an immutable copy of g, with the same node numbers, which stores its edges compactly;
+   *     see {@link CompactNumberedGraph}
+   * @throws IllegalArgumentException if g is null
+   */
+  public static <T> NumberedGraph<T> freeze(NumberedGraph<T> g) {
+    if (g == null) {
+      throw new IllegalArgumentException("g is null");
+    }
+    return g instanceof CompactNumberedGraph ? g : new CompactNumberedGraph<>(g);
+  }
 }
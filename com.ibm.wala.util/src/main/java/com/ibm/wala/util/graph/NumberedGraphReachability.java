@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.graph;
+
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.graph.traverse.ParallelSCC;
+import com.ibm.wala.util.intset.BitVectorIntSet;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableMapping;
+import com.ibm.wala.util.intset.OrdinalSet;
+import com.ibm.wala.util.intset.OrdinalSetMapping;
+import com.ibm.wala.util.intset.SparseIntSet;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Computes, for each node of a {@link NumberedGraph}, the union of the values generated at the
+ * nodes reachable from it, including itself. This gives the same results as {@link
+ * GraphReachability}, without an iterative dataflow solver: the strongly connected components are
+ * condensed first, since all their nodes reach the same values, and the sets of the components are
+ * then computed once each, in reverse topological order, with word-parallel bit vector unions.
+ *
+ * <p>Components of the same height in the condensed graph do not reach each other, so each such
+ * layer can be computed by several threads; see {@link #setNumberOfThreads(int)}. A component which
+ * generates nothing and reaches nothing beyond its largest successor shares that successor's set.
+ */
+public class NumberedGraphReachability<T, S> {
+
+  /** layers with fewer components are computed by one thread */
+  private static final int PARALLEL_THRESHOLD = 256;
+
+  private static final BitVectorIntSet EMPTY = new BitVectorIntSet();
+
+  private final NumberedGraph<T> g;
+
+  private final Function<? super T, ? extends IntSet> gen;
+
+  /** the values generated in the graph */
+  private final OrdinalSetMapping<S> domain;
+
+  private int numberOfThreads = 1;
+
+  /** the component of each node, by node number */
+  private int[] component;
+
+  /** the successors of component c are succs[succStart[c]] ... succs[succStart[c+1]-1] */
+  private int[] succStart;
+
+  private int[] succs;
+
+  /** the members of component c are members[memberStart[c]] ... members[memberStart[c+1]-1] */
+  private int[] memberStart;
+
+  private int[] members;
+
+  /** the values reachable from each component */
+  private BitVectorIntSet[] reach;
+
+  /**
+   * @param g the graph to analyze
+   * @param domain the values which may be generated
+   * @param gen the indices in domain of the values generated at a node, or null for none
+   * @throws IllegalArgumentException if any argument is null
+   */
+  public NumberedGraphReachability(
+      NumberedGraph<T> g, OrdinalSetMapping<S> domain, Function<? super T, ? extends IntSet> gen) {
+    if (g == null) {
+      throw new IllegalArgumentException("g is null");
+    }
+    if (domain == null) {
+      throw new IllegalArgumentException("domain is null");
+    }
+    if (gen == null) {
+      throw new IllegalArgumentException("gen is null");
+    }
+    this.g = g;
+    this.domain = domain;
+    this.gen = gen;
+  }
+
+  /**
+   * Find the "interesting" nodes reachable from each node, as {@link GraphReachability} does.
+   *
+   * @param g the graph to analyze
+   * @param filter "interesting" node definition
+   * @throws IllegalArgumentException if g is null
+   */
+  public static <T> NumberedGraphReachability<T, T> make(
+      NumberedGraph<T> g, Predicate<? super T> filter) {
+    if (g == null) {
+      throw new IllegalArgumentException("g is null");
+    }
+    MutableMapping<T> domain = MutableMapping.make();
+    for (T n : g) {
+      if (filter.test(n)) {
+        domain.add(n);
+      }
+    }
+    return new NumberedGraphReachability<>(
+        g,
+        domain,
+        n -> {
+          int i = domain.getMappedIndex(n);
+          return i == -1 ? null : SparseIntSet.singleton(i);
+        });
+  }
+
+  public int getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
+  /** @param n how many threads {@link #solve(IProgressMonitor)} may use */
+  public void setNumberOfThreads(int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + n);
+    }
+    numberOfThreads = n;
+  }
+
+  /** @return the values which may be generated */
+  public OrdinalSetMapping<S> getDomain() {
+    return domain;
+  }
+
+  /**
+   * @return the values generated at the nodes reachable from n, backed by a set which is shared
+   *     with other nodes and must not be modified
+   * @throws IllegalStateException if {@link #solve(IProgressMonitor)} has not been called
+   * @throws IllegalArgumentException if n is not a node of the graph
+   */
+  @SuppressWarnings("unchecked")
+  public OrdinalSet<S> getReachableSet(Object n) throws IllegalStateException {
+    if (reach == null) {
+      throw new IllegalStateException("must call solve() before calling getReachableSet()");
+    }
+    if (!g.containsNode((T) n)) {
+      throw new IllegalArgumentException("not a node of the graph: " + n);
+    }
+    return new OrdinalSet<>(reach[component[g.getNumber((T) n)]], domain);
+  }
+
+  /** @return true iff some node reaches some value */
+  public boolean solve(IProgressMonitor monitor) throws CancelException {
+    ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+    try {
+      component = ParallelSCC.computeComponents(g, pool);
+      MonitorUtil.throwExceptionIfCanceled(monitor);
+      condense();
+      int[][] layers = layers();
+      reach = new BitVectorIntSet[succStart.length - 1];
+      boolean result = false;
+      for (int[] layer : layers) {
+        MonitorUtil.throwExceptionIfCanceled(monitor);
+        if (numberOfThreads > 1 && layer.length >= PARALLEL_THRESHOLD) {
+          pool.invoke(new Layer(layer, 0, layer.length));
+        } else {
+          for (int c : layer) {
+            compute(c);
+          }
+        }
+        for (int c : layer) {
+          result |= !reach[c].isEmpty();
+        }
+      }
+      return result;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /** Build the member and successor lists of the components. */
+  private void condense() {
+    int count = 0;
+    for (int c : component) {
+      count = Math.max(count, c + 1);
+    }
+    memberStart = new int[count + 1];
+    for (int c : component) {
+      if (c != -1) {
+        memberStart[c + 1]++;
+      }
+    }
+    for (int c = 0; c < count; c++) {
+      memberStart[c + 1] += memberStart[c];
+    }
+    members = new int[memberStart[count]];
+    int[] fill = Arrays.copyOf(memberStart, count);
+    for (int n = 0; n < component.length; n++) {
+      if (component[n] != -1) {
+        members[fill[component[n]]++] = n;
+      }
+    }
+
+    succStart = new int[count + 1];
+    int[] edges = new int[count];
+    int size = 0;
+    // seen[d] == c + 1 iff d has already been recorded as a successor of c
+    int[] seen = new int[count];
+    for (int c = 0; c < count; c++) {
+      succStart[c] = size;
+      for (int i = memberStart[c]; i < memberStart[c + 1]; i++) {
+        IntSet s = g.getSuccNodeNumbers(g.getNode(members[i]));
+        if (s == null) {
+          continue;
+        }
+        for (IntIterator it = s.intIterator(); it.hasNext(); ) {
+          int d = component[it.next()];
+          if (d != c && seen[d] != c + 1) {
+            seen[d] = c + 1;
+            if (size == edges.length) {
+              edges = Arrays.copyOf(edges, 2 * size + 1);
+            }
+            edges[size++] = d;
+          }
+        }
+      }
+    }
+    succStart[count] = size;
+    succs = Arrays.copyOf(edges, size);
+  }
+
+  /** @return the components, grouped by their height in the condensed graph, lowest first */
+  private int[][] layers() {
+    int count = succStart.length - 1;
+    int[] height = new int[count];
+    boolean[] done = new boolean[count];
+    // iterative depth-first search: a component's height is known when all its successors' are
+    int[] stack = new int[count];
+    int[] next = new int[count];
+    int maxHeight = 0;
+    for (int root = 0; root < count; root++) {
+      if (done[root]) {
+        continue;
+      }
+      int top = 0;
+      stack[0] = root;
+      next[root] = succStart[root];
+      done[root] = true;
+      while (top >= 0) {
+        int c = stack[top];
+        if (next[c] < succStart[c + 1]) {
+          int d = succs[next[c]++];
+          if (!done[d]) {
+            done[d] = true;
+            next[d] = succStart[d];
+            stack[++top] = d;
+          }
+        } else {
+          int h = 0;
+          for (int i = succStart[c]; i < succStart[c + 1]; i++) {
+            h = Math.max(h, height[succs[i]] + 1);
+          }
+          height[c] = h;
+          maxHeight = Math.max(maxHeight, h);
+          top--;
+        }
+      }
+    }
+    int[] sizes = new int[maxHeight + 1];
+    for (int h : height) {
+      sizes[h]++;
+    }
+    int[][] result = new int[maxHeight + 1][];
+    for (int h = 0; h <= maxHeight; h++) {
+      result[h] = new int[sizes[h]];
+      sizes[h] = 0;
+    }
+    for (int c = 0; c < count; c++) {
+      result[height[c]][sizes[height[c]]++] = c;
+    }
+    return result;
+  }
+
+  /** Compute the values reachable from c, given those of its successors. */
+  private void compute(int c) {
+    BitVectorIntSet largest = EMPTY;
+    for (int i = succStart[c]; i < succStart[c + 1]; i++) {
+      BitVectorIntSet s = reach[succs[i]];
+      if (s.size() > largest.size()) {
+        largest = s;
+      }
+    }
+    BitVectorIntSet result = null;
+    for (int i = memberStart[c]; i < memberStart[c + 1]; i++) {
+      IntSet s = gen.apply(g.getNode(members[i]));
+      if (s != null && (result != null || !s.isSubset(largest))) {
+        if (result == null) {
+          result = new BitVectorIntSet(largest);
+        }
+        s.foreach(result::add);
+      }
+    }
+    for (int i = succStart[c]; i < succStart[c + 1]; i++) {
+      BitVectorIntSet s = reach[succs[i]];
+      if (s != largest && (result != null || !s.isSubset(largest))) {
+        if (result == null) {
+          result = new BitVectorIntSet(largest);
+        }
+        result.addAllOblivious(s);
+      }
+    }
+    reach[c] = result == null ? largest : result;
+  }
+
+  /** Computes a range of the components of one layer */
+  private class Layer extends RecursiveAction {
+
+    private static final long serialVersionUID = 6040339618823146451L;
+
+    private final int[] layer;
+
+    private final int from;
+
+    private final int to;
+
+    Layer(int[] layer, int from, int to) {
+      this.layer = layer;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= PARALLEL_THRESHOLD) {
+        for (int i = from; i < to; i++) {
+          NumberedGraphReachability.this.compute(layer[i]);
+        }
+      } else {
+        int middle = (from + to) >>> 1;
+        invokeAll(new Layer(layer, from, middle), new Layer(layer, middle, to));
+      }
+    }
+  }
+}
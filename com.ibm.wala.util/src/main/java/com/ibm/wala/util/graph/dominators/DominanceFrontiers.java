@@ -15,16 +15,34 @@ import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.NonNullSingletonIterator;
 import com.ibm.wala.util.graph.Graph;
+import com.ibm.wala.util.graph.NumberedGraph;
 import com.ibm.wala.util.graph.traverse.DFS;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
-/** An object that computes the dominance frontiers of a graph */
+/**
+ * An object that computes the dominance frontiers of a graph
+ *
+ * <p>For a {@link NumberedGraph} with {@link NumberedDominators}, the frontiers are computed by
+ * walking up the dominator tree from the predecessors of each node, as in Cooper, Harvey and
+ * Kennedy, "A Simple, Fast Dominance Algorithm", and are stored in two arrays, indexed by node
+ * number.
+ */
 public class DominanceFrontiers<T> {
 
   private final Map<T, Set<T>> DF = HashMapFactory.make();
 
+  /**
+   * for numbered graphs, the frontier of node number n is frontier[frontierStart[n]] ...
+   * frontier[frontierStart[n+1]-1], in increasing order
+   */
+  private int[] frontierStart;
+
+  private int[] frontier;
+
   private final Dominators<T> dom;
 
   private final Graph<T> G;
@@ -36,13 +54,55 @@ public class DominanceFrontiers<T> {
    * @param root The root from which to compute dominators
    */
   public DominanceFrontiers(Graph<T> G, T root) {
-    this.root = root;
+    this(G, Dominators.make(G, root));
+  }
+
+  /**
+   * @param G The graph
+   * @param dom The dominators of G, which are reused
+   * @throws IllegalArgumentException if G or dom is null
+   */
+  public DominanceFrontiers(Graph<T> G, Dominators<T> dom) {
+    if (G == null) {
+      throw new IllegalArgumentException("G is null");
+    }
+    if (dom == null) {
+      throw new IllegalArgumentException("dom is null");
+    }
+    this.root = dom.root;
     this.G = G;
-    this.dom = Dominators.make(G, root);
-    analyze();
+    this.dom = dom;
+    if (G instanceof NumberedGraph && dom instanceof NumberedDominators) {
+      analyzeNumbered((NumberedGraph<T>) G, (NumberedDominators<T>) dom);
+    } else {
+      analyze();
+    }
   }
 
   public Iterator<T> getDominanceFrontier(T n) {
+    if (frontier != null) {
+      NumberedGraph<T> g = (NumberedGraph<T>) G;
+      int x = g.getNumber(n);
+      if (!((NumberedDominators<T>) dom).isReachable(x)) {
+        throw new IllegalArgumentException("no dominance frontier for node " + n);
+      }
+      return new Iterator<T>() {
+        private int i = frontierStart[x];
+
+        @Override
+        public boolean hasNext() {
+          return i < frontierStart[x + 1];
+        }
+
+        @Override
+        public T next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return g.getNode(frontier[i++]);
+        }
+      };
+    }
     Set<T> frontier = DF.get(n);
     if (frontier == null) {
       throw new IllegalArgumentException("no dominance frontier for node " + n);
@@ -62,6 +122,52 @@ public class DominanceFrontiers<T> {
     return dom.dominatorTree();
   }
 
+  /** @return the dominators from which the frontiers were computed */
+  public Dominators<T> getDominators() {
+    return dom;
+  }
+
+  /**
+   * Y is in the frontier of each X which dominates a predecessor of Y, but not Y's immediate
+   * dominator; these are the nodes from each predecessor of Y up to, and excluding, its idom.
+   */
+  private void analyzeNumbered(NumberedGraph<T> g, NumberedDominators<T> dom) {
+    int size = g.getMaxNumber() + 1;
+    frontierStart = new int[size + 1];
+    // last[X] == Y + 1 iff Y has already been added to the frontier of X
+    int[] last = new int[size];
+    for (int pass = 0; pass < 2; pass++) {
+      int[] fill = pass == 0 ? null : Arrays.copyOf(frontierStart, size);
+      Arrays.fill(last, 0);
+      for (int y = 0; y < size; y++) {
+        if (!dom.isReachable(y)) {
+          continue;
+        }
+        int idom = dom.getIdomNumber(y);
+        for (Iterator<T> it = g.getPredNodes(g.getNode(y)); it.hasNext(); ) {
+          int p = g.getNumber(it.next());
+          if (!dom.isReachable(p)) {
+            continue;
+          }
+          for (int x = p; x != idom && last[x] != y + 1; x = dom.getIdomNumber(x)) {
+            last[x] = y + 1;
+            if (pass == 0) {
+              frontierStart[x + 1]++;
+            } else {
+              frontier[fill[x]++] = y;
+            }
+          }
+        }
+      }
+      if (pass == 0) {
+        for (int x = 0; x < size; x++) {
+          frontierStart[x + 1] += frontierStart[x];
+        }
+        frontier = new int[frontierStart[size]];
+      }
+    }
+  }
+
   private void analyze() {
     Graph<T> DT = dom.dominatorTree();
 
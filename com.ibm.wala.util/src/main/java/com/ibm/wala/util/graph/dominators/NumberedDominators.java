@@ -11,36 +11,203 @@
 package com.ibm.wala.util.graph.dominators;
 
 import com.ibm.wala.util.graph.NumberedGraph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 
 /**
- * Calculate dominators using Langauer and Tarjan's fastest algorithm. TOPLAS 1(1), July 1979. This
- * implementation uses path compression and results in a O(e * alpha(e,n)) complexity, where e is
- * the number of edges in the CFG and n is the number of nodes.
+ * Calculate dominators of a {@link NumberedGraph} with the semi-NCA algorithm of Georgiadis, Tarjan
+ * and Werneck, "Finding Dominators in Practice", JGAA 10(1), 2006. Semidominators are computed as
+ * in Lengauer and Tarjan's simple algorithm, and each immediate dominator is then the nearest
+ * common ancestor of the node's parent and semidominator in the tree built so far.
  *
- * <p>Sources: TOPLAS article, Muchnick book
+ * <p>All state is kept in arrays indexed by node number or DFS number, instead of a record per
+ * node. The dominator tree is numbered in preorder and postorder, so that {@link
+ * #isDominatedBy(Object, Object)} takes constant time.
  */
 public class NumberedDominators<T> extends Dominators<T> {
 
+  /** the immediate dominator of each node, by node number, or -1 for the root and unreachable */
+  private final int[] idom;
+
+  /** preorder number of each node in the dominator tree, or -1 if unreachable */
+  private final int[] pre;
+
+  /** postorder number of each node in the dominator tree */
+  private final int[] post;
+
   public NumberedDominators(NumberedGraph<T> G, T root) throws IllegalArgumentException {
     super(G, root);
+    int size = G.getMaxNumber() + 1;
+    idom = new int[size];
+    pre = new int[size];
+    post = new int[size];
+    Arrays.fill(idom, -1);
+    Arrays.fill(pre, -1);
+    analyzeNumbered(G.getNumber(root));
+  }
 
-    this.infoMap = new Object[G.getMaxNumber() + 1];
-    for (T n : G) {
-      infoMap[G.getNumber(n)] = new DominatorInfo(n);
+  private NumberedGraph<T> graph() {
+    return (NumberedGraph<T>) G;
+  }
+
+  private void analyzeNumbered(int r) {
+    NumberedGraph<T> g = graph();
+    int size = idom.length;
+    // DFS numbers count from 1, with 0 for unreachable nodes
+    int[] dfs = new int[size];
+    int[] vertex = new int[size + 1];
+    int[] parent = new int[size + 1];
+    // the successors still to visit of the nodes on the current path
+    ArrayList<Iterator<? extends T>> succs = new ArrayList<>();
+    int count = 0;
+    dfs[r] = ++count;
+    vertex[count] = r;
+    succs.add(g.getSuccNodes(g.getNode(r)));
+    // the DFS numbers of the nodes on the current path; reused as a stack by eval
+    int[] path = new int[size + 1];
+    path[succs.size()] = count;
+    while (!succs.isEmpty()) {
+      int top = succs.size();
+      Iterator<? extends T> it = succs.get(top - 1);
+      if (it.hasNext()) {
+        int n = g.getNumber(it.next());
+        if (dfs[n] == 0) {
+          dfs[n] = ++count;
+          vertex[count] = n;
+          parent[count] = path[top];
+          succs.add(g.getSuccNodes(g.getNode(n)));
+          path[top + 1] = count;
+        }
+      } else {
+        succs.remove(top - 1);
+      }
     }
+    reachableNodeCount = count;
 
-    analyze();
+    // semidominators, by DFS number, with the link-eval forest of the simple algorithm
+    int[] semi = new int[count + 1];
+    int[] label = new int[count + 1];
+    int[] ancestor = new int[count + 1];
+    for (int i = 1; i <= count; i++) {
+      semi[i] = i;
+      label[i] = i;
+    }
+    for (int w = count; w > 1; w--) {
+      int s = parent[w];
+      for (Iterator<? extends T> it = g.getPredNodes(g.getNode(vertex[w])); it.hasNext(); ) {
+        int v = dfs[g.getNumber(it.next())];
+        if (v == 0) {
+          // unreachable from the root
+          continue;
+        }
+        int u = v <= w ? v : semi[eval(v, ancestor, label, semi, path)];
+        if (u < s) {
+          s = u;
+        }
+      }
+      semi[w] = s;
+      ancestor[w] = parent[w];
+    }
+
+    // immediate dominators, by DFS number, in DFS order
+    int[] dom = ancestor;
+    for (int w = 2; w <= count; w++) {
+      int d = parent[w];
+      while (d > semi[w]) {
+        d = dom[d];
+      }
+      dom[w] = d;
+      idom[vertex[w]] = vertex[d];
+    }
+    dom[1] = 0;
+
+    numberTree(count, vertex, dom);
   }
 
-  /*
-   * Look-aside table for DominatorInfo objects
+  /**
+   * @return the vertex with minimal semidominator on the forest path from v, excluding the root of
+   *     its tree
    */
-  private final Object[] infoMap;
+  private static int eval(int v, int[] ancestor, int[] label, int[] semi, int[] stack) {
+    if (ancestor[v] == 0) {
+      return v;
+    }
+    // path compression, from the top of the path down
+    int top = 0;
+    for (int x = v; ancestor[ancestor[x]] != 0; x = ancestor[x]) {
+      stack[top++] = x;
+    }
+    while (top > 0) {
+      int x = stack[--top];
+      int a = ancestor[x];
+      if (semi[label[a]] < semi[label[x]]) {
+        label[x] = label[a];
+      }
+      ancestor[x] = ancestor[a];
+    }
+    return label[v];
+  }
+
+  /** Number the dominator tree, given by dom over DFS numbers, in preorder and postorder. */
+  private void numberTree(int count, int[] vertex, int[] dom) {
+    // children lists of the dominator tree
+    int[] start = new int[count + 2];
+    for (int w = 2; w <= count; w++) {
+      start[dom[w] + 1]++;
+    }
+    for (int i = 1; i <= count + 1; i++) {
+      start[i] += start[i - 1];
+    }
+    int[] children = new int[Math.max(count - 1, 0)];
+    int[] fill = Arrays.copyOf(start, count + 1);
+    for (int w = 2; w <= count; w++) {
+      children[fill[dom[w]]++] = w;
+    }
+
+    int[] stack = new int[count + 1];
+    int[] next = start;
+    int top = 0;
+    int preorder = 0;
+    int postorder = 0;
+    stack[top++] = 1;
+    pre[vertex[1]] = preorder++;
+    while (top > 0) {
+      int w = stack[top - 1];
+      if (next[w] < fill[w]) {
+        int c = children[next[w]++];
+        pre[vertex[c]] = preorder++;
+        stack[top++] = c;
+      } else {
+        post[vertex[w]] = postorder++;
+        top--;
+      }
+    }
+  }
+
+  /** @return the number of the immediate dominator of node number n, or -1 if there is none */
+  public int getIdomNumber(int n) {
+    return idom[n];
+  }
+
+  /** @return true iff the node numbered n is reachable from the root */
+  public boolean isReachable(int n) {
+    return n >= 0 && n < pre.length && pre[n] != -1;
+  }
 
-  @SuppressWarnings("unchecked")
   @Override
-  protected final DominatorInfo getInfo(T node) {
-    assert node != null;
-    return (DominatorInfo) infoMap[((NumberedGraph<T>) G).getNumber(node)];
+  public T getIdom(T node) {
+    int d = idom[graph().getNumber(node)];
+    return d == -1 ? null : graph().getNode(d);
+  }
+
+  @Override
+  public boolean isDominatedBy(T node, T master) {
+    if (node.equals(master)) {
+      return true;
+    }
+    int n = graph().getNumber(node);
+    int m = graph().getNumber(master);
+    return isReachable(n) && isReachable(m) && pre[m] <= pre[n] && post[n] <= post[m];
   }
 }
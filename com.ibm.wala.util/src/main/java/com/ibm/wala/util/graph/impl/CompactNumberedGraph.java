@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.graph.impl;
+
+import com.ibm.wala.util.collections.ObjectIntHashMap;
+import com.ibm.wala.util.graph.AbstractNumberedGraph;
+import com.ibm.wala.util.graph.INodeWithNumber;
+import com.ibm.wala.util.graph.NumberedEdgeManager;
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.NumberedNodeManager;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.SparseIntSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * An immutable copy of a finished {@link NumberedGraph}, with the same node numbers, which stores
+ * its edges in compressed sparse row form: the successors of all nodes in one int array, ordered by
+ * node number, with an array of offsets into it, and the same for predecessors. This takes 8 bytes
+ * per edge, and {@link #getSuccNodes(Object)} and {@link #getPredNodes(Object)} scan a contiguous
+ * range of one array.
+ *
+ * <p>{@link #getSuccNodeNumbers(Object)} and {@link #getPredNodeNumbers(Object)} return a new set
+ * for each call. All methods which would modify the graph throw {@link
+ * UnsupportedOperationException}.
+ */
+public class CompactNumberedGraph<T> extends AbstractNumberedGraph<T> {
+
+  /** the node with each number, or null */
+  private final T[] nodes;
+
+  private final int numberOfNodes;
+
+  /**
+   * the numbers of nodes which are not {@link INodeWithNumber}s numbered as in this graph, or null
+   * if there are none
+   */
+  private final ObjectIntHashMap<T> numbers;
+
+  /** the successors of node n are succs[succStart[n]] ... succs[succStart[n+1]-1], in order */
+  private final int[] succStart;
+
+  private final int[] succs;
+
+  /** the predecessors of node n are preds[predStart[n]] ... preds[predStart[n+1]-1], in order */
+  private final int[] predStart;
+
+  private final int[] preds;
+
+  private final NumberedNodeManager<T> nodeManager = new Nodes();
+
+  private final NumberedEdgeManager<T> edgeManager = new Edges();
+
+  /**
+   * Copy G, which should not be modified while this constructor runs.
+   *
+   * @throws IllegalArgumentException if G is null
+   */
+  @SuppressWarnings("unchecked")
+  public CompactNumberedGraph(NumberedGraph<T> G) {
+    if (G == null) {
+      throw new IllegalArgumentException("G is null");
+    }
+    int size = G.getMaxNumber() + 1;
+    nodes = (T[]) new Object[size];
+    ObjectIntHashMap<T> numbers = null;
+    int count = 0;
+    for (T n : G) {
+      int number = G.getNumber(n);
+      nodes[number] = n;
+      count++;
+      if (!(n instanceof INodeWithNumber) || ((INodeWithNumber) n).getGraphNodeId() != number) {
+        if (numbers == null) {
+          numbers = new ObjectIntHashMap<>();
+        }
+        numbers.put(n, number);
+      }
+    }
+    this.numbers = numbers;
+    this.numberOfNodes = count;
+
+    succStart = new int[size + 1];
+    int[] edges = new int[Math.max(count, 1)];
+    int edgeCount = 0;
+    for (int n = 0; n < size; n++) {
+      succStart[n] = edgeCount;
+      if (nodes[n] == null) {
+        continue;
+      }
+      for (Iterator<? extends T> it = G.getSuccNodes(nodes[n]); it.hasNext(); ) {
+        if (edgeCount == edges.length) {
+          edges = Arrays.copyOf(edges, 2 * edgeCount);
+        }
+        edges[edgeCount++] = G.getNumber(it.next());
+      }
+      // sort, and drop duplicates
+      Arrays.sort(edges, succStart[n], edgeCount);
+      int last = succStart[n];
+      for (int i = succStart[n] + 1; i < edgeCount; i++) {
+        if (edges[i] != edges[last]) {
+          edges[++last] = edges[i];
+        }
+      }
+      edgeCount = Math.min(edgeCount, last + 1);
+    }
+    succStart[size] = edgeCount;
+    succs = Arrays.copyOf(edges, edgeCount);
+
+    // transpose; the predecessors of each node come out in order
+    predStart = new int[size + 1];
+    for (int s : succs) {
+      predStart[s + 1]++;
+    }
+    for (int n = 0; n < size; n++) {
+      predStart[n + 1] += predStart[n];
+    }
+    preds = new int[edgeCount];
+    int[] fill = Arrays.copyOf(predStart, size);
+    for (int n = 0; n < size; n++) {
+      for (int i = succStart[n]; i < succStart[n + 1]; i++) {
+        preds[fill[succs[i]]++] = n;
+      }
+    }
+  }
+
+  @Override
+  protected NumberedNodeManager<T> getNodeManager() {
+    return nodeManager;
+  }
+
+  @Override
+  protected NumberedEdgeManager<T> getEdgeManager() {
+    return edgeManager;
+  }
+
+  /** @return the number of n, or -1 if n is not in the graph */
+  private int number(Object n) {
+    int number = numbers == null ? -1 : numbers.getOrDefault(n, -1);
+    if (number == -1) {
+      if (!(n instanceof INodeWithNumber)) {
+        return -1;
+      }
+      number = ((INodeWithNumber) n).getGraphNodeId();
+    }
+    return number >= 0 && number < nodes.length && n.equals(nodes[number]) ? number : -1;
+  }
+
+  private int checkedNumber(T n) {
+    int number = number(n);
+    if (number == -1) {
+      throw new IllegalArgumentException("node not in graph: " + n);
+    }
+    return number;
+  }
+
+  /** @return an iterator of the nodes numbered a[from] ... a[to-1] */
+  private Iterator<T> iterate(int[] a, int from, int to) {
+    return new Iterator<T>() {
+      private int i = from;
+
+      @Override
+      public boolean hasNext() {
+        return i < to;
+      }
+
+      @Override
+      public T next() {
+        if (i >= to) {
+          throw new NoSuchElementException();
+        }
+        return nodes[a[i++]];
+      }
+    };
+  }
+
+  private class Nodes implements NumberedNodeManager<T> {
+
+    @Override
+    public Stream<T> stream() {
+      return IntStream.range(0, nodes.length).filter(n -> nodes[n] != null).mapToObj(n -> nodes[n]);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      return new Iterator<T>() {
+        private int next = advance(0);
+
+        private int advance(int n) {
+          while (n < nodes.length && nodes[n] == null) {
+            n++;
+          }
+          return n;
+        }
+
+        @Override
+        public boolean hasNext() {
+          return next < nodes.length;
+        }
+
+        @Override
+        public T next() {
+          if (next >= nodes.length) {
+            throw new NoSuchElementException();
+          }
+          T result = nodes[next];
+          next = advance(next + 1);
+          return result;
+        }
+      };
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+      return numberOfNodes;
+    }
+
+    @Override
+    public void addNode(T n) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeNode(T n) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean containsNode(T n) {
+      return number(n) != -1;
+    }
+
+    @Override
+    public int getNumber(T N) {
+      return number(N);
+    }
+
+    @Override
+    public T getNode(int number) {
+      return number >= 0 && number < nodes.length ? nodes[number] : null;
+    }
+
+    @Override
+    public int getMaxNumber() {
+      return nodes.length - 1;
+    }
+
+    @Override
+    public Iterator<T> iterateNodes(IntSet s) {
+      return new NumberedNodeIterator<>(s, this);
+    }
+  }
+
+  private class Edges implements NumberedEdgeManager<T> {
+
+    @Override
+    public Iterator<T> getPredNodes(T n) {
+      int number = checkedNumber(n);
+      return iterate(preds, predStart[number], predStart[number + 1]);
+    }
+
+    @Override
+    public int getPredNodeCount(T n) {
+      int number = checkedNumber(n);
+      return predStart[number + 1] - predStart[number];
+    }
+
+    @Override
+    public Iterator<T> getSuccNodes(T n) {
+      int number = checkedNumber(n);
+      return iterate(succs, succStart[number], succStart[number + 1]);
+    }
+
+    @Override
+    public int getSuccNodeCount(T n) {
+      int number = checkedNumber(n);
+      return succStart[number + 1] - succStart[number];
+    }
+
+    @Override
+    public IntSet getSuccNodeNumbers(T node) {
+      int number = checkedNumber(node);
+      return SparseIntSet.copyOfRange(succs, succStart[number], succStart[number + 1]);
+    }
+
+    @Override
+    public IntSet getPredNodeNumbers(T node) {
+      int number = checkedNumber(node);
+      return SparseIntSet.copyOfRange(preds, predStart[number], predStart[number + 1]);
+    }
+
+    @Override
+    public boolean hasEdge(T src, T dst) {
+      int s = number(src);
+      int d = number(dst);
+      return s != -1
+          && d != -1
+          && Arrays.binarySearch(succs, succStart[s], succStart[s + 1], d) >= 0;
+    }
+
+    @Override
+    public void addEdge(T src, T dst) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeEdge(T src, T dst) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeAllIncidentEdges(T node) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeIncomingEdges(T node) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeOutgoingEdges(T node) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -30,8 +30,8 @@ import java.util.function.Predicate;
  * <p>This class follows the outNodes of the graph nodes to define the graph, but this behavior can
  * be changed by overriding the getConnected method.
  *
- * <p>TODO: if finding many paths, use a dynamic programming algorithm instead of calling this
- * repeatedly.
+ * <p>To find paths between many pairs of nodes of a numbered graph, use {@link MultiSourceBFS},
+ * which searches from up to 64 sources in one traversal, instead of calling this repeatedly.
  */
 public class BFSPathFinder<T> {
 
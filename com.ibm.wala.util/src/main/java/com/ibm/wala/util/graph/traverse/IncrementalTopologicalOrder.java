@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.graph.traverse;
+
+import com.ibm.wala.util.collections.IntStack;
+import com.ibm.wala.util.collections.Iterator2Iterable;
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.intset.IntSet;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * A topological order of the strongly connected components of a {@link NumberedGraph}, which is
+ * updated as nodes and edges are added instead of being recomputed.
+ *
+ * <p>Every node has an order number, such that for each edge from n to m, the order number of n is
+ * at most that of m, with equality iff n and m are in the same SCC. When an edge is added against
+ * the order, only the nodes whose order numbers lie between those of its ends are searched and
+ * renumbered, as in Pearce and Kelly, "A Dynamic Topological Sort Algorithm for Directed Acyclic
+ * Graphs", JEA 2006. When the new edge closes a cycle, the SCCs on the cycle are merged and share
+ * one order number from then on.
+ *
+ * <p>Removing edges from the graph keeps the order valid, but SCCs are never split again; removed
+ * nodes must be reported to {@link #removeNode(int)}. This class is not thread-safe.
+ */
+public class IncrementalTopologicalOrder<T> {
+
+  private static final int FORWARD = 1;
+
+  private static final int BACKWARD = 2;
+
+  private final NumberedGraph<T> G;
+
+  /** called with each node whose order number changed because of an added edge; may be null */
+  private final IntConsumer moved;
+
+  /** the order number of each representative of an SCC, or -1 for an unknown node */
+  private int[] order = new int[0];
+
+  /** union-find parents: the representatives of the SCCs are their own parents */
+  private int[] parent = new int[0];
+
+  /** the members of each SCC, as a circular list */
+  private int[] next = new int[0];
+
+  /** marks of a search, valid when at least epoch */
+  private int[] mark = new int[0];
+
+  private int epoch = 0;
+
+  private int nextOrder = 0;
+
+  /** number of added edges which changed the order */
+  private int reorderings = 0;
+
+  /**
+   * @param G the graph to order, which may already have nodes and edges; nodes and edges added to G
+   *     later must be reported to {@link #addNode(int)} and {@link #addEdge(int, int)}
+   * @param moved if not null, called with the number of each node whose order number is changed by
+   *     {@link #addEdge(int, int)}
+   */
+  public IncrementalTopologicalOrder(NumberedGraph<T> G, IntConsumer moved) {
+    if (G == null) {
+      throw new IllegalArgumentException("G is null");
+    }
+    this.G = G;
+    this.moved = moved;
+    // number the SCCs G already has in topological order; the bounded searches of addEdge are only
+    // correct once every edge of G respects the order
+    ensureCapacity(G.getMaxNumber());
+    for (Set<T> scc : Iterator2Iterable.make(new SCCIterator<>(G))) {
+      int rep = -1;
+      for (T n : scc) {
+        int number = G.getNumber(n);
+        if (rep == -1) {
+          rep = number;
+          next[rep] = rep;
+        } else {
+          next[number] = next[rep];
+          next[rep] = number;
+        }
+        parent[number] = rep;
+        order[number] = nextOrder;
+      }
+      nextOrder++;
+    }
+  }
+
+  private void ensureCapacity(int n) {
+    if (n >= order.length) {
+      int size = Math.max(n + 1, 2 * order.length);
+      int old = order.length;
+      order = Arrays.copyOf(order, size);
+      Arrays.fill(order, old, size, -1);
+      parent = Arrays.copyOf(parent, size);
+      next = Arrays.copyOf(next, size);
+      mark = Arrays.copyOf(mark, size);
+    }
+  }
+
+  /** Give node n, if it is new, an order number after all others. */
+  public void addNode(int n) {
+    if (n < 0) {
+      throw new IllegalArgumentException("invalid node number: " + n);
+    }
+    ensureCapacity(n);
+    if (order[n] == -1) {
+      order[n] = nextOrder++;
+      parent[n] = n;
+      next[n] = n;
+    }
+  }
+
+  /**
+   * Forget node n, which has been removed from the graph together with its edges. The other nodes
+   * keep their order numbers.
+   *
+   * @throws IllegalArgumentException if n has not been added
+   */
+  public void removeNode(int n) {
+    int o = getOrder(n);
+    if (next[n] != n) {
+      // unlink n from its SCC, and let the rest of the SCC point directly at a representative
+      int prev = n;
+      while (next[prev] != n) {
+        prev = next[prev];
+      }
+      next[prev] = next[n];
+      int rep = prev;
+      int m = rep;
+      do {
+        parent[m] = rep;
+        m = next[m];
+      } while (m != rep);
+      order[rep] = o;
+    }
+    order[n] = -1;
+    parent[n] = n;
+    next[n] = n;
+  }
+
+  private int find(int n) {
+    int root = n;
+    while (parent[root] != root) {
+      root = parent[root];
+    }
+    while (parent[n] != root) {
+      int p = parent[n];
+      parent[n] = root;
+      n = p;
+    }
+    return root;
+  }
+
+  /**
+   * @return the order number of node n
+   * @throws IllegalArgumentException if n has not been added
+   */
+  public int getOrder(int n) {
+    if (n < 0 || n >= order.length || order[n] == -1) {
+      throw new IllegalArgumentException("unknown node: " + n);
+    }
+    return order[find(n)];
+  }
+
+  /** @return true iff nodes n and m are known to be in the same SCC */
+  public boolean inSameComponent(int n, int m) {
+    return getOrder(n) == getOrder(m);
+  }
+
+  /** @return the number of calls to {@link #addEdge(int, int)} which changed the order */
+  public int getNumberOfReorderings() {
+    return reorderings;
+  }
+
+  /** Update the order after an edge from src to dst has been added to the graph. */
+  public void addEdge(int src, int dst) {
+    addNode(src);
+    addNode(dst);
+    int x = find(src);
+    int y = find(dst);
+    int upper = order[x];
+    int lower = order[y];
+    if (x == y || lower > upper) {
+      return;
+    }
+    reorderings++;
+    if (epoch > Integer.MAX_VALUE - 4) {
+      Arrays.fill(mark, 0);
+      epoch = 0;
+    }
+    epoch += 4;
+
+    // the SCCs reachable from y which must not come after x
+    IntStack forward = search(y, upper, true);
+    // the SCCs reaching x which must not come before y
+    IntStack backward = search(x, lower, false);
+
+    int[] before = select(backward, BACKWARD);
+    int[] after = select(forward, FORWARD);
+    int[] cycle = cyclic(x) ? select(forward, FORWARD | BACKWARD) : new int[0];
+
+    int[] slots = new int[forward.size() + before.length];
+    int k = 0;
+    for (int i = 0; i < forward.size(); i++) {
+      slots[k++] = order[forward.get(i)];
+    }
+    for (int c : before) {
+      slots[k++] = order[c];
+    }
+    Arrays.sort(slots);
+
+    // the SCCs reaching x move down, those reachable from y move up, and a new cycle goes between
+    for (int i = 0; i < before.length; i++) {
+      renumber(before[i], slots[i]);
+    }
+    for (int i = 0; i < after.length; i++) {
+      renumber(after[i], slots[slots.length - after.length + i]);
+    }
+    if (cycle.length > 0) {
+      int rep = cycle[0];
+      for (int i = 1; i < cycle.length; i++) {
+        int c = cycle[i];
+        parent[c] = rep;
+        int n = next[rep];
+        next[rep] = next[c];
+        next[c] = n;
+      }
+      order[rep] = -1;
+      renumber(rep, slots[before.length]);
+    }
+  }
+
+  private boolean cyclic(int x) {
+    return mark[x] - epoch == (FORWARD | BACKWARD);
+  }
+
+  /**
+   * @return the SCCs reachable from start, or reaching it if not forward, whose order numbers are
+   *     at most bound if forward, or at least bound if not
+   */
+  private IntStack search(int start, int bound, boolean forward) {
+    int bit = forward ? FORWARD : BACKWARD;
+    IntStack result = new IntStack();
+    IntStack work = new IntStack();
+    setMark(start, bit);
+    work.push(start);
+    while (!work.isEmpty()) {
+      int c = work.pop();
+      result.push(c);
+      int m = c;
+      do {
+        T node = G.getNode(m);
+        IntSet s =
+            node == null ? null : forward ? G.getSuccNodeNumbers(node) : G.getPredNodeNumbers(node);
+        if (s != null) {
+          s.foreach(
+              n -> {
+                int d = find(n);
+                int o = order[d];
+                if ((forward ? o <= bound : o >= bound) && !hasMark(d, bit)) {
+                  setMark(d, bit);
+                  work.push(d);
+                }
+              });
+        }
+        m = next[m];
+      } while (m != c);
+    }
+    return result;
+  }
+
+  private boolean hasMark(int c, int bit) {
+    return mark[c] >= epoch && ((mark[c] - epoch) & bit) != 0;
+  }
+
+  private void setMark(int c, int bit) {
+    mark[c] = (mark[c] >= epoch ? mark[c] : epoch) | bit;
+  }
+
+  /** @return the SCCs in found whose marks are exactly bits, sorted by order number */
+  private int[] select(IntStack found, int bits) {
+    long[] keys = new long[found.size()];
+    int k = 0;
+    for (int i = 0; i < found.size(); i++) {
+      int c = found.get(i);
+      if (mark[c] - epoch == bits) {
+        keys[k++] = ((long) order[c] << 32) | c;
+      }
+    }
+    Arrays.sort(keys, 0, k);
+    int[] result = new int[k];
+    for (int i = 0; i < k; i++) {
+      result[i] = (int) keys[i];
+    }
+    return result;
+  }
+
+  private void renumber(int c, int o) {
+    if (order[c] != o) {
+      order[c] = o;
+      if (moved != null) {
+        int m = c;
+        do {
+          moved.accept(m);
+          m = next[m];
+        } while (m != c);
+      }
+    }
+  }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.graph.traverse;
+
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.Pair;
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.intset.BitVectorIntSet;
+import com.ibm.wala.util.intset.IntSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
+
+/**
+ * Breadth-first search of a {@link NumberedGraph} from many sources at once, as in Then et al.,
+ * "The More the Merrier: Efficient Multi-Source Graph Traversal", VLDB 2014. Sources are searched
+ * in batches of 64, with one bit of a long per source for each node, so that one pass over the
+ * edges advances the frontiers of the whole batch.
+ *
+ * <p>The nodes first reached at each level are kept, so that a shortest path from any source of a
+ * batch to any node it reaches can be recovered by walking back over predecessors. This replaces
+ * calling {@link BFSPathFinder} once for each pair of nodes.
+ *
+ * <p>Batches are independent, and can be searched by several threads; see {@link
+ * #setNumberOfThreads(int)}. The graph must then be safe to read from several threads, as a graph
+ * copied by {@link com.ibm.wala.util.graph.GraphUtil#freeze} is.
+ */
+public class MultiSourceBFS<T> {
+
+  /** the number of sources searched together */
+  private static final int BATCH = 64;
+
+  private final NumberedGraph<T> G;
+
+  private int numberOfThreads = 1;
+
+  public MultiSourceBFS(NumberedGraph<T> G) {
+    if (G == null) {
+      throw new IllegalArgumentException("G is null");
+    }
+    this.G = G;
+  }
+
+  public int getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
+  /** @param n how many threads may search batches of sources */
+  public void setNumberOfThreads(int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + n);
+    }
+    numberOfThreads = n;
+  }
+
+  private int number(T n) {
+    int result = G.getNumber(n);
+    if (result == -1 || !G.containsNode(n)) {
+      throw new IllegalArgumentException("not a node of the graph: " + n);
+    }
+    return result;
+  }
+
+  /**
+   * @return for each of the sources, in order, the numbers of the nodes reachable from it,
+   *     including itself
+   * @throws IllegalArgumentException if some source is not in the graph
+   */
+  public IntSet[] getReachableNodeNumbers(List<? extends T> sources) {
+    if (sources == null) {
+      throw new IllegalArgumentException("sources is null");
+    }
+    int[] numbers = sources.stream().mapToInt(this::number).toArray();
+    IntSet[] result = new IntSet[numbers.length];
+    runBatches(
+        numbers.length,
+        b -> {
+          int from = b * BATCH;
+          int to = Math.min(from + BATCH, numbers.length);
+          Search s = new Search(Arrays.copyOfRange(numbers, from, to), null, 0);
+          BitVectorIntSet[] reached = new BitVectorIntSet[to - from];
+          for (int i = 0; i < reached.length; i++) {
+            reached[i] = new BitVectorIntSet();
+          }
+          for (int v = 0; v < s.seen.length; v++) {
+            for (long bits = s.seen[v]; bits != 0; bits &= bits - 1) {
+              reached[Long.numberOfTrailingZeros(bits)].add(v);
+            }
+          }
+          System.arraycopy(reached, 0, result, from, reached.length);
+          return null;
+        });
+    return result;
+  }
+
+  /**
+   * Find a shortest path from each of the sources to each of the sinks it reaches.
+   *
+   * @return a map from each (source, sink) pair with a path to a shortest path, which lists the
+   *     sink first and the source last, as {@link BFSPathFinder#find()} does
+   * @throws IllegalArgumentException if some source or sink is not in the graph
+   */
+  public Map<Pair<T, T>, List<T>> findPaths(
+      Collection<? extends T> sources, Collection<? extends T> sinks) {
+    if (sources == null) {
+      throw new IllegalArgumentException("sources is null");
+    }
+    if (sinks == null) {
+      throw new IllegalArgumentException("sinks is null");
+    }
+    List<T> sourceList = new ArrayList<>(sources);
+    List<Collection<? extends T>> sinkLists = new ArrayList<>(sourceList.size());
+    for (int i = 0; i < sourceList.size(); i++) {
+      sinkLists.add(sinks);
+    }
+    return findPaths(sourceList, sinkLists);
+  }
+
+  /**
+   * Find a shortest path for each of the (source, sink) pairs, searching from each distinct source
+   * once.
+   *
+   * @return a map from each of the pairs with a path to a shortest path, which lists the sink first
+   *     and the source last, as {@link BFSPathFinder#find()} does
+   * @throws IllegalArgumentException if some source or sink is not in the graph
+   */
+  public Map<Pair<T, T>, List<T>> findPaths(Collection<? extends Pair<T, T>> pairs) {
+    if (pairs == null) {
+      throw new IllegalArgumentException("pairs is null");
+    }
+    Map<T, Collection<T>> sinksOf = HashMapFactory.make();
+    for (Pair<T, T> p : pairs) {
+      sinksOf.computeIfAbsent(p.fst, k -> new ArrayList<>()).add(p.snd);
+    }
+    return findPaths(new ArrayList<>(sinksOf.keySet()), new ArrayList<>(sinksOf.values()));
+  }
+
+  /** @param sinks the sinks wanted for each of the sources */
+  private Map<Pair<T, T>, List<T>> findPaths(
+      List<T> sources, List<? extends Collection<? extends T>> sinks) {
+    int[] numbers = sources.stream().mapToInt(this::number).toArray();
+    int[][] sinkNumbers = new int[numbers.length][];
+    for (int i = 0; i < numbers.length; i++) {
+      sinkNumbers[i] = sinks.get(i).stream().mapToInt(this::number).toArray();
+    }
+    List<Map<Pair<T, T>, List<T>>> paths =
+        runBatches(
+            numbers.length,
+            b -> {
+              int from = b * BATCH;
+              int to = Math.min(from + BATCH, numbers.length);
+              long[] wanted = new long[G.getMaxNumber() + 1];
+              int count = 0;
+              for (int i = from; i < to; i++) {
+                for (int t : sinkNumbers[i]) {
+                  long bit = 1L << (i - from);
+                  if ((wanted[t] & bit) == 0) {
+                    wanted[t] |= bit;
+                    count++;
+                  }
+                }
+              }
+              Search s = new Search(Arrays.copyOfRange(numbers, from, to), wanted, count);
+              Map<Pair<T, T>, List<T>> result = HashMapFactory.make();
+              for (int i = from; i < to; i++) {
+                for (int t : sinkNumbers[i]) {
+                  List<T> path = s.path(i - from, t);
+                  if (path != null) {
+                    result.put(Pair.make(sources.get(i), G.getNode(t)), path);
+                  }
+                }
+              }
+              return result;
+            });
+    Map<Pair<T, T>, List<T>> result = HashMapFactory.make();
+    for (Map<Pair<T, T>, List<T>> m : paths) {
+      result.putAll(m);
+    }
+    return result;
+  }
+
+  /** @return the results of batch(0) ... batch(b-1), for the b batches of the given sources */
+  private <R> List<R> runBatches(int sources, IntFunction<R> batch) {
+    int batches = (sources + BATCH - 1) / BATCH;
+    List<R> result = new ArrayList<>(batches);
+    if (numberOfThreads == 1 || batches <= 1) {
+      for (int b = 0; b < batches; b++) {
+        result.add(batch.apply(b));
+      }
+      return result;
+    }
+    ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+    try {
+      List<ForkJoinTask<R>> tasks = new ArrayList<>(batches);
+      for (int b = 0; b < batches; b++) {
+        int i = b;
+        tasks.add(pool.submit(() -> batch.apply(i)));
+      }
+      for (ForkJoinTask<R> t : tasks) {
+        result.add(t.join());
+      }
+      return result;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /** A search from up to 64 sources, with the nodes first reached at each level */
+  private class Search {
+
+    /** the sources which reach each node, by node number; bit i stands for source i */
+    private final long[] seen;
+
+    /** the numbers of the nodes first reached by some source at each level, in order */
+    private final List<int[]> levelNodes = new ArrayList<>();
+
+    /** the sources which first reached each of levelNodes at that level */
+    private final List<long[]> levelBits = new ArrayList<>();
+
+    /**
+     * @param wanted the sources which should reach each node, by node number, or null to search
+     *     everything reachable
+     * @param remaining the number of bits set in wanted
+     */
+    Search(int[] sources, long[] wanted, int remaining) {
+      int size = G.getMaxNumber() + 1;
+      seen = new long[size];
+      // the sources which reach each node of the next level at that level
+      long[] next = new long[size];
+      int[] nodes = new int[sources.length];
+      int count = 0;
+      for (int i = 0; i < sources.length; i++) {
+        int v = sources[i];
+        if (seen[v] == 0) {
+          nodes[count++] = v;
+        }
+        seen[v] |= 1L << i;
+      }
+      while (count > 0) {
+        Arrays.sort(nodes, 0, count);
+        int[] frontier = Arrays.copyOf(nodes, count);
+        long[] bits = new long[count];
+        for (int k = 0; k < count; k++) {
+          int v = frontier[k];
+          bits[k] = levelNodes.isEmpty() ? seen[v] : next[v];
+          next[v] = 0;
+          if (wanted != null) {
+            remaining -= Long.bitCount(bits[k] & wanted[v]);
+          }
+        }
+        levelNodes.add(frontier);
+        levelBits.add(bits);
+        if (wanted != null && remaining == 0) {
+          break;
+        }
+
+        count = 0;
+        for (int k = 0; k < frontier.length; k++) {
+          for (Iterator<? extends T> it = G.getSuccNodes(G.getNode(frontier[k])); it.hasNext(); ) {
+            int w = G.getNumber(it.next());
+            long d = bits[k] & ~seen[w];
+            if (d != 0) {
+              if (next[w] == 0) {
+                if (count == nodes.length) {
+                  nodes = Arrays.copyOf(nodes, 2 * count);
+                }
+                nodes[count++] = w;
+              }
+              next[w] |= d;
+              seen[w] |= d;
+            }
+          }
+        }
+      }
+    }
+
+    /** @return true iff node number v is first reached at the given level by the source of bit */
+    private boolean reachedAt(int level, int v, long bit) {
+      int i = Arrays.binarySearch(levelNodes.get(level), v);
+      return i >= 0 && (levelBits.get(level)[i] & bit) != 0;
+    }
+
+    /** @return a shortest path from source i to node number t, sink first, or null if none */
+    List<T> path(int i, int t) {
+      long bit = 1L << i;
+      if ((seen[t] & bit) == 0) {
+        return null;
+      }
+      int level = 0;
+      while (!reachedAt(level, t, bit)) {
+        level++;
+      }
+      List<T> result = new ArrayList<>(level + 1);
+      T current = G.getNode(t);
+      result.add(current);
+      // some predecessor was reached by the source one level earlier
+      for (int l = level - 1; l >= 0; l--) {
+        for (Iterator<? extends T> it = G.getPredNodes(current); it.hasNext(); ) {
+          T p = it.next();
+          if (reachedAt(l, G.getNumber(p), bit)) {
+            current = p;
+            break;
+          }
+        }
+        result.add(current);
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.graph.traverse;
+
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.IntStack;
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.intset.EmptyIntSet;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes the strongly connected components of a {@link NumberedGraph} on a {@link ForkJoinPool},
+ * with the forward-backward algorithm of Fleischer, Hendrickson and Pinar, "On Identifying Strongly
+ * Connected Components in Parallel", IPDPS 2000.
+ *
+ * <p>The SCC of a pivot node is the intersection of the nodes it reaches and the nodes reaching it;
+ * the nodes only reached, the nodes only reaching, and the remaining nodes then form three
+ * subproblems which are solved in parallel. Nodes without predecessors or successors in a
+ * subproblem are first trimmed off as singleton SCCs, and small subproblems are solved by Tarjan's
+ * algorithm in one thread.
+ *
+ * <p>The graph must not be modified during the computation.
+ */
+public class ParallelSCC<T> {
+
+  /** subproblems with at most this many nodes are solved sequentially */
+  private static final int SEQUENTIAL_THRESHOLD = 4096;
+
+  /** label of nodes which are in no subproblem, because they are not in the graph or done */
+  private static final int DONE = -1;
+
+  private final NumberedGraph<T> G;
+
+  /** the subproblem of each node */
+  private final int[] label;
+
+  /** the SCC of each node */
+  private final int[] component;
+
+  /** scratch space for trimming and Tarjan's algorithm; each node is used by one task at a time */
+  private final int[] in;
+
+  private final int[] out;
+
+  private final AtomicInteger labels = new AtomicInteger();
+
+  private final AtomicInteger components = new AtomicInteger();
+
+  private ParallelSCC(NumberedGraph<T> G) {
+    this.G = G;
+    int size = G.getMaxNumber() + 1;
+    label = new int[size];
+    component = new int[size];
+    in = new int[size];
+    out = new int[size];
+    Arrays.fill(label, DONE);
+    Arrays.fill(component, -1);
+  }
+
+  /**
+   * @return the number of the SCC of each node, indexed by node number, with -1 for numbers of no
+   *     node; the SCCs are numbered from 0, in no particular order
+   */
+  public static <T> int[] computeComponents(NumberedGraph<T> G, ForkJoinPool pool) {
+    if (G == null) {
+      throw new IllegalArgumentException("G is null");
+    }
+    if (pool == null) {
+      throw new IllegalArgumentException("pool is null");
+    }
+    ParallelSCC<T> scc = new ParallelSCC<>(G);
+    int all = scc.labels.getAndIncrement();
+    IntStack nodes = new IntStack();
+    for (T n : G) {
+      int number = G.getNumber(n);
+      scc.label[number] = all;
+      nodes.push(number);
+    }
+    pool.invoke(scc.new Task(nodes, all));
+    return scc.component;
+  }
+
+  /** @see #computeComponents(NumberedGraph, ForkJoinPool) */
+  public static <T> int[] computeComponents(NumberedGraph<T> G) {
+    return computeComponents(G, ForkJoinPool.commonPool());
+  }
+
+  /** @return the SCCs of G, computed on the common {@link ForkJoinPool} */
+  public static <T> List<Set<T>> computeSCCs(NumberedGraph<T> G) {
+    int[] component = computeComponents(G);
+    List<Set<T>> result = new ArrayList<>();
+    for (int i = 0; i < component.length; i++) {
+      int c = component[i];
+      if (c != -1) {
+        while (result.size() <= c) {
+          result.add(HashSetFactory.make());
+        }
+        result.get(c).add(G.getNode(i));
+      }
+    }
+    return result;
+  }
+
+  private IntSet succs(int n) {
+    IntSet s = G.getSuccNodeNumbers(G.getNode(n));
+    return s == null ? EmptyIntSet.instance : s;
+  }
+
+  private IntSet preds(int n) {
+    IntSet s = G.getPredNodeNumbers(G.getNode(n));
+    return s == null ? EmptyIntSet.instance : s;
+  }
+
+  private void finish(int n, int c) {
+    component[n] = c;
+    label[n] = DONE;
+  }
+
+  /** Finds the SCCs of the nodes with one label */
+  private class Task extends RecursiveAction {
+
+    private static final long serialVersionUID = -2771596519328370418L;
+
+    private final IntStack nodes;
+
+    private final int lab;
+
+    Task(IntStack nodes, int lab) {
+      this.nodes = nodes;
+      this.lab = lab;
+    }
+
+    @Override
+    protected void compute() {
+      if (nodes.size() <= SEQUENTIAL_THRESHOLD) {
+        tarjan(nodes, lab);
+        return;
+      }
+      IntStack rest = trim();
+      if (rest.size() <= SEQUENTIAL_THRESHOLD) {
+        tarjan(rest, lab);
+        return;
+      }
+
+      int pivot = rest.get(0);
+      int fwd = labels.getAndIncrement();
+      int bwd = labels.getAndIncrement();
+      int c = components.getAndIncrement();
+
+      IntStack reached = new IntStack();
+      label[pivot] = fwd;
+      IntStack work = new IntStack();
+      work.push(pivot);
+      while (!work.isEmpty()) {
+        int n = work.pop();
+        reached.push(n);
+        succs(n)
+            .foreach(
+                s -> {
+                  if (label[s] == lab) {
+                    label[s] = fwd;
+                    work.push(s);
+                  }
+                });
+      }
+
+      IntStack reaching = new IntStack();
+      finish(pivot, c);
+      work.push(pivot);
+      while (!work.isEmpty()) {
+        int n = work.pop();
+        preds(n)
+            .foreach(
+                p -> {
+                  if (label[p] == fwd) {
+                    finish(p, c);
+                    work.push(p);
+                  } else if (label[p] == lab) {
+                    label[p] = bwd;
+                    reaching.push(p);
+                    work.push(p);
+                  }
+                });
+      }
+
+      List<Task> tasks = new ArrayList<>(3);
+      IntStack onlyReached = filter(reached, fwd);
+      if (!onlyReached.isEmpty()) {
+        tasks.add(new Task(onlyReached, fwd));
+      }
+      if (!reaching.isEmpty()) {
+        tasks.add(new Task(reaching, bwd));
+      }
+      IntStack others = filter(rest, lab);
+      if (!others.isEmpty()) {
+        tasks.add(new Task(others, lab));
+      }
+      invokeAll(tasks);
+    }
+
+    private IntStack filter(IntStack s, int l) {
+      IntStack result = new IntStack();
+      for (int i = 0; i < s.size(); i++) {
+        if (label[s.get(i)] == l) {
+          result.push(s.get(i));
+        }
+      }
+      return result;
+    }
+
+    /**
+     * Repeatedly remove nodes without predecessors or without successors in this subproblem.
+     *
+     * @return the remaining nodes
+     */
+    private IntStack trim() {
+      IntStack work = new IntStack();
+      for (int i = 0; i < nodes.size(); i++) {
+        int n = nodes.get(i);
+        in[n] = count(preds(n));
+        out[n] = count(succs(n));
+        if (in[n] == 0 || out[n] == 0) {
+          work.push(n);
+        }
+      }
+      while (!work.isEmpty()) {
+        int n = work.pop();
+        if (label[n] != lab) {
+          continue;
+        }
+        finish(n, components.getAndIncrement());
+        succs(n)
+            .foreach(
+                s -> {
+                  if (label[s] == lab && --in[s] == 0) {
+                    work.push(s);
+                  }
+                });
+        preds(n)
+            .foreach(
+                p -> {
+                  if (label[p] == lab && --out[p] == 0) {
+                    work.push(p);
+                  }
+                });
+      }
+      return filter(nodes, lab);
+    }
+
+    private int count(IntSet s) {
+      int[] result = {0};
+      s.foreach(
+          n -> {
+            if (label[n] == lab) {
+              result[0]++;
+            }
+          });
+      return result[0];
+    }
+
+    /**
+     * Tarjan's algorithm, iterative, over the nodes labeled l; in and out hold index and lowlink
+     */
+    private void tarjan(IntStack roots, int l) {
+      int visiting = labels.getAndIncrement();
+      int time = 0;
+      IntStack stack = new IntStack();
+      IntStack path = new IntStack();
+      List<IntIterator> edges = new ArrayList<>();
+      for (int i = 0; i < roots.size(); i++) {
+        int root = roots.get(i);
+        if (label[root] != l) {
+          continue;
+        }
+        label[root] = visiting;
+        in[root] = out[root] = time++;
+        stack.push(root);
+        path.push(root);
+        edges.add(succs(root).intIterator());
+        while (!path.isEmpty()) {
+          int n = path.peek();
+          IntIterator it = edges.get(edges.size() - 1);
+          if (it.hasNext()) {
+            int s = it.next();
+            if (label[s] == l) {
+              label[s] = visiting;
+              in[s] = out[s] = time++;
+              stack.push(s);
+              path.push(s);
+              edges.add(succs(s).intIterator());
+            } else if (label[s] == visiting) {
+              out[n] = Math.min(out[n], in[s]);
+            }
+          } else {
+            path.pop();
+            edges.remove(edges.size() - 1);
+            if (!path.isEmpty()) {
+              int p = path.peek();
+              out[p] = Math.min(out[p], out[n]);
+            }
+            if (out[n] == in[n]) {
+              int c = components.getAndIncrement();
+              int m;
+              do {
+                m = stack.pop();
+                finish(m, c);
+              } while (m != n);
+            }
+          }
+        }
+      }
+    }
+  }
+}
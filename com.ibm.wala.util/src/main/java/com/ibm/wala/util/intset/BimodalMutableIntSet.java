@@ -78,6 +78,32 @@ public class BimodalMutableIntSet implements MutableIntSet {
     return result;
   }
 
+  @Override
+  public boolean addAllWithDelta(IntSet set, MutableIntSet delta) {
+    if (set instanceof BitVectorIntSet && !(impl instanceof BitVectorIntSet)) {
+      // change the representation before performing the operation
+      impl = new BitVectorIntSet(impl);
+    }
+    boolean result = impl.addAllWithDelta(set, delta);
+    if (result) {
+      maybeChangeRepresentation();
+    }
+    return result;
+  }
+
+  @Override
+  public boolean addAllInIntersection(IntSet other, IntSet filter, MutableIntSet delta) {
+    if (other instanceof BitVectorIntSet && !(impl instanceof BitVectorIntSet)) {
+      // change the representation before performing the operation
+      impl = new BitVectorIntSet(impl);
+    }
+    boolean result = impl.addAllInIntersection(other, filter, delta);
+    if (result) {
+      maybeChangeRepresentation();
+    }
+    return result;
+  }
+
   /**
    * If appropriate, change the representation of V.
    *
@@ -186,6 +212,11 @@ public class BimodalMutableIntSet implements MutableIntSet {
     return impl.intIterator();
   }
 
+  @Override
+  public int copyInto(int[] dest) {
+    return impl.copyInto(dest);
+  }
+
   /** @see com.ibm.wala.util.intset.IntSet#foreach(com.ibm.wala.util.intset.IntSetAction) */
   @Override
   public void foreach(IntSetAction action) {
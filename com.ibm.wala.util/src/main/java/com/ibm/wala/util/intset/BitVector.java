@@ -211,6 +211,71 @@ public class BitVector extends BitVectorBase<BitVector> {
     return delta;
   }
 
+  /**
+   * Logically ORs this bit set with the specified set of bits, and also ORs the bits this gains
+   * into delta.
+   *
+   * @return the number of bits added to this.
+   * @throws IllegalArgumentException if set or delta is null
+   */
+  public final int orWithDelta(BitVector set, BitVector delta) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    if (delta == null) {
+      throw new IllegalArgumentException("delta is null");
+    }
+    return orInIntersection(set.bits, null, delta);
+  }
+
+  /**
+   * Logically ORs this bit set with the intersection of set and filter, and also ORs the bits this
+   * gains into delta, if delta is not null.
+   *
+   * @return the number of bits added to this.
+   * @throws IllegalArgumentException if set or filter is null
+   */
+  public final int orInIntersection(BitVector set, BitVector filter, BitVector delta) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    if (filter == null) {
+      throw new IllegalArgumentException("filter is null");
+    }
+    return orInIntersection(set.bits, filter.bits, delta);
+  }
+
+  /** one pass over the words for the two methods above; filterBits may be null */
+  private int orInIntersection(int[] setBits, int[] filterBits, BitVector delta) {
+    int n = filterBits == null ? setBits.length : Math.min(setBits.length, filterBits.length);
+    // ignore trailing zero words, which would only make this and delta grow
+    while (n > 0
+        && (filterBits == null ? setBits[n - 1] : setBits[n - 1] & filterBits[n - 1]) == 0) {
+      n--;
+    }
+    if (n > bits.length) {
+      expand(BITS_PER_UNIT * n - 1);
+    }
+    if (delta != null && n > delta.bits.length) {
+      delta.expand(BITS_PER_UNIT * n - 1);
+    }
+    int added = 0;
+    for (int i = 0; i < n; i++) {
+      int d = setBits[i] & ~bits[i];
+      if (filterBits != null) {
+        d &= filterBits[i];
+      }
+      if (d != 0) {
+        bits[i] |= d;
+        if (delta != null) {
+          delta.bits[i] |= d;
+        }
+        added += Integer.bitCount(d);
+      }
+    }
+    return added;
+  }
+
   /** Return a new FixedSizeBitVector as the OR of two others */
   public static BitVector or(BitVector b1, BitVector b2) {
     if (b1 == null) {
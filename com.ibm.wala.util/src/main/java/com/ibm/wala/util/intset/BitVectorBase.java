@@ -196,23 +196,18 @@ public abstract class BitVectorBase<T extends BitVectorBase> implements Cloneabl
       throw new IllegalArgumentException("illegal start: " + start);
     }
     int word = subscript(start);
-    int bit = (1 << (start & LOW_MASK));
-    while (word < bits.length) {
-      if (bits[word] != 0) {
-        do {
-          if ((bits[word] & bit) != 0) return start;
-          bit <<= 1;
-          start++;
-        } while (bit != 0);
-      } else {
-        start += (BITS_PER_UNIT - (start & LOW_MASK));
+    if (word >= bits.length) {
+      return -1;
+    }
+    // skip whole words, then find the lowest set bit of the first non-zero one
+    int w = bits[word] & (MASK << (start & LOW_MASK));
+    while (w == 0) {
+      if (++word == bits.length) {
+        return -1;
       }
-
-      word++;
-      bit = 1;
+      w = bits[word];
     }
-
-    return -1;
+    return (word << LOG_BITS_PER_UNIT) + Integer.numberOfTrailingZeros(w);
   }
 
   /**
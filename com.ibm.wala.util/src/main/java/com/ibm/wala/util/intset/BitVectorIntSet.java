@@ -27,6 +27,8 @@ public final class BitVectorIntSet implements MutableIntSet {
 
   private static final int UNDEFINED = -1;
 
+  private static final int LOG_BITS_PER_WORD = 5;
+
   private BitVector bitVector = new BitVector(0);
 
   public BitVectorIntSet() {}
@@ -103,6 +105,62 @@ public final class BitVectorIntSet implements MutableIntSet {
     }
   }
 
+  /**
+   * Add all members of set to this, and add to delta those which were not already in this. If set
+   * and delta are also {@link BitVectorIntSet}s this works a word at a time.
+   */
+  @Override
+  public boolean addAllWithDelta(IntSet set, MutableIntSet delta) {
+    if (set instanceof BitVectorIntSet && delta != null) {
+      return orWords((BitVectorIntSet) set, null, delta);
+    }
+    return MutableIntSet.super.addAllWithDelta(set, delta);
+  }
+
+  /**
+   * this |= set &amp; filter, a word at a time
+   *
+   * @param filter null for no filter
+   * @param delta if not null, gets the bits added to this
+   * @return true iff this changes
+   */
+  private boolean orWords(BitVectorIntSet set, BitVectorIntSet filter, MutableIntSet delta) {
+    int added;
+    if (delta == null || delta instanceof BitVectorIntSet) {
+      BitVector d = delta == null ? null : ((BitVectorIntSet) delta).bitVector;
+      if (filter != null) {
+        added = bitVector.orInIntersection(set.bitVector, filter.bitVector, d);
+      } else if (d != null) {
+        added = bitVector.orWithDelta(set.bitVector, d);
+      } else {
+        added = bitVector.orWithDelta(set.bitVector);
+      }
+      if (delta != null && added != 0) {
+        ((BitVectorIntSet) delta).populationCount = UNDEFINED;
+      }
+    } else {
+      int[] setBits = set.bitVector.bits;
+      int[] filterBits = filter == null ? null : filter.bitVector.bits;
+      int n = filterBits == null ? setBits.length : Math.min(setBits.length, filterBits.length);
+      added = 0;
+      for (int w = 0; w < n; w++) {
+        int word = filterBits == null ? setBits[w] : setBits[w] & filterBits[w];
+        for (; word != 0; word &= word - 1) {
+          int i = (w << LOG_BITS_PER_WORD) + Integer.numberOfTrailingZeros(word);
+          if (!bitVector.get(i)) {
+            bitVector.set(i);
+            delta.add(i);
+            added++;
+          }
+        }
+      }
+    }
+    if (added != 0 && populationCount != UNDEFINED) {
+      populationCount += added;
+    }
+    return added != 0;
+  }
+
   /**
    * this version of add all will likely be faster if the client doesn't care about the change or
    * the population count.
@@ -282,18 +340,30 @@ public final class BitVectorIntSet implements MutableIntSet {
   }
 
   private static void actOnWord(IntSetAction action, int startingIndex, int word) {
-    if (word != 0) {
-      if ((word & 0x1) != 0) {
-        action.act(startingIndex);
-      }
-      for (int i = 0; i < 31; i++) {
-        startingIndex++;
-        word >>>= 1;
-        if ((word & 0x1) != 0) {
-          action.act(startingIndex);
-        }
+    for (; word != 0; word &= word - 1) {
+      action.act(startingIndex + Integer.numberOfTrailingZeros(word));
+    }
+  }
+
+  /** Copy the elements of this set into dest, in increasing order, a word at a time. */
+  @Override
+  public int copyInto(int[] dest) {
+    if (dest == null || dest.length < size()) {
+      throw new IllegalArgumentException("dest too small for " + size() + " elements");
+    }
+    return copyInto(dest, 0);
+  }
+
+  /** @return the index in dest after the last element copied there, starting at offset */
+  int copyInto(int[] dest, int offset) {
+    int[] bits = bitVector.bits;
+    int n = offset;
+    for (int w = 0; w < bits.length; w++) {
+      for (int word = bits[w]; word != 0; word &= word - 1) {
+        dest[n++] = (w << LOG_BITS_PER_WORD) + Integer.numberOfTrailingZeros(word);
       }
     }
+    return n;
   }
 
   @Override
@@ -428,11 +498,22 @@ public final class BitVectorIntSet implements MutableIntSet {
     if (other == null) {
       throw new IllegalArgumentException("other == null");
     }
+    if (other instanceof BitVectorIntSet && filter instanceof BitVectorIntSet) {
+      return orWords((BitVectorIntSet) other, (BitVectorIntSet) filter, null);
+    }
     BitVectorIntSet o = new BitVectorIntSet(other);
     o.intersectWith(filter);
     return addAll(o);
   }
 
+  @Override
+  public boolean addAllInIntersection(IntSet other, IntSet filter, MutableIntSet delta) {
+    if (other instanceof BitVectorIntSet && filter instanceof BitVectorIntSet && delta != null) {
+      return orWords((BitVectorIntSet) other, (BitVectorIntSet) filter, delta);
+    }
+    return MutableIntSet.super.addAllInIntersection(other, filter, delta);
+  }
+
   public boolean containsAll(BitVectorIntSet other) {
     if (other == null) {
       throw new IllegalArgumentException("other is null");
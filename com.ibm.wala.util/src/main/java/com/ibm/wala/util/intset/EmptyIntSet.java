@@ -66,6 +66,14 @@ public class EmptyIntSet implements IntSet {
     return emptyIter;
   }
 
+  @Override
+  public int copyInto(int[] dest) {
+    if (dest == null) {
+      throw new IllegalArgumentException("dest is null");
+    }
+    return 0;
+  }
+
   @Override
   public void foreach(IntSetAction action) {}
 
@@ -58,4 +58,23 @@ public interface IntSet extends Serializable {
 
   /** @return true iff {@code this} is a subset of {@code that}. */
   public boolean isSubset(IntSet that);
+
+  /**
+   * Copy the elements of this set into dest, in the order of {@link #intIterator()}. With a buffer
+   * reused across calls, this lets hot loops visit a set without allocating an iterator or a
+   * capturing {@link IntSetAction}.
+   *
+   * @return the number of elements copied, i.e. {@link #size()}
+   * @throws IllegalArgumentException if dest is null or shorter than {@link #size()}
+   */
+  public default int copyInto(int[] dest) {
+    if (dest == null || dest.length < size()) {
+      throw new IllegalArgumentException("dest too small for " + size() + " elements");
+    }
+    int n = 0;
+    for (IntIterator it = intIterator(); it.hasNext(); ) {
+      dest[n++] = it.next();
+    }
+    return n;
+  }
 }
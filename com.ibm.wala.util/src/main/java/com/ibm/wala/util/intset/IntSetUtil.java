@@ -84,6 +84,8 @@ public class IntSetUtil {
       return new MutableSharedBitVectorIntSet((MutableSharedBitVectorIntSet) set);
     } else if (set instanceof SemiSparseMutableIntSet) {
       return new SemiSparseMutableIntSet((SemiSparseMutableIntSet) set);
+    } else if (set instanceof RoaringIntSet) {
+      return new RoaringIntSet(set);
     } else if (set instanceof DebuggingMutableIntSet) {
       MutableIntSet pCopy = makeMutableCopy(((DebuggingMutableIntSet) set).primaryImpl);
       MutableIntSet sCopy = makeMutableCopy(((DebuggingMutableIntSet) set).secondaryImpl);
@@ -143,6 +145,8 @@ public class IntSetUtil {
       IntSet d =
           SemiSparseMutableIntSet.diff((SemiSparseMutableIntSet) A, (SemiSparseMutableIntSet) B);
       return d;
+    } else if (A instanceof RoaringIntSet && B instanceof RoaringIntSet) {
+      return RoaringIntSet.diff((RoaringIntSet) A, (RoaringIntSet) B);
     } else {
       return defaultSlowDiff(A, B, factory);
     }
@@ -165,6 +169,8 @@ public class IntSetUtil {
         System.err.println("call SemiSparseMutableIntSet.removeAll");
       }
       return ((SemiSparseMutableIntSet) A).removeAll((SemiSparseMutableIntSet) B);
+    } else if (A instanceof RoaringIntSet) {
+      return ((RoaringIntSet) A).removeAll(B);
     } else {
       for (IntIterator it = B.intIterator(); it.hasNext(); ) {
         int I = it.next();
@@ -48,4 +48,56 @@ public interface MutableIntSet extends IntSet {
 
   /** */
   boolean addAllInIntersection(IntSet other, IntSet filter);
+
+  /**
+   * Add all members of set to this, and add to delta those which were not already in this. This is
+   * one pass where {@code set.foreachExcluding(this, delta::add)} followed by {@link
+   * #addAll(IntSet)} is two.
+   *
+   * @return true iff the value of this changes.
+   */
+  default boolean addAllWithDelta(IntSet set, MutableIntSet delta) {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    if (delta == null) {
+      throw new IllegalArgumentException("delta == null");
+    }
+    boolean result = false;
+    for (IntIterator it = set.intIterator(); it.hasNext(); ) {
+      int i = it.next();
+      if (add(i)) {
+        delta.add(i);
+        result = true;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Add all members of other which are also in filter to this, and add to delta those which were
+   * not already in this.
+   *
+   * @return true iff the value of this changes.
+   */
+  default boolean addAllInIntersection(IntSet other, IntSet filter, MutableIntSet delta) {
+    if (other == null) {
+      throw new IllegalArgumentException("other == null");
+    }
+    if (filter == null) {
+      throw new IllegalArgumentException("filter == null");
+    }
+    if (delta == null) {
+      throw new IllegalArgumentException("delta == null");
+    }
+    boolean result = false;
+    for (IntIterator it = other.intIterator(); it.hasNext(); ) {
+      int i = it.next();
+      if (filter.contains(i) && add(i)) {
+        delta.add(i);
+        result = true;
+      }
+    }
+    return result;
+  }
 }
@@ -10,12 +10,10 @@
  */
 package com.ibm.wala.util.intset;
 
-import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.ObjectIntHashMap;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.stream.Stream;
 
@@ -39,8 +37,8 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
 
   private int nextIndex = 0;
 
-  /** A mapping from object to Integer. */
-  final HashMap<T, Integer> map = HashMapFactory.make();
+  /** A mapping from object to index. */
+  final ObjectIntHashMap<T> map = new ObjectIntHashMap<>();
 
   /** @throws IllegalArgumentException if array is null */
   @SuppressWarnings("unchecked")
@@ -73,17 +71,12 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
 
   @Override
   public int getMappedIndex(Object o) {
-    Integer I = map.get(o);
-    if (I == null) {
-      return -1;
-    } else {
-      return I;
-    }
+    return map.getOrDefault(o, -1);
   }
 
   @Override
   public boolean hasMappedIndex(T o) {
-    return map.get(o) != null;
+    return map.containsKey(o);
   }
 
   /**
@@ -93,9 +86,9 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
    */
   @Override
   public int add(T o) {
-    Integer I = map.get(o);
-    if (I != null) {
-      return I;
+    int i = map.getOrDefault(o, -1);
+    if (i != -1) {
+      return i;
     }
     map.put(o, nextIndex);
     if (nextIndex >= array.length) {
@@ -140,7 +133,7 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
   }
 
   public Collection<T> getObjects() {
-    return Collections.unmodifiableCollection(map.keySet());
+    return map.keySet();
   }
 
   /** Replace a in this mapping with b. */
@@ -160,8 +153,7 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
     if (i < 0 || i > MAX_SIZE) {
       throw new IllegalArgumentException("invalid i: " + i);
     }
-    Integer I = i;
-    map.put(o, I);
+    map.put(o, i);
     if (i >= array.length) {
       array = Arrays.copyOf(array, 2 * i);
     }
@@ -225,6 +225,16 @@ public class MutableSharedBitVectorIntSet implements MutableIntSet {
     }
   }
 
+  /** Copy the private part, then the shared part, as {@link #intIterator()} visits them. */
+  @Override
+  public int copyInto(int[] dest) {
+    if (dest == null || dest.length < size()) {
+      throw new IllegalArgumentException("dest too small for " + size() + " elements");
+    }
+    int n = privatePart == null ? 0 : privatePart.copyInto(dest);
+    return sharedPart == null ? n : sharedPart.copyInto(dest, n);
+  }
+
   /** @see com.ibm.wala.util.intset.IntSet#foreach(com.ibm.wala.util.intset.IntSetAction) */
   @Override
   public void foreach(IntSetAction action) {
@@ -597,6 +607,22 @@ public class MutableSharedBitVectorIntSet implements MutableIntSet {
     }
   }
 
+  /**
+   * Find the delta with {@link #foreachExcluding}, which skips a shared part common to both sets,
+   * and then add set with {@link #addAll(IntSet)}, which keeps the shared part shared where it can.
+   */
+  @Override
+  public boolean addAllWithDelta(IntSet set, MutableIntSet delta) {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    if (delta == null) {
+      throw new IllegalArgumentException("delta == null");
+    }
+    set.foreachExcluding(this, delta::add);
+    return addAll(set);
+  }
+
   private boolean addAllInternal(BitVectorIntSet set) {
     // should have hijacked this case before getting here!
     assert sharedPart != set;
@@ -790,10 +816,12 @@ public class MutableSharedBitVectorIntSet implements MutableIntSet {
       intersectWithInternal(new MutableSharedBitVectorIntSet((BitVectorIntSet) set));
     } else {
       // this is really slow. optimize as needed.
-      for (IntIterator it = intIterator(); it.hasNext(); ) {
-        int x = it.next();
-        if (!set.contains(x)) {
-          remove(x);
+      // take the elements first, since removing them would disturb an iterator over this set
+      int[] elements = new int[size()];
+      int n = copyInto(elements);
+      for (int i = 0; i < n; i++) {
+        if (!set.contains(elements[i])) {
+          remove(elements[i]);
         }
       }
     }
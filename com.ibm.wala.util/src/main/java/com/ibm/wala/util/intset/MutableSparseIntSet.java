@@ -11,6 +11,7 @@
 package com.ibm.wala.util.intset;
 
 import com.ibm.wala.util.debug.Assertions;
+import java.util.Arrays;
 
 /**
  * A sparse ordered, mutable duplicate-free, fully-encapsulated set of integers. Instances are not
@@ -293,10 +294,9 @@ public class MutableSparseIntSet extends SparseIntSet implements MutableIntSet {
       return addAll((SparseIntSet) set);
     } else {
       int oldSize = size;
-      set.foreach(
-          i -> {
-            if (!contains(i)) add(i);
-          });
+      for (IntIterator it = set.intIterator(); it.hasNext(); ) {
+        add(it.next());
+      }
 
       if (DEBUG_LARGE && size() > TRAP_SIZE) {
         Assertions.UNREACHABLE();
@@ -332,72 +332,112 @@ public class MutableSparseIntSet extends SparseIntSet implements MutableIntSet {
     int[] br = that.elements;
     int bl = that.size();
 
-    return addAll(br, bl);
+    return addAll(br, bl, null);
   }
 
-  @SuppressWarnings("unused")
-  private boolean addAll(int[] that, int thatSize) {
-    int[] ar = this.elements;
-    int ai = 0;
-    final int al = size();
-    int bi = 0;
-
-    // invariant: assume cr has same value as ar until cr is allocated.
-    // we allocate cr lazily when we discover cr != ar.
-    int[] cr = null;
-    int ci = 0;
-
-    while (ai < al && bi < thatSize) {
-      int cmp = (ar[ai] - that[bi]);
+  /**
+   * Add all elements from another int set, and add to delta those which were not already in this.
+   * If set is a {@link SparseIntSet} this is one merge of the two sorted arrays.
+   */
+  @Override
+  public boolean addAllWithDelta(IntSet set, MutableIntSet delta) {
+    if (!(set instanceof SparseIntSet) || delta == null) {
+      return MutableIntSet.super.addAllWithDelta(set, delta);
+    }
+    SparseIntSet that = (SparseIntSet) set;
+    if (that.isEmpty() || that == this) {
+      return false;
+    } else if (this.isEmpty()) {
+      copySet(that);
+      delta.addAll(that);
+      return true;
+    }
+    return addAll(that.elements, that.size, delta);
+  }
 
-      // (always accept element)
-      if (cmp > 0) { // a greater
-        if (cr == null) {
-          cr = new int[al + thatSize];
-          System.arraycopy(ar, 0, cr, 0, ci);
-        }
-        cr[ci++] = that[bi++];
-      } else if (cmp < 0) { // b greater
-        if (cr != null) {
-          cr[ci] = ar[ai];
-        }
-        ci++;
-        ai++;
-      } else {
-        if (cr != null) {
-          cr[ci] = ar[ai]; // (same: use a)
+  /**
+   * Merge the first thatSize elements of the sorted array that into this. The merge runs from the
+   * back, in place when the backing array has room, so that most calls allocate nothing.
+   *
+   * @param delta if not null, gets the elements which were not already in this
+   */
+  @SuppressWarnings("unused")
+  private boolean addAll(int[] that, int thatSize, MutableIntSet delta) {
+    if (size == 0) {
+      elements = Arrays.copyOf(that, thatSize);
+      size = thatSize;
+      if (delta != null) {
+        for (int i = 0; i < thatSize; i++) {
+          delta.add(that[i]);
         }
-        ci++;
-        ai++;
-        bi++;
       }
+      return thatSize > 0;
     }
 
-    // append tail if any (at most one of a or b has tail)
-    if (ai < al) {
-      int tail = al - ai;
-      if (cr != null) {
-        System.arraycopy(ar, ai, cr, ci, tail);
+    // count (and record) the new elements, to find the size of the result
+    final int[] ar = elements;
+    final int al = size;
+    int added = 0;
+    if (thatSize * 16 < al) {
+      // few elements to add: look each one up rather than scanning all of this
+      for (int bi = 0, lo = 0; bi < thatSize; bi++) {
+        int i = Arrays.binarySearch(ar, lo, al, that[bi]);
+        if (i < 0) {
+          if (delta != null) {
+            delta.add(that[bi]);
+          }
+          added++;
+          lo = -i - 1;
+        } else {
+          lo = i + 1;
+        }
       }
-      ci += tail;
-    } else if (bi < thatSize) {
-      int tail = thatSize - bi;
-      if (cr == null) {
-        cr = new int[al + thatSize];
-        System.arraycopy(ar, 0, cr, 0, ci);
+    } else {
+      for (int ai = 0, bi = 0; bi < thatSize; ) {
+        if (ai == al || ar[ai] > that[bi]) {
+          if (delta != null) {
+            delta.add(that[bi]);
+          }
+          added++;
+          bi++;
+        } else if (ar[ai] < that[bi]) {
+          ai++;
+        } else {
+          ai++;
+          bi++;
+        }
       }
-      System.arraycopy(that, bi, cr, ci, tail);
-      ci += tail;
+    }
+    if (added == 0) {
+      return false;
     }
 
-    assert ci > 0;
-
-    elements = (cr == null) ? ar : cr;
-    size = ci;
+    final int newSize = al + added;
+    if (newSize > ar.length) {
+      elements = new int[Math.max(newSize, (int) (ar.length * getExpansionFactor()) + 1)];
+    }
+    int ai = al - 1;
+    int bi = thatSize - 1;
+    int w = newSize - 1;
+    // once all new elements are placed, the rest of ar is already where it belongs
+    while (w > ai) {
+      if (ai >= 0 && ar[ai] > that[bi]) {
+        elements[w--] = ar[ai--];
+      } else if (ai >= 0 && ar[ai] == that[bi]) {
+        elements[w--] = ar[ai--];
+        bi--;
+      } else {
+        elements[w--] = that[bi--];
+      }
+    }
+    if (elements != ar) {
+      System.arraycopy(ar, 0, elements, 0, ai + 1);
+    }
+    size = newSize;
     if (DEBUG_LARGE && size() > TRAP_SIZE) {
       Assertions.UNREACHABLE();
     }
-    return (al != size);
+    return true;
   }
 
   public void removeAll(BitVectorIntSet v) {
@@ -472,6 +512,8 @@ public class MutableSparseIntSet extends SparseIntSet implements MutableIntSet {
         }
       }
       return result;
+    } else if (other instanceof SparseIntSet) {
+      return addAllInIntersection((SparseIntSet) other, filter, null);
     } else {
       BitVectorIntSet o = new BitVectorIntSet(other);
       o.intersectWith(filter);
@@ -479,6 +521,26 @@ public class MutableSparseIntSet extends SparseIntSet implements MutableIntSet {
     }
   }
 
+  @Override
+  public boolean addAllInIntersection(IntSet other, IntSet filter, MutableIntSet delta) {
+    if (other instanceof SparseIntSet && filter != null && delta != null) {
+      return addAllInIntersection((SparseIntSet) other, filter, delta);
+    }
+    return MutableIntSet.super.addAllInIntersection(other, filter, delta);
+  }
+
+  /** filter other into a sorted array, and merge that into this */
+  private boolean addAllInIntersection(SparseIntSet other, IntSet filter, MutableIntSet delta) {
+    int[] kept = new int[other.size];
+    int n = 0;
+    for (int i = 0; i < other.size; i++) {
+      if (filter.contains(other.elements[i])) {
+        kept[n++] = other.elements[i];
+      }
+    }
+    return n > 0 && addAll(kept, n, delta);
+  }
+
   public static MutableSparseIntSet diff(MutableSparseIntSet A, MutableSparseIntSet B) {
     return new MutableSparseIntSet(diffInternal(A, B));
   }
@@ -0,0 +1,1495 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.intset;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of non-negative integers in the style of a Roaring bitmap: the integers are split into
+ * chunks of 2^16 by their high 16 bits, and the low bits of each chunk are kept as a sorted array,
+ * a bitmap or a list of runs, whichever suits the chunk.
+ *
+ * <p>This stays compact for sets over a large numbering space whose elements are clustered, e.g.
+ * points-to sets over millions of instance keys, where a {@link BitVectorIntSet} is as long as its
+ * largest element and a {@link MutableSparseIntSet} takes 4 bytes per element. Bulk operations with
+ * another {@link RoaringIntSet} work a chunk at a time.
+ *
+ * <p>A chunk is kept as an array while it has at most {@link #ARRAY_MAX} elements and as a bitmap
+ * otherwise. Chunks become lists of runs only in {@link #runOptimize()}, which {@link
+ * RoaringIntSetFactory} calls on the sets it makes from arrays of values.
+ */
+public class RoaringIntSet implements MutableIntSet {
+
+  private static final long serialVersionUID = -2913563581870329458L;
+
+  /** a chunk with more elements than this is kept as a bitmap rather than an array */
+  static final int ARRAY_MAX = 4096;
+
+  /** a chunk with more runs than this is never kept as runs, as a bitmap is smaller */
+  static final int RUNS_MAX = 2048;
+
+  private static final int[] NO_KEYS = new int[0];
+
+  private static final Container[] NO_CONTAINERS = new Container[0];
+
+  /** the high 16 bits of the elements of each chunk, in ascending order */
+  private int[] keys = NO_KEYS;
+
+  /** the low 16 bits of the elements of each chunk; none is empty */
+  private Container[] containers = NO_CONTAINERS;
+
+  /** the number of chunks */
+  private int chunks = 0;
+
+  public RoaringIntSet() {}
+
+  /** @throws IllegalArgumentException if set is null */
+  public RoaringIntSet(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    copySet(set);
+  }
+
+  private static int high(int i) {
+    return i >>> 16;
+  }
+
+  private static int low(int i) {
+    return i & 0xFFFF;
+  }
+
+  private int indexOf(int key) {
+    return Arrays.binarySearch(keys, 0, chunks, key);
+  }
+
+  private void ensureCapacity(int n) {
+    if (keys.length < n) {
+      int capacity = Math.max(n, 2 * keys.length);
+      keys = Arrays.copyOf(keys, capacity);
+      containers = Arrays.copyOf(containers, capacity);
+    }
+  }
+
+  private void insertChunk(int index, int key, Container c) {
+    ensureCapacity(chunks + 1);
+    System.arraycopy(keys, index, keys, index + 1, chunks - index);
+    System.arraycopy(containers, index, containers, index + 1, chunks - index);
+    keys[index] = key;
+    containers[index] = c;
+    chunks++;
+  }
+
+  private void removeChunk(int index) {
+    System.arraycopy(keys, index + 1, keys, index, chunks - index - 1);
+    System.arraycopy(containers, index + 1, containers, index, chunks - index - 1);
+    containers[--chunks] = null;
+  }
+
+  /** add c as the last chunk */
+  private void appendChunk(int key, Container c) {
+    ensureCapacity(chunks + 1);
+    keys[chunks] = key;
+    containers[chunks++] = c;
+  }
+
+  /** add i, which is larger than all elements of this */
+  private void append(int i) {
+    int key = high(i);
+    if (chunks == 0 || keys[chunks - 1] != key) {
+      appendChunk(key, new ArrayContainer(low(i)));
+    } else {
+      containers[chunks - 1] = containers[chunks - 1].add(low(i));
+    }
+  }
+
+  @Override
+  public boolean contains(int i) {
+    if (i < 0) {
+      return false;
+    }
+    int k = indexOf(high(i));
+    return k >= 0 && containers[k].contains(low(i));
+  }
+
+  @Override
+  public boolean containsAny(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    if (set instanceof RoaringIntSet) {
+      RoaringIntSet that = (RoaringIntSet) set;
+      for (int i = 0, j = 0; i < chunks && j < that.chunks; ) {
+        if (keys[i] < that.keys[j]) {
+          i++;
+        } else if (keys[i] > that.keys[j]) {
+          j++;
+        } else if (containers[i++].intersects(that.containers[j++])) {
+          return true;
+        }
+      }
+      return false;
+    }
+    for (IntIterator it = set.intIterator(); it.hasNext(); ) {
+      if (contains(it.next())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** @return the intersection of a and b, sharing no containers with either */
+  private static RoaringIntSet and(RoaringIntSet a, RoaringIntSet b) {
+    RoaringIntSet result = new RoaringIntSet();
+    for (int i = 0, j = 0; i < a.chunks && j < b.chunks; ) {
+      if (a.keys[i] < b.keys[j]) {
+        i++;
+      } else if (a.keys[i] > b.keys[j]) {
+        j++;
+      } else {
+        Container c = a.containers[i].copy().and(b.containers[j]);
+        if (c.cardinality() > 0) {
+          result.appendChunk(a.keys[i], c);
+        }
+        i++;
+        j++;
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public IntSet intersection(IntSet that) {
+    if (that == null) {
+      throw new IllegalArgumentException("that is null");
+    }
+    if (that instanceof RoaringIntSet) {
+      return and(this, (RoaringIntSet) that);
+    }
+    RoaringIntSet result = new RoaringIntSet(this);
+    result.intersectWith(that);
+    return result;
+  }
+
+  @Override
+  public IntSet union(IntSet that) {
+    if (that == null) {
+      throw new IllegalArgumentException("that is null");
+    }
+    RoaringIntSet result = new RoaringIntSet(this);
+    result.addAll(that);
+    return result;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return chunks == 0;
+  }
+
+  @Override
+  public int size() {
+    int result = 0;
+    for (int i = 0; i < chunks; i++) {
+      result += containers[i].cardinality();
+    }
+    return result;
+  }
+
+  @Override
+  public IntIterator intIterator() {
+    return new IntIterator() {
+      private int chunk = 0;
+
+      private IntIterator lows = chunks == 0 ? null : containers[0].iterator();
+
+      @Override
+      public boolean hasNext() {
+        return lows != null && (lows.hasNext() || chunk + 1 < chunks);
+      }
+
+      @Override
+      public int next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        if (!lows.hasNext()) {
+          lows = containers[++chunk].iterator();
+        }
+        return (keys[chunk] << 16) | lows.next();
+      }
+    };
+  }
+
+  @Override
+  public void foreach(IntSetAction action) {
+    if (action == null) {
+      throw new IllegalArgumentException("null action");
+    }
+    for (int i = 0; i < chunks; i++) {
+      containers[i].foreach(keys[i] << 16, action);
+    }
+  }
+
+  @Override
+  public void foreachExcluding(IntSet X, IntSetAction action) {
+    if (X == null) {
+      throw new IllegalArgumentException("null X");
+    }
+    if (action == null) {
+      throw new IllegalArgumentException("null action");
+    }
+    if (X instanceof RoaringIntSet) {
+      RoaringIntSet that = (RoaringIntSet) X;
+      for (int i = 0, j = 0; i < chunks; i++) {
+        while (j < that.chunks && that.keys[j] < keys[i]) {
+          j++;
+        }
+        if (j < that.chunks && that.keys[j] == keys[i]) {
+          Container excluded = that.containers[j];
+          containers[i].foreach(
+              keys[i] << 16,
+              x -> {
+                if (!excluded.contains(low(x))) {
+                  action.act(x);
+                }
+              });
+        } else {
+          containers[i].foreach(keys[i] << 16, action);
+        }
+      }
+    } else {
+      foreach(
+          x -> {
+            if (!X.contains(x)) {
+              action.act(x);
+            }
+          });
+    }
+  }
+
+  /** @return the largest element of this set, or -1 if it is empty */
+  @Override
+  public int max() {
+    return chunks == 0 ? -1 : (keys[chunks - 1] << 16) | containers[chunks - 1].last();
+  }
+
+  @Override
+  public boolean sameValue(IntSet that) {
+    if (that == null) {
+      throw new IllegalArgumentException("that is null");
+    }
+    if (that instanceof RoaringIntSet) {
+      RoaringIntSet other = (RoaringIntSet) that;
+      if (chunks != other.chunks) {
+        return false;
+      }
+      for (int i = 0; i < chunks; i++) {
+        if (keys[i] != other.keys[i]
+            || containers[i].cardinality() != other.containers[i].cardinality()
+            || !containers[i].isSubset(other.containers[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return size() == that.size() && isSubset(that);
+  }
+
+  @Override
+  public boolean isSubset(IntSet that) {
+    if (that == null) {
+      throw new IllegalArgumentException("that is null");
+    }
+    if (that instanceof RoaringIntSet) {
+      RoaringIntSet other = (RoaringIntSet) that;
+      for (int i = 0, j = 0; i < chunks; i++, j++) {
+        while (j < other.chunks && other.keys[j] < keys[i]) {
+          j++;
+        }
+        if (j == other.chunks
+            || other.keys[j] != keys[i]
+            || !containers[i].isSubset(other.containers[j])) {
+          return false;
+        }
+      }
+      return true;
+    }
+    for (IntIterator it = intIterator(); it.hasNext(); ) {
+      if (!that.contains(it.next())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void copySet(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    if (set == this) {
+      return;
+    }
+    if (set instanceof RoaringIntSet) {
+      RoaringIntSet that = (RoaringIntSet) set;
+      keys = Arrays.copyOf(that.keys, that.chunks);
+      containers = new Container[that.chunks];
+      for (int i = 0; i < that.chunks; i++) {
+        containers[i] = that.containers[i].copy();
+      }
+      chunks = that.chunks;
+    } else {
+      clear();
+      for (IntIterator it = set.intIterator(); it.hasNext(); ) {
+        add(it.next());
+      }
+    }
+  }
+
+  @Override
+  public boolean addAll(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    if (set instanceof RoaringIntSet) {
+      return addAll((RoaringIntSet) set);
+    }
+    boolean change = false;
+    for (IntIterator it = set.intIterator(); it.hasNext(); ) {
+      change |= add(it.next());
+    }
+    return change;
+  }
+
+  private boolean addAll(RoaringIntSet that) {
+    if (that == this) {
+      return false;
+    }
+    int missing = 0;
+    for (int i = 0, j = 0; j < that.chunks; ) {
+      if (i == chunks || keys[i] > that.keys[j]) {
+        missing++;
+        j++;
+      } else if (keys[i] < that.keys[j]) {
+        i++;
+      } else {
+        i++;
+        j++;
+      }
+    }
+    ensureCapacity(chunks + missing);
+    // merge from the back, so that chunks of this are moved before they are overwritten
+    boolean change = missing > 0;
+    int i = chunks - 1;
+    int j = that.chunks - 1;
+    for (int w = chunks + missing - 1; j >= 0; w--) {
+      if (i >= 0 && keys[i] > that.keys[j]) {
+        keys[w] = keys[i];
+        containers[w] = containers[i--];
+      } else if (i >= 0 && keys[i] == that.keys[j]) {
+        Container c = containers[i--];
+        int before = c.cardinality();
+        c = c.or(that.containers[j]);
+        change |= c.cardinality() != before;
+        keys[w] = that.keys[j--];
+        containers[w] = c;
+      } else {
+        keys[w] = that.keys[j];
+        containers[w] = that.containers[j--].copy();
+      }
+    }
+    chunks += missing;
+    return change;
+  }
+
+  /** @throws IllegalArgumentException if i is negative */
+  @Override
+  public boolean add(int i) {
+    if (i < 0) {
+      throw new IllegalArgumentException("negative element: " + i);
+    }
+    int key = high(i);
+    int k = indexOf(key);
+    if (k < 0) {
+      insertChunk(-k - 1, key, new ArrayContainer(low(i)));
+      return true;
+    }
+    Container c = containers[k];
+    if (c.contains(low(i))) {
+      return false;
+    }
+    containers[k] = c.add(low(i));
+    return true;
+  }
+
+  @Override
+  public boolean remove(int i) {
+    if (i < 0) {
+      return false;
+    }
+    int k = indexOf(high(i));
+    if (k < 0 || !containers[k].contains(low(i))) {
+      return false;
+    }
+    Container c = containers[k].remove(low(i));
+    if (c.cardinality() == 0) {
+      removeChunk(k);
+    } else {
+      containers[k] = c;
+    }
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    keys = NO_KEYS;
+    containers = NO_CONTAINERS;
+    chunks = 0;
+  }
+
+  @Override
+  public void intersectWith(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    if (set == this) {
+      return;
+    }
+    if (set instanceof RoaringIntSet) {
+      RoaringIntSet that = (RoaringIntSet) set;
+      int w = 0;
+      for (int i = 0, j = 0; i < chunks; i++) {
+        while (j < that.chunks && that.keys[j] < keys[i]) {
+          j++;
+        }
+        if (j < that.chunks && that.keys[j] == keys[i]) {
+          Container c = containers[i].and(that.containers[j]);
+          if (c.cardinality() > 0) {
+            keys[w] = keys[i];
+            containers[w++] = c;
+          }
+        }
+      }
+      Arrays.fill(containers, w, chunks, null);
+      chunks = w;
+    } else {
+      RoaringIntSet kept = new RoaringIntSet();
+      for (IntIterator it = intIterator(); it.hasNext(); ) {
+        int x = it.next();
+        if (set.contains(x)) {
+          kept.append(x);
+        }
+      }
+      keys = kept.keys;
+      containers = kept.containers;
+      chunks = kept.chunks;
+    }
+  }
+
+  @Override
+  public boolean addAllInIntersection(IntSet other, IntSet filter) {
+    if (other == null) {
+      throw new IllegalArgumentException("other is null");
+    }
+    if (filter == null) {
+      throw new IllegalArgumentException("filter is null");
+    }
+    if (other instanceof RoaringIntSet && filter instanceof RoaringIntSet) {
+      return addAll(and((RoaringIntSet) other, (RoaringIntSet) filter));
+    }
+    boolean change = false;
+    for (IntIterator it = other.intIterator(); it.hasNext(); ) {
+      int x = it.next();
+      if (filter.contains(x)) {
+        change |= add(x);
+      }
+    }
+    return change;
+  }
+
+  /**
+   * If set is also a {@link RoaringIntSet}, find the delta a chunk at a time, and add it to both
+   * this and delta.
+   */
+  @Override
+  public boolean addAllWithDelta(IntSet set, MutableIntSet delta) {
+    if (set instanceof RoaringIntSet && delta != null) {
+      return addDiff((RoaringIntSet) set, delta);
+    }
+    return MutableIntSet.super.addAllWithDelta(set, delta);
+  }
+
+  @Override
+  public boolean addAllInIntersection(IntSet other, IntSet filter, MutableIntSet delta) {
+    if (other instanceof RoaringIntSet && filter instanceof RoaringIntSet && delta != null) {
+      return addDiff(and((RoaringIntSet) other, (RoaringIntSet) filter), delta);
+    }
+    return MutableIntSet.super.addAllInIntersection(other, filter, delta);
+  }
+
+  /** add set \ this to both this and delta */
+  private boolean addDiff(RoaringIntSet set, MutableIntSet delta) {
+    RoaringIntSet d = diff(set, this);
+    if (d.isEmpty()) {
+      return false;
+    }
+    delta.addAll(d);
+    addAll(d);
+    return true;
+  }
+
+  /**
+   * Subtract set from this set, i.e. this = this \ set.
+   *
+   * @return this
+   */
+  public RoaringIntSet removeAll(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    if (set == this) {
+      clear();
+    } else if (set instanceof RoaringIntSet) {
+      RoaringIntSet that = (RoaringIntSet) set;
+      int w = 0;
+      for (int i = 0, j = 0; i < chunks; i++) {
+        while (j < that.chunks && that.keys[j] < keys[i]) {
+          j++;
+        }
+        Container c = containers[i];
+        if (j < that.chunks && that.keys[j] == keys[i]) {
+          c = c.andNot(that.containers[j]);
+        }
+        if (c.cardinality() > 0) {
+          keys[w] = keys[i];
+          containers[w++] = c;
+        }
+      }
+      Arrays.fill(containers, w, chunks, null);
+      chunks = w;
+    } else {
+      for (IntIterator it = set.intIterator(); it.hasNext(); ) {
+        remove(it.next());
+      }
+    }
+    return this;
+  }
+
+  /** @return a new set holding A \ B */
+  public static RoaringIntSet diff(RoaringIntSet A, RoaringIntSet B) {
+    if (A == null) {
+      throw new IllegalArgumentException("A is null");
+    }
+    if (B == null) {
+      throw new IllegalArgumentException("B is null");
+    }
+    RoaringIntSet result = new RoaringIntSet();
+    for (int i = 0, j = 0; i < A.chunks; i++) {
+      while (j < B.chunks && B.keys[j] < A.keys[i]) {
+        j++;
+      }
+      Container c = A.containers[i].copy();
+      if (j < B.chunks && B.keys[j] == A.keys[i]) {
+        c = c.andNot(B.containers[j]);
+      }
+      if (c.cardinality() > 0) {
+        result.appendChunk(A.keys[i], c);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Convert each chunk to whichever of an array, a bitmap or a list of runs takes the least space.
+   * This pays off for sets which have long runs of consecutive elements and will not change much.
+   */
+  public void runOptimize() {
+    for (int i = 0; i < chunks; i++) {
+      containers[i] = containers[i].optimize();
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{ ");
+    for (IntIterator it = intIterator(); it.hasNext(); ) {
+      sb.append(it.next()).append(' ');
+    }
+    sb.append('}');
+    return sb.toString();
+  }
+
+  /**
+   * The low 16 bits of the elements of a chunk, as values in [0, 2^16). Operations which change a
+   * container return the resulting container, which may be this one or a new one of another kind.
+   */
+  private abstract static class Container implements Serializable {
+
+    private static final long serialVersionUID = 3284710583164427352L;
+
+    abstract int cardinality();
+
+    abstract boolean contains(int low);
+
+    /** low must not be in this container */
+    abstract Container add(int low);
+
+    /** low must be in this container */
+    abstract Container remove(int low);
+
+    /** this union other; other is not changed */
+    abstract Container or(Container other);
+
+    /** this intersect other; other is not changed */
+    abstract Container and(Container other);
+
+    /** this \ other; other is not changed */
+    abstract Container andNot(Container other);
+
+    abstract boolean intersects(Container other);
+
+    /** @return the largest value in this non-empty container */
+    abstract int last();
+
+    abstract int runCount();
+
+    abstract Container copy();
+
+    abstract IntIterator iterator();
+
+    /** apply action to (high | v) for each value v */
+    abstract void foreach(int high, IntSetAction action);
+
+    /** @return this container if it is an array, or else a new array with the same values */
+    abstract ArrayContainer toArray();
+
+    /** @return this container if it is a bitmap, or else a new bitmap with the same values */
+    abstract BitmapContainer toBitmap();
+
+    /** @return this container if it is a list of runs, or else new runs with the same values */
+    RunContainer toRuns() {
+      RunContainer result = new RunContainer(runCount());
+      for (IntIterator it = iterator(); it.hasNext(); ) {
+        result.append(it.next());
+      }
+      return result;
+    }
+
+    boolean isSubset(Container other) {
+      if (cardinality() > other.cardinality()) {
+        return false;
+      }
+      for (IntIterator it = iterator(); it.hasNext(); ) {
+        if (!other.contains(it.next())) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** @return the smallest representation of the values of this container */
+    Container optimize() {
+      int cardinality = cardinality();
+      int runBytes = 4 * runCount();
+      int otherBytes = cardinality <= ARRAY_MAX ? 2 * cardinality : 8192;
+      if (runBytes < otherBytes) {
+        return toRuns();
+      }
+      return cardinality <= ARRAY_MAX ? toArray() : toBitmap();
+    }
+  }
+
+  /** A chunk with few elements, as a sorted array */
+  private static final class ArrayContainer extends Container {
+
+    private static final long serialVersionUID = 7362391560728614053L;
+
+    private char[] values;
+
+    private int cardinality;
+
+    ArrayContainer(char[] values, int cardinality) {
+      this.values = values;
+      this.cardinality = cardinality;
+    }
+
+    ArrayContainer(int low) {
+      this(new char[] {(char) low}, 1);
+    }
+
+    private int indexOf(int low) {
+      return Arrays.binarySearch(values, 0, cardinality, (char) low);
+    }
+
+    @Override
+    int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    boolean contains(int low) {
+      return indexOf(low) >= 0;
+    }
+
+    @Override
+    Container add(int low) {
+      if (cardinality == ARRAY_MAX) {
+        return toBitmap().add(low);
+      }
+      int index = -indexOf(low) - 1;
+      if (cardinality == values.length) {
+        values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, 2 * cardinality)));
+      }
+      System.arraycopy(values, index, values, index + 1, cardinality - index);
+      values[index] = (char) low;
+      cardinality++;
+      return this;
+    }
+
+    @Override
+    Container remove(int low) {
+      int index = indexOf(low);
+      System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+      cardinality--;
+      return this;
+    }
+
+    @Override
+    Container or(Container other) {
+      if (other instanceof ArrayContainer) {
+        ArrayContainer that = (ArrayContainer) other;
+        if (cardinality + that.cardinality > ARRAY_MAX) {
+          BitmapContainer result = toBitmap();
+          result.or(that);
+          return result.cardinality() <= ARRAY_MAX ? result.toArray() : result;
+        }
+        int total = cardinality + that.cardinality;
+        char[] merged =
+            total <= values.length ? values : new char[Math.min(ARRAY_MAX, Math.max(4, 2 * total))];
+        // merge from the back, so that values of this are read before they are overwritten
+        int i = cardinality - 1;
+        int j = that.cardinality - 1;
+        int w = total - 1;
+        while (j >= 0) {
+          if (i >= 0 && values[i] > that.values[j]) {
+            merged[w--] = values[i--];
+          } else {
+            if (i >= 0 && values[i] == that.values[j]) {
+              i--;
+            }
+            merged[w--] = that.values[j--];
+          }
+        }
+        // values[0..i] precede the merged tail, which starts at w + 1 >= i + 1
+        if (merged != values) {
+          System.arraycopy(values, 0, merged, 0, i + 1);
+        }
+        int tail = total - w - 1;
+        System.arraycopy(merged, w + 1, merged, i + 1, tail);
+        values = merged;
+        cardinality = i + 1 + tail;
+        return this;
+      } else {
+        return other.copy().or(this);
+      }
+    }
+
+    /** keep the values which are in other, or not in other if keep is false */
+    private Container filter(Container other, boolean keep) {
+      int w = 0;
+      for (int i = 0; i < cardinality; i++) {
+        if (other.contains(values[i]) == keep) {
+          values[w++] = values[i];
+        }
+      }
+      cardinality = w;
+      return this;
+    }
+
+    @Override
+    Container and(Container other) {
+      return filter(other, true);
+    }
+
+    @Override
+    Container andNot(Container other) {
+      return filter(other, false);
+    }
+
+    @Override
+    boolean intersects(Container other) {
+      for (int i = 0; i < cardinality; i++) {
+        if (other.contains(values[i])) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    int last() {
+      return values[cardinality - 1];
+    }
+
+    @Override
+    int runCount() {
+      int runs = 0;
+      for (int i = 0; i < cardinality; i++) {
+        if (i == 0 || values[i] != values[i - 1] + 1) {
+          runs++;
+        }
+      }
+      return runs;
+    }
+
+    @Override
+    Container copy() {
+      return new ArrayContainer(Arrays.copyOf(values, cardinality), cardinality);
+    }
+
+    @Override
+    IntIterator iterator() {
+      return new IntIterator() {
+        private int i = 0;
+
+        @Override
+        public boolean hasNext() {
+          return i < cardinality;
+        }
+
+        @Override
+        public int next() {
+          return values[i++];
+        }
+      };
+    }
+
+    @Override
+    void foreach(int high, IntSetAction action) {
+      for (int i = 0; i < cardinality; i++) {
+        action.act(high | values[i]);
+      }
+    }
+
+    @Override
+    ArrayContainer toArray() {
+      return this;
+    }
+
+    @Override
+    BitmapContainer toBitmap() {
+      BitmapContainer result = new BitmapContainer();
+      for (int i = 0; i < cardinality; i++) {
+        result.words[values[i] >>> 6] |= 1L << values[i];
+      }
+      result.cardinality = cardinality;
+      return result;
+    }
+  }
+
+  /** A chunk with many elements, as a bitmap of 2^16 bits */
+  private static final class BitmapContainer extends Container {
+
+    private static final long serialVersionUID = -5176093853916602917L;
+
+    private final long[] words;
+
+    private int cardinality;
+
+    BitmapContainer() {
+      this.words = new long[1024];
+    }
+
+    private BitmapContainer(long[] words, int cardinality) {
+      this.words = words;
+      this.cardinality = cardinality;
+    }
+
+    private void recount() {
+      int n = 0;
+      for (long w : words) {
+        n += Long.bitCount(w);
+      }
+      cardinality = n;
+    }
+
+    /** @return this, or an array if it has few enough elements */
+    private Container shrink() {
+      return cardinality <= ARRAY_MAX ? toArray() : this;
+    }
+
+    /** set the bits in [from, to] */
+    private void setRange(int from, int to) {
+      int first = from >>> 6;
+      int last = to >>> 6;
+      long firstMask = -1L << from;
+      long lastMask = -1L >>> (63 - (to & 63));
+      if (first == last) {
+        words[first] |= firstMask & lastMask;
+      } else {
+        words[first] |= firstMask;
+        Arrays.fill(words, first + 1, last, -1L);
+        words[last] |= lastMask;
+      }
+    }
+
+    /** clear the bits in [from, to] */
+    private void clearRange(int from, int to) {
+      int first = from >>> 6;
+      int last = to >>> 6;
+      long firstMask = -1L << from;
+      long lastMask = -1L >>> (63 - (to & 63));
+      if (first == last) {
+        words[first] &= ~(firstMask & lastMask);
+      } else {
+        words[first] &= ~firstMask;
+        Arrays.fill(words, first + 1, last, 0L);
+        words[last] &= ~lastMask;
+      }
+    }
+
+    /** @return true iff any bit in [from, to] is set */
+    private boolean anyInRange(int from, int to) {
+      int first = from >>> 6;
+      int last = to >>> 6;
+      long firstMask = -1L << from;
+      long lastMask = -1L >>> (63 - (to & 63));
+      if (first == last) {
+        return (words[first] & firstMask & lastMask) != 0;
+      }
+      if ((words[first] & firstMask) != 0 || (words[last] & lastMask) != 0) {
+        return true;
+      }
+      for (int i = first + 1; i < last; i++) {
+        if (words[i] != 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    boolean contains(int low) {
+      return (words[low >>> 6] & (1L << low)) != 0;
+    }
+
+    @Override
+    Container add(int low) {
+      words[low >>> 6] |= 1L << low;
+      cardinality++;
+      return this;
+    }
+
+    @Override
+    Container remove(int low) {
+      words[low >>> 6] &= ~(1L << low);
+      cardinality--;
+      return shrink();
+    }
+
+    @Override
+    Container or(Container other) {
+      if (other instanceof BitmapContainer) {
+        long[] those = ((BitmapContainer) other).words;
+        for (int i = 0; i < words.length; i++) {
+          words[i] |= those[i];
+        }
+        recount();
+      } else if (other instanceof ArrayContainer) {
+        ArrayContainer that = (ArrayContainer) other;
+        for (int i = 0; i < that.cardinality; i++) {
+          int v = that.values[i];
+          long bit = 1L << v;
+          if ((words[v >>> 6] & bit) == 0) {
+            words[v >>> 6] |= bit;
+            cardinality++;
+          }
+        }
+      } else {
+        RunContainer that = (RunContainer) other;
+        for (int r = 0; r < that.nruns; r++) {
+          setRange(that.start(r), that.last(r));
+        }
+        recount();
+      }
+      return this;
+    }
+
+    @Override
+    Container and(Container other) {
+      if (other instanceof BitmapContainer) {
+        long[] those = ((BitmapContainer) other).words;
+        for (int i = 0; i < words.length; i++) {
+          words[i] &= those[i];
+        }
+      } else if (other instanceof ArrayContainer) {
+        return ((ArrayContainer) other).copy().and(this);
+      } else {
+        RunContainer that = (RunContainer) other;
+        int from = 0;
+        for (int r = 0; r < that.nruns; r++) {
+          if (that.start(r) > from) {
+            clearRange(from, that.start(r) - 1);
+          }
+          from = that.last(r) + 1;
+        }
+        if (from <= 0xFFFF) {
+          clearRange(from, 0xFFFF);
+        }
+      }
+      recount();
+      return shrink();
+    }
+
+    @Override
+    Container andNot(Container other) {
+      if (other instanceof BitmapContainer) {
+        long[] those = ((BitmapContainer) other).words;
+        for (int i = 0; i < words.length; i++) {
+          words[i] &= ~those[i];
+        }
+        recount();
+      } else if (other instanceof ArrayContainer) {
+        ArrayContainer that = (ArrayContainer) other;
+        for (int i = 0; i < that.cardinality; i++) {
+          int v = that.values[i];
+          long bit = 1L << v;
+          if ((words[v >>> 6] & bit) != 0) {
+            words[v >>> 6] &= ~bit;
+            cardinality--;
+          }
+        }
+      } else {
+        RunContainer that = (RunContainer) other;
+        for (int r = 0; r < that.nruns; r++) {
+          clearRange(that.start(r), that.last(r));
+        }
+        recount();
+      }
+      return shrink();
+    }
+
+    @Override
+    boolean intersects(Container other) {
+      if (other instanceof BitmapContainer) {
+        long[] those = ((BitmapContainer) other).words;
+        for (int i = 0; i < words.length; i++) {
+          if ((words[i] & those[i]) != 0) {
+            return true;
+          }
+        }
+        return false;
+      } else if (other instanceof ArrayContainer) {
+        return other.intersects(this);
+      } else {
+        RunContainer that = (RunContainer) other;
+        for (int r = 0; r < that.nruns; r++) {
+          if (anyInRange(that.start(r), that.last(r))) {
+            return true;
+          }
+        }
+        return false;
+      }
+    }
+
+    @Override
+    boolean isSubset(Container other) {
+      if (other instanceof BitmapContainer) {
+        long[] those = ((BitmapContainer) other).words;
+        for (int i = 0; i < words.length; i++) {
+          if ((words[i] & ~those[i]) != 0) {
+            return false;
+          }
+        }
+        return true;
+      }
+      return super.isSubset(other);
+    }
+
+    @Override
+    int last() {
+      for (int i = words.length - 1; ; i--) {
+        if (words[i] != 0) {
+          return (i << 6) + 63 - Long.numberOfLeadingZeros(words[i]);
+        }
+      }
+    }
+
+    @Override
+    int runCount() {
+      int runs = 0;
+      long previous = 0;
+      for (long w : words) {
+        // a run starts at each set bit whose predecessor is clear
+        runs += Long.bitCount(w & ~((w << 1) | (previous >>> 63)));
+        previous = w;
+      }
+      return runs;
+    }
+
+    @Override
+    Container copy() {
+      return new BitmapContainer(words.clone(), cardinality);
+    }
+
+    @Override
+    IntIterator iterator() {
+      return new IntIterator() {
+        private int index = 0;
+
+        private long word = words[0];
+
+        @Override
+        public boolean hasNext() {
+          while (word == 0 && index < words.length - 1) {
+            word = words[++index];
+          }
+          return word != 0;
+        }
+
+        @Override
+        public int next() {
+          hasNext();
+          int result = (index << 6) + Long.numberOfTrailingZeros(word);
+          word &= word - 1;
+          return result;
+        }
+      };
+    }
+
+    @Override
+    void foreach(int high, IntSetAction action) {
+      for (int i = 0; i < words.length; i++) {
+        for (long w = words[i]; w != 0; w &= w - 1) {
+          action.act(high | ((i << 6) + Long.numberOfTrailingZeros(w)));
+        }
+      }
+    }
+
+    @Override
+    ArrayContainer toArray() {
+      char[] values = new char[cardinality];
+      int n = 0;
+      for (int i = 0; i < words.length; i++) {
+        for (long w = words[i]; w != 0; w &= w - 1) {
+          values[n++] = (char) ((i << 6) + Long.numberOfTrailingZeros(w));
+        }
+      }
+      return new ArrayContainer(values, n);
+    }
+
+    @Override
+    BitmapContainer toBitmap() {
+      return this;
+    }
+  }
+
+  /** A chunk of long runs of consecutive elements, as the first and last value of each run */
+  private static final class RunContainer extends Container {
+
+    private static final long serialVersionUID = 1524316807410953178L;
+
+    /** the first and last value of each run, in ascending order */
+    private char[] runs;
+
+    private int nruns;
+
+    private int cardinality;
+
+    RunContainer(int capacity) {
+      this.runs = new char[2 * Math.max(1, capacity)];
+    }
+
+    private RunContainer(char[] runs, int nruns, int cardinality) {
+      this.runs = runs;
+      this.nruns = nruns;
+      this.cardinality = cardinality;
+    }
+
+    int start(int r) {
+      return runs[2 * r];
+    }
+
+    int last(int r) {
+      return runs[2 * r + 1];
+    }
+
+    /** @return the index of the last run which starts at or before low, or -1 */
+    private int find(int low) {
+      int lo = 0;
+      int hi = nruns - 1;
+      while (lo <= hi) {
+        int mid = (lo + hi) >>> 1;
+        if (runs[2 * mid] <= low) {
+          lo = mid + 1;
+        } else {
+          hi = mid - 1;
+        }
+      }
+      return hi;
+    }
+
+    private void insertRun(int r, int start, int last) {
+      if (2 * nruns == runs.length) {
+        runs = Arrays.copyOf(runs, 2 * runs.length);
+      }
+      System.arraycopy(runs, 2 * r, runs, 2 * r + 2, 2 * (nruns - r));
+      runs[2 * r] = (char) start;
+      runs[2 * r + 1] = (char) last;
+      nruns++;
+    }
+
+    private void removeRun(int r) {
+      System.arraycopy(runs, 2 * r + 2, runs, 2 * r, 2 * (nruns - r - 1));
+      nruns--;
+    }
+
+    /** add low, which is larger than all values in this container */
+    void append(int low) {
+      if (nruns > 0 && last(nruns - 1) + 1 == low) {
+        runs[2 * nruns - 1] = (char) low;
+      } else {
+        insertRun(nruns, low, low);
+      }
+      cardinality++;
+    }
+
+    /** @return this, or a smaller representation if there are too many runs */
+    private Container shrink() {
+      return nruns > RUNS_MAX ? optimize() : this;
+    }
+
+    @Override
+    int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    boolean contains(int low) {
+      int r = find(low);
+      return r >= 0 && low <= last(r);
+    }
+
+    @Override
+    Container add(int low) {
+      int r = find(low);
+      boolean extendsPrevious = r >= 0 && last(r) + 1 == low;
+      boolean extendsNext = r + 1 < nruns && start(r + 1) == low + 1;
+      if (extendsPrevious && extendsNext) {
+        runs[2 * r + 1] = runs[2 * r + 3];
+        removeRun(r + 1);
+      } else if (extendsPrevious) {
+        runs[2 * r + 1] = (char) low;
+      } else if (extendsNext) {
+        runs[2 * r + 2] = (char) low;
+      } else {
+        insertRun(r + 1, low, low);
+      }
+      cardinality++;
+      return shrink();
+    }
+
+    @Override
+    Container remove(int low) {
+      int r = find(low);
+      int start = start(r);
+      int last = last(r);
+      if (start == last) {
+        removeRun(r);
+      } else if (low == start) {
+        runs[2 * r] = (char) (low + 1);
+      } else if (low == last) {
+        runs[2 * r + 1] = (char) (low - 1);
+      } else {
+        runs[2 * r + 1] = (char) (low - 1);
+        insertRun(r + 1, low + 1, last);
+      }
+      cardinality--;
+      return shrink();
+    }
+
+    @Override
+    Container or(Container other) {
+      if (other instanceof RunContainer) {
+        RunContainer that = (RunContainer) other;
+        RunContainer result = new RunContainer(nruns + that.nruns);
+        int i = 0;
+        int j = 0;
+        while (i < nruns || j < that.nruns) {
+          int start;
+          int last;
+          if (j == that.nruns || (i < nruns && start(i) <= that.start(j))) {
+            start = start(i);
+            last = last(i++);
+          } else {
+            start = that.start(j);
+            last = that.last(j++);
+          }
+          int n = result.nruns;
+          if (n > 0 && start <= result.last(n - 1) + 1) {
+            if (last > result.last(n - 1)) {
+              result.cardinality += last - result.last(n - 1);
+              result.runs[2 * n - 1] = (char) last;
+            }
+          } else {
+            result.insertRun(n, start, last);
+            result.cardinality += last - start + 1;
+          }
+        }
+        return result.shrink();
+      } else if (other instanceof ArrayContainer) {
+        ArrayContainer that = (ArrayContainer) other;
+        Container result = this;
+        for (int i = 0; i < that.cardinality; i++) {
+          if (!result.contains(that.values[i])) {
+            result = result.add(that.values[i]);
+          }
+        }
+        return result;
+      } else {
+        return other.copy().or(this);
+      }
+    }
+
+    @Override
+    Container and(Container other) {
+      if (other instanceof RunContainer) {
+        RunContainer that = (RunContainer) other;
+        RunContainer result = new RunContainer(nruns + that.nruns);
+        for (int i = 0, j = 0; i < nruns && j < that.nruns; ) {
+          int start = Math.max(start(i), that.start(j));
+          int last = Math.min(last(i), that.last(j));
+          if (start <= last) {
+            result.insertRun(result.nruns, start, last);
+            result.cardinality += last - start + 1;
+          }
+          if (last(i) < that.last(j)) {
+            i++;
+          } else {
+            j++;
+          }
+        }
+        return result.optimize();
+      } else {
+        return other.copy().and(this);
+      }
+    }
+
+    @Override
+    Container andNot(Container other) {
+      return toBitmap().andNot(other).optimize();
+    }
+
+    @Override
+    boolean intersects(Container other) {
+      if (other instanceof RunContainer) {
+        RunContainer that = (RunContainer) other;
+        for (int i = 0, j = 0; i < nruns && j < that.nruns; ) {
+          if (Math.max(start(i), that.start(j)) <= Math.min(last(i), that.last(j))) {
+            return true;
+          }
+          if (last(i) < that.last(j)) {
+            i++;
+          } else {
+            j++;
+          }
+        }
+        return false;
+      }
+      return other.intersects(this);
+    }
+
+    @Override
+    int last() {
+      return last(nruns - 1);
+    }
+
+    @Override
+    int runCount() {
+      return nruns;
+    }
+
+    @Override
+    Container copy() {
+      return new RunContainer(Arrays.copyOf(runs, 2 * nruns), nruns, cardinality);
+    }
+
+    @Override
+    IntIterator iterator() {
+      return new IntIterator() {
+        private int r = 0;
+
+        private int next = nruns == 0 ? 0 : start(0);
+
+        @Override
+        public boolean hasNext() {
+          return r < nruns;
+        }
+
+        @Override
+        public int next() {
+          int result = next;
+          if (next == last(r)) {
+            if (++r < nruns) {
+              next = start(r);
+            }
+          } else {
+            next++;
+          }
+          return result;
+        }
+      };
+    }
+
+    @Override
+    void foreach(int high, IntSetAction action) {
+      for (int r = 0; r < nruns; r++) {
+        for (int v = start(r), last = last(r); v <= last; v++) {
+          action.act(high | v);
+        }
+      }
+    }
+
+    @Override
+    ArrayContainer toArray() {
+      char[] values = new char[cardinality];
+      int n = 0;
+      for (int r = 0; r < nruns; r++) {
+        for (int v = start(r), last = last(r); v <= last; v++) {
+          values[n++] = (char) v;
+        }
+      }
+      return new ArrayContainer(values, n);
+    }
+
+    @Override
+    BitmapContainer toBitmap() {
+      BitmapContainer result = new BitmapContainer();
+      for (int r = 0; r < nruns; r++) {
+        result.setRange(start(r), last(r));
+      }
+      result.cardinality = cardinality;
+      return result;
+    }
+
+    @Override
+    RunContainer toRuns() {
+      return this;
+    }
+  }
+}
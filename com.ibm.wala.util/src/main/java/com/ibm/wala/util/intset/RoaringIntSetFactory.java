@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.intset;
+
+import java.util.Arrays;
+
+/**
+ * A factory for {@link RoaringIntSet}s. To use these sets for points-to sets and other dataflow
+ * variables, pass an instance to {@link IntSetUtil#setDefaultIntSetFactory(MutableIntSetFactory)},
+ * or name this class in the {@link IntSetUtil#INT_SET_FACTORY_CONFIG_PROPERTY_NAME} system
+ * property.
+ */
+public class RoaringIntSetFactory implements MutableIntSetFactory<RoaringIntSet> {
+
+  /** @throws IllegalArgumentException if set is null */
+  @Override
+  public RoaringIntSet make(int[] set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    int[] sorted = set.clone();
+    Arrays.sort(sorted);
+    RoaringIntSet result = new RoaringIntSet();
+    for (int i : sorted) {
+      result.add(i);
+    }
+    result.runOptimize();
+    return result;
+  }
+
+  @Override
+  public RoaringIntSet parse(String string) throws NumberFormatException {
+    return make(SparseIntSet.parseIntArray(string));
+  }
+
+  @Override
+  public RoaringIntSet makeCopy(IntSet x) throws IllegalArgumentException {
+    if (x == null) {
+      throw new IllegalArgumentException("x is null");
+    }
+    return new RoaringIntSet(x);
+  }
+
+  @Override
+  public RoaringIntSet make() {
+    return new RoaringIntSet();
+  }
+}
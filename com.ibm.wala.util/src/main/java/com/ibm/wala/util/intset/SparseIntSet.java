@@ -12,6 +12,7 @@ package com.ibm.wala.util.intset;
 
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.debug.UnimplementedError;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 import java.util.StringTokenizer;
 import java.util.TreeSet;
@@ -318,6 +319,21 @@ public class SparseIntSet implements IntSet {
     }
   }
 
+  /**
+   * @return the set of the elements of sorted[from] ... sorted[to-1], which must be in increasing
+   *     order
+   * @throws IllegalArgumentException if sorted is null
+   */
+  public static SparseIntSet copyOfRange(int[] sorted, int from, int to) {
+    if (sorted == null) {
+      throw new IllegalArgumentException("sorted is null");
+    }
+    if (to - from == 1) {
+      return singleton(sorted[from]);
+    }
+    return new SparseIntSet(Arrays.copyOfRange(sorted, from, to));
+  }
+
   public static SparseIntSet pair(int i, int j) {
     if (i == j) {
       return SparseIntSet.singleton(i);
@@ -516,6 +532,17 @@ public class SparseIntSet implements IntSet {
     return false;
   }
 
+  @Override
+  public int copyInto(int[] dest) {
+    if (dest == null || dest.length < size) {
+      throw new IllegalArgumentException("dest too small for " + size + " elements");
+    }
+    if (size > 0) {
+      System.arraycopy(elements, 0, dest, 0, size);
+    }
+    return size;
+  }
+
   /** @return contents as an int[] */
   public int[] toIntArray() {
     int[] result = new int[size];
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.intset;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A repository of shared immutable {@link SparseIntSet}s: {@link #findOrCreate(IntSet)} returns the
+ * same instance for all sets with the same elements, so that many equal sets take the memory of
+ * one. Unlike {@link BitVectorRepository}, sharing is exact, and lookups from several threads do
+ * not block each other.
+ */
+public class SparseIntSetRepository {
+
+  /** The elements of a set, compared by value */
+  private static final class Key {
+    private final int[] elements;
+
+    private final int hash;
+
+    Key(int[] elements) {
+      this.elements = elements;
+      this.hash = Arrays.hashCode(elements);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Key
+          && hash == ((Key) obj).hash
+          && Arrays.equals(elements, ((Key) obj).elements);
+    }
+  }
+
+  private final ConcurrentHashMap<Key, SparseIntSet> sets = new ConcurrentHashMap<>();
+
+  private final AtomicLong queries = new AtomicLong();
+
+  private final AtomicLong queriedElements = new AtomicLong();
+
+  private final AtomicLong sharedElements = new AtomicLong();
+
+  /**
+   * @return the set in this repository with the same elements as set, which is created if there is
+   *     none yet
+   * @throws IllegalArgumentException if set is null
+   */
+  public SparseIntSet findOrCreate(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    int[] elements = new int[set.size()];
+    int[] n = {0};
+    set.foreach(x -> elements[n[0]++] = x);
+    // not every IntSet enumerates its elements in order
+    Arrays.sort(elements);
+    queries.incrementAndGet();
+    queriedElements.addAndGet(elements.length);
+    Key key = new Key(elements);
+    SparseIntSet result = sets.get(key);
+    if (result == null) {
+      SparseIntSet fresh = new SparseIntSet(elements);
+      result = sets.putIfAbsent(key, fresh);
+      if (result == null) {
+        sharedElements.addAndGet(elements.length);
+        result = fresh;
+      }
+    }
+    return result;
+  }
+
+  /** @return the number of calls to {@link #findOrCreate(IntSet)} */
+  public long getNumberOfQueries() {
+    return queries.get();
+  }
+
+  /** @return the number of distinct sets in this repository */
+  public int getNumberOfSets() {
+    return sets.size();
+  }
+
+  /**
+   * @return the number of elements of all the sets passed to {@link #findOrCreate(IntSet)}, divided
+   *     by the number of elements of the distinct sets in this repository
+   */
+  public double getSharingRatio() {
+    long shared = sharedElements.get();
+    return shared == 0 ? 1.0 : (double) queriedElements.get() / shared;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d queries, %d distinct sets, %d of %d elements kept (%.1fx)",
+        queries.get(), sets.size(), sharedElements.get(), queriedElements.get(), getSharingRatio());
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ */
+package com.ibm.wala.util.io;
+
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.IntSetUtil;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact binary encodings of ints, strings and {@link IntSet}s.
+ *
+ * <p>Ints are written as unsigned LEB128 varints, so small values take a single byte. An {@link
+ * IntSet} is written as its size followed by the gaps between its sorted elements, which keeps
+ * dense sets of large numbers small as well.
+ */
+public class VarInts {
+
+  /** @throws IllegalArgumentException if i is negative */
+  public static void writeInt(DataOutput out, int i) throws IOException {
+    if (i < 0) {
+      throw new IllegalArgumentException("negative value " + i);
+    }
+    while ((i & ~0x7f) != 0) {
+      out.writeByte((i & 0x7f) | 0x80);
+      i >>>= 7;
+    }
+    out.writeByte(i);
+  }
+
+  public static int readInt(DataInput in) throws IOException {
+    int result = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte b = in.readByte();
+      result |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        if (result < 0) {
+          throw new IOException("malformed varint");
+        }
+        return result;
+      }
+    }
+    throw new IOException("malformed varint");
+  }
+
+  /** write an int which may be negative, zigzag-encoded so that small magnitudes stay small */
+  public static void writeSignedInt(DataOutput out, int i) throws IOException {
+    int zigzag = (i << 1) ^ (i >> 31);
+    while ((zigzag & ~0x7f) != 0) {
+      out.writeByte((zigzag & 0x7f) | 0x80);
+      zigzag >>>= 7;
+    }
+    out.writeByte(zigzag);
+  }
+
+  public static int readSignedInt(DataInput in) throws IOException {
+    int zigzag = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      byte b = in.readByte();
+      zigzag |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+      }
+    }
+    throw new IOException("malformed varint");
+  }
+
+  /** write a string as its length in bytes followed by its UTF-8 encoding */
+  public static void writeString(DataOutput out, String s) throws IOException {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    writeInt(out, bytes.length);
+    out.write(bytes);
+  }
+
+  public static String readString(DataInput in) throws IOException {
+    byte[] bytes = new byte[readInt(in)];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /** @throws IllegalArgumentException if s contains a negative number */
+  public static void writeIntSet(DataOutput out, IntSet s) throws IOException {
+    int[] elements = IntSetUtil.toArray(s);
+    Arrays.sort(elements);
+    writeInt(out, elements.length);
+    int last = 0;
+    for (int x : elements) {
+      writeInt(out, x - last);
+      last = x;
+    }
+  }
+
+  public static MutableSparseIntSet readIntSet(DataInput in) throws IOException {
+    int size = readInt(in);
+    MutableSparseIntSet result = MutableSparseIntSet.createMutableSparseIntSet(Math.max(size, 1));
+    int last = 0;
+    for (int i = 0; i < size; i++) {
+      last += readInt(in);
+      // elements arrive in increasing order, so each add appends
+      result.add(last);
+    }
+    return result;
+  }
+}